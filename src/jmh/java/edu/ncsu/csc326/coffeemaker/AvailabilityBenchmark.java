@@ -0,0 +1,90 @@
+package edu.ncsu.csc326.coffeemaker;
+
+import java.util.BitSet;
+import java.util.concurrent.TimeUnit;
+
+import edu.ncsu.csc326.coffeemaker.exceptions.RecipeException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of a kiosk asking which drinks can be made, by checking every
+ * recipe against the inventory or by reading the availability index,
+ * and what keeping the index costs each purchase.  The sold-out
+ * purchase orders a recipe the stock never covers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class AvailabilityBenchmark {
+
+    @Param({"synchronized", "atomic"})
+    public String engine;
+
+    @Param({"4", "64"})
+    public int recipes;
+
+    @Param({"false", "true"})
+    public boolean indexed;
+
+    private CoffeeMaker coffeeMaker;
+    private Inventory inventory;
+    private AvailabilityIndex index;
+
+    @Setup
+    public void setUp() throws RecipeException {
+        inventory = "atomic".equals(engine) ? new AtomicInventory() : new Inventory();
+        coffeeMaker = new CoffeeMaker(new RecipeBook(recipes + 1), inventory);
+        for (int i = 0; i < recipes; i++) {
+            coffeeMaker.addRecipe(new Recipe("Drink " + i, 50, new int[] {1, i % 2, 1, i % 3 == 0 ? 1 : 0}));
+        }
+        coffeeMaker.addRecipe(new Recipe("Bucket", 50, new int[] {0, 0, 0, AtomicInventory.MAX_UNITS}));
+        index = indexed ? coffeeMaker.trackAvailability() : null;
+    }
+
+    @Setup(Level.Iteration)
+    public void restock() {
+        inventory.setCoffee(60000);
+        inventory.setMilk(60000);
+        inventory.setSugar(60000);
+        inventory.setChocolate(60000);
+    }
+
+    @Benchmark
+    public BitSet poll() {
+        if (index != null) {
+            return index.getMakeable();
+        }
+        BitSet makeable = new BitSet();
+        Recipe[] menu = coffeeMaker.getRecipes();
+        for (int slot = 0; slot < menu.length; slot++) {
+            if (menu[slot] != null && inventory.enoughIngredients(menu[slot])) {
+                makeable.set(slot);
+            }
+        }
+        return makeable;
+    }
+
+    @Benchmark
+    public int purchase() {
+        return coffeeMaker.makeCoffee(0, 50);
+    }
+
+    @Benchmark
+    public int purchaseSoldOut() {
+        return coffeeMaker.makeCoffee(recipes, 50);
+    }
+}
@@ -0,0 +1,63 @@
+package edu.ncsu.csc326.coffeemaker;
+
+import java.util.concurrent.TimeUnit;
+
+import edu.ncsu.csc326.coffeemaker.change.CoinHopper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of paying change out of a CoinHopper, for a hopper low enough
+ * that every payout changes the capped counts and rebuilds the change
+ * table, and for one so large that the table is never rebuilt.  Each
+ * payout is put back so the hopper stays the same size.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ChangeDispenserBenchmark {
+
+    @Param({"10", "1000000000"})
+    public long coins;
+
+    @Param({"100", "1000"})
+    public int maxChange;
+
+    private CoinHopper hopper;
+    private int[] denominations;
+    private int[] paid;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        hopper = new CoinHopper(maxChange, 5, 10, 25, 100);
+        denominations = hopper.getDenominations();
+        for (int d : denominations) {
+            hopper.refill(d, coins);
+        }
+        paid = new int[denominations.length];
+    }
+
+    @Benchmark
+    public boolean pay() {
+        int amount = next;
+        next = amount + 5 > maxChange ? 0 : amount + 5;
+        boolean ok = hopper.pay(amount, paid);
+        for (int j = 0; ok && j < paid.length; j++) {
+            hopper.refill(denominations[j], paid[j]);
+        }
+        return ok;
+    }
+}
@@ -0,0 +1,82 @@
+package edu.ncsu.csc326.coffeemaker;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import edu.ncsu.csc326.coffeemaker.exceptions.RecipeException;
+import edu.ncsu.csc326.coffeemaker.journal.Checkpoint;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Time from nothing to the first sold beverage: loading a checkpoint
+ * of the menu against adding every recipe again.  Single-shot runs
+ * show the cold-start cost.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.AverageTime, Mode.SingleShotTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+public class CheckpointStartupBenchmark {
+
+    @Param({"100", "10000"})
+    public int recipes;
+
+    private Path dir;
+    private Path file;
+    private Recipe[] menu;
+
+    @Setup
+    public void setUp() throws IOException, RecipeException {
+        dir = Files.createTempDirectory("checkpoint-bench");
+        file = dir.resolve("menu.ckpt");
+        CoffeeMaker coffeeMaker = new CoffeeMaker(new RecipeBook(recipes), new Inventory());
+        for (int i = 0; i < recipes; i++) {
+            Recipe r = new Recipe();
+            r.setName("Drink " + i);
+            r.setPrice("50");
+            r.setAmtCoffee("1");
+            r.setAmtMilk(Integer.toString(i % 2));
+            r.setAmtSugar("1");
+            r.setAmtChocolate("0");
+            coffeeMaker.addRecipe(r);
+        }
+        menu = coffeeMaker.getRecipes();
+        Checkpoint.write(file, coffeeMaker);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+        Files.delete(dir);
+    }
+
+    @Benchmark
+    public int loadCheckpoint() throws IOException {
+        CoffeeMaker coffeeMaker = Checkpoint.load(file);
+        return coffeeMaker.makeCoffee(recipes / 2, 75);
+    }
+
+    @Benchmark
+    public int rebuildMenu() {
+        CoffeeMaker coffeeMaker = new CoffeeMaker(new RecipeBook(recipes), new Inventory());
+        for (Recipe r : menu) {
+            coffeeMaker.addRecipe(r);
+        }
+        return coffeeMaker.makeCoffee(recipes / 2, 75);
+    }
+}
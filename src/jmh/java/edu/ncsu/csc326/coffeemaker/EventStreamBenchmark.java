@@ -0,0 +1,93 @@
+package edu.ncsu.csc326.coffeemaker;
+
+import java.util.concurrent.TimeUnit;
+
+import edu.ncsu.csc326.coffeemaker.events.InventoryEvent;
+import edu.ncsu.csc326.coffeemaker.events.InventoryEventStream;
+import edu.ncsu.csc326.coffeemaker.events.WaitStrategy;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * What publishing to an InventoryEventStream adds to makeCoffee, and
+ * the cost of a dashboard reading the stock by polling checkInventory
+ * against reading the latest event.  Run with {@code -prof gc} to see
+ * that publishing allocates nothing.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class EventStreamBenchmark {
+
+    @Param({"synchronized", "atomic"})
+    public String engine;
+
+    @Param({"false", "true"})
+    public boolean publish;
+
+    private CoffeeMaker coffeeMaker;
+    private Inventory inventory;
+    private InventoryEventStream stream;
+
+    @Setup
+    public void setUp() throws Exception {
+        inventory = "atomic".equals(engine) ? new AtomicInventory() : new Inventory();
+        coffeeMaker = new CoffeeMaker(new RecipeBook(), inventory);
+        coffeeMaker.addRecipe(new Recipe("Coffee", 50, new int[] {1, 1, 1, 0}));
+        stream = new InventoryEventStream(1 << 12);
+        if (publish) {
+            stream.attach(inventory);
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void restock() {
+        inventory.setCoffee(60000);
+        inventory.setMilk(60000);
+        inventory.setSugar(60000);
+    }
+
+    /** A dashboard's own position in the stream */
+    @State(Scope.Thread)
+    public static class Dashboard {
+        InventoryEventStream.Consumer consumer;
+        final InventoryEvent event = new InventoryEvent();
+
+        @Setup
+        public void setUp(EventStreamBenchmark benchmark) {
+            consumer = benchmark.stream.newConsumer(WaitStrategy.busySpin());
+        }
+    }
+
+    @Benchmark
+    public int makeCoffee() {
+        return coffeeMaker.makeCoffee(0, 50);
+    }
+
+    @Benchmark
+    public String checkInventory() {
+        return coffeeMaker.checkInventory();
+    }
+
+    @Benchmark
+    public int readEvents(Dashboard dashboard) {
+        int read = 0;
+        while (dashboard.consumer.poll(dashboard.event)) {
+            read++;
+        }
+        return read + dashboard.event.getStock(IngredientRegistry.COFFEE);
+    }
+}
@@ -0,0 +1,88 @@
+package edu.ncsu.csc326.coffeemaker;
+
+import java.io.BufferedWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import edu.ncsu.csc326.coffeemaker.analytics.HistoryAnalyzer;
+import edu.ncsu.csc326.coffeemaker.analytics.HistoryReport;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * How the HistoryAnalyzer scales with the number of fork/join
+ * workers on a generated history of orders and restocks.  With
+ * {@code -p stockouts=true} the history is restocked too little
+ * for part of the time, and the ranges in which the stock runs
+ * short are replayed one after another.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class HistoryAnalyzerBenchmark {
+
+    @Param({"20000000"})
+    public int events;
+
+    @Param({"1", "2", "4", "8", "16", "32"})
+    public int workers;
+
+    @Param({"false", "true"})
+    public boolean stockouts;
+
+    private Path file;
+    private ForkJoinPool pool;
+    private HistoryAnalyzer analyzer;
+
+    @Setup
+    public void setUp() throws Exception {
+        file = Files.createTempFile("history", ".trace");
+        Random random = new Random(42);
+        try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.US_ASCII)) {
+            long time = 0;
+            for (int i = 0; i < events; i++) {
+                time += random.nextInt(50);
+                boolean starved = stockouts && (i / (events / 10)) % 2 == 1;
+                if (i % (starved ? 400 : 40) == 0) {
+                    out.write(time + " RESTOCK 200 100 60 20\n");
+                } else {
+                    out.write(time + " MAKE " + random.nextInt(4) + " " + (40 + random.nextInt(80)) + "\n");
+                }
+            }
+        }
+        CoffeeMaker coffeeMaker = new CoffeeMaker(new RecipeBook(), new Inventory());
+        coffeeMaker.addRecipe(new Recipe("Coffee", 50, new int[] {3, 1, 1, 0}));
+        coffeeMaker.addRecipe(new Recipe("Latte", 100, new int[] {3, 3, 1, 0}));
+        coffeeMaker.addRecipe(new Recipe("Mocha", 75, new int[] {3, 1, 1, 2}));
+        pool = new ForkJoinPool(workers);
+        analyzer = new HistoryAnalyzer(coffeeMaker, pool);
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        pool.shutdown();
+        Files.delete(file);
+    }
+
+    @Benchmark
+    public HistoryReport analyze() throws Exception {
+        return analyzer.analyze(file);
+    }
+}
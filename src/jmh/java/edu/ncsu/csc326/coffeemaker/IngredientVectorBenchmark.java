@@ -0,0 +1,67 @@
+package edu.ncsu.csc326.coffeemaker;
+
+import java.util.concurrent.TimeUnit;
+
+import edu.ncsu.csc326.coffeemaker.exceptions.RecipeException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of {@code enoughIngredients} and {@code useIngredients} as the
+ * number of ingredients in a recipe grows.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class IngredientVectorBenchmark {
+
+    @Param({"4", "16", "64"})
+    public int ingredients;
+
+    private Inventory inventory;
+    private Recipe recipe;
+
+    @Setup
+    public void setUp() throws RecipeException {
+        inventory = new Inventory();
+        recipe = new Recipe();
+        recipe.setName("Everything");
+        for (int i = 0; i < ingredients; i++) {
+            int id = i < IngredientRegistry.BUILT_IN ? i : IngredientRegistry.register("Benchmark ingredient " + i);
+            recipe.setAmount(id, "1");
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void restock() {
+        int[] need = recipe.getRequirements();
+        for (int id = 0; id < need.length; id++) {
+            if (need[id] > 0) {
+                inventory.setStock(id, Integer.MAX_VALUE);
+            }
+        }
+    }
+
+    @Benchmark
+    public boolean enoughIngredients() {
+        return inventory.enoughIngredients(recipe);
+    }
+
+    @Benchmark
+    public boolean useIngredients() {
+        return inventory.useIngredients(recipe);
+    }
+}
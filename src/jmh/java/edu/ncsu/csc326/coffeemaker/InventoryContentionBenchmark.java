@@ -0,0 +1,73 @@
+package edu.ncsu.csc326.coffeemaker;
+
+import java.util.concurrent.TimeUnit;
+
+import edu.ncsu.csc326.coffeemaker.exceptions.RecipeException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Contention benchmark for the purchase path of the synchronized
+ * {@link Inventory} against the lock-free {@link AtomicInventory}.
+ * Every thread deducts from the same inventory; whichever thread
+ * finds it empty restocks it.  Run with {@code -t} to vary the
+ * thread count, for example {@code ./gradlew jmh -PjmhArgs="-t 8"}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@Threads(4)
+public class InventoryContentionBenchmark {
+
+    @Param({"synchronized", "atomic"})
+    public String engine;
+
+    private Inventory inventory;
+    private Recipe recipe;
+
+    @Setup
+    public void setUp() throws RecipeException {
+        inventory = "atomic".equals(engine) ? new AtomicInventory() : new Inventory();
+        recipe = new Recipe();
+        recipe.setName("Espresso");
+        recipe.setAmtCoffee("1");
+        recipe.setAmtMilk("1");
+        recipe.setAmtSugar("1");
+        recipe.setAmtChocolate("1");
+        restock();
+    }
+
+    @Benchmark
+    public boolean useIngredients() {
+        if (inventory.useIngredients(recipe)) {
+            return true;
+        }
+        restock();
+        return false;
+    }
+
+    @Benchmark
+    public boolean enoughIngredients() {
+        return inventory.enoughIngredients(recipe);
+    }
+
+    private void restock() {
+        inventory.setCoffee(AtomicInventory.MAX_UNITS);
+        inventory.setMilk(AtomicInventory.MAX_UNITS);
+        inventory.setSugar(AtomicInventory.MAX_UNITS);
+        inventory.setChocolate(AtomicInventory.MAX_UNITS);
+    }
+}
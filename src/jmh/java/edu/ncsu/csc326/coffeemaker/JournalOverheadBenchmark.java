@@ -0,0 +1,88 @@
+package edu.ncsu.csc326.coffeemaker;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import edu.ncsu.csc326.coffeemaker.exceptions.RecipeException;
+import edu.ncsu.csc326.coffeemaker.journal.Journal;
+import edu.ncsu.csc326.coffeemaker.journal.JournaledCoffeeMaker;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * makeCoffee throughput with and without the write-ahead journal.
+ * "memory" is the plain CoffeeMaker, "deferred" journals every
+ * purchase and flushes every 5ms, and "group" waits for the group
+ * commit on every purchase.  Run with {@code -PjmhThreads=8}: the
+ * deferred journal should stay within 20% of "memory".
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class JournalOverheadBenchmark {
+
+    @Param({"memory", "deferred", "group"})
+    public String durability;
+
+    private Path dir;
+    private CoffeeMaker coffeeMaker;
+    private Inventory inventory;
+
+    @Setup
+    public void setUp() throws IOException, RecipeException {
+        dir = Files.createTempDirectory("journal-bench");
+        inventory = new Inventory();
+        if ("memory".equals(durability)) {
+            coffeeMaker = new CoffeeMaker(new RecipeBook(), inventory);
+        } else {
+            coffeeMaker = JournaledCoffeeMaker.open(dir.resolve("bench.wal"), new RecipeBook(), inventory,
+                    "deferred".equals(durability) ? 5 : 0);
+        }
+        Recipe r = new Recipe();
+        r.setName("Coffee");
+        r.setPrice("50");
+        r.setAmtCoffee("1");
+        r.setAmtMilk("1");
+        r.setAmtSugar("0");
+        r.setAmtChocolate("0");
+        coffeeMaker.addRecipe(r);
+    }
+
+    /** Enough stock that every order in an iteration is journaled */
+    @Setup(Level.Iteration)
+    public void restock() {
+        inventory.setCoffee(Integer.MAX_VALUE);
+        inventory.setMilk(Integer.MAX_VALUE);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        if (coffeeMaker instanceof JournaledCoffeeMaker) {
+            Journal journal = ((JournaledCoffeeMaker) coffeeMaker).getJournal();
+            journal.close();
+        }
+        Files.deleteIfExists(dir.resolve("bench.wal"));
+        Files.delete(dir);
+    }
+
+    @Benchmark
+    public int makeCoffee() {
+        return coffeeMaker.makeCoffee(0, 75);
+    }
+}
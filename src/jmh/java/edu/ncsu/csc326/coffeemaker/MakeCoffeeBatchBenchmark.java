@@ -0,0 +1,88 @@
+package edu.ncsu.csc326.coffeemaker;
+
+import java.util.concurrent.TimeUnit;
+
+import edu.ncsu.csc326.coffeemaker.exceptions.RecipeException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Compares making {@link #BATCH} orders one {@code makeCoffee} call at
+ * a time against a single {@code makeCoffeeBatch} call.  Scores are
+ * reported per order so the two are directly comparable.  Add
+ * {@code -t N} to measure them under contention.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class MakeCoffeeBatchBenchmark {
+
+    static final int BATCH = 64;
+
+    private CoffeeMaker coffeeMaker;
+    private Inventory inventory;
+    private final int[] recipes = new int[BATCH];
+    private final int[] paid = new int[BATCH];
+
+    @Setup
+    public void setUp() throws RecipeException {
+        inventory = new Inventory();
+        coffeeMaker = new CoffeeMaker(new RecipeBook(), inventory);
+        for (int i = 0; i < 3; i++) {
+            Recipe recipe = new Recipe();
+            recipe.setName("Recipe " + i);
+            recipe.setPrice(Integer.toString(50 + i * 10));
+            recipe.setAmtCoffee("1");
+            recipe.setAmtMilk(Integer.toString(i));
+            recipe.setAmtSugar("1");
+            recipe.setAmtChocolate("0");
+            coffeeMaker.addRecipe(recipe);
+        }
+        for (int i = 0; i < BATCH; i++) {
+            recipes[i] = i % 3;
+            paid[i] = 100;
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void restock() {
+        inventory.setCoffee(1 << 29);
+        inventory.setMilk(1 << 29);
+        inventory.setSugar(1 << 29);
+        inventory.setChocolate(1 << 29);
+    }
+
+    /** Per-thread change buffer so the batch path allocates nothing */
+    @State(Scope.Thread)
+    public static class ChangeBuffer {
+        final int[] change = new int[BATCH];
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void singleOrders(Blackhole bh) {
+        for (int i = 0; i < BATCH; i++) {
+            bh.consume(coffeeMaker.makeCoffee(recipes[i], paid[i]));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public int batchOrders(ChangeBuffer buffer) {
+        return coffeeMaker.makeCoffeeBatch(recipes, paid, buffer.change);
+    }
+}
@@ -0,0 +1,71 @@
+package edu.ncsu.csc326.coffeemaker;
+
+import java.util.concurrent.TimeUnit;
+
+import edu.ncsu.csc326.coffeemaker.exceptions.RecipeException;
+import edu.ncsu.csc326.coffeemaker.metrics.InstrumentedCoffeeMaker;
+import edu.ncsu.csc326.coffeemaker.metrics.PurchaseMetrics;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of purchase metrics on makeCoffee.  "plain" is the bare
+ * CoffeeMaker; the other variants count every order and time one in
+ * 2^sampleShift.  The difference against "plain" is the per-order
+ * overhead, which should stay well under 50ns.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class MetricsOverheadBenchmark {
+
+    @Param({"plain", "instrumented"})
+    public String variant;
+
+    @Param({"0", "3", "6", "8"})
+    public int sampleShift;
+
+    private CoffeeMaker coffeeMaker;
+    private Inventory inventory;
+
+    @Setup
+    public void setUp() throws RecipeException {
+        inventory = new AtomicInventory();
+        coffeeMaker = "plain".equals(variant)
+                ? new CoffeeMaker(new RecipeBook(), inventory)
+                : new InstrumentedCoffeeMaker(new RecipeBook(), inventory, new PurchaseMetrics(sampleShift));
+        Recipe r = new Recipe();
+        r.setName("Coffee");
+        r.setPrice("50");
+        r.setAmtCoffee("1");
+        r.setAmtMilk("0");
+        r.setAmtSugar("0");
+        r.setAmtChocolate("0");
+        coffeeMaker.addRecipe(r);
+    }
+
+    @Setup(Level.Iteration)
+    public void restock() {
+        inventory.setCoffee(AtomicInventory.MAX_UNITS);
+    }
+
+    /** Orders mostly hit the refund path once coffee runs out, which
+     *  keeps the inventory cost constant across the iteration. */
+    @Benchmark
+    public int makeCoffee() {
+        return coffeeMaker.makeCoffee(0, 75);
+    }
+}
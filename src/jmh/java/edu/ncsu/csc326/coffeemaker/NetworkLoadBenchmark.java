@@ -0,0 +1,139 @@
+package edu.ncsu.csc326.coffeemaker;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import edu.ncsu.csc326.coffeemaker.exceptions.RecipeException;
+import edu.ncsu.csc326.coffeemaker.net.CoffeeServer;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Loopback load test of the CoffeeServer.  Every benchmark thread
+ * opens {@code connections} connections and, per invocation, writes
+ * {@code pipeline} MAKE requests on each before reading all the
+ * responses.  The "requests" counter is the request throughput;
+ * compare it across connection counts, pipeline depths, event loop
+ * counts and {@code -PjmhThreads}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class NetworkLoadBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Server {
+        @Param({"1", "4"})
+        public int loops;
+
+        CoffeeServer server;
+        Inventory inventory;
+
+        @Setup
+        public void start() throws IOException, RecipeException {
+            inventory = new AtomicInventory();
+            CoffeeMaker coffeeMaker = new CoffeeMaker(new RecipeBook(), inventory);
+            Recipe r = new Recipe();
+            r.setName("Coffee");
+            r.setPrice(50);
+            r.setAmtCoffee(1);
+            coffeeMaker.addRecipe(r);
+            server = new CoffeeServer(coffeeMaker, new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), loops);
+        }
+
+        /** Refills the coffee so most requests are sales */
+        @Setup(Level.Iteration)
+        public void restock() {
+            inventory.setCoffee(AtomicInventory.MAX_UNITS);
+        }
+
+        @TearDown
+        public void stop() throws IOException {
+            server.close();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Clients {
+        @Param({"1", "16", "256"})
+        public int connections;
+
+        @Param({"1", "32"})
+        public int pipeline;
+
+        SocketChannel[] channels;
+        ByteBuffer requests;
+        ByteBuffer responses;
+
+        @Setup
+        public void connect(Server server) throws IOException {
+            channels = new SocketChannel[connections];
+            for (int i = 0; i < connections; i++) {
+                channels[i] = SocketChannel.open(server.server.getAddress());
+            }
+            StringBuilder batch = new StringBuilder();
+            for (int i = 0; i < pipeline; i++) {
+                batch.append("MAKE 0 50\n");
+            }
+            requests = ByteBuffer.wrap(batch.toString().getBytes(StandardCharsets.US_ASCII));
+            responses = ByteBuffer.allocate(64 * 1024);
+        }
+
+        @TearDown
+        public void close() throws IOException {
+            for (SocketChannel channel : channels) {
+                channel.close();
+            }
+        }
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Counters {
+        public long requests;
+    }
+
+    @Benchmark
+    public void roundTrip(Clients clients, Counters counters) throws IOException {
+        for (SocketChannel channel : clients.channels) {
+            ByteBuffer batch = clients.requests.duplicate();
+            while (batch.hasRemaining()) {
+                channel.write(batch);
+            }
+        }
+        for (SocketChannel channel : clients.channels) {
+            int lines = 0;
+            while (lines < clients.pipeline) {
+                clients.responses.clear();
+                if (channel.read(clients.responses) < 0) {
+                    throw new IOException("Server closed the connection");
+                }
+                for (int i = 0; i < clients.responses.position(); i++) {
+                    if (clients.responses.get(i) == '\n') {
+                        lines++;
+                    }
+                }
+            }
+        }
+        counters.requests += (long) clients.connections * clients.pipeline;
+    }
+}
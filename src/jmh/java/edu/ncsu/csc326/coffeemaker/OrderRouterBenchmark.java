@@ -0,0 +1,72 @@
+package edu.ncsu.csc326.coffeemaker;
+
+import java.util.concurrent.TimeUnit;
+
+import edu.ncsu.csc326.coffeemaker.fleet.OrderRouter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of an OrderRouter routing decision and of a routed purchase
+ * as the fleet grows, for both policies.  One machine in eight is
+ * out of milk, so it is never a target for the latte.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class OrderRouterBenchmark {
+
+    @Param({"10", "100", "1000"})
+    public int machines;
+
+    @Param({"leastLoaded", "twoChoices"})
+    public String policy;
+
+    private CoffeeMaker[] fleet;
+    private OrderRouter router;
+
+    @Setup
+    public void setUp() throws Exception {
+        fleet = new CoffeeMaker[machines];
+        for (int i = 0; i < machines; i++) {
+            fleet[i] = new CoffeeMaker(new RecipeBook(), new Inventory());
+            fleet[i].addRecipe(new Recipe("Latte", 100, new int[] {1, 1, 1, 0}));
+        }
+        router = new OrderRouter("twoChoices".equals(policy) ? OrderRouter.TWO_CHOICES : OrderRouter.LEAST_LOADED,
+                OrderRouter.ATTEMPTS, fleet);
+    }
+
+    /** Enough stock that an iteration never sells a machine out */
+    @Setup(Level.Iteration)
+    public void restock() {
+        for (int i = 0; i < machines; i++) {
+            Inventory inventory = fleet[i].getInventory();
+            inventory.setCoffee(1 << 30);
+            inventory.setMilk(i % 8 == 0 ? 0 : 1 << 30);
+            inventory.setSugar(1 << 30);
+        }
+    }
+
+    @Benchmark
+    public int route() {
+        return router.route(0);
+    }
+
+    @Benchmark
+    public long purchase() {
+        return router.purchase(0, 100);
+    }
+}
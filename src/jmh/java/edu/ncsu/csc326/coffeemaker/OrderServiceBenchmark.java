@@ -0,0 +1,96 @@
+package edu.ncsu.csc326.coffeemaker;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import edu.ncsu.csc326.coffeemaker.exceptions.RecipeException;
+import edu.ncsu.csc326.coffeemaker.service.OrderResult;
+import edu.ncsu.csc326.coffeemaker.service.OrderService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Bursts of orders through the OrderService: each invocation places
+ * {@code pending} orders without waiting and then joins them all.
+ * "virtual" uses a virtual thread per order (Java 21+, otherwise it
+ * falls back to the pool), "pool" a bounded pool.  The order latency
+ * percentiles so far, queueing included, are printed at the end of
+ * each iteration; p99 should stay flat as {@code pending} grows.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class OrderServiceBenchmark {
+
+    @Param({"virtual", "pool"})
+    public String executor;
+
+    @Param({"1000", "100000"})
+    public int pending;
+
+    private Inventory inventory;
+    private ExecutorService threads;
+    private OrderService service;
+    private CompletableFuture<?>[] orders;
+
+    @Setup
+    public void setUp() throws RecipeException {
+        inventory = new Inventory();
+        CoffeeMaker coffeeMaker = new CoffeeMaker(new RecipeBook(), inventory);
+        Recipe r = new Recipe();
+        r.setName("Coffee");
+        r.setPrice(50);
+        r.setAmtCoffee(1);
+        coffeeMaker.addRecipe(r);
+        threads = "virtual".equals(executor) ? OrderService.newVirtualThreadExecutor() : null;
+        if (threads == null) {
+            threads = OrderService.newExecutor(pending);
+        }
+        service = new OrderService(coffeeMaker, threads, pending);
+        orders = new CompletableFuture<?>[pending];
+    }
+
+    /** Keeps the coffee in stock so every order is a sale */
+    @Setup(Level.Iteration)
+    public void restock() {
+        inventory.setCoffee(Integer.MAX_VALUE);
+    }
+
+    @TearDown(Level.Iteration)
+    public void report() {
+        System.out.println("order latency: " + service.getLatency());
+    }
+
+    @TearDown
+    public void tearDown() {
+        service.close();
+        threads.shutdown();
+    }
+
+    @Benchmark
+    public int burst() {
+        for (int i = 0; i < pending; i++) {
+            orders[i] = service.order(0, 50);
+        }
+        int change = 0;
+        for (int i = 0; i < pending; i++) {
+            change += ((OrderResult) orders[i].join()).getChange();
+        }
+        return change;
+    }
+}
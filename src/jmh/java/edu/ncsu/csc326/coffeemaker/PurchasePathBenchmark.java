@@ -0,0 +1,137 @@
+package edu.ncsu.csc326.coffeemaker;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import edu.ncsu.csc326.coffeemaker.exceptions.RecipeException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Throughput and latency distribution of the purchase path across
+ * inventory engines, recipe book sizes and stock levels.  Every
+ * thread puts back the ingredients its orders used once every
+ * {@value #RESTOCK_EVERY} orders, so the restock is amortized into the
+ * measurement and the stock level holds for the whole iteration.
+ * With high stock every order succeeds; with low stock the threads
+ * use it up between restocks and most orders take the refund path.
+ * The thread count comes from the {@code jmh} task's
+ * {@code -PjmhThreads} sweep.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class PurchasePathBenchmark {
+    /** Orders a thread places between putting back what they used */
+    static final int RESTOCK_EVERY = 256;
+
+    @Param({"synchronized", "atomic"})
+    public String engine;
+
+    @Param({"4", "1000"})
+    public int recipes;
+
+    /** Units of every ingredient in stock at the start of each iteration */
+    @Param({"100", "60000"})
+    public int stock;
+
+    private CoffeeMaker coffeeMaker;
+    private Inventory inventory;
+    private Recipe recipe;
+    /** Amounts of the built-in ingredients by recipe slot */
+    private int[][] amounts;
+
+    @Setup
+    public void setUp() throws RecipeException {
+        inventory = "atomic".equals(engine) ? new AtomicInventory() : new Inventory();
+        coffeeMaker = new CoffeeMaker(new RecipeBook(recipes), inventory);
+        for (int i = 0; i < recipes; i++) {
+            Recipe r = new Recipe();
+            r.setName("Drink " + i);
+            r.setPrice("50");
+            r.setAmtCoffee("1");
+            r.setAmtMilk(Integer.toString(i % 2));
+            r.setAmtSugar("1");
+            r.setAmtChocolate(Integer.toString(i % 3 == 0 ? 1 : 0));
+            coffeeMaker.addRecipe(r);
+        }
+        recipe = coffeeMaker.getRecipes()[0];
+        amounts = new int[recipes][IngredientRegistry.BUILT_IN];
+        for (int i = 0; i < recipes; i++) {
+            for (int j = 0; j < IngredientRegistry.BUILT_IN; j++) {
+                amounts[i][j] = coffeeMaker.getRecipes()[i].getAmount(j);
+            }
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void restock() {
+        inventory.setCoffee(stock);
+        inventory.setMilk(stock);
+        inventory.setSugar(stock);
+        inventory.setChocolate(stock);
+    }
+
+    /**
+     * Per-thread cursor so threads spread orders over the menu, and
+     * the ingredients the thread's orders used since its last restock
+     */
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+        int orders;
+        final int[] used = new int[IngredientRegistry.BUILT_IN];
+
+        int nextSlot(int recipes) {
+            int slot = next;
+            next = slot + 1 == recipes ? 0 : slot + 1;
+            return slot;
+        }
+
+        void order(Inventory inventory, int[] amounts, boolean sold) {
+            if (sold) {
+                for (int i = 0; i < used.length; i++) {
+                    used[i] += amounts[i];
+                }
+            }
+            if (++orders == RESTOCK_EVERY) {
+                inventory.tryRestock(used[0], used[1], used[2], used[3]);
+                Arrays.fill(used, 0);
+                orders = 0;
+            }
+        }
+    }
+
+    @Benchmark
+    public int makeCoffee(Cursor cursor) {
+        int slot = cursor.nextSlot(recipes);
+        int change = coffeeMaker.makeCoffee(slot, 75);
+        cursor.order(inventory, amounts[slot], change != 75);
+        return change;
+    }
+
+    @Benchmark
+    public boolean useIngredients(Cursor cursor) {
+        boolean sold = inventory.useIngredients(recipe);
+        cursor.order(inventory, amounts[0], sold);
+        return sold;
+    }
+
+    @Benchmark
+    public boolean enoughIngredients() {
+        return inventory.enoughIngredients(recipe);
+    }
+}
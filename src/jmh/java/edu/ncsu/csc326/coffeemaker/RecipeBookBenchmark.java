@@ -0,0 +1,81 @@
+package edu.ncsu.csc326.coffeemaker;
+
+import java.util.concurrent.TimeUnit;
+
+import edu.ncsu.csc326.coffeemaker.exceptions.RecipeException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Add, lookup and delete cost of a {@link RecipeBook} that already
+ * holds {@code size} recipes.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class RecipeBookBenchmark {
+
+    @Param({"10000"})
+    public int size;
+
+    private RecipeBook recipeBook;
+    private Recipe extra;
+    private String[] names;
+    private int next;
+
+    @Setup
+    public void setUp() throws RecipeException {
+        recipeBook = new RecipeBook();
+        names = new String[size];
+        for (int i = 0; i < size; i++) {
+            names[i] = "Drink " + i;
+            Recipe recipe = new Recipe();
+            recipe.setName(names[i]);
+            recipe.setPrice("50");
+            recipeBook.addRecipe(recipe);
+        }
+        extra = new Recipe();
+        extra.setName("Seasonal special");
+    }
+
+    /** Adds a recipe to the full book and deletes it again */
+    @Benchmark
+    public String addThenDelete() {
+        recipeBook.addRecipe(extra);
+        return recipeBook.deleteRecipe(recipeBook.indexOf(extra.getName()));
+    }
+
+    /** Duplicate check of an existing name, the common reject path */
+    @Benchmark
+    public boolean addDuplicate() {
+        return recipeBook.addRecipe(recipeBook.getRecipe(nextSlot()));
+    }
+
+    @Benchmark
+    public int lookupByName() {
+        return recipeBook.indexOf(names[nextSlot()]);
+    }
+
+    @Benchmark
+    public Recipe lookupBySlot() {
+        return recipeBook.getRecipe(nextSlot());
+    }
+
+    private int nextSlot() {
+        int slot = next;
+        next = slot + 1 == size ? 0 : slot + 1;
+        return slot;
+    }
+}
@@ -0,0 +1,63 @@
+package edu.ncsu.csc326.coffeemaker;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import edu.ncsu.csc326.coffeemaker.importer.ImportReport;
+import edu.ncsu.csc326.coffeemaker.importer.RecipeImporter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Time to import a generated menu file into an empty recipe book.
+ * The 1M-recipe case should finish in under a second.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class RecipeImportBenchmark {
+
+    @Param({"10000", "1000000"})
+    public int recipes;
+
+    private Path file;
+
+    @Setup
+    public void setUp() throws IOException {
+        file = Files.createTempFile("menu", ".csv");
+        try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            out.write("name,price,coffee,milk,sugar,chocolate\n");
+            for (int i = 0; i < recipes; i++) {
+                out.write("Drink " + i + "," + (50 + i % 50) + ",1," + (i % 3) + ",1," + (i % 2) + "\n");
+            }
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.delete(file);
+    }
+
+    @Benchmark
+    public long importMenu() throws IOException {
+        ImportReport report = new RecipeImporter().importFile(file, new RecipeBook(recipes));
+        return report.getImported();
+    }
+}
@@ -0,0 +1,95 @@
+package edu.ncsu.csc326.coffeemaker;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import edu.ncsu.csc326.coffeemaker.ledger.SalesLedger;
+import edu.ncsu.csc326.coffeemaker.ledger.SalesSummary;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * How long the SalesLedger takes to aggregate a day of sales on a
+ * fork/join pool of the given size, with the sealed chunks on the
+ * heap or spilled to memory-mapped files.  The default of 100M rows
+ * needs about 1.6 GB of heap unless the chunks are spilled.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class SalesLedgerBenchmark {
+    private static final long START = 1700000000000L;
+    private static final long DAY = 24 * SalesLedger.HOUR;
+
+    @Param({"100000000"})
+    public int rows;
+
+    @Param({"1", "4", "0"})
+    public int threads;
+
+    @Param({"false", "true"})
+    public boolean spill;
+
+    private ForkJoinPool pool;
+    private SalesLedger ledger;
+    private Path dir;
+
+    @Setup
+    public void setUp() throws Exception {
+        pool = threads == 0 ? ForkJoinPool.commonPool() : new ForkJoinPool(threads);
+        ledger = new SalesLedger(SalesLedger.CHUNK_ROWS, pool);
+        for (int i = 0; i < rows; i++) {
+            ledger.record(i % 12, 100, i & 63, START + (long) i * DAY / rows);
+        }
+        if (spill) {
+            dir = Files.createTempDirectory("ledger");
+            ledger.spill(dir);
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        if (pool != ForkJoinPool.commonPool()) {
+            pool.shutdown();
+        }
+        if (dir != null) {
+            try (Stream<Path> files = Files.list(dir)) {
+                for (Path p : (Iterable<Path>) files::iterator) {
+                    Files.delete(p);
+                }
+            }
+            Files.delete(dir);
+        }
+    }
+
+    @Benchmark
+    public SalesSummary revenuePerRecipe() {
+        return ledger.summarize();
+    }
+
+    @Benchmark
+    public long[] revenuePerHour() {
+        return ledger.revenueByHour(START, START + DAY);
+    }
+
+    @Benchmark
+    public long revenueOverAfternoon() {
+        return ledger.revenue(START + 12 * SalesLedger.HOUR, START + 18 * SalesLedger.HOUR);
+    }
+}
@@ -0,0 +1,112 @@
+package edu.ncsu.csc326.coffeemaker;
+
+import java.util.concurrent.TimeUnit;
+
+import edu.ncsu.csc326.coffeemaker.exceptions.InventoryException;
+import edu.ncsu.csc326.coffeemaker.exceptions.RecipeException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * String-based entry points: restocking through {@code addX(String)},
+ * building recipes through {@code Recipe.setX(String)} and adding
+ * them through {@code RecipeBook.addRecipe} at different book sizes,
+ * next to the typed {@code int} overloads and the single-lock
+ * {@code Inventory.restock}.  Run with the GC profiler to see the
+ * allocation per call; the typed paths should allocate nothing.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class TextInputBenchmark {
+
+    @Param({"4", "1000", "10000"})
+    public int recipes;
+
+    private Inventory inventory;
+    private RecipeBook recipeBook;
+    private Recipe recipe;
+    private Recipe extra;
+
+    @Setup
+    public void setUp() throws RecipeException {
+        inventory = new Inventory();
+        recipeBook = new RecipeBook();
+        for (int i = 0; i < recipes; i++) {
+            Recipe r = new Recipe();
+            r.setName("Drink " + i);
+            recipeBook.addRecipe(r);
+        }
+        recipe = new Recipe();
+        extra = new Recipe();
+        extra.setName("Seasonal special");
+    }
+
+    @Setup(Level.Iteration)
+    public void resetStock() {
+        inventory.setCoffee(0);
+        inventory.setMilk(0);
+        inventory.setSugar(0);
+        inventory.setChocolate(0);
+    }
+
+    @Benchmark
+    public void inventoryAddAll() throws InventoryException {
+        inventory.addCoffee("1");
+        inventory.addMilk("1");
+        inventory.addSugar("1");
+        inventory.addChocolate("1");
+    }
+
+    @Benchmark
+    public void inventoryAddAllTyped() throws InventoryException {
+        inventory.addCoffee(1);
+        inventory.addMilk(1);
+        inventory.addSugar(1);
+        inventory.addChocolate(1);
+    }
+
+    @Benchmark
+    public void inventoryRestock() throws InventoryException {
+        inventory.restock(1, 1, 1, 1);
+    }
+
+    @Benchmark
+    public Recipe recipeSetAll() throws RecipeException {
+        recipe.setPrice("75");
+        recipe.setAmtCoffee("3");
+        recipe.setAmtMilk("1");
+        recipe.setAmtSugar("1");
+        recipe.setAmtChocolate("2");
+        return recipe;
+    }
+
+    @Benchmark
+    public Recipe recipeSetAllTyped() throws RecipeException {
+        recipe.setPrice(75);
+        recipe.setAmtCoffee(3);
+        recipe.setAmtMilk(1);
+        recipe.setAmtSugar(1);
+        recipe.setAmtChocolate(2);
+        return recipe;
+    }
+
+    @Benchmark
+    public String recipeBookAddRecipe() {
+        recipeBook.addRecipe(extra);
+        return recipeBook.deleteRecipe(recipeBook.indexOf(extra.getName()));
+    }
+}
@@ -0,0 +1,73 @@
+package edu.ncsu.csc326.coffeemaker;
+
+import java.util.concurrent.TimeUnit;
+
+import edu.ncsu.csc326.coffeemaker.exceptions.InventoryException;
+import edu.ncsu.csc326.coffeemaker.exceptions.RecipeException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Rejection throughput of the throwing setters against the status
+ * methods they wrap, for a malformed and a negative amount.  The
+ * throwing benchmarks catch the exception, as a feed loader would.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ValidationBenchmark {
+
+    @Param({"-5", "five"})
+    public String amount;
+
+    private Inventory inventory;
+    private Recipe recipe;
+
+    @Setup
+    public void setUp() {
+        inventory = new Inventory();
+        recipe = new Recipe();
+    }
+
+    @Benchmark
+    public boolean inventoryException() {
+        try {
+            inventory.addSugar(amount);
+            return true;
+        } catch (InventoryException e) {
+            return false;
+        }
+    }
+
+    @Benchmark
+    public boolean inventoryStatus() {
+        return Status.isOk(inventory.tryAddStock(IngredientRegistry.SUGAR, amount));
+    }
+
+    @Benchmark
+    public boolean recipeException() {
+        try {
+            recipe.setPrice(amount);
+            return true;
+        } catch (RecipeException e) {
+            return false;
+        }
+    }
+
+    @Benchmark
+    public boolean recipeStatus() {
+        return Status.isOk(recipe.trySetPrice(amount));
+    }
+}
@@ -0,0 +1,323 @@
+/*
+ * Copyright (c) 2009,  Sarah Heckman, Laurie Williams, Dright Ho
+ * All Rights Reserved.
+ *
+ * Permission has been explicitly granted to the University of Minnesota
+ * Software Engineering Center to use and distribute this source for
+ * educational purposes, including delivering online education through
+ * Coursera or other entities.
+ *
+ * No warranty is given regarding this software, including warranties as
+ * to the correctness or completeness of this software, including
+ * fitness for purpose.
+ */
+package edu.ncsu.csc326.coffeemaker;
+
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+
+/**
+ * Lock-free inventory for the coffee maker.
+ *
+ * The four built-in ingredient counts are packed into a single long,
+ * 16 bits per ingredient, so checking and deducting a recipe is one
+ * compare-and-set on that long instead of a monitor acquisition.
+ * Either every ingredient of the recipe is deducted or none is.
+ * Ingredients registered beyond the built-in four cannot be stocked,
+ * so recipes that need them are never in stock here.
+ */
+public class AtomicInventory extends Inventory {
+
+	/** Largest number of units a single ingredient can hold */
+	public static final int MAX_UNITS = 0xFFFF;
+
+	/** Bits per ingredient lane */
+	private static final int LANE = 16;
+
+	private static final AtomicLongFieldUpdater<AtomicInventory> STATE =
+			AtomicLongFieldUpdater.newUpdater(AtomicInventory.class, "state");
+
+	/** Packed ingredient counts; left without an initializer so the
+	 *  setters called by the Inventory constructor are not overwritten */
+	private volatile long state;
+
+	/**
+	 * Creates a lock-free coffee maker inventory and fills
+	 * each item in the inventory with 15 units.
+	 */
+	public AtomicInventory() {
+		super();
+	}
+
+	/**
+	 * Returns the current number of units of the ingredient
+	 * with the given IngredientRegistry id.
+	 * @param ingredient
+	 * @return int
+	 */
+	public int getStock(int ingredient) {
+		return isLane(ingredient) ? lane(state, ingredient) : 0;
+	}
+
+	/**
+	 * Returns a copy of the units of the built-in ingredients,
+	 * read from a single consistent state.
+	 * @return int[]
+	 */
+	public int [] getStockLevels() {
+		long current = state;
+		int [] levels = new int[IngredientRegistry.BUILT_IN];
+		for (int i = 0; i < levels.length; i++) {
+			levels[i] = lane(current, i);
+		}
+		return levels;
+	}
+
+	/**
+	 * Sets the number of units of the ingredient with the given
+	 * IngredientRegistry id.  Negative or oversized amounts, and
+	 * ingredients without a lane, are ignored.
+	 * @param ingredient
+	 * @param units
+	 */
+	public void setStock(int ingredient, int units) {
+		if (!isLane(ingredient) || units < 0 || units > MAX_UNITS) {
+			return;
+		}
+		for (;;) {
+			long current = state;
+			if (STATE.compareAndSet(this, current, withLane(current, ingredient, units))) {
+				stockChanged(StockListener.SET, AvailabilityIndex.bit(ingredient));
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Like addStock, but returns a Status instead of throwing.
+	 * Ingredients beyond the built-in four are NOT_STOCKED and an
+	 * amount that does not fit is OVER_CAPACITY.
+	 * @param ingredient
+	 * @param units
+	 * @return int
+	 */
+	public int tryAddStock(int ingredient, int units) {
+		if (!isLane(ingredient)) {
+			return Status.of(Status.NOT_STOCKED, ingredient);
+		}
+		if (units < 0) {
+			return Status.of(Status.INVALID_AMOUNT, ingredient);
+		}
+		for (;;) {
+			long current = state;
+			if (!fits(current, ingredient, units)) {
+				return Status.of(Status.OVER_CAPACITY, ingredient);
+			}
+			long next = withLane(current, ingredient, lane(current, ingredient) + units);
+			if (STATE.compareAndSet(this, current, next)) {
+				stockChanged(StockListener.ADD, AvailabilityIndex.bit(ingredient));
+				return Status.OK;
+			}
+		}
+	}
+
+	/**
+	 * Adds units of all four built-in ingredients in a single
+	 * compare-and-set.  If any amount is negative or would take
+	 * its ingredient past MAX_UNITS nothing is added.
+	 * @param coffee
+	 * @param milk
+	 * @param sugar
+	 * @param chocolate
+	 * @return int
+	 */
+	public int tryRestock(int coffee, int milk, int sugar, int chocolate) {
+		int status = checkRestock(coffee, milk, sugar, chocolate);
+		if (status != Status.OK) {
+			return status;
+		}
+		for (;;) {
+			long current = state;
+			if (!fits(current, IngredientRegistry.COFFEE, coffee)) {
+				return Status.of(Status.OVER_CAPACITY, IngredientRegistry.COFFEE);
+			}
+			if (!fits(current, IngredientRegistry.MILK, milk)) {
+				return Status.of(Status.OVER_CAPACITY, IngredientRegistry.MILK);
+			}
+			if (!fits(current, IngredientRegistry.SUGAR, sugar)) {
+				return Status.of(Status.OVER_CAPACITY, IngredientRegistry.SUGAR);
+			}
+			if (!fits(current, IngredientRegistry.CHOCOLATE, chocolate)) {
+				return Status.of(Status.OVER_CAPACITY, IngredientRegistry.CHOCOLATE);
+			}
+			// Every lane sum fits in MAX_UNITS, so the addition never
+			// carries across lanes.
+			long add = (long) coffee << (IngredientRegistry.COFFEE * LANE) | (long) milk << (IngredientRegistry.MILK * LANE)
+					| (long) sugar << (IngredientRegistry.SUGAR * LANE) | (long) chocolate << (IngredientRegistry.CHOCOLATE * LANE);
+			if (STATE.compareAndSet(this, current, current + add)) {
+				stockChanged(StockListener.ADD, AvailabilityIndex.BUILT_IN);
+				return Status.OK;
+			}
+		}
+	}
+
+	/**
+	 * Returns true if there are enough ingredients to make
+	 * the beverage.
+	 * @param r
+	 * @return boolean
+	 */
+	protected boolean enoughIngredients(Recipe r) {
+		int [] need = r.requirements();
+		return packable(need) && covers(state, demand(need));
+	}
+
+	/**
+	 * Removes the ingredients used to make the specified
+	 * recipe if all of them are in stock.  The check and the
+	 * deduction happen in a single compare-and-set, so a
+	 * concurrent purchase can never leave an ingredient negative.
+	 * @param r
+	 * @return boolean
+	 */
+	public boolean useIngredients(Recipe r) {
+		return useIngredients(null, r);
+	}
+
+	/**
+	 * Removes the ingredients like useIngredients, but only while
+	 * the snapshot the recipe was read from is still current.  The
+	 * snapshot is checked after reading the state the compare-and-set
+	 * replaces, so only an edit landing between those two steps can
+	 * slip past it.
+	 * @param recipes the snapshot to check, or null for none
+	 * @param r
+	 * @return boolean
+	 */
+	public boolean useIngredients(RecipeSnapshot recipes, Recipe r) {
+		int [] amounts = r.requirements();
+		if (!packable(amounts)) {
+			return false;
+		}
+		long need = demand(amounts);
+		for (;;) {
+			long current = state;
+			if (recipes != null && recipes.isReplaced()) {
+				return false;
+			}
+			if (!covers(current, need)) {
+				return false;
+			}
+			// Every lane of current is at least the matching lane of
+			// need, so the subtraction never borrows across lanes.
+			if (STATE.compareAndSet(this, current, current - need)) {
+				stockChanged(StockListener.USE, AvailabilityIndex.mask(amounts));
+				return true;
+			}
+		}
+	}
+
+	/**
+	 * Returns false: purchases never take this inventory's monitor.
+	 * @return boolean
+	 */
+	protected boolean usesMonitor() {
+		return false;
+	}
+
+	/**
+	 * Puts back ingredients that were taken for a reservation
+	 * that was released or expired.  An ingredient that was
+	 * restocked in the meantime is capped at MAX_UNITS.
+	 * @param amounts units by IngredientRegistry id
+	 */
+	protected void returnIngredients(int [] amounts) {
+		int lanes = Math.min(amounts.length, IngredientRegistry.BUILT_IN);
+		for (;;) {
+			long current = state;
+			long next = current;
+			for (int i = 0; i < lanes; i++) {
+				next = withLane(next, i, Math.min(MAX_UNITS, lane(current, i) + amounts[i]));
+			}
+			if (STATE.compareAndSet(this, current, next)) {
+				stockChanged(StockListener.RETURN, AvailabilityIndex.mask(amounts));
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Returns a string describing the current contents
+	 * of the inventory, read from a single consistent state.
+	 * @return String
+	 */
+	public String toString() {
+		long current = state;
+		StringBuffer buf = new StringBuffer();
+		for (int i = 0; i < IngredientRegistry.BUILT_IN; i++) {
+			buf.append(IngredientRegistry.nameOf(i));
+			buf.append(": ");
+			buf.append(lane(current, i));
+			buf.append("\n");
+		}
+		return buf.toString();
+	}
+
+	/**
+	 * Returns true if every amount of the requirement vector fits
+	 * in a lane.  An amount that does not can never be in stock.
+	 * @param need
+	 * @return boolean
+	 */
+	private static boolean packable(int [] need) {
+		for (int i = 0; i < need.length; i++) {
+			int units = need[i];
+			if (units != 0 && (!isLane(i) || units < 0 || units > MAX_UNITS)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Packs a requirement vector that is packable into the state
+	 * layout.  Every bit pattern is a valid demand, since each lane
+	 * may need up to MAX_UNITS.
+	 * @param need
+	 * @return long
+	 */
+	private static long demand(int [] need) {
+		long packed = 0;
+		for (int i = 0; i < need.length; i++) {
+			if (need[i] != 0) {
+				packed |= (long) need[i] << (i * LANE);
+			}
+		}
+		return packed;
+	}
+
+	private static boolean fits(long stock, int ingredient, int units) {
+		return units <= MAX_UNITS - lane(stock, ingredient);
+	}
+
+	private static boolean covers(long stock, long need) {
+		for (int i = 0; i < IngredientRegistry.BUILT_IN; i++) {
+			if (lane(stock, i) < lane(need, i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static boolean isLane(int ingredient) {
+		return ingredient >= 0 && ingredient < IngredientRegistry.BUILT_IN;
+	}
+
+	private static int lane(long packed, int ingredient) {
+		return (int) ((packed >>> (ingredient * LANE)) & MAX_UNITS);
+	}
+
+	private static long withLane(long packed, int ingredient, int units) {
+		int shift = ingredient * LANE;
+		return (packed & ~((long) MAX_UNITS << shift)) | ((long) units << shift);
+	}
+}
@@ -0,0 +1,274 @@
+/*
+ * Copyright (c) 2009,  Sarah Heckman, Laurie Williams, Dright Ho
+ * All Rights Reserved.
+ *
+ * Permission has been explicitly granted to the University of Minnesota
+ * Software Engineering Center to use and distribute this source for
+ * educational purposes, including delivering online education through
+ * Coursera or other entities.
+ *
+ * No warranty is given regarding this software, including warranties as
+ * to the correctness or completeness of this software, including
+ * fitness for purpose.
+ */
+package edu.ncsu.csc326.coffeemaker;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Incrementally maintained index of which recipes can be made from
+ * the current stock of an Inventory.
+ *
+ * For every recipe slot the index keeps the number of servings the
+ * stock supports and one bit in a makeable mask.  The inventory
+ * reports each change with the ingredients it touched, and only the
+ * recipes that use one of those ingredients are recomputed, so a
+ * kiosk polling availability costs a volatile read instead of a
+ * check of every recipe under the inventory lock.
+ *
+ * The inventory reports a change while still holding its monitor,
+ * or right after the compare-and-set for AtomicInventory.  Updates
+ * are serialized by the index's own monitor and reread the changed
+ * stock inside it, so the last update always leaves the index
+ * describing the latest stock.  A recipe book edit is picked up by
+ * rebuilding the whole index on the next update or query.
+ */
+public class AvailabilityIndex {
+	/** Ingredient mask that marks every ingredient as changed */
+	public static final long ALL = -1L;
+	/** Ingredient mask of the built-in ingredients */
+	public static final long BUILT_IN = (1L << IngredientRegistry.BUILT_IN) - 1;
+
+	private final RecipeBook recipeBook;
+	private final Inventory inventory;
+	/** Current tables; replaced only by a rebuild */
+	private volatile Table table;
+	/** Stock each servings count was computed from, by ingredient */
+	private int [] levels = new int[0];
+	/** Requirement vectors of the indexed recipes, by slot */
+	private int [][] needs;
+	/** Slots of the recipes that use each ingredient */
+	private int [][] users;
+
+	/**
+	 * Creates an index of the recipes of the book over the stock of
+	 * the inventory.  Use Inventory.trackAvailability to create one
+	 * that the inventory keeps up to date.
+	 * @param recipeBook
+	 * @param inventory
+	 */
+	AvailabilityIndex(RecipeBook recipeBook, Inventory inventory) {
+		this.recipeBook = recipeBook;
+		this.inventory = inventory;
+	}
+
+	/**
+	 * Returns the number of servings of the recipe in the given slot
+	 * that the current stock supports, Integer.MAX_VALUE for a recipe
+	 * without ingredients, or 0 for an empty slot.
+	 * @param slot
+	 * @return int
+	 */
+	public int getServings(int slot) {
+		Table t = current();
+		return slot >= 0 && slot < t.servings.length() ? t.servings.get(slot) : 0;
+	}
+
+	/**
+	 * Returns true if the recipe in the given slot can be made from
+	 * the current stock.
+	 * @param slot
+	 * @return boolean
+	 */
+	public boolean isMakeable(int slot) {
+		return current().isMakeable(slot);
+	}
+
+	/**
+	 * Returns the slots of the recipes that can be made from the
+	 * current stock.
+	 * @return BitSet
+	 */
+	public BitSet getMakeable() {
+		Table t = current();
+		long [] words = new long[t.makeable.length()];
+		for (int i = 0; i < words.length; i++) {
+			words[i] = t.makeable.get(i);
+		}
+		return BitSet.valueOf(words);
+	}
+
+	/**
+	 * Returns true if the index was built from the given snapshot of
+	 * the recipe book and says its recipe in the slot cannot be made.
+	 * Never rebuilds, so a purchase can reject an order from it
+	 * without taking any lock.
+	 * @param recipes
+	 * @param slot
+	 * @return boolean
+	 */
+	boolean isSoldOut(RecipeSnapshot recipes, int slot) {
+		Table t = table;
+		return t != null && t.recipes == recipes && !t.isMakeable(slot);
+	}
+
+	/**
+	 * Recomputes the recipes that use any of the ingredients in the
+	 * mask, bit i standing for IngredientRegistry id i and bit 63 for
+	 * every id from 63 up.  Called by the inventory after each change
+	 * to its stock, while it still holds its own monitor.
+	 * @param ingredients
+	 */
+	synchronized void update(long ingredients) {
+		int registered = IngredientRegistry.size();
+		if (levels.length < registered) {
+			levels = Arrays.copyOf(levels, registered);
+		}
+		for (int i = 0; i < registered; i++) {
+			if ((ingredients & bit(i)) != 0) {
+				levels[i] = inventory.getStock(i);
+			}
+		}
+		Table t = table;
+		if (t == null || t.recipes != recipeBook.snapshot()) {
+			rebuild();
+			return;
+		}
+		for (int i = 0; i < users.length; i++) {
+			if ((ingredients & bit(i)) != 0) {
+				for (int slot : users[i]) {
+					recompute(t, slot);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns the current tables, first rebuilding them if the recipe
+	 * book changed since they were built.
+	 */
+	private Table current() {
+		Table t = table;
+		if (t == null || t.recipes != recipeBook.snapshot()) {
+			synchronized (this) {
+				t = table;
+				if (t == null || t.recipes != recipeBook.snapshot()) {
+					rebuild();
+					t = table;
+				}
+			}
+		}
+		return t;
+	}
+
+	/**
+	 * Rebuilds every table from the current recipes and the stock
+	 * last read by an update.  Never reads the inventory itself, so a
+	 * query that rebuilds never takes the inventory's monitor after
+	 * the index's.  Caller holds the monitor.
+	 */
+	private void rebuild() {
+		RecipeSnapshot recipes = recipeBook.snapshot();
+		int slots = recipes.length();
+		int ingredients = levels.length;
+		needs = new int[slots][];
+		for (int slot = 0; slot < slots; slot++) {
+			Recipe r = recipes.get(slot);
+			if (r != null) {
+				needs[slot] = r.getRequirements();
+				ingredients = Math.max(ingredients, needs[slot].length);
+			}
+		}
+		int [] counts = new int[ingredients];
+		for (int slot = 0; slot < slots; slot++) {
+			int [] need = needs[slot];
+			for (int i = 0; need != null && i < need.length; i++) {
+				if (need[i] > 0) {
+					counts[i]++;
+				}
+			}
+		}
+		users = new int[ingredients][];
+		for (int i = 0; i < ingredients; i++) {
+			users[i] = new int[counts[i]];
+			counts[i] = 0;
+		}
+		for (int slot = 0; slot < slots; slot++) {
+			int [] need = needs[slot];
+			for (int i = 0; need != null && i < need.length; i++) {
+				if (need[i] > 0) {
+					users[i][counts[i]++] = slot;
+				}
+			}
+		}
+		Table t = new Table(recipes, slots);
+		for (int slot = 0; slot < slots; slot++) {
+			recompute(t, slot);
+		}
+		table = t;
+	}
+
+	/**
+	 * Stores the servings and makeable bit of one slot.  Caller holds
+	 * the monitor, so writers never race on a mask word.
+	 */
+	private void recompute(Table t, int slot) {
+		int [] need = needs[slot];
+		int servings = need == null ? 0 : Integer.MAX_VALUE;
+		for (int i = 0; need != null && i < need.length; i++) {
+			if (need[i] > 0) {
+				int have = i < levels.length ? levels[i] : 0;
+				servings = Math.min(servings, have / need[i]);
+			}
+		}
+		t.servings.set(slot, servings);
+		int word = slot >>> 6;
+		long mask = 1L << slot;
+		long bits = t.makeable.get(word);
+		t.makeable.set(word, servings > 0 ? bits | mask : bits & ~mask);
+	}
+
+	/**
+	 * Returns the mask bit of an ingredient.
+	 * @param ingredient
+	 * @return long
+	 */
+	static long bit(int ingredient) {
+		return ingredient < 63 ? 1L << ingredient : 1L << 63;
+	}
+
+	/**
+	 * Returns the mask of the ingredients with a non-zero amount.
+	 * @param amounts units by IngredientRegistry id
+	 * @return long
+	 */
+	static long mask(int [] amounts) {
+		long mask = 0;
+		for (int i = 0; i < amounts.length; i++) {
+			if (amounts[i] != 0) {
+				mask |= bit(i);
+			}
+		}
+		return mask;
+	}
+
+	/** Servings and makeable mask for one snapshot of the recipe book */
+	private static final class Table {
+		final RecipeSnapshot recipes;
+		final AtomicIntegerArray servings;
+		final AtomicLongArray makeable;
+
+		Table(RecipeSnapshot recipes, int slots) {
+			this.recipes = recipes;
+			this.servings = new AtomicIntegerArray(slots);
+			this.makeable = new AtomicLongArray((slots + 63) >>> 6);
+		}
+
+		boolean isMakeable(int slot) {
+			return slot >= 0 && slot < servings.length() && (makeable.get(slot >>> 6) & (1L << slot)) != 0;
+		}
+	}
+}
@@ -91,6 +91,19 @@ public class CoffeeMaker {
 	    inventory.addChocolate(amtChocolate);
     }
     
+    /**
+     * Adds the given units of each ingredient to the inventory in
+     * one step: if any amount is invalid nothing is added.
+     * @param amtCoffee
+     * @param amtMilk
+     * @param amtSugar
+     * @param amtChocolate
+     * @throws InventoryException
+     */
+    public void addInventory(int amtCoffee, int amtMilk, int amtSugar, int amtChocolate) throws InventoryException {
+    	inventory.restock(amtCoffee, amtMilk, amtSugar, amtChocolate);
+    }
+    
     /**
      * Returns the inventory of the coffee maker
      * @return Inventory
@@ -101,34 +114,203 @@ public class CoffeeMaker {
     
     /**
      * Returns the change of a user's beverage purchase, or
-     * the user's money if the beverage cannot be made
+     * the user's money if the beverage cannot be made.  The recipe
+     * is read from a single lock-free snapshot of the recipe book.
+     * @param recipeToPurchase
+     * @param amtPaid
+     * @return int
+     */
+    public int makeCoffee(int recipeToPurchase, int amtPaid) {
+        return Receipt.change(purchase(recipeToPurchase, amtPaid));
+    }
+
+    /**
+     * Makes a beverage like makeCoffee, but returns a Receipt that
+     * also records why a failed purchase was refunded.
+     * @param recipeToPurchase
+     * @param amtPaid
+     * @return long
+     */
+    public long purchase(int recipeToPurchase, int amtPaid) {
+        return purchase(recipeBook.snapshot(), recipeToPurchase, amtPaid);
+    }
+
+    /**
+     * Makes one beverage from the given snapshot of the recipe book
+     * and returns its Receipt.  Every purchase, single or batched,
+     * goes through here.  Takes no lock of its own: a sale takes
+     * effect when the inventory removes the ingredients, which it
+     * only does while the snapshot is still current, and a refusal
+     * is only given if the snapshot was still current after it was
+     * decided.  Otherwise the order is made again from the newer
+     * snapshot.  An edit takes effect when the book links the
+     * snapshot that replaces this one.
+     * @param recipes
+     * @param recipeToPurchase
+     * @param amtPaid
+     * @return long
+     */
+    protected long purchase(RecipeSnapshot recipes, int recipeToPurchase, int amtPaid) {
+        for (;;) {
+            Recipe recipe = recipes.get(recipeToPurchase);
+            long receipt;
+            if (recipe == null) {
+            	receipt = Receipt.of(Receipt.NO_SUCH_RECIPE, amtPaid);
+            } else {
+            	int price = recipe.getPrice();
+            	AvailabilityIndex availability = inventory.getAvailability();
+            	if (price > amtPaid) {
+            		receipt = Receipt.of(Receipt.INSUFFICIENT_PAYMENT, amtPaid);
+            	} else if (!canGiveChange(amtPaid - price)) {
+            		receipt = Receipt.of(Receipt.NO_CHANGE, amtPaid);
+            	} else if (availability != null && availability.isSoldOut(recipes, recipeToPurchase)) {
+            		// Sold out according to the index: refund without the inventory lock
+            		receipt = Receipt.of(Receipt.OUT_OF_STOCK, amtPaid);
+            	} else if (takeIngredients(recipes, recipe)) {
+            		receipt = Receipt.of(Receipt.SOLD, amtPaid - price);
+            	} else {
+            		receipt = Receipt.of(Receipt.OUT_OF_STOCK, amtPaid);
+            	}
+            }
+            // Nothing was taken unless it sold, so a refusal decided
+            // from a replaced snapshot can simply be retried.
+            if (Receipt.isSold(receipt) || !recipes.isReplaced()) {
+            	return receipt;
+            }
+            recipes = recipes.latest();
+        }
+    }
+
+    /**
+     * Returns true if the change of a sale can be paid out.  A sale
+     * whose change cannot be paid is refused with Receipt.NO_CHANGE
+     * before any ingredient is taken.
+     * @param change
+     * @return boolean
+     */
+    protected boolean canGiveChange(int change) {
+        return true;
+    }
+
+    /**
+     * Removes the ingredients of the recipe from the inventory.
+     * Returns false and removes nothing if any are missing or if
+     * the snapshot the recipe was read from has been replaced.
+     * @param recipes
+     * @param recipe
+     * @return boolean
+     */
+    protected boolean takeIngredients(RecipeSnapshot recipes, Recipe recipe) {
+        return inventory.useIngredients(recipes, recipe);
+    }
+
+    /**
+     * Reserves the ingredients of a beverage while payment is
+     * authorized.  Returns null if the recipe does not exist or
+     * the beverage cannot be made.  Unresolved reservations are
+     * released automatically once the lease runs out.
+     * @param recipeToPurchase
+     * @param leaseMillis
+     * @return Reservation
+     */
+    public Reservation reserveCoffee(int recipeToPurchase, long leaseMillis) {
+        Recipe recipe = recipeBook.snapshot().get(recipeToPurchase);
+        if (recipe == null) {
+            return null;
+        }
+        return inventory.reserve(recipe, leaseMillis);
+    }
+
+    /**
+     * Returns the change of a purchase whose ingredients were
+     * reserved, or the user's money if the payment is short or
+     * the reservation already expired.  A short payment releases
+     * the reservation.
+     * @param reservation
+     * @param amtPaid
+     * @return int
+     */
+    public int completePurchase(Reservation reservation, int amtPaid) {
+        int price = reservation.getRecipe().getPrice();
+        if (price > amtPaid) {
+            reservation.release();
+            return amtPaid;
+        }
+        return reservation.commit() ? amtPaid - price : amtPaid;
+    }
+
+    /**
+     * Makes a batch of beverages from one snapshot of the recipe
+     * book.  Orders are applied in array order and change[i]
+     * receives exactly the change makeCoffee would return for order
+     * i at that point in the sequence; an index outside the recipe
+     * book is refunded like a missing recipe.  A monitor-based
+     * inventory is locked once for the whole batch.  Returns the
+     * number of beverages made.
      * @param recipeToPurchase
      * @param amtPaid
+     * @param change
      * @return int
      */
-    public synchronized int makeCoffee(int recipeToPurchase, int amtPaid) {
-        int change = 0;
-        
-        if (getRecipes()[recipeToPurchase] == null) {
-        	change = amtPaid;
-        } else if (getRecipes()[recipeToPurchase].getPrice() <= amtPaid) {
-        	if (inventory.useIngredients(getRecipes()[recipeToPurchase])) {
-        		change = amtPaid - getRecipes()[recipeToPurchase].getPrice();
-        	} else {
-        		change = amtPaid;
-        	}
-        } else {
-        	change = amtPaid;
+    public int makeCoffeeBatch(int[] recipeToPurchase, int[] amtPaid, int[] change) {
+        int orders = recipeToPurchase.length;
+        if (amtPaid.length != orders || change.length < orders) {
+            throw new IllegalArgumentException("Batch arrays must have matching lengths");
         }
-        
-        return change;
+        RecipeSnapshot recipes = recipeBook.snapshot();
+        if (!inventory.usesMonitor()) {
+            return purchaseAll(recipes, recipeToPurchase, amtPaid, change);
+        }
+        // Holding the inventory monitor for the whole batch makes each
+        // useIngredients call inside a cheap reentrant acquisition.
+        synchronized (inventory) {
+            return purchaseAll(recipes, recipeToPurchase, amtPaid, change);
+        }
+    }
+
+    private int purchaseAll(RecipeSnapshot recipes, int[] recipeToPurchase, int[] amtPaid, int[] change) {
+        int made = 0;
+        for (int i = 0; i < recipeToPurchase.length; i++) {
+            long receipt = purchase(recipes, recipeToPurchase[i], amtPaid[i]);
+            change[i] = Receipt.change(receipt);
+            if (Receipt.isSold(receipt)) {
+                made++;
+            }
+        }
+        return made;
     }
 
 	/**
-	 * Returns the list of Recipes in the RecipeBook.
+	 * Starts keeping an availability index of the recipes over the
+	 * inventory and returns it.  Purchases of recipes the index shows
+	 * as sold out are then refunded without touching the inventory.
+	 * @return AvailabilityIndex
+	 */
+	public AvailabilityIndex trackAvailability() {
+		return inventory.trackAvailability(recipeBook);
+	}
+
+	/**
+	 * Returns the recipe book of the coffee maker.
+	 * @return RecipeBook
+	 */
+	public RecipeBook getRecipeBook() {
+		return recipeBook;
+	}
+
+	/**
+	 * Returns the inventory of the coffee maker.
+	 * @return Inventory
+	 */
+	public Inventory getInventory() {
+		return inventory;
+	}
+
+	/**
+	 * Returns a copy of the list of Recipes in the RecipeBook.
 	 * @return Recipe []
 	 */
-	public synchronized Recipe[] getRecipes() {
+	public Recipe[] getRecipes() {
 		return recipeBook.getRecipes();
 	}
 }
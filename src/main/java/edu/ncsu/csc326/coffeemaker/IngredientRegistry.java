@@ -0,0 +1,122 @@
+/*
+ * Copyright (c) 2009,  Sarah Heckman, Laurie Williams, Dright Ho
+ * All Rights Reserved.
+ *
+ * Permission has been explicitly granted to the University of Minnesota
+ * Software Engineering Center to use and distribute this source for
+ * educational purposes, including delivering online education through
+ * Coursera or other entities.
+ *
+ * No warranty is given regarding this software, including warranties as
+ * to the correctness or completeness of this software, including
+ * fitness for purpose.
+ */
+package edu.ncsu.csc326.coffeemaker;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Catalog of the ingredients a coffee maker can stock.
+ *
+ * Every ingredient gets a dense integer id the first time it is
+ * registered, so recipes and inventories can keep their amounts in
+ * plain int arrays indexed by id.  Ids are never reused.  Coffee,
+ * milk, sugar and chocolate are always registered as 0 to 3.
+ */
+public final class IngredientRegistry {
+	/** Id of coffee */
+	public static final int COFFEE = 0;
+	/** Id of milk */
+	public static final int MILK = 1;
+	/** Id of sugar */
+	public static final int SUGAR = 2;
+	/** Id of chocolate */
+	public static final int CHOCOLATE = 3;
+	/** Number of ingredients every coffee maker knows about */
+	public static final int BUILT_IN = 4;
+
+	/** Ids keyed by lower-case ingredient name */
+	private static final ConcurrentHashMap<String, Integer> ids = new ConcurrentHashMap<String, Integer>();
+	/** Display names by id; replaced, never modified, when it grows */
+	private static volatile String[] names = new String[0];
+
+	static {
+		register("Coffee");
+		register("Milk");
+		register("Sugar");
+		register("Chocolate");
+	}
+
+	private IngredientRegistry() {
+	}
+
+	/**
+	 * Returns the id of the ingredient, registering it under the
+	 * next free id if it is new.  Names are case-insensitive.
+	 * @param name
+	 * @return int
+	 */
+	public static synchronized int register(String name) {
+		String key = key(name);
+		Integer id = ids.get(key);
+		if (id != null) {
+			return id.intValue();
+		}
+		String[] grown = Arrays.copyOf(names, names.length + 1);
+		grown[names.length] = name.trim();
+		names = grown;
+		ids.put(key, names.length - 1);
+		return names.length - 1;
+	}
+
+	/**
+	 * Returns the id of the ingredient, or -1 if it was never
+	 * registered.
+	 * @param name
+	 * @return int
+	 */
+	public static int idOf(String name) {
+		Integer id = ids.get(key(name));
+		return id == null ? -1 : id.intValue();
+	}
+
+	/**
+	 * Returns the display name of the ingredient with the given id.
+	 * @param id
+	 * @return String
+	 */
+	public static String nameOf(int id) {
+		return names[id];
+	}
+
+	/**
+	 * Returns the number of registered ingredients, which is also
+	 * one more than the largest id.
+	 * @return int
+	 */
+	public static int size() {
+		return names.length;
+	}
+
+	/**
+	 * Returns true if the id belongs to a registered ingredient.
+	 * @param id
+	 * @return boolean
+	 */
+	public static boolean isRegistered(int id) {
+		return id >= 0 && id < names.length;
+	}
+
+	/**
+	 * Returns the lower-case name used in error messages.
+	 */
+	static String lowerName(int id) {
+		return names[id].toLowerCase(Locale.ROOT);
+	}
+
+	private static String key(String name) {
+		return name.trim().toLowerCase(Locale.ROOT);
+	}
+}
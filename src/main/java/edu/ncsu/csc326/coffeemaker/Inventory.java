@@ -13,6 +13,8 @@
  */
 package edu.ncsu.csc326.coffeemaker;
 
+import java.util.Arrays;
+
 import edu.ncsu.csc326.coffeemaker.exceptions.InventoryException;
 
 /**
@@ -22,10 +24,13 @@ import edu.ncsu.csc326.coffeemaker.exceptions.InventoryException;
  */
 public class Inventory {
     
-    private static int coffee;
-    private static int milk;
-    private static int sugar;
-    private static int chocolate;
+    /** Units of each ingredient by IngredientRegistry id; every
+     *  Inventory holds its own stock */
+    private int [] stock = new int[IngredientRegistry.BUILT_IN];
+    /** Index told about every change to the stock, or null */
+    private volatile AvailabilityIndex availability;
+    /** Listeners told about every change to the stock; replaced, never modified */
+    private volatile StockListener [] listeners = new StockListener[0];
     
     /**
      * Creates a coffee maker inventory object and
@@ -44,7 +49,7 @@ public class Inventory {
      * @return int
      */
     public int getChocolate() {
-        return chocolate;
+        return getStock(IngredientRegistry.CHOCOLATE);
     }
     
     /**
@@ -52,11 +57,8 @@ public class Inventory {
      * to the specified amount.
      * @param chocolate
      */
-    public synchronized void setChocolate(int chocolate) {
-    	if(chocolate >= 0) {
-    		Inventory.chocolate = chocolate;
-    	}
-        
+    public void setChocolate(int chocolate) {
+    	setStock(IngredientRegistry.CHOCOLATE, chocolate);
     }
     
     /**
@@ -65,18 +67,18 @@ public class Inventory {
      * @param chocolate
      * @throws InventoryException
      */
-    public synchronized void addChocolate(String chocolate) throws InventoryException {
-    	int amtChocolate = 0;
-    	try {
-    		amtChocolate = Integer.parseInt(chocolate);
-    	} catch (NumberFormatException e) {
-    		throw new InventoryException("Units of chocolate must be a positive integer");
-    	}
-		if (amtChocolate >= 0) {
-			Inventory.chocolate += amtChocolate;
-		} else {
-			throw new InventoryException("Units of chocolate must be a positive integer");
-		}
+    public void addChocolate(String chocolate) throws InventoryException {
+    	addStock(IngredientRegistry.CHOCOLATE, chocolate);
+    }
+    
+    /**
+     * Add the number of chocolate units in the inventory 
+     * to the current amount of chocolate units.
+     * @param chocolate
+     * @throws InventoryException
+     */
+    public void addChocolate(int chocolate) throws InventoryException {
+    	addStock(IngredientRegistry.CHOCOLATE, chocolate);
     }
     
     /**
@@ -85,7 +87,7 @@ public class Inventory {
      * @return int
      */
     public int getCoffee() {
-        return coffee;
+        return getStock(IngredientRegistry.COFFEE);
     }
     
     /**
@@ -93,10 +95,8 @@ public class Inventory {
      * to the specified amount.
      * @param coffee
      */
-    public synchronized void setCoffee(int coffee) {
-    	if(coffee >= 0) {
-    		Inventory.coffee = coffee;
-    	}
+    public void setCoffee(int coffee) {
+    	setStock(IngredientRegistry.COFFEE, coffee);
     }
     
     /**
@@ -105,18 +105,18 @@ public class Inventory {
      * @param coffee
      * @throws InventoryException
      */
-    public synchronized void addCoffee(String coffee) throws InventoryException {
-    	int amtCoffee = 0;
-    	try {
-    		amtCoffee = Integer.parseInt(coffee);
-    	} catch (NumberFormatException e) {
-    		throw new InventoryException("Units of coffee must be a positive integer");
-    	}
-		if (amtCoffee >= 0) {
-			Inventory.coffee += amtCoffee;
-		} else {
-			throw new InventoryException("Units of coffee must be a positive integer");
-		}
+    public void addCoffee(String coffee) throws InventoryException {
+    	addStock(IngredientRegistry.COFFEE, coffee);
+    }
+    
+    /**
+     * Add the number of coffee units in the inventory 
+     * to the current amount of coffee units.
+     * @param coffee
+     * @throws InventoryException
+     */
+    public void addCoffee(int coffee) throws InventoryException {
+    	addStock(IngredientRegistry.COFFEE, coffee);
     }
     
     /**
@@ -125,7 +125,7 @@ public class Inventory {
      * @return int
      */
     public int getMilk() {
-        return milk;
+        return getStock(IngredientRegistry.MILK);
     }
     
     /**
@@ -133,10 +133,8 @@ public class Inventory {
      * to the specified amount.
      * @param milk
      */
-    public synchronized void setMilk(int milk) {
-    	if(milk >= 0) {
-    		Inventory.milk = milk;
-    	}
+    public void setMilk(int milk) {
+    	setStock(IngredientRegistry.MILK, milk);
     }
     
     /**
@@ -145,18 +143,18 @@ public class Inventory {
      * @param milk
      * @throws InventoryException
      */
-    public synchronized void addMilk(String milk) throws InventoryException {
-    	int amtMilk = 0;
-    	try {
-    		amtMilk = Integer.parseInt(milk);
-    	} catch (NumberFormatException e) {
-    		throw new InventoryException("Units of milk must be a positive integer");
-    	}
-		if (amtMilk >= 0) {
-			Inventory.milk += amtMilk;
-		} else {
-			throw new InventoryException("Units of milk must be a positive integer");
-		}
+    public void addMilk(String milk) throws InventoryException {
+    	addStock(IngredientRegistry.MILK, milk);
+    }
+    
+    /**
+     * Add the number of milk units in the inventory 
+     * to the current amount of milk units.
+     * @param milk
+     * @throws InventoryException
+     */
+    public void addMilk(int milk) throws InventoryException {
+    	addStock(IngredientRegistry.MILK, milk);
     }
     
     /**
@@ -165,7 +163,7 @@ public class Inventory {
      * @return int
      */
     public int getSugar() {
-        return sugar;
+        return getStock(IngredientRegistry.SUGAR);
     }
     
     /**
@@ -173,10 +171,18 @@ public class Inventory {
      * to the specified amount.
      * @param sugar
      */
-    public synchronized void setSugar(int sugar) {
-    	if(sugar >= 0) {
-    		Inventory.sugar = sugar;
-    	}
+    public void setSugar(int sugar) {
+    	setStock(IngredientRegistry.SUGAR, sugar);
+    }
+    
+    /**
+     * Add the number of sugar units in the inventory 
+     * to the current amount of sugar units.
+     * @param sugar
+     * @throws InventoryException
+     */
+    public void addSugar(String sugar) throws InventoryException {
+    	addStock(IngredientRegistry.SUGAR, sugar);
     }
     
     /**
@@ -185,18 +191,165 @@ public class Inventory {
      * @param sugar
      * @throws InventoryException
      */
-    public synchronized void addSugar(String sugar) throws InventoryException {
-    	int amtSugar = 0;
-    	try {
-    		amtSugar = Integer.parseInt(sugar);
-    	} catch (NumberFormatException e) {
-    		throw new InventoryException("Units of sugar must be a positive integer");
+    public void addSugar(int sugar) throws InventoryException {
+    	addStock(IngredientRegistry.SUGAR, sugar);
+    }
+    
+    /**
+     * Returns the current number of units of the ingredient
+     * with the given IngredientRegistry id.  Reads under the same
+     * monitor as the updates, so a getter never returns a stale
+     * count after a purchase or restock has returned.
+     * @param ingredient
+     * @return int
+     */
+    public synchronized int getStock(int ingredient) {
+    	return ingredient >= 0 && ingredient < stock.length ? stock[ingredient] : 0;
+    }
+    
+    /**
+     * Returns a copy of the units of every ingredient, indexed by
+     * IngredientRegistry id, read in one consistent step.
+     * @return int[]
+     */
+    public synchronized int [] getStockLevels() {
+    	return stock.clone();
+    }
+    
+    /**
+     * Sets the number of units of the ingredient with the given
+     * IngredientRegistry id.  Negative amounts are ignored.
+     * @param ingredient
+     * @param units
+     */
+    public synchronized void setStock(int ingredient, int units) {
+    	if (units >= 0 && IngredientRegistry.isRegistered(ingredient)) {
+    		ensureCapacity(ingredient + 1);
+    		stock[ingredient] = units;
+    		stockChanged(StockListener.SET, AvailabilityIndex.bit(ingredient));
+    	}
+    }
+    
+    /**
+     * Add the number of units of the ingredient with the given
+     * IngredientRegistry id to its current amount.
+     * @param ingredient
+     * @param units
+     * @throws InventoryException
+     */
+    public void addStock(int ingredient, CharSequence units) throws InventoryException {
+    	check(tryAddStock(ingredient, units));
+    }
+    
+    /**
+     * Add the number of units of the ingredient with the given
+     * IngredientRegistry id to its current amount.
+     * @param ingredient
+     * @param units
+     * @throws InventoryException
+     */
+    public void addStock(int ingredient, int units) throws InventoryException {
+    	check(tryAddStock(ingredient, units));
+    }
+    
+    /**
+     * Adds units of all four built-in ingredients in one step.
+     * If any amount is negative nothing is added.
+     * @param coffee
+     * @param milk
+     * @param sugar
+     * @param chocolate
+     * @throws InventoryException
+     */
+    public void restock(int coffee, int milk, int sugar, int chocolate) throws InventoryException {
+    	check(tryRestock(coffee, milk, sugar, chocolate));
+    }
+    
+    /**
+     * Like addStock, but returns a Status instead of throwing.
+     * @param ingredient
+     * @param units
+     * @return int
+     */
+    public int tryAddStock(int ingredient, CharSequence units) {
+    	if (!IngredientRegistry.isRegistered(ingredient)) {
+    		return Status.of(Status.UNKNOWN_INGREDIENT, ingredient);
+    	}
+    	int amount = Units.parse(units);
+    	if (amount == Units.INVALID) {
+    		return Status.of(Status.INVALID_AMOUNT, ingredient);
+    	}
+    	return tryAddStock(ingredient, amount);
+    }
+    
+    /**
+     * Like addStock, but returns a Status instead of throwing.
+     * @param ingredient
+     * @param units
+     * @return int
+     */
+    public synchronized int tryAddStock(int ingredient, int units) {
+    	if (!IngredientRegistry.isRegistered(ingredient)) {
+    		return Status.of(Status.UNKNOWN_INGREDIENT, ingredient);
+    	}
+    	if (units < 0) {
+    		return Status.of(Status.INVALID_AMOUNT, ingredient);
+    	}
+    	ensureCapacity(ingredient + 1);
+    	stock[ingredient] += units;
+    	stockChanged(StockListener.ADD, AvailabilityIndex.bit(ingredient));
+    	return Status.OK;
+    }
+    
+    /**
+     * Like restock, but returns a Status instead of throwing.
+     * @param coffee
+     * @param milk
+     * @param sugar
+     * @param chocolate
+     * @return int
+     */
+    public synchronized int tryRestock(int coffee, int milk, int sugar, int chocolate) {
+    	int status = checkRestock(coffee, milk, sugar, chocolate);
+    	if (status == Status.OK) {
+    		stock[IngredientRegistry.COFFEE] += coffee;
+    		stock[IngredientRegistry.MILK] += milk;
+    		stock[IngredientRegistry.SUGAR] += sugar;
+    		stock[IngredientRegistry.CHOCOLATE] += chocolate;
+    		stockChanged(StockListener.ADD, AvailabilityIndex.BUILT_IN);
+    	}
+    	return status;
+    }
+    
+    /**
+     * Returns the Status of the first negative amount of a
+     * restock, or OK.
+     * @param coffee
+     * @param milk
+     * @param sugar
+     * @param chocolate
+     * @return int
+     */
+    protected static int checkRestock(int coffee, int milk, int sugar, int chocolate) {
+    	if (coffee < 0) {
+    		return Status.of(Status.INVALID_AMOUNT, IngredientRegistry.COFFEE);
+    	}
+    	if (milk < 0) {
+    		return Status.of(Status.INVALID_AMOUNT, IngredientRegistry.MILK);
+    	}
+    	if (sugar < 0) {
+    		return Status.of(Status.INVALID_AMOUNT, IngredientRegistry.SUGAR);
+    	}
+    	if (chocolate < 0) {
+    		return Status.of(Status.INVALID_AMOUNT, IngredientRegistry.CHOCOLATE);
+    	}
+    	return Status.OK;
+    }
+    
+    private static void check(int status) throws InventoryException {
+    	if (status != Status.OK) {
+    		throw new InventoryException(Status.describe(status));
     	}
-		if (amtSugar <= 0) {
-			Inventory.sugar += amtSugar;
-		} else {
-			throw new InventoryException("Units of sugar must be a positive integer");
-		}
     }
     
     /**
@@ -206,59 +359,221 @@ public class Inventory {
      * @return boolean
      */
     protected synchronized boolean enoughIngredients(Recipe r) {
-        boolean isEnough = true;
-        if(Inventory.coffee < r.getAmtCoffee()) {
-            isEnough = false;
-        }
-        if(Inventory.milk < r.getAmtMilk()) {
-            isEnough = false;
-        }
-        if(Inventory.sugar < r.getAmtSugar()) {
-            isEnough = false;
-        }
-        if(Inventory.chocolate < r.getAmtChocolate()) {
-            isEnough = false;
-        }
-        return isEnough;
+    	return covers(r.requirements());
     }
     
     /**
      * Removes the ingredients used to make the specified 
-     * recipe.  Assumes that the user has checked that there
-     * are enough ingredients to make 
+     * recipe if every one of them is in stock.  Returns false
+     * and removes nothing otherwise.
      * @param r
+     * @return boolean
      */
     public synchronized boolean useIngredients(Recipe r) {
-    	if (enoughIngredients(r)) {
-	    	Inventory.coffee += r.getAmtCoffee();
-	    	Inventory.milk -= r.getAmtMilk();
-	    	Inventory.sugar -= r.getAmtSugar();
-	    	Inventory.chocolate -= r.getAmtChocolate();
+    	int [] need = r.requirements();
+    	if (covers(need)) {
+    		// covers() guarantees entries past the stock vector are zero
+    		int common = Math.min(need.length, stock.length);
+    		for (int i = 0; i < common; i++) {
+    			stock[i] -= need[i];
+    		}
+    		stockChanged(StockListener.USE, AvailabilityIndex.mask(need));
 	    	return true;
     	} else {
     		return false;
     	}
     }
     
+    /**
+     * Removes the ingredients like useIngredients, but only while
+     * the snapshot the recipe was read from is still current.
+     * Returns false and removes nothing once the snapshot has been
+     * replaced; callers tell that apart from missing stock with
+     * RecipeSnapshot.isReplaced.  The check is made under the
+     * monitor that every stock reader takes, so no reader can see
+     * a sale that was checked before an edit but made after it.
+     * @param recipes
+     * @param r
+     * @return boolean
+     */
+    public boolean useIngredients(RecipeSnapshot recipes, Recipe r) {
+    	if (!usesMonitor()) {
+    		return !recipes.isReplaced() && useIngredients(r);
+    	}
+    	synchronized (this) {
+    		return !recipes.isReplaced() && useIngredients(r);
+    	}
+    }
+    
+    /**
+     * Returns true if useIngredients takes this inventory's monitor,
+     * so a caller placing many orders can hold it across all of them.
+     * @return boolean
+     */
+    protected boolean usesMonitor() {
+    	return true;
+    }
+    
+    /**
+     * Reserves the ingredients of the recipe until the reservation
+     * is committed or released, or until the lease runs out on the
+     * shared lease wheel.  Returns null if there are not enough
+     * ingredients.
+     * @param r
+     * @param leaseMillis
+     * @return Reservation
+     */
+    public Reservation reserve(Recipe r, long leaseMillis) {
+    	return reserve(r, leaseMillis, LeaseWheel.shared());
+    }
+    
+    /**
+     * Reserves the ingredients of the recipe with a lease timed
+     * by the given wheel.  Reserved ingredients are taken out of
+     * the available stock straight away, so availability checks
+     * never count them.  Returns null if there are not enough
+     * ingredients.
+     * @param r
+     * @param leaseMillis
+     * @param wheel
+     * @return Reservation
+     */
+    public Reservation reserve(Recipe r, long leaseMillis, LeaseWheel wheel) {
+    	int [] amounts = r.getRequirements();
+    	if (!useIngredients(r)) {
+    		return null;
+    	}
+    	Reservation reservation = new Reservation(this, wheel, r, amounts);
+    	wheel.schedule(reservation, leaseMillis);
+    	return reservation;
+    }
+    
+    /**
+     * Puts back ingredients that were taken for a reservation
+     * that was released or expired.
+     * @param amounts units by IngredientRegistry id
+     */
+    protected synchronized void returnIngredients(int [] amounts) {
+    	ensureCapacity(amounts.length);
+    	for (int i = 0; i < amounts.length; i++) {
+    		stock[i] += amounts[i];
+    	}
+    	stockChanged(StockListener.RETURN, AvailabilityIndex.mask(amounts));
+    }
+    
+    /**
+     * Starts keeping an availability index of the recipes of the
+     * book over this inventory, and returns it.  The index is
+     * updated on every change to the stock from then on.
+     * @param recipeBook
+     * @return AvailabilityIndex
+     */
+    public synchronized AvailabilityIndex trackAvailability(RecipeBook recipeBook) {
+    	AvailabilityIndex index = new AvailabilityIndex(recipeBook, this);
+    	// Published before the first read, so a lock-free update racing
+    	// with it is either read here or reports itself afterwards
+    	availability = index;
+    	index.update(AvailabilityIndex.ALL);
+    	return index;
+    }
+    
+    /**
+     * Returns the availability index kept by this inventory, or
+     * null if there is none.
+     * @return AvailabilityIndex
+     */
+    public AvailabilityIndex getAvailability() {
+    	return availability;
+    }
+    
+    /**
+     * Adds a listener that is told about every change to the stock
+     * from now on.
+     * @param listener
+     */
+    public synchronized void addStockListener(StockListener listener) {
+    	StockListener [] grown = Arrays.copyOf(listeners, listeners.length + 1);
+    	grown[listeners.length] = listener;
+    	listeners = grown;
+    }
+    
+    /**
+     * Removes a listener added by addStockListener.
+     * @param listener
+     */
+    public synchronized void removeStockListener(StockListener listener) {
+    	for (int i = 0; i < listeners.length; i++) {
+    		if (listeners[i] == listener) {
+    			StockListener [] shrunk = new StockListener[listeners.length - 1];
+    			System.arraycopy(listeners, 0, shrunk, 0, i);
+    			System.arraycopy(listeners, i + 1, shrunk, i, shrunk.length - i);
+    			listeners = shrunk;
+    			return;
+    		}
+    	}
+    }
+    
+    /**
+     * Tells the availability index and the stock listeners, if any,
+     * which ingredients just changed.  Called after every change to
+     * the stock; subclasses that change it without the monitor must
+     * call it after the change is visible.
+     * @param cause one of the StockListener causes
+     * @param ingredients mask of IngredientRegistry ids
+     */
+    protected void stockChanged(int cause, long ingredients) {
+    	AvailabilityIndex index = availability;
+    	if (index != null) {
+    		index.update(ingredients);
+    	}
+    	for (StockListener listener : listeners) {
+    		listener.stockChanged(this, cause, ingredients);
+    	}
+    }
+    
     /**
      * Returns a string describing the current contents 
-     * of the inventory.
+     * of the inventory.  Ingredients beyond the built-in four
+     * are listed only while they are in stock.
      * @return String
      */
-    public String toString() {
+    public synchronized String toString() {
     	StringBuffer buf = new StringBuffer();
-    	buf.append("Coffee: ");
-    	buf.append(getCoffee());
-    	buf.append("\n");
-    	buf.append("Milk: ");
-    	buf.append(getMilk());
-    	buf.append("\n");
-    	buf.append("Sugar: ");
-    	buf.append(getSugar());
-    	buf.append("\n");
-    	buf.append("Chocolate: ");
-    	buf.append(getChocolate());
-    	buf.append("\n");
+    	for (int i = 0; i < stock.length; i++) {
+    		if (i < IngredientRegistry.BUILT_IN || stock[i] > 0) {
+    			buf.append(IngredientRegistry.nameOf(i));
+    			buf.append(": ");
+    			buf.append(stock[i]);
+    			buf.append("\n");
+    		}
+    	}
     	return buf.toString();
     }
+    
+    /**
+     * Returns true if the stock covers every entry of the
+     * requirement vector.  Caller holds the monitor.
+     */
+    private boolean covers(int [] need) {
+    	int [] have = stock;
+    	int common = Math.min(need.length, have.length);
+    	for (int i = 0; i < common; i++) {
+    		if (have[i] < need[i]) {
+    			return false;
+    		}
+    	}
+    	// Ingredients this inventory has never stocked count as zero
+    	for (int i = common; i < need.length; i++) {
+    		if (need[i] > 0) {
+    			return false;
+    		}
+    	}
+    	return true;
+    }
+    
+    private void ensureCapacity(int length) {
+    	if (length > stock.length) {
+    		stock = Arrays.copyOf(stock, length);
+    	}
+    }
 }
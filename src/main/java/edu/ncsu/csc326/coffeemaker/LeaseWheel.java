@@ -0,0 +1,195 @@
+/*
+ * Copyright (c) 2009,  Sarah Heckman, Laurie Williams, Dright Ho
+ * All Rights Reserved.
+ *
+ * Permission has been explicitly granted to the University of Minnesota
+ * Software Engineering Center to use and distribute this source for
+ * educational purposes, including delivering online education through
+ * Coursera or other entities.
+ *
+ * No warranty is given regarding this software, including warranties as
+ * to the correctness or completeness of this software, including
+ * fitness for purpose.
+ */
+package edu.ncsu.csc326.coffeemaker;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hashed timer wheel that expires ingredient reservations.
+ *
+ * Leases are bucketed into a fixed ring of slots by deadline, so
+ * scheduling, cancelling and expiring a lease are all constant time
+ * no matter how many are open.  A single tick task drives the whole
+ * wheel instead of one scheduled task per reservation.
+ */
+public class LeaseWheel {
+	/** Default length of one tick in milliseconds */
+	public static final long DEFAULT_TICK_MILLIS = 10;
+	/** Default number of slots in the wheel */
+	public static final int DEFAULT_SLOTS = 512;
+
+	/** Wheel shared by every inventory that does not bring its own */
+	private static LeaseWheel shared;
+
+	private final long tickMillis;
+	/** Head of the intrusive list of leases in each slot */
+	private final Reservation[] slots;
+	private final int mask;
+	/** Ticks processed so far; guarded by this */
+	private long tick;
+	/** Leases currently on the wheel; guarded by this */
+	private int pending;
+	private ScheduledExecutorService ticker;
+
+	/**
+	 * Creates a wheel with the given tick length and at least the
+	 * given number of slots.  The wheel does not advance until
+	 * start() is called or tick() is called directly.
+	 * @param tickMillis
+	 * @param slots
+	 */
+	public LeaseWheel(long tickMillis, int slots) {
+		if (tickMillis <= 0 || slots <= 0) {
+			throw new IllegalArgumentException("Tick length and slot count must be positive");
+		}
+		int size = Integer.highestOneBit(slots);
+		if (size < slots) {
+			size <<= 1;
+		}
+		this.tickMillis = tickMillis;
+		this.slots = new Reservation[size];
+		this.mask = size - 1;
+	}
+
+	/**
+	 * Returns the process-wide wheel, starting it on first use.
+	 * @return LeaseWheel
+	 */
+	public static synchronized LeaseWheel shared() {
+		if (shared == null) {
+			shared = new LeaseWheel(DEFAULT_TICK_MILLIS, DEFAULT_SLOTS);
+			shared.start();
+		}
+		return shared;
+	}
+
+	/**
+	 * Starts advancing the wheel once per tick on a daemon thread.
+	 */
+	public synchronized void start() {
+		if (ticker != null) {
+			return;
+		}
+		ticker = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread t = new Thread(r, "lease-wheel");
+			t.setDaemon(true);
+			return t;
+		});
+		ticker.scheduleAtFixedRate(this::tick, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Stops the ticker thread.  Leases still on the wheel stay
+	 * pending until the wheel is ticked again.
+	 */
+	public synchronized void stop() {
+		if (ticker != null) {
+			ticker.shutdownNow();
+			ticker = null;
+		}
+	}
+
+	/**
+	 * Returns the number of leases waiting on the wheel.
+	 * @return int
+	 */
+	public synchronized int pending() {
+		return pending;
+	}
+
+	/**
+	 * Returns the tick length in milliseconds.
+	 * @return long
+	 */
+	public long getTickMillis() {
+		return tickMillis;
+	}
+
+	/**
+	 * Puts the reservation on the wheel so it expires after
+	 * the lease, rounded up to whole ticks.
+	 * @param r
+	 * @param leaseMillis
+	 */
+	synchronized void schedule(Reservation r, long leaseMillis) {
+		long ticks = Math.max(1, (leaseMillis + tickMillis - 1) / tickMillis);
+		int slot = (int) ((tick + ticks) & mask);
+		r.rounds = (ticks - 1) / slots.length;
+		r.slot = slot;
+		r.prev = null;
+		r.next = slots[slot];
+		if (r.next != null) {
+			r.next.prev = r;
+		}
+		slots[slot] = r;
+		pending++;
+	}
+
+	/**
+	 * Takes the reservation off the wheel if it is still on it.
+	 * @param r
+	 */
+	synchronized void cancel(Reservation r) {
+		if (r.slot >= 0) {
+			unlink(r);
+		}
+	}
+
+	/**
+	 * Advances the wheel by one tick and expires every lease
+	 * whose deadline has passed.  Expired reservations hand their
+	 * ingredients back outside the wheel lock.
+	 */
+	public void tick() {
+		Reservation expired = null;
+		synchronized (this) {
+			tick++;
+			Reservation r = slots[(int) (tick & mask)];
+			while (r != null) {
+				Reservation next = r.next;
+				if (r.rounds == 0) {
+					unlink(r);
+					r.next = expired;
+					expired = r;
+				} else {
+					r.rounds--;
+				}
+				r = next;
+			}
+		}
+		while (expired != null) {
+			Reservation next = expired.next;
+			expired.next = null;
+			expired.expire();
+			expired = next;
+		}
+	}
+
+	private void unlink(Reservation r) {
+		if (r.prev != null) {
+			r.prev.next = r.next;
+		} else {
+			slots[r.slot] = r.next;
+		}
+		if (r.next != null) {
+			r.next.prev = r.prev;
+		}
+		r.prev = null;
+		r.next = null;
+		r.slot = -1;
+		pending--;
+	}
+}
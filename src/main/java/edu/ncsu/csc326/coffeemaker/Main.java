@@ -14,11 +14,19 @@
 package edu.ncsu.csc326.coffeemaker;
 
 import java.io.BufferedReader;
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.nio.channels.Channels;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 
 import edu.ncsu.csc326.coffeemaker.exceptions.InventoryException;
 import edu.ncsu.csc326.coffeemaker.exceptions.RecipeException;
+import edu.ncsu.csc326.coffeemaker.journal.Checkpoint;
+import edu.ncsu.csc326.coffeemaker.net.ScriptRunner;
 
 /**
  * 
@@ -28,40 +36,36 @@ import edu.ncsu.csc326.coffeemaker.exceptions.RecipeException;
  */
 public class Main {
     private static CoffeeMaker coffeeMaker;
+    /** Checkpoint loaded at startup and saved on exit, or null */
+    private static Path checkpointFile;
+    /** The one reader of System.in, so piped input is never dropped */
+    private static BufferedReader input;
 
     /**
      * Prints the main menu and handles user input for 
-     * main menu commands.
+     * main menu commands until the user exits or the input ends.
      */
     public static void mainMenu() {
-        System.out.println("1. Add a recipe");
-        System.out.println("2. Delete a recipe");
-        System.out.println("3. Edit a recipe");
-        System.out.println("4. Add inventory");
-        System.out.println("5. Check inventory");
-        System.out.println("6. Make coffee");
-        System.out.println("0. Exit\n");
-        
-        //Get user input
-        try {
-        	int userInput = Integer.parseInt(inputOutput("Please press the number that corresponds to what you would like the coffee maker to do."));
-        	
-        	if (userInput >= 0 && userInput <=6) {
-		        if (userInput == 1) addRecipe();
-		        if (userInput == 2) deleteRecipe();
-		        if (userInput == 3) editRecipe();
-		        if (userInput == 4) addInventory();
-		        if (userInput == 5) checkInventory();
-		        if (userInput == 6) makeCoffee();
-		        if (userInput == 0) System.exit(0);
-        	} else {
-        		System.out.println("Please enter a number from 0 - 6");
-            	mainMenu();
-        	}
-        } catch (NumberFormatException e) {
-        	System.out.println("Please enter a number from 0 - 6");
-        	mainMenu();
-        }
+    	while (true) {
+	        System.out.println("1. Add a recipe");
+	        System.out.println("2. Delete a recipe");
+	        System.out.println("3. Edit a recipe");
+	        System.out.println("4. Add inventory");
+	        System.out.println("5. Check inventory");
+	        System.out.println("6. Make coffee");
+	        System.out.println("0. Exit\n");
+	        
+	        //Get user input
+	        int userInput = Units.parse(inputOutput("Please press the number that corresponds to what you would like the coffee maker to do."));
+	        if (userInput == 1) addRecipe();
+	        else if (userInput == 2) deleteRecipe();
+	        else if (userInput == 3) editRecipe();
+	        else if (userInput == 4) addInventory();
+	        else if (userInput == 5) checkInventory();
+	        else if (userInput == 6) makeCoffee();
+	        else if (userInput == 0) exit();
+	        else System.out.println("Please enter a number from 0 - 6");
+    	}
     }
     
     /**
@@ -105,8 +109,6 @@ public class Main {
 		    }
 		} catch (RecipeException e) {
 			System.out.println(e.getMessage());
-		} finally {
-			mainMenu();
 		}
     }
     
@@ -123,7 +125,7 @@ public class Main {
         int recipeToDelete = recipeListSelection("Please select the number of the recipe to delete.");
         
 	    if(recipeToDelete < 0) {
-	    	mainMenu();
+	    	return;
 	    }
 	    
         String recipeDeleted = coffeeMaker.deleteRecipe(recipeToDelete);
@@ -133,7 +135,6 @@ public class Main {
         } else {
 	        System.out.println("Selected recipe doesn't exist and could not be deleted.\n");
         }
-        mainMenu();
     }
     
     /**
@@ -149,7 +150,7 @@ public class Main {
         int recipeToEdit = recipeListSelection("Please select the number of the recipe to edit.");
         
 	    if(recipeToEdit < 0) {
-	    	mainMenu();
+	    	return;
 	    }
 	    
 	    //Read in recipe price
@@ -181,12 +182,10 @@ public class Main {
 	        	System.out.println(recipeEdited + " successfully edited.\n");
 	        }
 		    else {
-		    	System.out.println(recipeEdited + "could not be edited.\n");
+		    	System.out.println("Selected recipe doesn't exist and could not be edited.\n");
 		    }
 		} catch (RecipeException e) {
 			System.out.println(e.getMessage());
-		} finally {
-			mainMenu();
 		}
     }
     
@@ -211,8 +210,6 @@ public class Main {
         	System.out.println("Inventory successfully added");
         } catch (InventoryException e) {
         	System.out.println("Inventory was not added");
-        } finally {
-        	mainMenu();
         }
     }
     
@@ -221,7 +218,6 @@ public class Main {
      */
     public static void checkInventory() {
     	System.out.println(coffeeMaker.checkInventory());
-    	mainMenu();
     }
     
     /**
@@ -236,43 +232,46 @@ public class Main {
         }
         
         int recipeToPurchase = recipeListSelection("Please select the number of the recipe to purchase.");
+        if (recipeToPurchase < 0) {
+        	return;
+        }
         
-        String amountPaid = inputOutput("Please enter the amount you wish to pay");
-        int amtPaid = 0;
-        try {
-        	amtPaid = Integer.parseInt(amountPaid);
-        } catch (NumberFormatException e) {
+        int amtPaid = Units.parse(inputOutput("Please enter the amount you wish to pay"));
+        if (amtPaid == Units.INVALID) {
         	System.out.println("Please enter a positive integer");
-        	mainMenu();
+        	return;
         }
         
-        int change = coffeeMaker.makeCoffee(recipeToPurchase, amtPaid);
+        Recipe recipe = coffeeMaker.getRecipeBook().getRecipe(recipeToPurchase);
+        long receipt = coffeeMaker.purchase(recipeToPurchase, amtPaid);
         
-        if (change == amtPaid) {
+        if (Receipt.isSold(receipt)) {
+        	System.out.println("Thank you for purchasing " + recipe.getName());
+        } else if (Receipt.outcome(receipt) == Receipt.INSUFFICIENT_PAYMENT) {
         	System.out.println("Insufficient funds to purchase.");
         } else {
-        	System.out.println("Thank you for purchasing " + coffeeMaker.getRecipes()[recipeToPurchase].getName());
+        	System.out.println("Could not purchase: " + Receipt.describe(Receipt.outcome(receipt)) + ".");
         }
-        System.out.println("Your change is: " + change + "\n");
-        mainMenu();
+        System.out.println("Your change is: " + Receipt.change(receipt) + "\n");
     }
     
     /**
      * Passes a prompt to the user and returns the user specified 
-     * string.
+     * string.  Exits when the input ends or cannot be read.
      * @param message
      * @return String
      */
     private static String inputOutput(String message) {
         System.out.println(message);
-	    BufferedReader br = new BufferedReader(new InputStreamReader(System.in));
-	    String returnString = "";
+	    String returnString = null;
 	    try {
-	        returnString = br.readLine();
+	        returnString = input.readLine();
 	    }
 	    catch (IOException e){
 	        System.out.println("Error reading in value");
-	        mainMenu();
+	    }
+	    if (returnString == null) {
+	    	exit();
 	    }
 	    return returnString;
     }
@@ -285,27 +284,82 @@ public class Main {
      */
     private static int recipeListSelection(String message) {
     	String userSelection = inputOutput(message);
-    	int recipe = 0;
-        try {
-        	recipe = Integer.parseInt(userSelection) - 1;
-        	if (recipe >= 0 && recipe <=2) {
-        		//do nothing here.
-        	} else {
-        		recipe = -1;
-        	}
-        } catch (NumberFormatException e) {
-        	System.out.println("Please select a number from 1-3.");
-        	recipe = -1;
-        }
+    	int slots = coffeeMaker.getRecipes().length;
+    	int recipe = Units.parse(userSelection) - 1;
+    	if (recipe < 0 || recipe >= slots) {
+    		System.out.println("Please select a number from 1-" + slots + ".");
+    		recipe = -1;
+    	}
         return recipe;
     }
     
     /**
-     * Starts the coffee maker program.
+     * Saves the checkpoint, if there is one, and exits.
+     */
+    private static void exit() {
+    	if (checkpointFile != null) {
+    		try {
+    			Checkpoint.write(checkpointFile, coffeeMaker);
+    		} catch (IOException e) {
+    			System.out.println("Error saving checkpoint: " + e.getMessage());
+    		}
+    	}
+    	System.exit(0);
+    }
+    
+    /**
+     * Runs a command script without prompts, prints a throughput
+     * summary and exits.  The script uses the line protocol of the
+     * network server; "-" reads it from System.in.
+     * @param script
+     * @param quiet true to print only the summary
+     */
+    private static void runScript(String script, boolean quiet) {
+    	try (InputStream in = "-".equals(script) ? System.in : new FileInputStream(script)) {
+    		ScriptRunner runner = new ScriptRunner(coffeeMaker);
+    		runner.run(Channels.newChannel(in), quiet ? null : Channels.newChannel(System.out));
+    		System.out.println(runner.summary());
+    	} catch (IOException e) {
+    		System.out.println("Error running script: " + e.getMessage());
+    	}
+    	exit();
+    }
+    
+    /**
+     * Starts the coffee maker program.  If a checkpoint file is
+     * given, the coffee maker starts from it when it exists and
+     * saves to it on exit.  With --script file, or --quiet-script
+     * file to print only the summary, the commands in the file
+     * ("-" for System.in) are run instead of the menu:
+     * <pre>
+     * Main [--script|--quiet-script file] [checkpoint]
+     * </pre>
      * @param args
      */
     public static void main(String[] args) {
+    	String script = null;
+    	boolean quiet = false;
+    	int arg = 0;
+    	if (args.length > 1 && ("--script".equals(args[0]) || "--quiet-script".equals(args[0]))) {
+    		quiet = "--quiet-script".equals(args[0]);
+    		script = args[1];
+    		arg = 2;
+    	}
 	    coffeeMaker = new CoffeeMaker();
+	    if (args.length > arg) {
+	    	checkpointFile = Paths.get(args[arg]);
+	    	if (Files.exists(checkpointFile)) {
+	    		try {
+	    			coffeeMaker = Checkpoint.load(checkpointFile);
+	    		} catch (IOException e) {
+	    			System.out.println("Error loading checkpoint: " + e.getMessage());
+	    		}
+	    	}
+	    }
+	    if (script != null) {
+	    	runScript(script, quiet);
+	    }
+	    input = new BufferedReader(new InputStreamReader(System.in));
 	    System.out.println("Welcome to the CoffeeMaker!\n");
 	    mainMenu();
 	}
@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) 2009,  Sarah Heckman, Laurie Williams, Dright Ho
+ * All Rights Reserved.
+ *
+ * Permission has been explicitly granted to the University of Minnesota
+ * Software Engineering Center to use and distribute this source for
+ * educational purposes, including delivering online education through
+ * Coursera or other entities.
+ *
+ * No warranty is given regarding this software, including warranties as
+ * to the correctness or completeness of this software, including
+ * fitness for purpose.
+ */
+package edu.ncsu.csc326.coffeemaker;
+
+/**
+ * Outcome and change of a purchase packed into one long.
+ *
+ * makeCoffee only returns the change, which is the same for every
+ * failed purchase.  A receipt also says why a purchase failed,
+ * without allocating: the outcome sits in the high 32 bits and the
+ * change in the low 32 bits.
+ */
+public final class Receipt {
+	/** The beverage was made */
+	public static final int SOLD = 0;
+	/** There is no recipe in the selected slot */
+	public static final int NO_SUCH_RECIPE = 1;
+	/** The amount paid is less than the price */
+	public static final int INSUFFICIENT_PAYMENT = 2;
+	/** The inventory lacks an ingredient of the recipe */
+	public static final int OUT_OF_STOCK = 3;
+	/** The coin hopper cannot pay out the exact change */
+	public static final int NO_CHANGE = 4;
+	/** Number of distinct outcomes */
+	public static final int OUTCOMES = 5;
+
+	private static final String[] NAMES = {"sold", "no such recipe", "insufficient payment", "out of stock",
+			"no change"};
+
+	private Receipt() {
+	}
+
+	/**
+	 * Returns a receipt with the given outcome and change.
+	 * @param outcome
+	 * @param change
+	 * @return long
+	 */
+	public static long of(int outcome, int change) {
+		return ((long) outcome << 32) | (change & 0xFFFFFFFFL);
+	}
+
+	/**
+	 * Returns the outcome of the receipt.
+	 * @param receipt
+	 * @return int
+	 */
+	public static int outcome(long receipt) {
+		return (int) (receipt >>> 32);
+	}
+
+	/**
+	 * Returns the change of the receipt.
+	 * @param receipt
+	 * @return int
+	 */
+	public static int change(long receipt) {
+		return (int) receipt;
+	}
+
+	/**
+	 * Returns true if the beverage was made.
+	 * @param receipt
+	 * @return boolean
+	 */
+	public static boolean isSold(long receipt) {
+		return outcome(receipt) == SOLD;
+	}
+
+	/**
+	 * Returns a readable name for the outcome.
+	 * @param outcome
+	 * @return String
+	 */
+	public static String describe(int outcome) {
+		return NAMES[outcome];
+	}
+}
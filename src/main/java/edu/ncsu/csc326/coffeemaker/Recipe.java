@@ -13,18 +13,22 @@
  */
 package edu.ncsu.csc326.coffeemaker;
 
+import java.util.Arrays;
+
 import edu.ncsu.csc326.coffeemaker.exceptions.RecipeException;
 
 /**
+ * A recipe is not thread-safe.  Once it is added to a RecipeBook it
+ * is shared with every reader of the book's snapshots and must not be
+ * changed; editRecipe replaces it with a new Recipe instead.
+ *
  * @author   Sarah Heckman
  */
 public class Recipe {
     private String name;
     private int price;
-    private int amtCoffee;
-    private int amtMilk;
-    private int amtSugar;
-    private int amtChocolate;
+    /** Units of each ingredient by IngredientRegistry id */
+    private int [] amounts;
     
     /**
      * Creates a default recipe for the coffee maker.
@@ -32,100 +36,204 @@ public class Recipe {
     public Recipe() {
     	this.name = "";
     	this.price = 0;
-    	this.amtCoffee = 0;
-    	this.amtMilk = 0;
-    	this.amtSugar = 0;
-    	this.amtChocolate = 0;
+    	this.amounts = new int[IngredientRegistry.BUILT_IN];
+    }
+    
+    /**
+     * Creates a recipe from values that are already parsed, such
+     * as by a bulk importer.  The amounts are indexed by
+     * IngredientRegistry id and copied.
+     * @param name
+     * @param price
+     * @param amounts
+     * @throws RecipeException if the price or an amount is negative
+     *         or an ingredient is not registered
+     */
+    public Recipe(String name, int price, int [] amounts) throws RecipeException {
+    	check(validate(price, amounts));
+    	int length = Math.max(amounts.length, IngredientRegistry.BUILT_IN);
+    	while (length > IngredientRegistry.BUILT_IN && amounts[length - 1] == 0) {
+    		length--;
+    	}
+    	this.name = name == null ? "" : name;
+    	this.price = price;
+    	this.amounts = Arrays.copyOf(amounts, length);
+    }
+    
+    /**
+     * Returns the Status the Recipe(String, int, int[]) constructor
+     * would fail with for the price and amounts, or OK.
+     * @param price
+     * @param amounts
+     * @return int
+     */
+    public static int validate(int price, int [] amounts) {
+    	if (price < 0) {
+    		return Status.of(Status.INVALID_PRICE, 0);
+    	}
+    	for (int i = 0; i < amounts.length; i++) {
+    		if (amounts[i] == 0) {
+    			continue;
+    		}
+    		if (!IngredientRegistry.isRegistered(i)) {
+    			return Status.of(Status.UNKNOWN_INGREDIENT, i);
+    		}
+    		if (amounts[i] < 0) {
+    			return Status.of(Status.INVALID_AMOUNT, i);
+    		}
+    	}
+    	return Status.OK;
     }
     
     /**
 	 * @return   Returns the amtChocolate.
 	 */
     public int getAmtChocolate() {
-		return amtChocolate;
+		return amounts[IngredientRegistry.CHOCOLATE];
 	}
     /**
-	 * @param amtChocolate   The amtChocolate to set.
+	 * @param chocolate   The amtChocolate to set.
 	 */
     public void setAmtChocolate(String chocolate) throws RecipeException {
-    	int amtChocolate = 0;
-    	try {
-    		amtChocolate = Integer.parseInt(chocolate);
-    	} catch (NumberFormatException e) {
-    		throw new RecipeException("Units of chocolate must be a positive integer");
-    	}
-		if (amtChocolate >= 0) {
-			this.amtChocolate = amtChocolate;
-		} else {
-			throw new RecipeException("Units of chocolate must be a positive integer");
-		}
+    	setAmount(IngredientRegistry.CHOCOLATE, chocolate);
+	}
+    /**
+	 * @param chocolate   The amtChocolate to set.
+	 */
+    public void setAmtChocolate(int chocolate) throws RecipeException {
+    	setAmount(IngredientRegistry.CHOCOLATE, chocolate);
 	}
     /**
 	 * @return   Returns the amtCoffee.
 	 */
     public int getAmtCoffee() {
-		return amtCoffee;
+		return amounts[IngredientRegistry.COFFEE];
 	}
     /**
-	 * @param amtCoffee   The amtCoffee to set.
+	 * @param coffee   The amtCoffee to set.
 	 */
     public void setAmtCoffee(String coffee) throws RecipeException {
-    	int amtCoffee = 0;
-    	try {
-    		amtCoffee = Integer.parseInt(coffee);
-    	} catch (NumberFormatException e) {
-    		throw new RecipeException("Units of coffee must be a positive integer");
-    	}
-		if (amtCoffee >= 0) {
-			this.amtCoffee = amtCoffee;
-		} else {
-			throw new RecipeException("Units of coffee must be a positive integer");
-		}
+    	setAmount(IngredientRegistry.COFFEE, coffee);
+	}
+    /**
+	 * @param coffee   The amtCoffee to set.
+	 */
+    public void setAmtCoffee(int coffee) throws RecipeException {
+    	setAmount(IngredientRegistry.COFFEE, coffee);
 	}
     /**
 	 * @return   Returns the amtMilk.
 	 */
     public int getAmtMilk() {
-		return amtMilk;
+		return amounts[IngredientRegistry.MILK];
 	}
     /**
-	 * @param amtMilk   The amtMilk to set.
+	 * @param milk   The amtMilk to set.
 	 */
     public void setAmtMilk(String milk) throws RecipeException{
-    	int amtMilk = 0;
-    	try {
-    		amtMilk = Integer.parseInt(milk);
-    	} catch (NumberFormatException e) {
-    		throw new RecipeException("Units of milk must be a positive integer");
-    	}
-		if (amtMilk >= 0) {
-			this.amtMilk = amtMilk;
-		} else {
-			throw new RecipeException("Units of milk must be a positive integer");
-		}
+    	setAmount(IngredientRegistry.MILK, milk);
+	}
+    /**
+	 * @param milk   The amtMilk to set.
+	 */
+    public void setAmtMilk(int milk) throws RecipeException {
+    	setAmount(IngredientRegistry.MILK, milk);
 	}
     /**
 	 * @return   Returns the amtSugar.
 	 */
     public int getAmtSugar() {
-		return amtSugar;
+		return amounts[IngredientRegistry.SUGAR];
 	}
     /**
-	 * @param amtSugar   The amtSugar to set.
+	 * @param sugar   The amtSugar to set.
 	 */
     public void setAmtSugar(String sugar) throws RecipeException {
-    	int amtSugar = 0;
-    	try {
-    		amtSugar = Integer.parseInt(sugar);
-    	} catch (NumberFormatException e) {
-    		throw new RecipeException("Units of sugar must be a positive integer");
+    	setAmount(IngredientRegistry.SUGAR, sugar);
+	}
+    /**
+	 * @param sugar   The amtSugar to set.
+	 */
+    public void setAmtSugar(int sugar) throws RecipeException {
+    	setAmount(IngredientRegistry.SUGAR, sugar);
+	}
+    /**
+     * @param ingredient   The IngredientRegistry id.
+	 * @return   Returns the units of the ingredient in the recipe.
+	 */
+    public int getAmount(int ingredient) {
+    	int [] current = amounts;
+		return ingredient < current.length ? current[ingredient] : 0;
+	}
+    /**
+     * @param ingredient   The IngredientRegistry id.
+	 * @param units   The units of the ingredient to set.
+	 */
+    public void setAmount(int ingredient, CharSequence units) throws RecipeException {
+    	check(trySetAmount(ingredient, units));
+	}
+    /**
+     * @param ingredient   The IngredientRegistry id.
+	 * @param units   The units of the ingredient to set.
+	 */
+    public void setAmount(int ingredient, int units) throws RecipeException {
+    	check(trySetAmount(ingredient, units));
+	}
+    /**
+     * Like setAmount, but returns a Status instead of throwing.
+     * @param ingredient   The IngredientRegistry id.
+	 * @param units   The units of the ingredient to set.
+	 * @return   Returns the Status of the update.
+	 */
+    public int trySetAmount(int ingredient, CharSequence units) {
+    	if (!IngredientRegistry.isRegistered(ingredient)) {
+    		return Status.of(Status.UNKNOWN_INGREDIENT, ingredient);
+    	}
+    	int amount = Units.parse(units);
+		if (amount == Units.INVALID) {
+			return Status.of(Status.INVALID_AMOUNT, ingredient);
+		}
+		setUnits(ingredient, amount);
+		return Status.OK;
+	}
+    /**
+     * Like setAmount, but returns a Status instead of throwing.
+     * @param ingredient   The IngredientRegistry id.
+	 * @param units   The units of the ingredient to set.
+	 * @return   Returns the Status of the update.
+	 */
+    public int trySetAmount(int ingredient, int units) {
+    	if (!IngredientRegistry.isRegistered(ingredient)) {
+    		return Status.of(Status.UNKNOWN_INGREDIENT, ingredient);
     	}
-		if (amtSugar >= 0) {
-			this.amtSugar = amtSugar;
-		} else {
-			throw new RecipeException("Units of sugar must be a positive integer");
+		if (units < 0) {
+			return Status.of(Status.INVALID_AMOUNT, ingredient);
 		}
+		setUnits(ingredient, units);
+		return Status.OK;
 	}
+    /**
+     * @param ingredient   The ingredient name, registered if new.
+	 * @param units   The units of the ingredient to set.
+	 */
+    public void setAmount(String ingredient, String units) throws RecipeException {
+    	setAmount(IngredientRegistry.register(ingredient), units);
+	}
+    /**
+	 * @return   Returns a copy of the units of every ingredient,
+	 *           indexed by IngredientRegistry id.
+	 */
+    public int [] getRequirements() {
+    	return amounts.clone();
+    }
+    /**
+	 * Returns the live requirement vector, indexed by ingredient id,
+	 * for the inventory's purchase loop.  Callers must not modify it.
+	 * @return int[]
+	 */
+    int [] requirements() {
+    	return amounts;
+    }
     /**
 	 * @return   Returns the name.
 	 */
@@ -150,18 +258,50 @@ public class Recipe {
 	 * @param price   The price to set.
 	 */
     public void setPrice(String price) throws RecipeException{
-    	int amtPrice = 0;
-    	try {
-    		amtPrice = Integer.parseInt(price);
-    	} catch (NumberFormatException e) {
-    		throw new RecipeException("Price must be a positive integer");
-    	}
-		if (amtPrice >= 0) {
-			this.price = amtPrice;
-		} else {
-			throw new RecipeException("Price must be a positive integer");
-		}
+    	check(trySetPrice(price));
 	} 
+    /**
+	 * @param price   The price to set.
+	 */
+    public void setPrice(int price) throws RecipeException {
+    	check(trySetPrice(price));
+	}
+    /**
+     * Like setPrice, but returns a Status instead of throwing.
+	 * @param price   The price to set.
+	 * @return   Returns the Status of the update.
+	 */
+    public int trySetPrice(CharSequence price) {
+    	return trySetPrice(Units.parse(price));
+	}
+    /**
+     * Like setPrice, but returns a Status instead of throwing.
+	 * @param price   The price to set.
+	 * @return   Returns the Status of the update.
+	 */
+    public int trySetPrice(int price) {
+		if (price < 0) {
+			return Status.of(Status.INVALID_PRICE, 0);
+		}
+		this.price = price;
+		return Status.OK;
+	}
+    
+    private static void check(int status) throws RecipeException {
+    	if (status != Status.OK) {
+    		throw new RecipeException(Status.describe(status));
+    	}
+    }
+    
+    private void setUnits(int ingredient, int amount) {
+    	if (ingredient >= amounts.length) {
+    		int [] grown = Arrays.copyOf(amounts, ingredient + 1);
+    		grown[ingredient] = amount;
+    		amounts = grown;
+    	} else {
+    		amounts[ingredient] = amount;
+    	}
+    }
     
     /**
      * Returns the name of the recipe.
@@ -1,62 +1,205 @@
 /*
  * Copyright (c) 2009,  Sarah Heckman, Laurie Williams, Dright Ho
  * All Rights Reserved.
- * 
- * Permission has been explicitly granted to the University of Minnesota 
- * Software Engineering Center to use and distribute this source for 
+ *
+ * Permission has been explicitly granted to the University of Minnesota
+ * Software Engineering Center to use and distribute this source for
  * educational purposes, including delivering online education through
- * Coursera or other entities.  
- * 
+ * Coursera or other entities.
+ *
  * No warranty is given regarding this software, including warranties as
- * to the correctness or completeness of this software, including 
+ * to the correctness or completeness of this software, including
  * fitness for purpose.
  */
 package edu.ncsu.csc326.coffeemaker;
 
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Recipes of the coffee maker, published as immutable snapshots.
+ *
+ * Readers take the current snapshot with one volatile read and no
+ * lock.  Writers are serialized on the book's monitor and each edit
+ * copies the recipe array, changes the copy and swaps it in, so edits
+ * never slow down or tear a read.  A book opened on a RecipeSource
+ * builds recipes as they are read; the first edit builds the rest.
+ *
+ * Publishing links the new snapshot from the one it replaces before
+ * swapping it in.  An edit takes effect at that link; purchases take
+ * no lock and are made before it as long as the inventory finds
+ * their snapshot not yet replaced when it takes the ingredients.
+ */
 public class RecipeBook {
 	
-	/** Array of recipes in coffee maker*/
-	private Recipe [] recipeArray;
-	/** Number of recipes in coffee maker */
+	/** Current recipes of the coffee maker, indexed by slot */
+	private volatile RecipeSnapshot snapshot;
+	/** Initial number of recipe slots in coffee maker */
 	private final int NUM_RECIPES = 4; 
+	/** Slot of each recipe in the book, keyed by recipe name; built
+	 *  from source on first use if the book was opened on one */
+	private Map<String, Integer> nameIndex;
+	/** Source the book was opened on, until nameIndex is built */
+	private RecipeSource source;
+	/** Stack of slots freed by deleteRecipe, reused before new ones */
+	private int [] freeSlots;
+	/** Number of slots on the free stack */
+	private int freeCount;
+	/** Number of slots handed out so far; slots at or above it are unused */
+	private int highWater;
 	
 	/**
 	 * Default constructor for a RecipeBook.
 	 */
 	public RecipeBook() {
-		recipeArray = new Recipe[NUM_RECIPES];
+		snapshot = new RecipeSnapshot(new Recipe[NUM_RECIPES], 0);
+		nameIndex = new HashMap<String, Integer>();
+		freeSlots = new int[NUM_RECIPES];
 	}
 	
 	/**
-	 * Returns the recipe array.
-	 * @param r
+	 * Creates a RecipeBook with room for the given number of
+	 * recipes before it has to grow.
+	 * @param capacity
+	 */
+	public RecipeBook(int capacity) {
+		snapshot = new RecipeSnapshot(new Recipe[Math.max(1, capacity)], 0);
+		nameIndex = new HashMap<String, Integer>(Math.max(16, capacity * 2));
+		freeSlots = new int[Math.max(1, capacity)];
+	}
+	
+	/**
+	 * Creates a RecipeBook holding the recipes of the source, in the
+	 * same slots and with the same free slots.  Recipes are built
+	 * from the source when they are first read.
+	 * @param source
+	 */
+	public RecipeBook(RecipeSource source) {
+		int slots = source.slots();
+		int [] free = source.freeSlots();
+		snapshot = new RecipeSnapshot(new Recipe[Math.max(1, slots)], 0, source);
+		this.source = source;
+		freeSlots = Arrays.copyOf(free, Math.max(1, free.length));
+		freeCount = free.length;
+		highWater = slots;
+	}
+	
+	/**
+	 * Returns the current snapshot of the recipes without locking.
+	 * @return RecipeSnapshot
+	 */
+	public RecipeSnapshot snapshot() {
+		return snapshot;
+	}
+	
+	/**
+	 * Returns a copy of the recipe array.  Slot numbers are stable:
+	 * a recipe keeps its slot until it is deleted, and empty slots
+	 * are null.
 	 * @return Recipe[]
 	 */
-	public synchronized Recipe[] getRecipes() {
-		return recipeArray;
+	public Recipe[] getRecipes() {
+		return snapshot.toArray();
 	}
 	
+	/**
+	 * Returns the recipe in the given slot, or null if the slot
+	 * is empty or out of range.
+	 * @param slot
+	 * @return Recipe
+	 */
+	public Recipe getRecipe(int slot) {
+		return snapshot.get(slot);
+	}
+	
+	/**
+	 * Returns the slot of the recipe with the given name, or -1
+	 * if there is no such recipe.
+	 * @param name
+	 * @return int
+	 */
+	public synchronized int indexOf(String name) {
+		Integer slot = index().get(name);
+		return slot == null ? -1 : slot.intValue();
+	}
+	
+	/**
+	 * Returns the free slots in the order they were freed; the last
+	 * one is the next slot addRecipe takes.
+	 * @return int[]
+	 */
+	public synchronized int [] getFreeSlots() {
+		return Arrays.copyOf(freeSlots, freeCount);
+	}
+	
+	/**
+	 * Returns the number of recipes in the book.
+	 * @return int
+	 */
+	public synchronized int size() {
+		return index().size();
+	}
+	
+	/**
+	 * Returns true if the recipe is added to the book and false
+	 * if a recipe with the same name already exists.  The recipe
+	 * takes the most recently freed slot, or a new one at the end.
+	 * @param r
+	 * @return boolean
+	 */
 	public synchronized boolean addRecipe(Recipe r) {
-		//Assume recipe doesn't exist in the array until 
-		//find out otherwise
-		boolean exists = false;
-		//Check that recipe doesn't already exist in array
-		for (int i = 0; i < recipeArray.length; i++ ) {
-			if (r.equals(recipeArray[i])) {
-				exists = true;
-			}
+		if (index().containsKey(r.getName())) {
+			return false;
 		}
-		//Assume recipe cannot be added until find an empty
-		//spot
-		boolean added = false;
-		//Check for first empty spot in array
-		if (!exists) {
-			for (int i = 0; i < recipeArray.length && !added; i++) {
-				if (recipeArray[i] == null) {
-					recipeArray[i] = r;
-					added = true;
-				}
+		RecipeSnapshot current = snapshot;
+		int slot;
+		if (freeCount > 0) {
+			slot = freeSlots[--freeCount];
+		} else {
+			slot = highWater++;
+		}
+		int length = current.length();
+		Recipe [] recipes = current.copy(slot < length ? length : length * 2);
+		recipes[slot] = r;
+		index().put(r.getName(), slot);
+		publish(recipes);
+		return true;
+	}
+
+	/**
+	 * Adds the recipes in one step, publishing a single snapshot for
+	 * the whole batch.  A recipe is skipped if a recipe with the same
+	 * name is already in the book or earlier in the batch.  Slots are
+	 * taken as if addRecipe had been called for each recipe in turn.
+	 * @param batch
+	 * @return boolean[] which recipes were added
+	 */
+	public synchronized boolean [] addRecipes(List<Recipe> batch) {
+		boolean [] added = new boolean[batch.size()];
+		Map<String, Integer> names = index();
+		RecipeSnapshot current = snapshot;
+		int length = current.length();
+		int needed = highWater + Math.max(0, batch.size() - freeCount);
+		while (length < needed) {
+			length *= 2;
+		}
+		Recipe [] recipes = current.copy(length);
+		boolean changed = false;
+		for (int i = 0; i < added.length; i++) {
+			Recipe r = batch.get(i);
+			if (names.containsKey(r.getName())) {
+				continue;
 			}
+			int slot = freeCount > 0 ? freeSlots[--freeCount] : highWater++;
+			recipes[slot] = r;
+			names.put(r.getName(), slot);
+			added[i] = true;
+			changed = true;
+		}
+		if (changed) {
+			publish(recipes);
 		}
 		return added;
 	}
@@ -68,9 +211,19 @@ public class RecipeBook {
 	 * @return String
 	 */
 	public synchronized String deleteRecipe(int recipeToDelete) {
-		if (recipeArray[recipeToDelete] != null) {
-			String recipeName = recipeArray[recipeToDelete].getName();
-			recipeArray[recipeToDelete] = new Recipe();
+		Recipe r = getRecipe(recipeToDelete);
+		if (r != null) {
+			String recipeName = r.getName();
+			Recipe [] recipes = snapshot.toArray();
+			recipes[recipeToDelete] = null;
+			index().remove(recipeName);
+			if (freeCount == freeSlots.length) {
+				int [] grown = new int[freeSlots.length * 2];
+				System.arraycopy(freeSlots, 0, grown, 0, freeCount);
+				freeSlots = grown;
+			}
+			freeSlots[freeCount++] = recipeToDelete;
+			publish(recipes);
 			return recipeName;
 		} else {
 			return null;
@@ -79,20 +232,58 @@ public class RecipeBook {
 	
 	/**
 	 * Returns the name of the recipe edited at the position specified
-	 * and null if the recipe does not exist.
+	 * and null if the recipe does not exist.  The edited recipe keeps
+	 * the name and slot of the recipe it replaces.
 	 * @param recipeToEdit
 	 * @param newRecipe
 	 * @return String
 	 */
 	public synchronized String editRecipe(int recipeToEdit, Recipe newRecipe) {
-		if (recipeArray[recipeToEdit] != null) {
-			String recipeName = recipeArray[recipeToEdit].getName();
-			newRecipe.setName("");
-			recipeArray[recipeToEdit] = newRecipe;
+		Recipe r = getRecipe(recipeToEdit);
+		if (r != null) {
+			String recipeName = r.getName();
+			newRecipe.setName(recipeName);
+			Recipe [] recipes = snapshot.toArray();
+			recipes[recipeToEdit] = newRecipe;
+			publish(recipes);
 			return recipeName;
 		} else {
 			return null;
 		}
 	}
 
+	/**
+	 * Returns the name index, building it from the source names the
+	 * first time.  Only called while holding the book's monitor.
+	 * Edits keep recipe names, so the source names are still right
+	 * if an edit came first.
+	 * @return Map
+	 */
+	private Map<String, Integer> index() {
+		if (nameIndex == null) {
+			int slots = source.slots();
+			nameIndex = new HashMap<String, Integer>(Math.max(16, slots * 2));
+			for (int i = 0; i < slots; i++) {
+				String name = source.name(i);
+				if (name != null) {
+					nameIndex.put(name, i);
+				}
+			}
+			source = null;
+		}
+		return nameIndex;
+	}
+
+	/**
+	 * Swaps in a snapshot of the edited array.  Only called while
+	 * holding the book's monitor.
+	 * @param recipes
+	 */
+	private void publish(Recipe [] recipes) {
+		RecipeSnapshot old = snapshot;
+		RecipeSnapshot next = new RecipeSnapshot(recipes, old.getVersion() + 1);
+		old.replaceWith(next);
+		snapshot = next;
+	}
+
 }
@@ -0,0 +1,162 @@
+/*
+ * Copyright (c) 2009,  Sarah Heckman, Laurie Williams, Dright Ho
+ * All Rights Reserved.
+ *
+ * Permission has been explicitly granted to the University of Minnesota
+ * Software Engineering Center to use and distribute this source for
+ * educational purposes, including delivering online education through
+ * Coursera or other entities.
+ *
+ * No warranty is given regarding this software, including warranties as
+ * to the correctness or completeness of this software, including
+ * fitness for purpose.
+ */
+package edu.ncsu.csc326.coffeemaker;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Immutable view of a RecipeBook at one version.
+ *
+ * A snapshot never changes once published; editing the book builds
+ * a new snapshot and swaps it in.  Readers may therefore use a
+ * snapshot without locking and never see a half-applied edit.
+ * A snapshot loaded from a RecipeSource builds each recipe the first
+ * time its slot is read.
+ */
+public final class RecipeSnapshot {
+	/** Recipes by slot; never written after construction */
+	private final Recipe [] recipes;
+	/** Number of edits the book had seen when this was published */
+	private final long version;
+	/** Where slots left null in recipes come from, or null */
+	private final RecipeSource source;
+	/** Recipes built from the source so far */
+	private final AtomicReferenceArray<Recipe> loaded;
+	/** The snapshot the book published after this one, or null */
+	private volatile RecipeSnapshot next;
+
+	/**
+	 * Wraps the array, which the caller must not modify afterwards.
+	 * @param recipes
+	 * @param version
+	 */
+	RecipeSnapshot(Recipe [] recipes, long version) {
+		this(recipes, version, null);
+	}
+
+	/**
+	 * Wraps the array and fills its empty slots from the source
+	 * when they are first read.
+	 * @param recipes
+	 * @param version
+	 * @param source
+	 */
+	RecipeSnapshot(Recipe [] recipes, long version, RecipeSource source) {
+		this.recipes = recipes;
+		this.version = version;
+		this.source = source;
+		this.loaded = source == null ? null : new AtomicReferenceArray<Recipe>(recipes.length);
+	}
+
+	/**
+	 * Returns the recipe in the given slot, or null if the slot
+	 * is empty or out of range.
+	 * @param slot
+	 * @return Recipe
+	 */
+	public Recipe get(int slot) {
+		if (slot < 0 || slot >= recipes.length) {
+			return null;
+		}
+		Recipe r = recipes[slot];
+		return r != null || source == null ? r : load(slot);
+	}
+
+	/**
+	 * Returns the number of slots, including empty ones.
+	 * @return int
+	 */
+	public int length() {
+		return recipes.length;
+	}
+
+	/**
+	 * Returns the version of the book this snapshot was taken at.
+	 * @return long
+	 */
+	public long getVersion() {
+		return version;
+	}
+
+	/**
+	 * Returns true once the book this was taken from has published
+	 * a newer snapshot.
+	 * @return boolean
+	 */
+	public boolean isReplaced() {
+		return next != null;
+	}
+
+	/**
+	 * Returns the newest snapshot the book has published since
+	 * this one, or this one if it is still current.
+	 * @return RecipeSnapshot
+	 */
+	public RecipeSnapshot latest() {
+		RecipeSnapshot s = this;
+		for (RecipeSnapshot n = s.next; n != null; n = s.next) {
+			s = n;
+		}
+		return s;
+	}
+
+	/**
+	 * Links the snapshot that replaces this one.
+	 * @param next
+	 */
+	void replaceWith(RecipeSnapshot next) {
+		this.next = next;
+	}
+
+	/**
+	 * Returns a copy of the recipes by slot.
+	 * @return Recipe[]
+	 */
+	public Recipe[] toArray() {
+		if (source == null) {
+			return recipes.clone();
+		}
+		Recipe [] all = new Recipe[recipes.length];
+		for (int i = 0; i < all.length; i++) {
+			all[i] = get(i);
+		}
+		return all;
+	}
+
+	/**
+	 * Returns a copy of the recipes padded or cut to the given
+	 * number of slots, for building the next snapshot.
+	 * @param length
+	 * @return Recipe[]
+	 */
+	Recipe[] copy(int length) {
+		return Arrays.copyOf(source == null ? recipes : toArray(), length);
+	}
+
+	/**
+	 * Builds the recipe of a slot from the source, keeping the first
+	 * copy built if two threads race.
+	 */
+	private Recipe load(int slot) {
+		Recipe r = loaded.get(slot);
+		if (r == null) {
+			r = source.load(slot);
+			if (r != null && !loaded.compareAndSet(slot, null, r)) {
+				r = loaded.get(slot);
+			}
+		}
+		return r;
+	}
+}
@@ -0,0 +1,52 @@
+/*
+ * Copyright (c) 2009,  Sarah Heckman, Laurie Williams, Dright Ho
+ * All Rights Reserved.
+ *
+ * Permission has been explicitly granted to the University of Minnesota
+ * Software Engineering Center to use and distribute this source for
+ * educational purposes, including delivering online education through
+ * Coursera or other entities.
+ *
+ * No warranty is given regarding this software, including warranties as
+ * to the correctness or completeness of this software, including
+ * fitness for purpose.
+ */
+package edu.ncsu.csc326.coffeemaker;
+
+/**
+ * Recipes stored outside the heap, such as in a checkpoint file,
+ * that a RecipeBook builds into Recipe objects only when a slot is
+ * first read.
+ */
+public interface RecipeSource {
+
+	/**
+	 * Returns the number of slots, including empty ones.
+	 * @return int
+	 */
+	int slots();
+
+	/**
+	 * Returns the name of the recipe in the slot, or null if the
+	 * slot is empty.
+	 * @param slot
+	 * @return String
+	 */
+	String name(int slot);
+
+	/**
+	 * Builds the recipe in the slot, or returns null if the slot is
+	 * empty or out of range.  May be called more than once for the
+	 * same slot and must return equal recipes each time.
+	 * @param slot
+	 * @return Recipe
+	 */
+	Recipe load(int slot);
+
+	/**
+	 * Returns the empty slots in the order they were freed, so the
+	 * last one is reused first.
+	 * @return int[]
+	 */
+	int [] freeSlots();
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2009,  Sarah Heckman, Laurie Williams, Dright Ho
+ * All Rights Reserved.
+ *
+ * Permission has been explicitly granted to the University of Minnesota
+ * Software Engineering Center to use and distribute this source for
+ * educational purposes, including delivering online education through
+ * Coursera or other entities.
+ *
+ * No warranty is given regarding this software, including warranties as
+ * to the correctness or completeness of this software, including
+ * fitness for purpose.
+ */
+package edu.ncsu.csc326.coffeemaker;
+
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+/**
+ * Handle for ingredients held back from an inventory while a
+ * purchase is being paid for.
+ *
+ * The ingredients leave the available stock when the reservation
+ * is made.  Committing keeps them spent; releasing, or letting the
+ * lease run out, returns them.  Exactly one of the three happens.
+ */
+public class Reservation {
+	/** The reservation is holding stock */
+	public static final int PENDING = 0;
+	/** The ingredients were spent on a purchase */
+	public static final int COMMITTED = 1;
+	/** The ingredients were handed back by the caller */
+	public static final int RELEASED = 2;
+	/** The lease ran out and the ingredients were handed back */
+	public static final int EXPIRED = 3;
+
+	private static final AtomicIntegerFieldUpdater<Reservation> STATE =
+			AtomicIntegerFieldUpdater.newUpdater(Reservation.class, "state");
+
+	private final Inventory inventory;
+	private final LeaseWheel wheel;
+	private final Recipe recipe;
+	/** Units taken from the inventory by IngredientRegistry id */
+	private final int [] amounts;
+	private volatile int state;
+
+	// Wheel bookkeeping, guarded by the wheel's lock
+	Reservation prev;
+	Reservation next;
+	int slot = -1;
+	long rounds;
+
+	Reservation(Inventory inventory, LeaseWheel wheel, Recipe recipe, int [] amounts) {
+		this.inventory = inventory;
+		this.wheel = wheel;
+		this.recipe = recipe;
+		this.amounts = amounts;
+	}
+
+	/**
+	 * Returns the recipe the ingredients are reserved for.
+	 * @return Recipe
+	 */
+	public Recipe getRecipe() {
+		return recipe;
+	}
+
+	/**
+	 * Returns PENDING, COMMITTED, RELEASED or EXPIRED.
+	 * @return int
+	 */
+	public int getState() {
+		return state;
+	}
+
+	/**
+	 * Returns true if this call spent the reserved ingredients and
+	 * false if the reservation was already resolved.
+	 * @return boolean
+	 */
+	public boolean commit() {
+		if (!STATE.compareAndSet(this, PENDING, COMMITTED)) {
+			return false;
+		}
+		wheel.cancel(this);
+		return true;
+	}
+
+	/**
+	 * Returns true if the reserved ingredients were handed back
+	 * to the inventory and false if the reservation was already
+	 * resolved.
+	 * @return boolean
+	 */
+	public boolean release() {
+		if (!STATE.compareAndSet(this, PENDING, RELEASED)) {
+			return false;
+		}
+		wheel.cancel(this);
+		giveBack();
+		return true;
+	}
+
+	/**
+	 * Called by the wheel once the lease has run out.
+	 */
+	void expire() {
+		if (STATE.compareAndSet(this, PENDING, EXPIRED)) {
+			giveBack();
+		}
+	}
+
+	private void giveBack() {
+		inventory.returnIngredients(amounts);
+	}
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) 2009,  Sarah Heckman, Laurie Williams, Dright Ho
+ * All Rights Reserved.
+ *
+ * Permission has been explicitly granted to the University of Minnesota
+ * Software Engineering Center to use and distribute this source for
+ * educational purposes, including delivering online education through
+ * Coursera or other entities.
+ *
+ * No warranty is given regarding this software, including warranties as
+ * to the correctness or completeness of this software, including
+ * fitness for purpose.
+ */
+package edu.ncsu.csc326.coffeemaker;
+
+/**
+ * Result of validating an amount or price, packed into one int.
+ *
+ * The tryX methods of Inventory and Recipe return a status instead
+ * of throwing, so a rejected input costs no allocation and no stack
+ * trace.  The code sits in the low 8 bits and the IngredientRegistry
+ * id it refers to in the bits above; OK is zero.  The throwing
+ * methods are wrappers that turn a failed status into an exception
+ * carrying describe(status).
+ */
+public final class Status {
+	/** The input was accepted */
+	public static final int OK = 0;
+	/** The units are negative or not a number */
+	public static final int INVALID_AMOUNT = 1;
+	/** The price is negative or not a number */
+	public static final int INVALID_PRICE = 2;
+	/** The ingredient id is not registered */
+	public static final int UNKNOWN_INGREDIENT = 3;
+	/** The inventory has no room for the ingredient */
+	public static final int NOT_STOCKED = 4;
+	/** The units would take the ingredient past its capacity */
+	public static final int OVER_CAPACITY = 5;
+	/** Number of distinct codes */
+	public static final int CODES = 6;
+
+	private static final int CODE_BITS = 8;
+
+	private Status() {
+	}
+
+	/**
+	 * Returns a status with the given code about the ingredient.
+	 * @param code
+	 * @param ingredient
+	 * @return int
+	 */
+	public static int of(int code, int ingredient) {
+		return (ingredient << CODE_BITS) | code;
+	}
+
+	/**
+	 * Returns the code of the status.
+	 * @param status
+	 * @return int
+	 */
+	public static int code(int status) {
+		return status & ((1 << CODE_BITS) - 1);
+	}
+
+	/**
+	 * Returns the IngredientRegistry id the status refers to.  The
+	 * shift keeps the sign, so a negative id reads back unchanged.
+	 * @param status
+	 * @return int
+	 */
+	public static int ingredient(int status) {
+		return status >> CODE_BITS;
+	}
+
+	/**
+	 * Returns true if the input was accepted.
+	 * @param status
+	 * @return boolean
+	 */
+	public static boolean isOk(int status) {
+		return status == OK;
+	}
+
+	/**
+	 * Returns the message the throwing methods report for the status.
+	 * @param status
+	 * @return String
+	 */
+	public static String describe(int status) {
+		int ingredient = ingredient(status);
+		switch (code(status)) {
+		case OK:
+			return "OK";
+		case INVALID_AMOUNT:
+			return "Units of " + IngredientRegistry.lowerName(ingredient) + " must be a positive integer";
+		case INVALID_PRICE:
+			return "Price must be a positive integer";
+		case UNKNOWN_INGREDIENT:
+			return "Unknown ingredient " + ingredient;
+		case NOT_STOCKED:
+			return "Ingredient " + ingredient + " cannot be stocked by this inventory";
+		case OVER_CAPACITY:
+			return "Units of " + IngredientRegistry.lowerName(ingredient) + " cannot exceed " + AtomicInventory.MAX_UNITS;
+		default:
+			return "Unknown status " + status;
+		}
+	}
+}
@@ -0,0 +1,43 @@
+/*
+ * Copyright (c) 2009,  Sarah Heckman, Laurie Williams, Dright Ho
+ * All Rights Reserved.
+ *
+ * Permission has been explicitly granted to the University of Minnesota
+ * Software Engineering Center to use and distribute this source for
+ * educational purposes, including delivering online education through
+ * Coursera or other entities.
+ *
+ * No warranty is given regarding this software, including warranties as
+ * to the correctness or completeness of this software, including
+ * fitness for purpose.
+ */
+package edu.ncsu.csc326.coffeemaker;
+
+/**
+ * Receives every change to the stock of an Inventory.
+ *
+ * Inventory calls its listeners while still holding its monitor, so
+ * they see its changes one at a time and may read the stock back.
+ * AtomicInventory calls them right after each compare-and-set, from
+ * whichever threads made the changes, possibly at the same time.
+ * Listeners run on the purchase path and must be quick.
+ */
+public interface StockListener {
+	/** Ingredients were used to make a beverage or for a reservation */
+	int USE = 0;
+	/** Ingredients were added by addInventory, addX or restock */
+	int ADD = 1;
+	/** An ingredient was set to an amount by setX or setStock */
+	int SET = 2;
+	/** Reserved ingredients were put back */
+	int RETURN = 3;
+
+	/**
+	 * Called after the stock of the inventory changed.
+	 * @param inventory the inventory that changed
+	 * @param cause USE, ADD, SET or RETURN
+	 * @param ingredients mask of the IngredientRegistry ids that
+	 *        changed, bit 63 standing for every id from 63 up
+	 */
+	void stockChanged(Inventory inventory, int cause, long ingredients);
+}
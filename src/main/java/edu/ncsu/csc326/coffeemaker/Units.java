@@ -0,0 +1,136 @@
+/*
+ * Copyright (c) 2009,  Sarah Heckman, Laurie Williams, Dright Ho
+ * All Rights Reserved.
+ *
+ * Permission has been explicitly granted to the University of Minnesota
+ * Software Engineering Center to use and distribute this source for
+ * educational purposes, including delivering online education through
+ * Coursera or other entities.
+ *
+ * No warranty is given regarding this software, including warranties as
+ * to the correctness or completeness of this software, including
+ * fitness for purpose.
+ */
+package edu.ncsu.csc326.coffeemaker;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Parses ingredient units and prices from text without allocating.
+ *
+ * A valid value is what Integer.parseInt accepts and is not
+ * negative: an optional sign followed by ASCII digits, within the
+ * range of an int.  Anything else, including null, parses as
+ * INVALID, so callers can report an error without catching a
+ * NumberFormatException.
+ */
+public final class Units {
+	/** Returned for text that is not a non-negative int */
+	public static final int INVALID = -1;
+
+	private Units() {
+	}
+
+	/**
+	 * Returns the value of the text, or INVALID.
+	 * @param text
+	 * @return int
+	 */
+	public static int parse(CharSequence text) {
+		return text == null ? INVALID : parse(text, 0, text.length());
+	}
+
+	/**
+	 * Returns the value of the characters from index from up to but
+	 * not including to, or INVALID.
+	 * @param text
+	 * @param from
+	 * @param to
+	 * @return int
+	 */
+	public static int parse(CharSequence text, int from, int to) {
+		boolean negative = false;
+		if (from < to && (text.charAt(from) == '+' || text.charAt(from) == '-')) {
+			negative = text.charAt(from) == '-';
+			from++;
+		}
+		if (from == to) {
+			return INVALID;
+		}
+		long value = 0;
+		for (int i = from; i < to; i++) {
+			int digit = text.charAt(i) - '0';
+			if (digit < 0 || digit > 9) {
+				return INVALID;
+			}
+			value = value * 10 + digit;
+			if (value > Integer.MAX_VALUE) {
+				return INVALID;
+			}
+		}
+		return negative && value != 0 ? INVALID : (int) value;
+	}
+
+	/**
+	 * Returns the value of the ASCII bytes from index from up to but
+	 * not including to, or INVALID.
+	 * @param bytes
+	 * @param from
+	 * @param to
+	 * @return int
+	 */
+	public static int parse(byte [] bytes, int from, int to) {
+		boolean negative = false;
+		if (from < to && (bytes[from] == '+' || bytes[from] == '-')) {
+			negative = bytes[from] == '-';
+			from++;
+		}
+		if (from == to) {
+			return INVALID;
+		}
+		long value = 0;
+		for (int i = from; i < to; i++) {
+			int digit = bytes[i] - '0';
+			if (digit < 0 || digit > 9) {
+				return INVALID;
+			}
+			value = value * 10 + digit;
+			if (value > Integer.MAX_VALUE) {
+				return INVALID;
+			}
+		}
+		return negative && value != 0 ? INVALID : (int) value;
+	}
+
+	/**
+	 * Returns the value of the ASCII bytes of the buffer from index
+	 * from up to but not including to, or INVALID.  The position and
+	 * limit of the buffer are not changed.
+	 * @param buffer
+	 * @param from
+	 * @param to
+	 * @return int
+	 */
+	public static int parse(ByteBuffer buffer, int from, int to) {
+		boolean negative = false;
+		if (from < to && (buffer.get(from) == '+' || buffer.get(from) == '-')) {
+			negative = buffer.get(from) == '-';
+			from++;
+		}
+		if (from == to) {
+			return INVALID;
+		}
+		long value = 0;
+		for (int i = from; i < to; i++) {
+			int digit = buffer.get(i) - '0';
+			if (digit < 0 || digit > 9) {
+				return INVALID;
+			}
+			value = value * 10 + digit;
+			if (value > Integer.MAX_VALUE) {
+				return INVALID;
+			}
+		}
+		return negative && value != 0 ? INVALID : (int) value;
+	}
+}
@@ -0,0 +1,383 @@
+/*
+ * Copyright (c) 2009,  Sarah Heckman, Laurie Williams, Dright Ho
+ * All Rights Reserved.
+ *
+ * Permission has been explicitly granted to the University of Minnesota
+ * Software Engineering Center to use and distribute this source for
+ * educational purposes, including delivering online education through
+ * Coursera or other entities.
+ *
+ * No warranty is given regarding this software, including warranties as
+ * to the correctness or completeness of this software, including
+ * fitness for purpose.
+ */
+package edu.ncsu.csc326.coffeemaker.analytics;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import edu.ncsu.csc326.coffeemaker.CoffeeMaker;
+import edu.ncsu.csc326.coffeemaker.IngredientRegistry;
+import edu.ncsu.csc326.coffeemaker.Inventory;
+import edu.ncsu.csc326.coffeemaker.Receipt;
+import edu.ncsu.csc326.coffeemaker.Recipe;
+import edu.ncsu.csc326.coffeemaker.RecipeSnapshot;
+import edu.ncsu.csc326.coffeemaker.loadgen.Trace;
+
+/**
+ * Replays order and restock history files against a set of recipes
+ * in parallel and reports on them.
+ *
+ * A history file is a trace in the format Trace.read accepts.  The
+ * file is split into byte ranges that are memory mapped and parsed
+ * in place by the threads of a fork/join pool.  Each range counts
+ * orders, revenue and amounts paid by recipe slot into primitive
+ * arrays, assuming the stock never runs out, and records the net
+ * change of every ingredient and the lowest point it reaches.
+ *
+ * Whether an order is refused for lack of stock depends on every
+ * order before it, so a second pass walks the ranges in order,
+ * carrying the stock.  A range whose low points the stock covers
+ * cannot refuse an order, and the pass adds its net change in
+ * constant time.  Only a range in which the stock runs short, or a
+ * recipe is still sold out, is replayed order by order.  Histories
+ * that rarely sell out therefore scale with the number of workers.
+ */
+public class HistoryAnalyzer {
+	/** Amounts paid are counted one by one up to this amount */
+	public static final int MAX_PRICE = 1023;
+	/** Ranges are not made smaller than this many bytes */
+	public static final int MIN_RANGE = 1 << 20;
+	/** Ranges are not made larger than this many bytes */
+	public static final int MAX_RANGE = 1 << 28;
+
+	private static final int ARGS = IngredientRegistry.BUILT_IN;
+
+	private final ForkJoinPool pool;
+	private final int [] price;
+	/** Units of each built-in ingredient by slot, at slot * ARGS + id */
+	private final int [] need;
+	/** True for a recipe in the slot that only needs built-in ingredients */
+	private final boolean [] stockable;
+	private final boolean [] present;
+	private final long [] initialStock;
+	private int minRange = MIN_RANGE;
+
+	/**
+	 * Creates an analyzer for the recipes and stock of the coffee
+	 * maker as they are now.
+	 * @param coffeeMaker
+	 * @param pool
+	 */
+	public HistoryAnalyzer(CoffeeMaker coffeeMaker, ForkJoinPool pool) {
+		this(coffeeMaker.getRecipeBook().snapshot(), stockOf(coffeeMaker.getInventory()), pool);
+	}
+
+	/**
+	 * Creates an analyzer for the given recipes that starts from the
+	 * given units of the built-in ingredients.  A recipe that needs
+	 * any other ingredient can never be made, since a history only
+	 * restocks the built-in ones.
+	 * @param recipes
+	 * @param stock
+	 * @param pool
+	 */
+	public HistoryAnalyzer(RecipeSnapshot recipes, int [] stock, ForkJoinPool pool) {
+		if (stock.length != ARGS) {
+			throw new IllegalArgumentException("Stock must have " + ARGS + " ingredients");
+		}
+		int slots = recipes.length();
+		this.pool = pool;
+		this.price = new int[slots];
+		this.need = new int[slots * ARGS];
+		this.stockable = new boolean[slots];
+		this.present = new boolean[slots];
+		for (int slot = 0; slot < slots; slot++) {
+			Recipe recipe = recipes.get(slot);
+			if (recipe == null) {
+				continue;
+			}
+			present[slot] = true;
+			price[slot] = recipe.getPrice();
+			int [] amounts = recipe.getRequirements();
+			stockable[slot] = true;
+			for (int i = 0; i < amounts.length; i++) {
+				if (i < ARGS) {
+					need[slot * ARGS + i] = amounts[i];
+				} else if (amounts[i] > 0) {
+					stockable[slot] = false;
+				}
+			}
+		}
+		this.initialStock = new long[ARGS];
+		for (int i = 0; i < ARGS; i++) {
+			initialStock[i] = stock[i];
+		}
+	}
+
+	/**
+	 * Sets the smallest range a file is split into, so that tests
+	 * can split small files.
+	 * @param bytes
+	 */
+	void setMinRange(int bytes) {
+		minRange = bytes;
+	}
+
+	/**
+	 * Analyzes a history file.
+	 * @param file
+	 * @return HistoryReport
+	 * @throws IOException if the file cannot be read or a line is malformed
+	 */
+	public HistoryReport analyze(Path file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			long size = channel.size();
+			int ranges = (int) Math.max((size + MAX_RANGE - 1) / MAX_RANGE,
+					Math.min(Math.max(1, size / minRange), 4L * pool.getParallelism()));
+			long [] bounds = new long[ranges + 1];
+			for (int i = 0; i <= ranges; i++) {
+				bounds[i] = size * i / ranges;
+			}
+			RangeTotals [] partials = new RangeTotals[ranges];
+			try {
+				pool.invoke(new Scan(channel, size, bounds, partials, 0, ranges));
+			} catch (UncheckedIOException e) {
+				throw e.getCause();
+			}
+			return merge(channel, size, bounds, partials);
+		}
+	}
+
+	/**
+	 * First pass over one range, assuming the stock never runs out.
+	 */
+	private RangeTotals scan(FileChannel channel, long size, long start, long end) throws IOException {
+		RangeTotals totals = new RangeTotals(price.length);
+		HistoryScanner events = new HistoryScanner(channel, size, start, end);
+		long [] level = totals.net;
+		long [] low = totals.low;
+		int [] args = events.args;
+		while (events.next()) {
+			if (events.time > totals.lastTime) {
+				totals.lastTime = events.time;
+			}
+			if (events.kind == Trace.RESTOCK) {
+				for (int i = 0; i < ARGS; i++) {
+					level[i] += args[i];
+				}
+				continue;
+			}
+			int slot = args[0];
+			int outcome = order(totals, slot, args[1]);
+			if (outcome < 0) {
+				continue;
+			}
+			if (outcome == Receipt.SOLD) {
+				totals.revenue[slot] += price[slot];
+				for (int i = 0; i < ARGS; i++) {
+					level[i] -= need[slot * ARGS + i];
+					if (level[i] < low[i]) {
+						low[i] = level[i];
+					}
+				}
+			}
+			totals.outcomes[slot * Receipt.OUTCOMES + outcome]++;
+		}
+		return totals;
+	}
+
+	/**
+	 * Counts what does not depend on the stock of an order and
+	 * returns its outcome if the stock never runs out, or -1 if the
+	 * order is already counted.
+	 */
+	private int order(RangeTotals totals, int slot, int paid) {
+		if (slot >= price.length) {
+			totals.unknown++;
+			return -1;
+		}
+		if (!present[slot]) {
+			return Receipt.NO_SUCH_RECIPE;
+		}
+		long [] demand = totals.demand[slot];
+		if (demand == null) {
+			demand = totals.demand[slot] = new long[MAX_PRICE + 1];
+		}
+		demand[Math.min(paid, MAX_PRICE)]++;
+		if (paid < price[slot]) {
+			return Receipt.INSUFFICIENT_PAYMENT;
+		}
+		return stockable[slot] ? Receipt.SOLD : Receipt.OUT_OF_STOCK;
+	}
+
+	/**
+	 * Second pass: carries the stock through the ranges in order,
+	 * replaying the ranges the stock does not cover, and adds up
+	 * the ranges.
+	 */
+	private HistoryReport merge(FileChannel channel, long size, long [] bounds, RangeTotals [] partials)
+			throws IOException {
+		long [] stock = initialStock.clone();
+		long [] open = new long[price.length];
+		Arrays.fill(open, -1);
+		Stockouts stockouts = new Stockouts();
+		RangeTotals report = new RangeTotals(price.length);
+		for (int r = 0; r < partials.length; r++) {
+			RangeTotals range = partials[r];
+			if (stockouts.open == 0 && covers(stock, range.low)) {
+				for (int i = 0; i < ARGS; i++) {
+					stock[i] += range.net[i];
+				}
+			} else {
+				range.clearStock();
+				replay(channel, size, bounds[r], bounds[r + 1], range, stock, open, stockouts);
+			}
+			report.add(range);
+		}
+		for (int slot = 0; slot < open.length; slot++) {
+			if (open[slot] >= 0) {
+				stockouts.add(slot, open[slot], -1);
+			}
+		}
+		return new HistoryReport(price, need, report, stock,
+				stockouts.slot, stockouts.start, stockouts.end, stockouts.size);
+	}
+
+	/**
+	 * Replays one range against the actual stock, counting sales,
+	 * refusals for stock and stockout intervals.
+	 */
+	private void replay(FileChannel channel, long size, long start, long end, RangeTotals totals,
+			long [] stock, long [] open, Stockouts stockouts) throws IOException {
+		HistoryScanner events = new HistoryScanner(channel, size, start, end);
+		int [] args = events.args;
+		while (events.next()) {
+			if (events.kind == Trace.RESTOCK) {
+				for (int i = 0; i < ARGS; i++) {
+					stock[i] += args[i];
+				}
+				if (stockouts.open > 0) {
+					for (int slot = 0; slot < open.length; slot++) {
+						if (open[slot] >= 0 && covers(stock, slot)) {
+							stockouts.add(slot, open[slot], events.time);
+							open[slot] = -1;
+							stockouts.open--;
+						}
+					}
+				}
+				continue;
+			}
+			int slot = args[0];
+			if (slot >= price.length || !present[slot] || args[1] < price[slot]) {
+				continue;
+			}
+			if (stockable[slot] && covers(stock, slot)) {
+				for (int i = 0; i < ARGS; i++) {
+					stock[i] -= need[slot * ARGS + i];
+				}
+				totals.outcomes[slot * Receipt.OUTCOMES + Receipt.SOLD]++;
+				totals.revenue[slot] += price[slot];
+			} else {
+				totals.outcomes[slot * Receipt.OUTCOMES + Receipt.OUT_OF_STOCK]++;
+				if (stockable[slot] && open[slot] < 0) {
+					open[slot] = events.time;
+					stockouts.open++;
+				}
+			}
+		}
+	}
+
+	private boolean covers(long [] stock, int slot) {
+		for (int i = 0; i < ARGS; i++) {
+			if (stock[i] < need[slot * ARGS + i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static boolean covers(long [] stock, long [] low) {
+		for (int i = 0; i < ARGS; i++) {
+			if (stock[i] + low[i] < 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static int [] stockOf(Inventory inventory) {
+		int [] stock = new int[ARGS];
+		for (int i = 0; i < ARGS; i++) {
+			stock[i] = inventory.getStock(i);
+		}
+		return stock;
+	}
+
+	/**
+	 * Stockout intervals in parallel primitive arrays.
+	 */
+	private static final class Stockouts {
+		int [] slot = new int[16];
+		long [] start = new long[16];
+		long [] end = new long[16];
+		int size;
+		/** Slots with an interval that has not ended */
+		int open;
+
+		void add(int s, long from, long to) {
+			if (size == slot.length) {
+				slot = Arrays.copyOf(slot, size * 2);
+				start = Arrays.copyOf(start, size * 2);
+				end = Arrays.copyOf(end, size * 2);
+			}
+			slot[size] = s;
+			start[size] = from;
+			end[size] = to;
+			size++;
+		}
+	}
+
+	/**
+	 * First pass over a run of ranges, split in half until one range
+	 * is left.
+	 */
+	private final class Scan extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		private final FileChannel channel;
+		private final long size;
+		private final long [] bounds;
+		private final RangeTotals [] partials;
+		private final int from;
+		private final int to;
+
+		Scan(FileChannel channel, long size, long [] bounds, RangeTotals [] partials, int from, int to) {
+			this.channel = channel;
+			this.size = size;
+			this.bounds = bounds;
+			this.partials = partials;
+			this.from = from;
+			this.to = to;
+		}
+
+		protected void compute() {
+			if (to - from == 1) {
+				try {
+					partials[from] = scan(channel, size, bounds[from], bounds[from + 1]);
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+				return;
+			}
+			int middle = (from + to) >>> 1;
+			invokeAll(new Scan(channel, size, bounds, partials, from, middle),
+					new Scan(channel, size, bounds, partials, middle, to));
+		}
+	}
+}
@@ -0,0 +1,231 @@
+/*
+ * Copyright (c) 2009,  Sarah Heckman, Laurie Williams, Dright Ho
+ * All Rights Reserved.
+ *
+ * Permission has been explicitly granted to the University of Minnesota
+ * Software Engineering Center to use and distribute this source for
+ * educational purposes, including delivering online education through
+ * Coursera or other entities.
+ *
+ * No warranty is given regarding this software, including warranties as
+ * to the correctness or completeness of this software, including
+ * fitness for purpose.
+ */
+package edu.ncsu.csc326.coffeemaker.analytics;
+
+import edu.ncsu.csc326.coffeemaker.IngredientRegistry;
+import edu.ncsu.csc326.coffeemaker.Receipt;
+
+/**
+ * Month-end report of a history replayed against a set of recipes:
+ * orders and revenue by recipe, the ingredients each recipe used,
+ * the intervals in which a recipe was sold out, and how its demand
+ * responds to price.
+ */
+public final class HistoryReport {
+	private static final int ARGS = IngredientRegistry.BUILT_IN;
+
+	private final int [] price;
+	private final int [] need;
+	private final RangeTotals totals;
+	private final long [] stock;
+	private final int [] stockoutSlot;
+	private final long [] stockoutStart;
+	private final long [] stockoutEnd;
+	private final int stockouts;
+
+	HistoryReport(int [] price, int [] need, RangeTotals totals, long [] stock,
+			int [] stockoutSlot, long [] stockoutStart, long [] stockoutEnd, int stockouts) {
+		this.price = price;
+		this.need = need;
+		this.totals = totals;
+		this.stock = stock;
+		this.stockoutSlot = stockoutSlot;
+		this.stockoutStart = stockoutStart;
+		this.stockoutEnd = stockoutEnd;
+		this.stockouts = stockouts;
+	}
+
+	/**
+	 * Returns the number of recipe slots.
+	 * @return int
+	 */
+	public int getRecipes() {
+		return price.length;
+	}
+
+	/**
+	 * Returns the number of orders for the slot with the given
+	 * Receipt outcome.
+	 * @param slot
+	 * @param outcome
+	 * @return long
+	 */
+	public long getOrders(int slot, int outcome) {
+		return totals.outcomes[slot * Receipt.OUTCOMES + outcome];
+	}
+
+	/**
+	 * Returns the number of orders for the slot.
+	 * @param slot
+	 * @return long
+	 */
+	public long getOrders(int slot) {
+		long orders = 0;
+		for (int outcome = 0; outcome < Receipt.OUTCOMES; outcome++) {
+			orders += getOrders(slot, outcome);
+		}
+		return orders;
+	}
+
+	/**
+	 * Returns the number of beverages sold from the slot.
+	 * @param slot
+	 * @return long
+	 */
+	public long getSold(int slot) {
+		return getOrders(slot, Receipt.SOLD);
+	}
+
+	/**
+	 * Returns the revenue of the slot.
+	 * @param slot
+	 * @return long
+	 */
+	public long getRevenue(int slot) {
+		return totals.revenue[slot];
+	}
+
+	/**
+	 * Returns the orders for slots outside the recipe book.
+	 * @return long
+	 */
+	public long getUnknownOrders() {
+		return totals.unknown;
+	}
+
+	/**
+	 * Returns the units of the ingredient used by the beverages
+	 * sold from the slot.
+	 * @param slot
+	 * @param ingredient
+	 * @return long
+	 */
+	public long getUsage(int slot, int ingredient) {
+		return getSold(slot) * need[slot * ARGS + ingredient];
+	}
+
+	/**
+	 * Returns the units of the ingredient used by every recipe.
+	 * @param ingredient
+	 * @return long
+	 */
+	public long getUsage(int ingredient) {
+		long usage = 0;
+		for (int slot = 0; slot < price.length; slot++) {
+			usage += getUsage(slot, ingredient);
+		}
+		return usage;
+	}
+
+	/**
+	 * Returns the units of the ingredient left at the end of the
+	 * history.
+	 * @param ingredient
+	 * @return long
+	 */
+	public long getStock(int ingredient) {
+		return stock[ingredient];
+	}
+
+	/**
+	 * Returns the latest timestamp in the history, or -1 if it had
+	 * no events.
+	 * @return long
+	 */
+	public long getLastTime() {
+		return totals.lastTime;
+	}
+
+	/**
+	 * Returns the number of stockout intervals.  An interval starts
+	 * with the first order for a recipe refused for lack of stock and
+	 * ends with the first restock after which the stock covers the
+	 * recipe again.  Intervals are numbered in the order they ended,
+	 * followed by those that had not ended.
+	 * @return int
+	 */
+	public int getStockouts() {
+		return stockouts;
+	}
+
+	/**
+	 * Returns the slot of the recipe of a stockout interval.
+	 * @param stockout
+	 * @return int
+	 */
+	public int getStockoutSlot(int stockout) {
+		return stockoutSlot[stockout];
+	}
+
+	/**
+	 * Returns the time of the first refused order of a stockout
+	 * interval.
+	 * @param stockout
+	 * @return long
+	 */
+	public long getStockoutStart(int stockout) {
+		return stockoutStart[stockout];
+	}
+
+	/**
+	 * Returns the time of the restock that ended a stockout interval,
+	 * or -1 if the recipe was still sold out at the end.
+	 * @param stockout
+	 * @return long
+	 */
+	public long getStockoutEnd(int stockout) {
+		return stockoutEnd[stockout];
+	}
+
+	/**
+	 * Returns the number of orders for the slot that paid at least
+	 * the given price, which is how many would have bought at that
+	 * price.  Amounts paid above HistoryAnalyzer.MAX_PRICE count as
+	 * MAX_PRICE.
+	 * @param slot
+	 * @param price
+	 * @return long
+	 */
+	public long getDemand(int slot, int price) {
+		long [] counts = totals.demand[slot];
+		if (counts == null || price > HistoryAnalyzer.MAX_PRICE) {
+			return 0;
+		}
+		long demand = 0;
+		for (int paid = Math.max(0, price); paid < counts.length; paid++) {
+			demand += counts[paid];
+		}
+		return demand;
+	}
+
+	/**
+	 * Returns the arc elasticity of the slot's demand between its
+	 * recipe's price and the given price: the relative change in
+	 * demand over the relative change in price, both taken against
+	 * their midpoints.  Returns NaN if neither price has demand or
+	 * the prices are equal.
+	 * @param slot
+	 * @param newPrice
+	 * @return double
+	 */
+	public double getElasticity(int slot, int newPrice) {
+		int oldPrice = price[slot];
+		double before = getDemand(slot, oldPrice);
+		double after = getDemand(slot, newPrice);
+		if (before + after == 0 || oldPrice == newPrice) {
+			return Double.NaN;
+		}
+		return ((after - before) / (after + before)) / ((double) (newPrice - oldPrice) / (newPrice + oldPrice));
+	}
+}
@@ -0,0 +1,193 @@
+/*
+ * Copyright (c) 2009,  Sarah Heckman, Laurie Williams, Dright Ho
+ * All Rights Reserved.
+ *
+ * Permission has been explicitly granted to the University of Minnesota
+ * Software Engineering Center to use and distribute this source for
+ * educational purposes, including delivering online education through
+ * Coursera or other entities.
+ *
+ * No warranty is given regarding this software, including warranties as
+ * to the correctness or completeness of this software, including
+ * fitness for purpose.
+ */
+package edu.ncsu.csc326.coffeemaker.analytics;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+import edu.ncsu.csc326.coffeemaker.IngredientRegistry;
+import edu.ncsu.csc326.coffeemaker.Units;
+import edu.ncsu.csc326.coffeemaker.loadgen.Trace;
+
+/**
+ * Reads the events of one byte range of a trace file, without
+ * allocating per event.
+ *
+ * A range owns the lines that start inside it.  The scanner maps a
+ * little past the end of its range to finish its last line, and
+ * skips the partial line it starts in, which belongs to the range
+ * before it.  The map is copied into a small array a block at a
+ * time and parsed there, which is several times faster than reading
+ * the map byte by byte.  Lines have the format Trace.read accepts.
+ */
+final class HistoryScanner {
+	/** Longest line a trace may have */
+	static final int MAX_LINE = 4096;
+
+	private static final int BLOCK = 1 << 16;
+	private static final int ARGS = IngredientRegistry.BUILT_IN;
+
+	private final MappedByteBuffer data;
+	/** File offset of the first mapped byte */
+	private final long base;
+	/** Lines starting at or after this index belong to the next range */
+	private final int end;
+	/** True if the map stops at the end of the file */
+	private final boolean last;
+	private int position;
+
+	/** Copy of the map from blockStart, holding filled bytes */
+	private final byte [] block = new byte[BLOCK];
+	private int blockStart;
+	private int filled;
+
+	private final int [] fields = new int[2 * (2 + ARGS)];
+
+	/** Timestamp of the current event in milliseconds */
+	long time;
+	/** Trace.MAKE or Trace.RESTOCK */
+	byte kind;
+	/** Slot and amount paid, or units by ingredient id */
+	final int [] args = new int[ARGS];
+
+	HistoryScanner(FileChannel channel, long size, long start, long end) throws IOException {
+		long from = start == 0 ? 0 : start - 1;
+		long to = Math.min(size, end + MAX_LINE);
+		this.data = channel.map(FileChannel.MapMode.READ_ONLY, from, to - from);
+		this.base = from;
+		this.end = (int) (end - from);
+		this.last = to == size;
+		if (start > 0) {
+			while (position < data.limit() && data.get(position) != '\n') {
+				position++;
+			}
+			position++;
+		}
+	}
+
+	/**
+	 * Reads the next event of the range, returning false at its end.
+	 * @throws IOException if a line is malformed
+	 */
+	boolean next() throws IOException {
+		int limit = data.limit();
+		while (position < end && position < limit) {
+			if (position + MAX_LINE >= blockStart + filled && blockStart + filled < limit) {
+				blockStart = position;
+				filled = Math.min(BLOCK, limit - position);
+				data.position(position);
+				data.get(block, 0, filled);
+			}
+			int start = position - blockStart;
+			int count = 0;
+			int field = -1;
+			int eol = start;
+			// Find the end of the line and its fields in one pass
+			for (; eol < filled; eol++) {
+				byte b = block[eol];
+				if (b == '\n') {
+					break;
+				}
+				if (isSpace(b)) {
+					if (field >= 0) {
+						count = field(count, field, eol);
+						field = -1;
+					}
+				} else if (field < 0) {
+					field = eol;
+				}
+			}
+			if (field >= 0) {
+				count = field(count, field, eol);
+			}
+			if (eol == filled && (blockStart + filled < limit || !last)) {
+				throw error(start, "line is longer than " + MAX_LINE + " bytes");
+			}
+			position = blockStart + eol + 1;
+			if (count == 0 || block[fields[0]] == '#') {
+				continue;
+			}
+			time = count > 1 ? parseTime(fields[0], fields[1]) : -1;
+			if (time < 0) {
+				throw error(start, "expected a timestamp and a request");
+			}
+			int expected;
+			if (is(fields[2], fields[3], "MAKE")) {
+				kind = Trace.MAKE;
+				expected = 2;
+			} else if (is(fields[2], fields[3], "RESTOCK")) {
+				kind = Trace.RESTOCK;
+				expected = ARGS;
+			} else {
+				expected = -1;
+			}
+			if (expected < 0 || count != 2 + expected) {
+				throw error(start, "expected MAKE slot paid or RESTOCK coffee milk sugar chocolate");
+			}
+			for (int i = 0; i < expected; i++) {
+				args[i] = Units.parse(block, fields[2 * (2 + i)], fields[2 * (2 + i) + 1]);
+				if (args[i] == Units.INVALID) {
+					throw error(start, "field " + (i + 3) + " must be a positive integer");
+				}
+			}
+			return true;
+		}
+		return false;
+	}
+
+	private IOException error(int index, String message) {
+		return new IOException("Byte " + (base + blockStart + index) + ": " + message);
+	}
+
+	private boolean is(int from, int to, String word) {
+		if (to - from != word.length()) {
+			return false;
+		}
+		for (int i = 0; i < word.length(); i++) {
+			if (Character.toUpperCase((char) block[from + i]) != word.charAt(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private long parseTime(int from, int to) {
+		if (to - from > 18) {
+			return -1;
+		}
+		long value = 0;
+		for (int i = from; i < to; i++) {
+			int digit = block[i] - '0';
+			if (digit < 0 || digit > 9) {
+				return -1;
+			}
+			value = value * 10 + digit;
+		}
+		return value;
+	}
+
+	/** Records the bounds of a field if there is room and returns the new field count */
+	private int field(int count, int from, int to) {
+		if (2 * count < fields.length) {
+			fields[2 * count] = from;
+			fields[2 * count + 1] = to;
+		}
+		return count + 1;
+	}
+
+	private static boolean isSpace(byte b) {
+		return b == ' ' || b == '\t' || b == '\r' || b == '\f' || b == 0x0B;
+	}
+}
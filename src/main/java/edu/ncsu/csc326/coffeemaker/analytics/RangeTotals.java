@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) 2009,  Sarah Heckman, Laurie Williams, Dright Ho
+ * All Rights Reserved.
+ *
+ * Permission has been explicitly granted to the University of Minnesota
+ * Software Engineering Center to use and distribute this source for
+ * educational purposes, including delivering online education through
+ * Coursera or other entities.
+ *
+ * No warranty is given regarding this software, including warranties as
+ * to the correctness or completeness of this software, including
+ * fitness for purpose.
+ */
+package edu.ncsu.csc326.coffeemaker.analytics;
+
+import edu.ncsu.csc326.coffeemaker.IngredientRegistry;
+import edu.ncsu.csc326.coffeemaker.Receipt;
+
+/**
+ * Primitive totals of one range of a history, keyed by recipe slot.
+ *
+ * The first pass fills every field assuming the stock never runs
+ * out, and records the lowest each ingredient's net change falls
+ * within the range.  If the stock at the start of the range covers
+ * that low point, no order in the range can be refused for stock and
+ * the totals are exact; otherwise the second pass recounts the
+ * stock-dependent fields by replaying the range.
+ */
+final class RangeTotals {
+	private static final int ARGS = IngredientRegistry.BUILT_IN;
+
+	/** Orders by slot and outcome, at slot * Receipt.OUTCOMES + outcome */
+	final long [] outcomes;
+	/** Revenue by slot */
+	final long [] revenue;
+	/** Orders by slot and amount paid, allocated for slots with orders */
+	final long [][] demand;
+	/** Orders for slots outside the recipe book */
+	long unknown;
+	/** Net change of each ingredient over the range */
+	final long [] net = new long[ARGS];
+	/** Lowest net change of each ingredient at any point of the range */
+	final long [] low = new long[ARGS];
+	/** Latest timestamp in the range, or -1 */
+	long lastTime = -1;
+
+	RangeTotals(int slots) {
+		outcomes = new long[slots * Receipt.OUTCOMES];
+		revenue = new long[slots];
+		demand = new long[slots][];
+	}
+
+	/**
+	 * Clears the fields that depend on the stock before a replay.
+	 */
+	void clearStock() {
+		for (int slot = 0; slot < revenue.length; slot++) {
+			outcomes[slot * Receipt.OUTCOMES + Receipt.SOLD] = 0;
+			outcomes[slot * Receipt.OUTCOMES + Receipt.OUT_OF_STOCK] = 0;
+			revenue[slot] = 0;
+		}
+	}
+
+	/**
+	 * Adds the totals of another range to these.
+	 * @param other
+	 */
+	void add(RangeTotals other) {
+		for (int i = 0; i < outcomes.length; i++) {
+			outcomes[i] += other.outcomes[i];
+		}
+		for (int slot = 0; slot < revenue.length; slot++) {
+			revenue[slot] += other.revenue[slot];
+			long [] counts = other.demand[slot];
+			if (counts == null) {
+				continue;
+			}
+			if (demand[slot] == null) {
+				demand[slot] = counts.clone();
+			} else {
+				for (int i = 0; i < counts.length; i++) {
+					demand[slot][i] += counts[i];
+				}
+			}
+		}
+		unknown += other.unknown;
+		lastTime = Math.max(lastTime, other.lastTime);
+	}
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright (c) 2009,  Sarah Heckman, Laurie Williams, Dright Ho
+ * All Rights Reserved.
+ *
+ * Permission has been explicitly granted to the University of Minnesota
+ * Software Engineering Center to use and distribute this source for
+ * educational purposes, including delivering online education through
+ * Coursera or other entities.
+ *
+ * No warranty is given regarding this software, including warranties as
+ * to the correctness or completeness of this software, including
+ * fitness for purpose.
+ */
+package edu.ncsu.csc326.coffeemaker.change;
+
+import edu.ncsu.csc326.coffeemaker.CoffeeMaker;
+import edu.ncsu.csc326.coffeemaker.Inventory;
+import edu.ncsu.csc326.coffeemaker.Receipt;
+import edu.ncsu.csc326.coffeemaker.RecipeBook;
+import edu.ncsu.csc326.coffeemaker.RecipeSnapshot;
+import edu.ncsu.csc326.coffeemaker.Reservation;
+
+/**
+ * CoffeeMaker that pays change out of a CoinHopper.
+ *
+ * A sale whose change the hopper cannot pay exactly is refused with
+ * Receipt.NO_CHANGE and nothing is deducted.  The change check, the
+ * ingredient deduction and the payout happen while holding the
+ * hopper's monitor, so no other sale can take the coins in between.
+ * Refunds return the customer's own coins from escrow and never
+ * touch the hopper.
+ */
+public class ChangeDispensingCoffeeMaker extends CoffeeMaker {
+	private final CoinHopper hopper;
+
+	/**
+	 * Creates a coffee maker that pays change from the hopper.
+	 * @param recipeBook
+	 * @param inventory
+	 * @param hopper
+	 */
+	public ChangeDispensingCoffeeMaker(RecipeBook recipeBook, Inventory inventory, CoinHopper hopper) {
+		super(recipeBook, inventory);
+		this.hopper = hopper;
+	}
+
+	/**
+	 * Returns the coin hopper of the coffee maker.
+	 * @return CoinHopper
+	 */
+	public CoinHopper getHopper() {
+		return hopper;
+	}
+
+	/**
+	 * Makes a beverage like purchase and stores the coins paid as
+	 * change, one count per denomination of the hopper.  The coins
+	 * are only written if the beverage was sold.
+	 * @param recipeToPurchase
+	 * @param amtPaid
+	 * @param coins
+	 * @return long
+	 */
+	public long purchase(int recipeToPurchase, int amtPaid, int [] coins) {
+		return purchase(getRecipeBook().snapshot(), recipeToPurchase, amtPaid, coins);
+	}
+
+	protected long purchase(RecipeSnapshot recipes, int recipeToPurchase, int amtPaid) {
+		return purchase(recipes, recipeToPurchase, amtPaid, null);
+	}
+
+	private long purchase(RecipeSnapshot recipes, int recipeToPurchase, int amtPaid, int [] coins) {
+		synchronized (hopper) {
+			// canGiveChange is asked again for every attempt, so the change
+			// paid here is the change of the price the sale was made at.
+			long receipt = super.purchase(recipes, recipeToPurchase, amtPaid);
+			if (Receipt.isSold(receipt)) {
+				hopper.pay(Receipt.change(receipt), coins);
+			}
+			return receipt;
+		}
+	}
+
+	/**
+	 * Returns true if the hopper can pay the change exactly.  Only
+	 * called while holding the hopper's monitor.
+	 */
+	protected boolean canGiveChange(int change) {
+		return hopper.canPay(change);
+	}
+
+	/**
+	 * Completes the purchase like CoffeeMaker.completePurchase and
+	 * pays the change out of the hopper.  If the change cannot be
+	 * paid the reservation is released and the customer refunded.
+	 */
+	public int completePurchase(Reservation reservation, int amtPaid) {
+		int price = reservation.getRecipe().getPrice();
+		if (price > amtPaid) {
+			reservation.release();
+			return amtPaid;
+		}
+		int change = amtPaid - price;
+		synchronized (hopper) {
+			if (!hopper.canPay(change)) {
+				reservation.release();
+				return amtPaid;
+			}
+			if (!reservation.commit()) {
+				return amtPaid;
+			}
+			hopper.pay(change, null);
+			return change;
+		}
+	}
+
+	/**
+	 * Makes a batch of beverages like CoffeeMaker.makeCoffeeBatch,
+	 * refusing orders whose change cannot be paid.  Takes the
+	 * hopper's monitor before the inventory's, like single purchases.
+	 */
+	public int makeCoffeeBatch(int[] recipeToPurchase, int[] amtPaid, int[] change) {
+		synchronized (hopper) {
+			return super.makeCoffeeBatch(recipeToPurchase, amtPaid, change);
+		}
+	}
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright (c) 2009,  Sarah Heckman, Laurie Williams, Dright Ho
+ * All Rights Reserved.
+ *
+ * Permission has been explicitly granted to the University of Minnesota
+ * Software Engineering Center to use and distribute this source for
+ * educational purposes, including delivering online education through
+ * Coursera or other entities.
+ *
+ * No warranty is given regarding this software, including warranties as
+ * to the correctness or completeness of this software, including
+ * fitness for purpose.
+ */
+package edu.ncsu.csc326.coffeemaker.change;
+
+import java.util.Arrays;
+
+/**
+ * Precomputed coin breakdowns for every amount of change up to a
+ * maximum, for a fixed set of denominations with a limited number
+ * of coins of each.
+ *
+ * The table is a bounded change-making dynamic program: layer j
+ * holds, for every amount, the fewest coins that pay it using only
+ * the first j + 1 denominations, and how many coins of denomination
+ * j that takes.  Each layer is filled with a sliding-window minimum
+ * per residue class, so building costs O(maxChange) per denomination
+ * however many coins there are.  Looking up an amount reads one
+ * entry per denomination.
+ */
+public final class ChangeTable {
+	/** Marks an amount that cannot be paid */
+	private static final int NONE = Integer.MAX_VALUE / 2;
+
+	private final int [] denominations;
+	private final int maxChange;
+	/** Fewest coins for each amount, or NONE */
+	private final int [] fewest;
+	/** Coins of denomination j used for each amount, by layer */
+	private final int [][] take;
+
+	/**
+	 * Builds the table.
+	 * @param denominations coin values, each positive
+	 * @param limits coins available of each denomination
+	 * @param maxChange largest amount to tabulate
+	 */
+	public ChangeTable(int [] denominations, long [] limits, int maxChange) {
+		if (limits.length != denominations.length || maxChange < 0) {
+			throw new IllegalArgumentException("one limit per denomination and a non-negative maximum");
+		}
+		this.denominations = denominations.clone();
+		this.maxChange = maxChange;
+		this.take = new int[denominations.length][maxChange + 1];
+		int [] previous = new int[maxChange + 1];
+		Arrays.fill(previous, NONE);
+		previous[0] = 0;
+		int [] window = new int[maxChange + 1];
+		for (int j = 0; j < denominations.length; j++) {
+			int d = denominations[j];
+			if (d <= 0) {
+				throw new IllegalArgumentException("Denominations must be positive");
+			}
+			int limit = (int) Math.min(limits[j], maxChange / d);
+			int [] current = new int[maxChange + 1];
+			for (int residue = 0; residue < d && residue <= maxChange; residue++) {
+				// Over amounts residue + i * d, current[i] is the minimum of
+				// previous[i'] + (i - i') for i - limit <= i' <= i: a sliding
+				// minimum of previous[i'] - i', kept in a monotonic deque.
+				int head = 0;
+				int tail = 0;
+				for (int i = 0, amount = residue; amount <= maxChange; i++, amount += d) {
+					int value = previous[amount] - i;
+					while (tail > head && previous[residue + window[tail - 1] * d] - window[tail - 1] >= value) {
+						tail--;
+					}
+					window[tail++] = i;
+					if (window[head] < i - limit) {
+						head++;
+					}
+					int best = window[head];
+					int coins = previous[residue + best * d] + (i - best);
+					if (previous[residue + best * d] >= NONE) {
+						current[amount] = NONE;
+					} else {
+						current[amount] = coins;
+						take[j][amount] = i - best;
+					}
+				}
+			}
+			previous = current;
+		}
+		this.fewest = previous;
+	}
+
+	/**
+	 * Returns the largest amount in the table.
+	 * @return int
+	 */
+	public int getMaxChange() {
+		return maxChange;
+	}
+
+	/**
+	 * Returns true if the amount can be paid.
+	 * @param amount
+	 * @return boolean
+	 */
+	public boolean canPay(int amount) {
+		return amount >= 0 && amount <= maxChange && fewest[amount] < NONE;
+	}
+
+	/**
+	 * Returns the fewest coins that pay the amount, or -1 if it
+	 * cannot be paid.
+	 * @param amount
+	 * @return int
+	 */
+	public int coins(int amount) {
+		return canPay(amount) ? fewest[amount] : -1;
+	}
+
+	/**
+	 * Stores the number of coins of each denomination that pay the
+	 * amount with the fewest coins, and returns true, or returns
+	 * false and leaves the array alone if it cannot be paid.
+	 * @param amount
+	 * @param coins one entry per denomination
+	 * @return boolean
+	 */
+	public boolean breakdown(int amount, int [] coins) {
+		if (!canPay(amount)) {
+			return false;
+		}
+		for (int j = denominations.length - 1; j >= 0; j--) {
+			int k = take[j][amount];
+			coins[j] = k;
+			amount -= k * denominations[j];
+		}
+		return true;
+	}
+}
@@ -0,0 +1,203 @@
+/*
+ * Copyright (c) 2009,  Sarah Heckman, Laurie Williams, Dright Ho
+ * All Rights Reserved.
+ *
+ * Permission has been explicitly granted to the University of Minnesota
+ * Software Engineering Center to use and distribute this source for
+ * educational purposes, including delivering online education through
+ * Coursera or other entities.
+ *
+ * No warranty is given regarding this software, including warranties as
+ * to the correctness or completeness of this software, including
+ * fitness for purpose.
+ */
+package edu.ncsu.csc326.coffeemaker.change;
+
+import java.util.Arrays;
+
+/**
+ * Coin hopper that pays out change.
+ *
+ * The hopper holds coins of a fixed set of denominations and pays
+ * any amount up to a maximum with the fewest coins it has, looked up
+ * in a ChangeTable rather than searched for.  Since no single payout
+ * can use more than maxChange / d coins of denomination d, the table
+ * only depends on the counts capped at that, and a hopper with more
+ * coins than that of every denomination never rebuilds it.  When a
+ * count falls below its cap the table is rebuilt on the next
+ * payout, at a cost bounded by maxChange times the number of
+ * denominations whatever the size of the hopper.
+ *
+ * Customers' payments are held in escrow and refunded or dropped in
+ * the cash box; they never refill the hopper.
+ */
+public class CoinHopper {
+	private final int [] denominations;
+	private final int maxChange;
+	/** Coins of each denomination */
+	private final long [] counts;
+	/** Most coins of each denomination one payout can use */
+	private final long [] caps;
+	/** Table for the capped counts, or null after they changed */
+	private ChangeTable table;
+	/** Number of times the table was built */
+	private long builds;
+
+	/**
+	 * Creates an empty hopper.
+	 * @param maxChange largest amount of change it pays out
+	 * @param denominations distinct positive coin values
+	 */
+	public CoinHopper(int maxChange, int... denominations) {
+		if (maxChange < 0 || denominations.length == 0) {
+			throw new IllegalArgumentException("A hopper needs a maximum and at least one denomination");
+		}
+		this.denominations = denominations.clone();
+		this.maxChange = maxChange;
+		this.counts = new long[denominations.length];
+		this.caps = new long[denominations.length];
+		for (int j = 0; j < denominations.length; j++) {
+			if (denominations[j] <= 0 || indexOf(denominations[j]) != j) {
+				throw new IllegalArgumentException("Denominations must be distinct and positive");
+			}
+			caps[j] = maxChange / denominations[j];
+		}
+	}
+
+	/**
+	 * Returns a copy of the denominations, in the order of the coin
+	 * counts the hopper pays out.
+	 * @return int[]
+	 */
+	public int [] getDenominations() {
+		return denominations.clone();
+	}
+
+	/**
+	 * Returns the largest amount of change the hopper pays out.
+	 * @return int
+	 */
+	public int getMaxChange() {
+		return maxChange;
+	}
+
+	/**
+	 * Returns the number of coins of the denomination.
+	 * @param denomination
+	 * @return long
+	 */
+	public synchronized long getCount(int denomination) {
+		return counts[slot(denomination)];
+	}
+
+	/**
+	 * Returns the total value of the coins in the hopper.
+	 * @return long
+	 */
+	public synchronized long getValue() {
+		long value = 0;
+		for (int j = 0; j < counts.length; j++) {
+			value += counts[j] * denominations[j];
+		}
+		return value;
+	}
+
+	/**
+	 * Returns the number of times the change table was built.
+	 * @return long
+	 */
+	public synchronized long getTableBuilds() {
+		return builds;
+	}
+
+	/**
+	 * Adds coins of the denomination.
+	 * @param denomination
+	 * @param coins
+	 */
+	public synchronized void refill(int denomination, long coins) {
+		int j = slot(denomination);
+		if (coins < 0) {
+			throw new IllegalArgumentException("Cannot refill a negative number of coins");
+		}
+		if (counts[j] < caps[j]) {
+			table = null;
+		}
+		counts[j] += coins;
+	}
+
+	/**
+	 * Returns true if the hopper can pay out the amount exactly.
+	 * @param amount
+	 * @return boolean
+	 */
+	public synchronized boolean canPay(int amount) {
+		return amount == 0 || table().canPay(amount);
+	}
+
+	/**
+	 * Pays out the amount with the fewest coins and returns true, or
+	 * returns false and pays nothing if it cannot be paid exactly.
+	 * @param amount
+	 * @param coins receives the coins paid of each denomination, or null
+	 * @return boolean
+	 */
+	public synchronized boolean pay(int amount, int [] coins) {
+		int [] paid = coins != null ? coins : new int[denominations.length];
+		if (amount == 0) {
+			Arrays.fill(paid, 0);
+			return true;
+		}
+		if (!table().breakdown(amount, paid)) {
+			return false;
+		}
+		for (int j = 0; j < counts.length; j++) {
+			counts[j] -= paid[j];
+			if (paid[j] > 0 && counts[j] < caps[j]) {
+				table = null;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Returns the table for the current capped counts, building it if
+	 * a count changed below its cap.  Caller holds the monitor.
+	 */
+	private ChangeTable table() {
+		if (table == null) {
+			table = new ChangeTable(denominations, counts, maxChange);
+			builds++;
+		}
+		return table;
+	}
+
+	private int slot(int denomination) {
+		int j = indexOf(denomination);
+		if (j < 0) {
+			throw new IllegalArgumentException("No " + denomination + " coins in this hopper");
+		}
+		return j;
+	}
+
+	private int indexOf(int denomination) {
+		for (int j = 0; j < denominations.length; j++) {
+			if (denominations[j] == denomination) {
+				return j;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Returns the coins in the hopper.
+	 * @return String
+	 */
+	public synchronized String toString() {
+		StringBuilder buf = new StringBuilder();
+		for (int j = 0; j < denominations.length; j++) {
+			buf.append(denominations[j]).append(": ").append(counts[j]).append("\n");
+		}
+		return buf.toString();
+	}
+}
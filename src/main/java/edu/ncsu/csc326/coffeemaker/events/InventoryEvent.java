@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) 2009,  Sarah Heckman, Laurie Williams, Dright Ho
+ * All Rights Reserved.
+ *
+ * Permission has been explicitly granted to the University of Minnesota
+ * Software Engineering Center to use and distribute this source for
+ * educational purposes, including delivering online education through
+ * Coursera or other entities.
+ *
+ * No warranty is given regarding this software, including warranties as
+ * to the correctness or completeness of this software, including
+ * fitness for purpose.
+ */
+package edu.ncsu.csc326.coffeemaker.events;
+
+import edu.ncsu.csc326.coffeemaker.IngredientRegistry;
+
+/**
+ * One change to an inventory, as read from an InventoryEventStream.
+ *
+ * A consumer keeps one event and has the stream fill it in again for
+ * every change it reads, so reading allocates nothing.  The stock is
+ * the stock of the built-in ingredients right after the change.
+ */
+public final class InventoryEvent {
+	private static final String[] CAUSES = {"use", "add", "set", "return"};
+
+	long sequence;
+	int cause;
+	long ingredients;
+	final int [] stock = new int[IngredientRegistry.BUILT_IN];
+
+	/**
+	 * Returns the position of the event in the stream, counting
+	 * from 1.
+	 * @return long
+	 */
+	public long getSequence() {
+		return sequence;
+	}
+
+	/**
+	 * Returns what changed the stock, one of the StockListener causes.
+	 * @return int
+	 */
+	public int getCause() {
+		return cause;
+	}
+
+	/**
+	 * Returns the mask of the IngredientRegistry ids that changed.
+	 * @return long
+	 */
+	public long getIngredients() {
+		return ingredients;
+	}
+
+	/**
+	 * Returns true if the ingredient is among those that changed.
+	 * @param ingredient
+	 * @return boolean
+	 */
+	public boolean changed(int ingredient) {
+		return (ingredients & (1L << Math.min(ingredient, 63))) != 0;
+	}
+
+	/**
+	 * Returns the units of the built-in ingredient after the change.
+	 * @param ingredient
+	 * @return int
+	 */
+	public int getStock(int ingredient) {
+		return stock[ingredient];
+	}
+
+	/**
+	 * Returns the event, e.g. "#3 use Coffee: 12 Milk: 14 ...".
+	 * @return String
+	 */
+	public String toString() {
+		StringBuilder buf = new StringBuilder();
+		buf.append('#').append(sequence).append(' ').append(cause >= 0 && cause < CAUSES.length ? CAUSES[cause] : "?");
+		for (int i = 0; i < stock.length; i++) {
+			buf.append(' ').append(IngredientRegistry.nameOf(i)).append(": ").append(stock[i]);
+		}
+		return buf.toString();
+	}
+}
@@ -0,0 +1,259 @@
+/*
+ * Copyright (c) 2009,  Sarah Heckman, Laurie Williams, Dright Ho
+ * All Rights Reserved.
+ *
+ * Permission has been explicitly granted to the University of Minnesota
+ * Software Engineering Center to use and distribute this source for
+ * educational purposes, including delivering online education through
+ * Coursera or other entities.
+ *
+ * No warranty is given regarding this software, including warranties as
+ * to the correctness or completeness of this software, including
+ * fitness for purpose.
+ */
+package edu.ncsu.csc326.coffeemaker.events;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import edu.ncsu.csc326.coffeemaker.IngredientRegistry;
+import edu.ncsu.csc326.coffeemaker.Inventory;
+import edu.ncsu.csc326.coffeemaker.StockListener;
+
+/**
+ * Bounded ring buffer of inventory changes that any number of
+ * consumers read at their own pace.
+ *
+ * The inventory publishes every change into a preallocated slot: the
+ * cause, the ingredients that changed and the stock of the built-in
+ * ingredients afterwards.  Publishing allocates nothing and never
+ * waits for consumers.  There is a single writer at a time; changes
+ * are published under the stream's monitor, which the synchronized
+ * Inventory takes while holding its own and so never contends for.
+ *
+ * A consumer that falls more than a ring behind has its oldest events
+ * overwritten.  It notices when it next reads, skips to the oldest
+ * event still in the ring and counts what it missed, so a slow
+ * dashboard loses history instead of holding up purchases.
+ */
+public class InventoryEventStream implements StockListener {
+	/** Longs per slot: sequence, cause, ingredients, two stock words */
+	private static final int STRIDE = 8;
+	/** Sequence stored in a slot while it is being rewritten; slots
+	 *  start at 0, which is never a sequence either */
+	private static final long WRITING = -1;
+
+	private final int capacity;
+	private final int mask;
+	/** Slots of STRIDE longs; all fields are read and written through
+	 *  the array so that a reader can tell a slot was rewritten */
+	private final AtomicLongArray ring;
+	/** Sequence of the last published event, 0 before the first */
+	private final AtomicLong cursor = new AtomicLong();
+	private final CopyOnWriteArrayList<Consumer> consumers = new CopyOnWriteArrayList<Consumer>();
+
+	/**
+	 * Creates a stream that holds the given number of events,
+	 * rounded up to a power of two.
+	 * @param capacity
+	 */
+	public InventoryEventStream(int capacity) {
+		if (capacity < 1 || capacity > 1 << 26) {
+			throw new IllegalArgumentException("capacity must be between 1 and 2^26");
+		}
+		int size = 1;
+		while (size < capacity) {
+			size <<= 1;
+		}
+		this.capacity = size;
+		this.mask = size - 1;
+		this.ring = new AtomicLongArray(size * STRIDE);
+	}
+
+	/**
+	 * Starts publishing the changes of the inventory, beginning with
+	 * a SET event that carries its current stock.
+	 * @param inventory
+	 */
+	public void attach(Inventory inventory) {
+		synchronized (inventory) {
+			inventory.addStockListener(this);
+			stockChanged(inventory, SET, (1L << IngredientRegistry.BUILT_IN) - 1);
+		}
+	}
+
+	/**
+	 * Stops publishing the changes of the inventory.
+	 * @param inventory
+	 */
+	public void detach(Inventory inventory) {
+		inventory.removeStockListener(this);
+	}
+
+	/**
+	 * Publishes a change.  Called by the inventory.
+	 * @param inventory
+	 * @param cause
+	 * @param ingredients
+	 */
+	public void stockChanged(Inventory inventory, int cause, long ingredients) {
+		synchronized (this) {
+			long sequence = cursor.get() + 1;
+			int base = (int) (sequence & mask) * STRIDE;
+			// Marks the slot before rewriting it, so that a reader who
+			// sees any new field also sees the mark when it rechecks
+			ring.set(base, WRITING);
+			ring.lazySet(base + 1, cause);
+			ring.lazySet(base + 2, ingredients);
+			// Read inside the monitor, so events never go back in time
+			// even when an AtomicInventory reports changes concurrently
+			ring.lazySet(base + 3, pack(inventory.getStock(IngredientRegistry.COFFEE),
+					inventory.getStock(IngredientRegistry.MILK)));
+			ring.lazySet(base + 4, pack(inventory.getStock(IngredientRegistry.SUGAR),
+					inventory.getStock(IngredientRegistry.CHOCOLATE)));
+			ring.lazySet(base, sequence);
+			cursor.lazySet(sequence);
+		}
+	}
+
+	/**
+	 * Returns the number of events the ring holds.
+	 * @return int
+	 */
+	public int getCapacity() {
+		return capacity;
+	}
+
+	/**
+	 * Returns the sequence of the last published event.
+	 * @return long
+	 */
+	public long getCursor() {
+		return cursor.get();
+	}
+
+	/**
+	 * Creates a consumer that starts with the oldest event still in
+	 * the ring and waits with the given strategy.
+	 * @param strategy
+	 * @return Consumer
+	 */
+	public Consumer newConsumer(WaitStrategy strategy) {
+		Consumer consumer = new Consumer(strategy, Math.max(1, cursor.get() - capacity + 1));
+		consumers.add(consumer);
+		return consumer;
+	}
+
+	/**
+	 * Returns the consumers that have more than the given number of
+	 * events left to read, or have missed events.
+	 * @param lag
+	 * @return Consumer[]
+	 */
+	public Consumer [] getSlowConsumers(long lag) {
+		List<Consumer> slow = new ArrayList<Consumer>();
+		for (Consumer c : consumers) {
+			if (c.getLag() > lag || c.getMissed() > 0) {
+				slow.add(c);
+			}
+		}
+		return slow.toArray(new Consumer[slow.size()]);
+	}
+
+	private static long pack(int high, int low) {
+		return ((long) high << 32) | (low & 0xFFFFFFFFL);
+	}
+
+	/**
+	 * Reads the stream from its own position.  A consumer is meant to
+	 * be used by one thread.
+	 */
+	public final class Consumer {
+		private final WaitStrategy strategy;
+		/** Sequence of the next event to read */
+		private volatile long next;
+		/** Events overwritten before they were read */
+		private volatile long missed;
+
+		private Consumer(WaitStrategy strategy, long next) {
+			this.strategy = strategy;
+			this.next = next;
+		}
+
+		/**
+		 * Reads the next event into the given one and returns true,
+		 * or returns false if there is no new event.
+		 * @param into
+		 * @return boolean
+		 */
+		public boolean poll(InventoryEvent into) {
+			for (;;) {
+				long sequence = next;
+				if (sequence > cursor.get()) {
+					return false;
+				}
+				int base = (int) (sequence & mask) * STRIDE;
+				long before = ring.get(base);
+				if (before == sequence) {
+					into.cause = (int) ring.get(base + 1);
+					into.ingredients = ring.get(base + 2);
+					long stock01 = ring.get(base + 3);
+					long stock23 = ring.get(base + 4);
+					if (ring.get(base) == sequence) {
+						into.sequence = sequence;
+						into.stock[IngredientRegistry.COFFEE] = (int) (stock01 >> 32);
+						into.stock[IngredientRegistry.MILK] = (int) stock01;
+						into.stock[IngredientRegistry.SUGAR] = (int) (stock23 >> 32);
+						into.stock[IngredientRegistry.CHOCOLATE] = (int) stock23;
+						next = sequence + 1;
+						return true;
+					}
+				}
+				// The slot was rewritten by a later event: skip to the
+				// oldest event that is still in the ring
+				long oldest = Math.max(sequence + 1, cursor.get() - capacity + 1);
+				missed += oldest - sequence;
+				next = oldest;
+			}
+		}
+
+		/**
+		 * Reads the next event into the given one, waiting for it with
+		 * the consumer's strategy.
+		 * @param into
+		 * @throws InterruptedException
+		 */
+		public void take(InventoryEvent into) throws InterruptedException {
+			for (int attempt = 0; !poll(into); attempt++) {
+				strategy.idle(attempt);
+			}
+		}
+
+		/**
+		 * Returns the number of published events not read yet.
+		 * @return long
+		 */
+		public long getLag() {
+			return Math.max(0, cursor.get() - next + 1);
+		}
+
+		/**
+		 * Returns the number of events that were overwritten before
+		 * this consumer read them.
+		 * @return long
+		 */
+		public long getMissed() {
+			return missed;
+		}
+
+		/**
+		 * Stops tracking the consumer.
+		 */
+		public void close() {
+			consumers.remove(this);
+		}
+	}
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) 2009,  Sarah Heckman, Laurie Williams, Dright Ho
+ * All Rights Reserved.
+ *
+ * Permission has been explicitly granted to the University of Minnesota
+ * Software Engineering Center to use and distribute this source for
+ * educational purposes, including delivering online education through
+ * Coursera or other entities.
+ *
+ * No warranty is given regarding this software, including warranties as
+ * to the correctness or completeness of this software, including
+ * fitness for purpose.
+ */
+package edu.ncsu.csc326.coffeemaker.events;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * How a consumer of an InventoryEventStream waits for the next event.
+ *
+ * Busy spinning answers fastest and burns a core; yielding lets other
+ * threads run; parking frees the core at the cost of a wake-up delay.
+ */
+public interface WaitStrategy {
+
+	/**
+	 * Waits a little before the consumer checks for an event again.
+	 * @param attempt number of checks so far that found nothing
+	 * @throws InterruptedException if the thread is interrupted
+	 */
+	void idle(int attempt) throws InterruptedException;
+
+	/**
+	 * Returns a strategy that checks again straight away.
+	 * @return WaitStrategy
+	 */
+	static WaitStrategy busySpin() {
+		return attempt -> {
+			if (Thread.interrupted()) {
+				throw new InterruptedException();
+			}
+		};
+	}
+
+	/**
+	 * Returns a strategy that spins for a while and then yields the
+	 * processor between checks.
+	 * @return WaitStrategy
+	 */
+	static WaitStrategy yielding() {
+		return attempt -> {
+			if (Thread.interrupted()) {
+				throw new InterruptedException();
+			}
+			if (attempt > 100) {
+				Thread.yield();
+			}
+		};
+	}
+
+	/**
+	 * Returns a strategy that spins, then yields, then parks the
+	 * thread for the given time between checks.
+	 * @param nanos
+	 * @return WaitStrategy
+	 */
+	static WaitStrategy parking(final long nanos) {
+		return attempt -> {
+			if (Thread.interrupted()) {
+				throw new InterruptedException();
+			}
+			if (attempt > 200) {
+				LockSupport.parkNanos(nanos);
+			} else if (attempt > 100) {
+				Thread.yield();
+			}
+		};
+	}
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright (c) 2009,  Sarah Heckman, Laurie Williams, Dright Ho
+ * All Rights Reserved.
+ *
+ * Permission has been explicitly granted to the University of Minnesota
+ * Software Engineering Center to use and distribute this source for
+ * educational purposes, including delivering online education through
+ * Coursera or other entities.
+ *
+ * No warranty is given regarding this software, including warranties as
+ * to the correctness or completeness of this software, including
+ * fitness for purpose.
+ */
+package edu.ncsu.csc326.coffeemaker.fleet;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+import edu.ncsu.csc326.coffeemaker.CoffeeMaker;
+import edu.ncsu.csc326.coffeemaker.Inventory;
+import edu.ncsu.csc326.coffeemaker.RecipeBook;
+
+/**
+ * Registry of independent coffee makers running in one process.
+ *
+ * Every machine gets its own RecipeBook and Inventory, so purchases
+ * on one machine never contend with purchases on another.  Lookups
+ * go through a ConcurrentHashMap and take no registry-wide lock.
+ */
+public class CoffeeMakerFleet {
+	/** Machines in the fleet, keyed by machine id */
+	private final ConcurrentHashMap<String, CoffeeMaker> machines;
+	/** Creates the inventory for each new machine */
+	private final Supplier<? extends Inventory> inventoryFactory;
+
+	/**
+	 * Creates an empty fleet whose machines use the default
+	 * synchronized Inventory.
+	 */
+	public CoffeeMakerFleet() {
+		this(Inventory::new);
+	}
+
+	/**
+	 * Creates an empty fleet whose machines get their inventory
+	 * from the given factory, e.g. AtomicInventory::new.
+	 * @param inventoryFactory
+	 */
+	public CoffeeMakerFleet(Supplier<? extends Inventory> inventoryFactory) {
+		this.machines = new ConcurrentHashMap<String, CoffeeMaker>();
+		this.inventoryFactory = inventoryFactory;
+	}
+
+	/**
+	 * Creates a machine with an empty recipe book and a freshly
+	 * stocked inventory.  Returns the new machine, or null if
+	 * the id is already in use.
+	 * @param id
+	 * @return CoffeeMaker
+	 */
+	public CoffeeMaker create(String id) {
+		CoffeeMaker machine = new CoffeeMaker(new RecipeBook(), inventoryFactory.get());
+		return machines.putIfAbsent(id, machine) == null ? machine : null;
+	}
+
+	/**
+	 * Returns true if the machine is added under the given id
+	 * and false if the id is already in use.
+	 * @param id
+	 * @param machine
+	 * @return boolean
+	 */
+	public boolean add(String id, CoffeeMaker machine) {
+		return machines.putIfAbsent(id, machine) == null;
+	}
+
+	/**
+	 * Returns the machine with the given id, or null if there
+	 * is no such machine.
+	 * @param id
+	 * @return CoffeeMaker
+	 */
+	public CoffeeMaker get(String id) {
+		return machines.get(id);
+	}
+
+	/**
+	 * Returns the removed machine, or null if there is no
+	 * machine with the given id.
+	 * @param id
+	 * @return CoffeeMaker
+	 */
+	public CoffeeMaker remove(String id) {
+		return machines.remove(id);
+	}
+
+	/**
+	 * Returns the number of machines in the fleet.
+	 * @return int
+	 */
+	public int size() {
+		return machines.size();
+	}
+
+	/**
+	 * Returns a live, unmodifiable view of the machine ids.
+	 * @return Set
+	 */
+	public Set<String> ids() {
+		return Collections.unmodifiableSet(machines.keySet());
+	}
+
+	/**
+	 * Returns the change of a purchase on the given machine, or
+	 * the user's money if the machine does not exist or the
+	 * beverage cannot be made.
+	 * @param id
+	 * @param recipeToPurchase
+	 * @param amtPaid
+	 * @return int
+	 */
+	public int makeCoffee(String id, int recipeToPurchase, int amtPaid) {
+		CoffeeMaker machine = machines.get(id);
+		if (machine == null) {
+			return amtPaid;
+		}
+		return machine.makeCoffee(recipeToPurchase, amtPaid);
+	}
+
+	/**
+	 * Runs the action against every machine on the calling thread.
+	 * @param action
+	 */
+	public void forEach(BiConsumer<String, CoffeeMaker> action) {
+		machines.forEach(action);
+	}
+
+	/**
+	 * Runs the action against every machine in parallel on the
+	 * common fork/join pool and returns once all of them are done.
+	 * Machines share no state, so the work scales with the cores.
+	 * @param action
+	 */
+	public void parallelForEach(BiConsumer<String, CoffeeMaker> action) {
+		machines.forEach(1, action);
+	}
+}
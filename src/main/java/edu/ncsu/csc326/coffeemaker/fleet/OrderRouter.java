@@ -0,0 +1,317 @@
+/*
+ * Copyright (c) 2009,  Sarah Heckman, Laurie Williams, Dright Ho
+ * All Rights Reserved.
+ *
+ * Permission has been explicitly granted to the University of Minnesota
+ * Software Engineering Center to use and distribute this source for
+ * educational purposes, including delivering online education through
+ * Coursera or other entities.
+ *
+ * No warranty is given regarding this software, including warranties as
+ * to the correctness or completeness of this software, including
+ * fitness for purpose.
+ */
+package edu.ncsu.csc326.coffeemaker.fleet;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+
+import edu.ncsu.csc326.coffeemaker.AvailabilityIndex;
+import edu.ncsu.csc326.coffeemaker.CoffeeMaker;
+import edu.ncsu.csc326.coffeemaker.Receipt;
+import edu.ncsu.csc326.coffeemaker.Recipe;
+
+/**
+ * Sends each order to a machine of a fleet that can make it.
+ *
+ * The router reads every machine's AvailabilityIndex, which its
+ * inventory keeps up to date on every change, so the servings left
+ * on a machine cost a volatile read and routing takes no lock.  Among
+ * the machines with servings of the recipe it picks one by policy:
+ * LEAST_LOADED scans every machine for the fewest orders in flight,
+ * and TWO_CHOICES compares two machines drawn at random, which keeps
+ * the load nearly as even at a constant cost per order.
+ *
+ * A machine can sell out between the routing decision and the
+ * purchase.  A purchase that is refused for stock or a missing recipe
+ * deducts nothing, so the router retries it on a machine it has not
+ * tried yet.  Only the one purchase that sells takes ingredients.
+ */
+public class OrderRouter {
+	/** Route to the machine with the fewest orders in flight */
+	public static final int LEAST_LOADED = 0;
+	/** Route to the less loaded of two random machines */
+	public static final int TWO_CHOICES = 1;
+	/** Machines an order is tried on unless another limit is given */
+	public static final int ATTEMPTS = 4;
+
+	/** Pairs drawn by TWO_CHOICES before it falls back to a scan */
+	private static final int DRAWS = 4;
+	/** Ints between in-flight counters, so machines do not share cache lines */
+	private static final int STRIDE = 16;
+
+	private final CoffeeMaker [] machines;
+	private final AvailabilityIndex [] availability;
+	private final AtomicIntegerArray inFlight;
+	private final int policy;
+	private final int attempts;
+	private final AtomicLong retries = new AtomicLong();
+
+	/**
+	 * Creates a router over the machines of the fleet, in the order
+	 * of their ids.
+	 * @param fleet
+	 * @param policy
+	 * @return OrderRouter
+	 */
+	public static OrderRouter of(CoffeeMakerFleet fleet, int policy) {
+		List<String> ids = new ArrayList<String>(fleet.ids());
+		Collections.sort(ids);
+		List<CoffeeMaker> machines = new ArrayList<CoffeeMaker>(ids.size());
+		for (String id : ids) {
+			CoffeeMaker machine = fleet.get(id);
+			if (machine != null) {
+				machines.add(machine);
+			}
+		}
+		return new OrderRouter(policy, ATTEMPTS, machines.toArray(new CoffeeMaker[machines.size()]));
+	}
+
+	/**
+	 * Creates a router over the given machines.  A machine whose
+	 * inventory does not track availability yet starts tracking it.
+	 * @param policy LEAST_LOADED or TWO_CHOICES
+	 * @param attempts most machines an order is tried on
+	 * @param machines
+	 */
+	public OrderRouter(int policy, int attempts, CoffeeMaker... machines) {
+		if (policy != LEAST_LOADED && policy != TWO_CHOICES) {
+			throw new IllegalArgumentException("Unknown routing policy " + policy);
+		}
+		if (attempts < 1) {
+			throw new IllegalArgumentException("An order must be tried at least once");
+		}
+		this.policy = policy;
+		this.attempts = attempts;
+		this.machines = machines.clone();
+		this.availability = new AvailabilityIndex[machines.length];
+		for (int i = 0; i < machines.length; i++) {
+			AvailabilityIndex index = machines[i].getInventory().getAvailability();
+			availability[i] = index != null ? index : machines[i].trackAvailability();
+		}
+		this.inFlight = new AtomicIntegerArray(Math.max(1, machines.length) * STRIDE);
+	}
+
+	/**
+	 * Returns the number of machines.
+	 * @return int
+	 */
+	public int size() {
+		return machines.length;
+	}
+
+	/**
+	 * Returns the machine with the given index.
+	 * @param machine
+	 * @return CoffeeMaker
+	 */
+	public CoffeeMaker getMachine(int machine) {
+		return machines[machine];
+	}
+
+	/**
+	 * Returns the servings of the recipe in the slot left on a
+	 * machine, as the router sees them.
+	 * @param machine
+	 * @param slot
+	 * @return int
+	 */
+	public int getServings(int machine, int slot) {
+		return availability[machine].getServings(slot);
+	}
+
+	/**
+	 * Returns the number of orders in flight on a machine.
+	 * @param machine
+	 * @return int
+	 */
+	public int getInFlight(int machine) {
+		return inFlight.get(machine * STRIDE);
+	}
+
+	/**
+	 * Returns the number of purchases that were refused by the
+	 * machine they were routed to and tried again elsewhere.
+	 * @return long
+	 */
+	public long getRetries() {
+		return retries.get();
+	}
+
+	/**
+	 * Returns the receipt of a purchase routed to a machine that can
+	 * make the recipe.
+	 * @param recipeToPurchase
+	 * @param amtPaid
+	 * @return long
+	 */
+	public long purchase(int recipeToPurchase, int amtPaid) {
+		return purchase(recipeToPurchase, amtPaid, null);
+	}
+
+	/**
+	 * Returns the receipt of a purchase routed to a machine that can
+	 * make the recipe, and stores the index of the machine that sold
+	 * it, or -1, in machine[0] if machine is not null.  A refusal for
+	 * stock or a missing recipe is retried on another machine until
+	 * the attempts run out.  An order that no machine can take is
+	 * refused without touching any machine.
+	 * @param recipeToPurchase
+	 * @param amtPaid
+	 * @param machine
+	 * @return long
+	 */
+	public long purchase(int recipeToPurchase, int amtPaid, int [] machine) {
+		if (machine != null) {
+			machine[0] = -1;
+		}
+		// Machines that refused the order; allocated on the first refusal
+		int [] tried = null;
+		// No receipt can be -1, since outcomes are not negative
+		long receipt = -1;
+		for (int attempt = 0; attempt < attempts; attempt++) {
+			int target = route(recipeToPurchase, tried, attempt);
+			if (target < 0) {
+				break;
+			}
+			if (attempt > 0) {
+				retries.incrementAndGet();
+			}
+			inFlight.incrementAndGet(target * STRIDE);
+			try {
+				receipt = machines[target].purchase(recipeToPurchase, amtPaid);
+			} finally {
+				inFlight.decrementAndGet(target * STRIDE);
+			}
+			int outcome = Receipt.outcome(receipt);
+			if (outcome == Receipt.SOLD) {
+				if (machine != null) {
+					machine[0] = target;
+				}
+				return receipt;
+			}
+			if (outcome != Receipt.OUT_OF_STOCK && outcome != Receipt.NO_SUCH_RECIPE) {
+				return receipt;
+			}
+			if (tried == null) {
+				tried = new int[attempts];
+			}
+			tried[attempt] = target;
+		}
+		return receipt >= 0 ? receipt : refuse(recipeToPurchase, amtPaid);
+	}
+
+	/**
+	 * Returns the machine an order for the slot should go to, or -1
+	 * if no machine that has not been tried has servings left.
+	 * @param slot
+	 * @return int
+	 */
+	public int route(int slot) {
+		return route(slot, null, 0);
+	}
+
+	private int route(int slot, int [] tried, int triedCount) {
+		int n = machines.length;
+		if (n == 0) {
+			return -1;
+		}
+		if (policy == TWO_CHOICES && n > 1) {
+			ThreadLocalRandom random = ThreadLocalRandom.current();
+			for (int draw = 0; draw < DRAWS; draw++) {
+				int a = random.nextInt(n);
+				int b = random.nextInt(n - 1);
+				if (b >= a) {
+					b++;
+				}
+				int best = better(slot, tried, triedCount, usable(slot, tried, triedCount, a) ? a : -1, b);
+				if (best >= 0) {
+					return best;
+				}
+			}
+		}
+		// Least loaded: scan every machine from a random start so that
+		// ties do not all go to the first machine, reading each
+		// machine's load and servings once
+		int start = ThreadLocalRandom.current().nextInt(n);
+		int best = -1;
+		int bestLoad = 0;
+		int bestServings = 0;
+		for (int i = 0; i < n; i++) {
+			int candidate = start + i < n ? start + i : start + i - n;
+			int servings = availability[candidate].getServings(slot);
+			if (servings <= 0 || wasTried(tried, triedCount, candidate)) {
+				continue;
+			}
+			int load = inFlight.get(candidate * STRIDE);
+			if (best < 0 || load < bestLoad || (load == bestLoad && servings > bestServings)) {
+				best = candidate;
+				bestLoad = load;
+				bestServings = servings;
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * Returns whichever of a usable machine, or -1, and a candidate
+	 * is the better target: the usable one with fewer orders in
+	 * flight, then more servings left.
+	 */
+	private int better(int slot, int [] tried, int triedCount, int best, int candidate) {
+		if (!usable(slot, tried, triedCount, candidate)) {
+			return best;
+		}
+		if (best < 0) {
+			return candidate;
+		}
+		int load = inFlight.get(candidate * STRIDE) - inFlight.get(best * STRIDE);
+		if (load != 0) {
+			return load < 0 ? candidate : best;
+		}
+		return availability[candidate].getServings(slot) > availability[best].getServings(slot) ? candidate : best;
+	}
+
+	private boolean usable(int slot, int [] tried, int triedCount, int machine) {
+		return !wasTried(tried, triedCount, machine) && availability[machine].getServings(slot) > 0;
+	}
+
+	private static boolean wasTried(int [] tried, int triedCount, int machine) {
+		for (int i = 0; i < triedCount; i++) {
+			if (tried[i] == machine) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Returns the receipt of an order that no machine could take:
+	 * the outcome the first machine with the recipe would give, or
+	 * no such recipe if none has it.
+	 */
+	private long refuse(int slot, int amtPaid) {
+		for (CoffeeMaker machine : machines) {
+			Recipe recipe = machine.getRecipeBook().snapshot().get(slot);
+			if (recipe != null) {
+				int outcome = recipe.getPrice() > amtPaid ? Receipt.INSUFFICIENT_PAYMENT : Receipt.OUT_OF_STOCK;
+				return Receipt.of(outcome, amtPaid);
+			}
+		}
+		return Receipt.of(Receipt.NO_SUCH_RECIPE, amtPaid);
+	}
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright (c) 2009,  Sarah Heckman, Laurie Williams, Dright Ho
+ * All Rights Reserved.
+ *
+ * Permission has been explicitly granted to the University of Minnesota
+ * Software Engineering Center to use and distribute this source for
+ * educational purposes, including delivering online education through
+ * Coursera or other entities.
+ *
+ * No warranty is given regarding this software, including warranties as
+ * to the correctness or completeness of this software, including
+ * fitness for purpose.
+ */
+package edu.ncsu.csc326.coffeemaker.importer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Outcome of a recipe import: how many lines were read, imported
+ * and rejected, and why the first rejected lines failed.  Only the
+ * first few errors are kept so a bad file cannot use up memory.
+ */
+public final class ImportReport {
+	private final int maxErrors;
+	private final List<LineError> errors = new ArrayList<LineError>();
+	private long lines;
+	private long imported;
+	private long rejected;
+
+	ImportReport(int maxErrors) {
+		this.maxErrors = maxErrors;
+	}
+
+	void line() {
+		lines++;
+	}
+
+	void imported(int count) {
+		imported += count;
+	}
+
+	void reject(long line, String message) {
+		rejected++;
+		if (errors.size() < maxErrors) {
+			errors.add(new LineError(line, message));
+		}
+	}
+
+	/**
+	 * Returns the number of recipe lines read, not counting blank
+	 * lines, comments and the header.
+	 * @return long
+	 */
+	public long getLines() {
+		return lines;
+	}
+
+	/**
+	 * Returns the number of recipes added to the book.
+	 * @return long
+	 */
+	public long getImported() {
+		return imported;
+	}
+
+	/**
+	 * Returns the number of lines that were rejected.
+	 * @return long
+	 */
+	public long getRejected() {
+		return rejected;
+	}
+
+	/**
+	 * Returns the first rejected lines, in file order.
+	 * @return List
+	 */
+	public List<LineError> getErrors() {
+		return Collections.unmodifiableList(errors);
+	}
+
+	/**
+	 * Returns a one-line summary of the import.
+	 * @return String
+	 */
+	public String toString() {
+		return "Imported " + imported + " of " + lines + " recipes, " + rejected + " rejected";
+	}
+
+	/**
+	 * Why one line of the file was rejected.
+	 */
+	public static final class LineError {
+		private final long line;
+		private final String message;
+
+		LineError(long line, String message) {
+			this.line = line;
+			this.message = message;
+		}
+
+		/**
+		 * Returns the line number, starting at 1.
+		 * @return long
+		 */
+		public long getLine() {
+			return line;
+		}
+
+		/**
+		 * Returns the reason the line was rejected.
+		 * @return String
+		 */
+		public String getMessage() {
+			return message;
+		}
+
+		/**
+		 * Returns the line number and reason.
+		 * @return String
+		 */
+		public String toString() {
+			return "Line " + line + ": " + message;
+		}
+	}
+}
@@ -0,0 +1,354 @@
+/*
+ * Copyright (c) 2009,  Sarah Heckman, Laurie Williams, Dright Ho
+ * All Rights Reserved.
+ *
+ * Permission has been explicitly granted to the University of Minnesota
+ * Software Engineering Center to use and distribute this source for
+ * educational purposes, including delivering online education through
+ * Coursera or other entities.
+ *
+ * No warranty is given regarding this software, including warranties as
+ * to the correctness or completeness of this software, including
+ * fitness for purpose.
+ */
+package edu.ncsu.csc326.coffeemaker.importer;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import edu.ncsu.csc326.coffeemaker.IngredientRegistry;
+import edu.ncsu.csc326.coffeemaker.Recipe;
+import edu.ncsu.csc326.coffeemaker.RecipeBook;
+import edu.ncsu.csc326.coffeemaker.Status;
+import edu.ncsu.csc326.coffeemaker.Units;
+import edu.ncsu.csc326.coffeemaker.exceptions.RecipeException;
+
+/**
+ * Streams recipes from a CSV menu file into a RecipeBook.
+ *
+ * Each line holds one recipe: name, price and the units of each
+ * ingredient, by default coffee, milk, sugar and chocolate.  A first
+ * line starting with the field "name" is a header that names the
+ * ingredient columns instead; ingredients that are not registered yet
+ * are registered.  Blank lines and lines starting with # are skipped.
+ * A name may be quoted to hold commas, with "" for a quote.
+ *
+ * The file is read through a fixed-size buffer and numbers are parsed
+ * straight from its bytes, so memory use does not depend on the size
+ * of the file.  Recipes are added in batches with one snapshot per
+ * batch.  A bad line is reported in the ImportReport and skipped.
+ */
+public class RecipeImporter {
+	/** Default read buffer; also the longest line that can be read */
+	public static final int DEFAULT_BUFFER = 64 * 1024;
+	/** Default number of recipes added to the book at once */
+	public static final int DEFAULT_BATCH = 8192;
+	/** Default number of line errors kept in the report */
+	public static final int DEFAULT_MAX_ERRORS = 100;
+
+	private static final int[] DEFAULT_COLUMNS = {
+		IngredientRegistry.COFFEE, IngredientRegistry.MILK,
+		IngredientRegistry.SUGAR, IngredientRegistry.CHOCOLATE
+	};
+
+	private final int bufferSize;
+	private final int batchSize;
+	private final int maxErrors;
+
+	/**
+	 * Creates an importer with the default buffer, batch and
+	 * error limits.
+	 */
+	public RecipeImporter() {
+		this(DEFAULT_BUFFER, DEFAULT_BATCH, DEFAULT_MAX_ERRORS);
+	}
+
+	/**
+	 * Creates an importer that reads bufferSize bytes at a time,
+	 * adds batchSize recipes at a time and keeps the first
+	 * maxErrors line errors.
+	 * @param bufferSize
+	 * @param batchSize
+	 * @param maxErrors
+	 */
+	public RecipeImporter(int bufferSize, int batchSize, int maxErrors) {
+		if (bufferSize < 16 || batchSize < 1 || maxErrors < 0) {
+			throw new IllegalArgumentException("Buffer must be at least 16 bytes and batches at least 1 recipe");
+		}
+		this.bufferSize = bufferSize;
+		this.batchSize = batchSize;
+		this.maxErrors = maxErrors;
+	}
+
+	/**
+	 * Imports the recipes of the file into the recipe book.
+	 * @param file
+	 * @param recipeBook
+	 * @return ImportReport
+	 * @throws IOException if the file cannot be read
+	 */
+	public ImportReport importFile(Path file, RecipeBook recipeBook) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			return importFrom(channel, recipeBook);
+		}
+	}
+
+	/**
+	 * Imports the recipes read from the channel into the recipe
+	 * book.  The channel is not closed.
+	 * @param in
+	 * @param recipeBook
+	 * @return ImportReport
+	 * @throws IOException if the channel cannot be read
+	 */
+	public ImportReport importFrom(ReadableByteChannel in, RecipeBook recipeBook) throws IOException {
+		Parser parser = new Parser(recipeBook, new ImportReport(maxErrors), batchSize);
+		ByteBuffer buffer = ByteBuffer.allocate(bufferSize);
+		byte [] bytes = buffer.array();
+		long line = 1;
+		boolean skipping = false;
+		for (;;) {
+			boolean eof = in.read(buffer) < 0;
+			int limit = buffer.position();
+			int start = 0;
+			for (int i = 0; i < limit; i++) {
+				if (bytes[i] == '\n') {
+					if (!skipping) {
+						parser.line(line, bytes, start, i);
+					}
+					skipping = false;
+					line++;
+					start = i + 1;
+				}
+			}
+			if (eof) {
+				if (start < limit && !skipping) {
+					parser.line(line, bytes, start, limit);
+				}
+				break;
+			}
+			if (start == 0 && limit == bytes.length) {
+				if (!skipping) {
+					parser.report.line();
+					parser.report.reject(line, "Line is longer than " + bytes.length + " bytes");
+				}
+				skipping = true;
+				buffer.clear();
+			} else {
+				buffer.limit(limit).position(start);
+				buffer.compact();
+			}
+		}
+		parser.flush();
+		return parser.report;
+	}
+
+	/**
+	 * Per-import state: the column layout, reusable field offsets
+	 * and amounts, and the batch waiting to be added.
+	 */
+	private static final class Parser {
+		final RecipeBook recipeBook;
+		final ImportReport report;
+		final int batchSize;
+		final List<Recipe> batch;
+		final long [] batchLines;
+		int [] columns = DEFAULT_COLUMNS;
+		int [] amounts = new int[IngredientRegistry.BUILT_IN];
+		int [] fieldStart = new int[8];
+		int [] fieldEnd = new int[8];
+		boolean [] quoted = new boolean[8];
+		boolean first = true;
+
+		Parser(RecipeBook recipeBook, ImportReport report, int batchSize) {
+			this.recipeBook = recipeBook;
+			this.report = report;
+			this.batchSize = batchSize;
+			this.batch = new ArrayList<Recipe>(batchSize);
+			this.batchLines = new long[batchSize];
+		}
+
+		void line(long line, byte [] b, int from, int to) {
+			if (to > from && b[to - 1] == '\r') {
+				to--;
+			}
+			while (from < to && isSpace(b[from])) {
+				from++;
+			}
+			if (from == to || b[from] == '#') {
+				return;
+			}
+			int fields = split(b, from, to);
+			if (first) {
+				first = false;
+				if (fields > 0 && equalsIgnoreCase(b, fieldStart[0], fieldEnd[0], "name")) {
+					header(line, b, fields);
+					return;
+				}
+			}
+			report.line();
+			if (fields < 0) {
+				report.reject(line, "Unterminated quoted name");
+				return;
+			}
+			if (fields != columns.length + 2) {
+				report.reject(line, "Expected " + (columns.length + 2) + " fields but found " + fields);
+				return;
+			}
+			if (fieldEnd[0] == fieldStart[0]) {
+				report.reject(line, "Recipe name is empty");
+				return;
+			}
+			int price = Units.parse(b, fieldStart[1], fieldEnd[1]);
+			if (price < 0) {
+				report.reject(line, Status.describe(Status.of(Status.INVALID_PRICE, 0)));
+				return;
+			}
+			for (int i = 0; i < amounts.length; i++) {
+				amounts[i] = 0;
+			}
+			for (int c = 0; c < columns.length; c++) {
+				int units = Units.parse(b, fieldStart[c + 2], fieldEnd[c + 2]);
+				if (units < 0) {
+					report.reject(line, Status.describe(Status.of(Status.INVALID_AMOUNT, columns[c])));
+					return;
+				}
+				amounts[columns[c]] = units;
+			}
+			try {
+				batchLines[batch.size()] = line;
+				batch.add(new Recipe(name(b), price, amounts));
+			} catch (RecipeException e) {
+				report.reject(line, e.getMessage());
+				return;
+			}
+			if (batch.size() == batchSize) {
+				flush();
+			}
+		}
+
+		void header(long line, byte [] b, int fields) {
+			if (fields < 2 || !equalsIgnoreCase(b, fieldStart[1], fieldEnd[1], "price")) {
+				report.reject(line, "Header must start with name,price");
+				return;
+			}
+			int [] ids = new int[fields - 2];
+			int max = IngredientRegistry.BUILT_IN;
+			for (int c = 0; c < ids.length; c++) {
+				String ingredient = new String(b, fieldStart[c + 2], fieldEnd[c + 2] - fieldStart[c + 2], StandardCharsets.UTF_8);
+				if (ingredient.isEmpty()) {
+					report.reject(line, "Header has an empty ingredient name");
+					return;
+				}
+				ids[c] = IngredientRegistry.register(ingredient);
+				max = Math.max(max, ids[c] + 1);
+			}
+			columns = ids;
+			amounts = new int[max];
+		}
+
+		void flush() {
+			if (batch.isEmpty()) {
+				return;
+			}
+			boolean [] added = recipeBook.addRecipes(batch);
+			int count = 0;
+			for (int i = 0; i < added.length; i++) {
+				if (added[i]) {
+					count++;
+				} else {
+					report.reject(batchLines[i], "Recipe " + batch.get(i).getName() + " already exists");
+				}
+			}
+			report.imported(count);
+			batch.clear();
+		}
+
+		/**
+		 * Finds the fields of the line, trimmed of spaces, and
+		 * returns how many there are, or -1 if a quote is left open.
+		 */
+		int split(byte [] b, int from, int to) {
+			int fields = 0;
+			int i = from;
+			for (;;) {
+				if (fields == fieldStart.length) {
+					grow();
+				}
+				while (i < to && isSpace(b[i])) {
+					i++;
+				}
+				int start = i;
+				boolean inQuotes = i < to && b[i] == '"';
+				if (inQuotes) {
+					i++;
+					for (;;) {
+						if (i >= to) {
+							return -1;
+						}
+						if (b[i] == '"') {
+							if (i + 1 < to && b[i + 1] == '"') {
+								i += 2;
+								continue;
+							}
+							i++;
+							break;
+						}
+						i++;
+					}
+				}
+				while (i < to && b[i] != ',') {
+					i++;
+				}
+				int end = i;
+				while (end > start && isSpace(b[end - 1])) {
+					end--;
+				}
+				quoted[fields] = inQuotes && end - start >= 2 && b[end - 1] == '"';
+				fieldStart[fields] = quoted[fields] ? start + 1 : start;
+				fieldEnd[fields] = quoted[fields] ? end - 1 : end;
+				fields++;
+				if (i >= to) {
+					return fields;
+				}
+				i++;
+			}
+		}
+
+		String name(byte [] b) {
+			String name = new String(b, fieldStart[0], fieldEnd[0] - fieldStart[0], StandardCharsets.UTF_8);
+			return quoted[0] ? name.replace("\"\"", "\"") : name;
+		}
+
+		void grow() {
+			int length = fieldStart.length * 2;
+			fieldStart = Arrays.copyOf(fieldStart, length);
+			fieldEnd = Arrays.copyOf(fieldEnd, length);
+			quoted = Arrays.copyOf(quoted, length);
+		}
+
+		static boolean equalsIgnoreCase(byte [] b, int from, int to, String word) {
+			if (to - from != word.length()) {
+				return false;
+			}
+			for (int i = 0; i < word.length(); i++) {
+				if (Character.toLowerCase(b[from + i]) != word.charAt(i)) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		static boolean isSpace(byte c) {
+			return c == ' ' || c == '\t';
+		}
+	}
+}
@@ -0,0 +1,345 @@
+/*
+ * Copyright (c) 2009,  Sarah Heckman, Laurie Williams, Dright Ho
+ * All Rights Reserved.
+ *
+ * Permission has been explicitly granted to the University of Minnesota
+ * Software Engineering Center to use and distribute this source for
+ * educational purposes, including delivering online education through
+ * Coursera or other entities.
+ *
+ * No warranty is given regarding this software, including warranties as
+ * to the correctness or completeness of this software, including
+ * fitness for purpose.
+ */
+package edu.ncsu.csc326.coffeemaker.journal;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+import edu.ncsu.csc326.coffeemaker.CoffeeMaker;
+import edu.ncsu.csc326.coffeemaker.IngredientRegistry;
+import edu.ncsu.csc326.coffeemaker.Inventory;
+import edu.ncsu.csc326.coffeemaker.Recipe;
+import edu.ncsu.csc326.coffeemaker.RecipeBook;
+import edu.ncsu.csc326.coffeemaker.RecipeSnapshot;
+import edu.ncsu.csc326.coffeemaker.RecipeSource;
+import edu.ncsu.csc326.coffeemaker.exceptions.RecipeException;
+
+/**
+ * Binary checkpoint of a RecipeBook and Inventory.
+ *
+ * The file has a fixed layout so any recipe can be read in place:
+ * <pre>
+ * header      magic, version, crc32, ingredients, slots, free slots,
+ *             recipes, string pool offset (8 ints)
+ * ingredients per ingredient: name offset, name length, stock
+ * free slots  per free slot: slot
+ * recipes     per slot: name offset, name length (-1 if empty),
+ *             price, units of each ingredient
+ * string pool UTF-8 names
+ * </pre>
+ * The checksum covers everything after the header.  write replaces
+ * the file atomically, so a crash leaves either the old or the new
+ * checkpoint.  open maps the file and checks it, and a RecipeBook
+ * opened on it builds each Recipe only when its slot is first read,
+ * so startup time hardly depends on the size of the menu.
+ */
+public class Checkpoint implements RecipeSource {
+	static final int MAGIC = 0x434D4350;
+	static final int VERSION = 1;
+	static final int HEADER = 32;
+
+	private final ByteBuffer data;
+	private final int ingredients;
+	private final int slots;
+	private final int freeCount;
+	private final int recipes;
+	private final int freeTable;
+	private final int recipeTable;
+	private final int entrySize;
+	/** Registry id of each ingredient of the file */
+	private final int [] ids;
+
+	private Checkpoint(ByteBuffer data) throws IOException {
+		this.data = data;
+		int size = data.capacity();
+		if (size < HEADER || data.getInt(0) != MAGIC) {
+			throw new IOException("Not a checkpoint file");
+		}
+		if (data.getInt(4) != VERSION) {
+			throw new IOException("Unsupported checkpoint version " + data.getInt(4));
+		}
+		CRC32 crc = new CRC32();
+		ByteBuffer body = data.duplicate();
+		body.position(HEADER);
+		crc.update(body);
+		if ((int) crc.getValue() != data.getInt(8)) {
+			throw new IOException("Checkpoint is corrupt");
+		}
+		ingredients = data.getInt(12);
+		slots = data.getInt(16);
+		freeCount = data.getInt(20);
+		recipes = data.getInt(24);
+		int pool = data.getInt(28);
+		freeTable = HEADER + ingredients * 12;
+		recipeTable = freeTable + freeCount * 4;
+		entrySize = 12 + ingredients * 4;
+		if (ingredients < 0 || slots < 0 || freeCount < 0
+				|| (long) recipeTable + (long) slots * entrySize != pool || pool > size) {
+			throw new IOException("Checkpoint is corrupt");
+		}
+		ids = new int[ingredients];
+		for (int i = 0; i < ingredients; i++) {
+			ids[i] = IngredientRegistry.register(string(HEADER + i * 12));
+		}
+	}
+
+	/**
+	 * Maps and checks the checkpoint file.
+	 * @param file
+	 * @return Checkpoint
+	 * @throws IOException if the file cannot be read or is not a
+	 *         valid checkpoint
+	 */
+	public static Checkpoint open(Path file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			MappedByteBuffer data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			return new Checkpoint(data);
+		}
+	}
+
+	/**
+	 * Creates a coffee maker from the checkpoint file.
+	 * @param file
+	 * @return CoffeeMaker
+	 * @throws IOException
+	 */
+	public static CoffeeMaker load(Path file) throws IOException {
+		Checkpoint checkpoint = open(file);
+		Inventory inventory = new Inventory();
+		checkpoint.restore(inventory);
+		return new CoffeeMaker(checkpoint.newRecipeBook(), inventory);
+	}
+
+	/**
+	 * Writes a checkpoint of the coffee maker.
+	 * @param file
+	 * @param coffeeMaker
+	 * @throws IOException
+	 */
+	public static void write(Path file, CoffeeMaker coffeeMaker) throws IOException {
+		write(file, coffeeMaker.getRecipeBook(), coffeeMaker.getInventory());
+	}
+
+	/**
+	 * Writes a checkpoint of the recipe book and inventory to a
+	 * temporary file and renames it over the given file.
+	 * @param file
+	 * @param recipeBook
+	 * @param inventory
+	 * @throws IOException
+	 */
+	public static void write(Path file, RecipeBook recipeBook, Inventory inventory) throws IOException {
+		RecipeSnapshot book;
+		int [] free;
+		synchronized (recipeBook) {
+			book = recipeBook.snapshot();
+			free = recipeBook.getFreeSlots();
+		}
+		int [] stock = inventory.getStockLevels();
+		int ingredients = IngredientRegistry.size();
+
+		// Every slot below the high-water mark is either used or free
+		int slots = 0;
+		for (int slot : free) {
+			slots = Math.max(slots, slot + 1);
+		}
+		int recipeCount = 0;
+		for (int i = 0; i < book.length(); i++) {
+			if (book.get(i) != null) {
+				slots = Math.max(slots, i + 1);
+				recipeCount++;
+			}
+		}
+
+		byte [][] ingredientNames = new byte[ingredients][];
+		int poolSize = 0;
+		for (int i = 0; i < ingredients; i++) {
+			ingredientNames[i] = IngredientRegistry.nameOf(i).getBytes(StandardCharsets.UTF_8);
+			poolSize += ingredientNames[i].length;
+		}
+		byte [][] recipeNames = new byte[slots][];
+		for (int i = 0; i < slots; i++) {
+			Recipe r = book.get(i);
+			if (r != null) {
+				recipeNames[i] = r.getName().getBytes(StandardCharsets.UTF_8);
+				poolSize += recipeNames[i].length;
+			}
+		}
+
+		int freeTable = HEADER + ingredients * 12;
+		int recipeTable = freeTable + free.length * 4;
+		int pool = recipeTable + slots * (12 + ingredients * 4);
+		ByteBuffer out = ByteBuffer.allocate(pool + poolSize);
+		out.putInt(0, MAGIC);
+		out.putInt(4, VERSION);
+		out.putInt(12, ingredients);
+		out.putInt(16, slots);
+		out.putInt(20, free.length);
+		out.putInt(24, recipeCount);
+		out.putInt(28, pool);
+
+		int next = pool;
+		out.position(HEADER);
+		for (int i = 0; i < ingredients; i++) {
+			out.putInt(next).putInt(ingredientNames[i].length);
+			out.putInt(i < stock.length ? stock[i] : 0);
+			next = putString(out, next, ingredientNames[i]);
+		}
+		for (int slot : free) {
+			out.putInt(slot);
+		}
+		for (int i = 0; i < slots; i++) {
+			Recipe r = book.get(i);
+			if (r == null) {
+				out.putInt(0).putInt(-1).putInt(0);
+				out.position(out.position() + ingredients * 4);
+				continue;
+			}
+			out.putInt(next).putInt(recipeNames[i].length).putInt(r.getPrice());
+			for (int j = 0; j < ingredients; j++) {
+				out.putInt(r.getAmount(j));
+			}
+			next = putString(out, next, recipeNames[i]);
+		}
+
+		CRC32 crc = new CRC32();
+		crc.update(out.array(), HEADER, out.capacity() - HEADER);
+		out.putInt(8, (int) crc.getValue());
+		out.clear();
+
+		Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+		try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+				StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+			while (out.hasRemaining()) {
+				channel.write(out);
+			}
+			channel.force(true);
+		}
+		Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+		syncDirectory(file.toAbsolutePath().getParent());
+	}
+
+	/**
+	 * Creates a recipe book that builds its recipes from this
+	 * checkpoint as they are read.
+	 * @return RecipeBook
+	 */
+	public RecipeBook newRecipeBook() {
+		return new RecipeBook(this);
+	}
+
+	/**
+	 * Sets the stock of every ingredient in the checkpoint.
+	 * @param inventory
+	 */
+	public void restore(Inventory inventory) {
+		for (int i = 0; i < ingredients; i++) {
+			inventory.setStock(ids[i], data.getInt(HEADER + i * 12 + 8));
+		}
+	}
+
+	/**
+	 * Returns the number of recipes in the checkpoint.
+	 * @return int
+	 */
+	public int getRecipeCount() {
+		return recipes;
+	}
+
+	public int slots() {
+		return slots;
+	}
+
+	public String name(int slot) {
+		if (slot < 0 || slot >= slots) {
+			return null;
+		}
+		return string(recipeTable + slot * entrySize);
+	}
+
+	public Recipe load(int slot) {
+		String name = name(slot);
+		if (name == null) {
+			return null;
+		}
+		int entry = recipeTable + slot * entrySize;
+		try {
+			Recipe r = new Recipe();
+			r.setName(name);
+			r.setPrice(data.getInt(entry + 8));
+			for (int i = 0; i < ingredients; i++) {
+				int units = data.getInt(entry + 12 + i * 4);
+				if (units != 0) {
+					r.setAmount(ids[i], units);
+				}
+			}
+			return r;
+		} catch (RecipeException e) {
+			throw new IllegalStateException("Checkpoint recipe in slot " + slot + " is invalid", e);
+		}
+	}
+
+	public int [] freeSlots() {
+		int [] free = new int[freeCount];
+		for (int i = 0; i < freeCount; i++) {
+			free[i] = data.getInt(freeTable + i * 4);
+		}
+		return free;
+	}
+
+	/**
+	 * Reads the string whose offset and length are stored at the
+	 * given position, or null if the length is negative.
+	 */
+	private String string(int position) {
+		int offset = data.getInt(position);
+		int length = data.getInt(position + 4);
+		if (length < 0) {
+			return null;
+		}
+		byte [] bytes = new byte[length];
+		ByteBuffer view = data.duplicate();
+		view.position(offset);
+		view.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	private static int putString(ByteBuffer out, int offset, byte [] bytes) {
+		ByteBuffer view = out.duplicate();
+		view.position(offset);
+		view.put(bytes);
+		return offset + bytes.length;
+	}
+
+	/**
+	 * Forces the directory so the rename survives a crash.  Not
+	 * every platform can open a directory; there the rename is as
+	 * durable as the file system makes it.
+	 */
+	private static void syncDirectory(Path dir) {
+		try (FileChannel channel = FileChannel.open(dir, StandardOpenOption.READ)) {
+			channel.force(true);
+		} catch (IOException e) {
+			// Directory sync is not supported here
+		}
+	}
+}
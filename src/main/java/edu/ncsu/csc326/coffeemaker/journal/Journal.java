@@ -0,0 +1,511 @@
+/*
+ * Copyright (c) 2009,  Sarah Heckman, Laurie Williams, Dright Ho
+ * All Rights Reserved.
+ *
+ * Permission has been explicitly granted to the University of Minnesota
+ * Software Engineering Center to use and distribute this source for
+ * educational purposes, including delivering online education through
+ * Coursera or other entities.
+ *
+ * No warranty is given regarding this software, including warranties as
+ * to the correctness or completeness of this software, including
+ * fitness for purpose.
+ */
+package edu.ncsu.csc326.coffeemaker.journal;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.CRC32;
+
+import edu.ncsu.csc326.coffeemaker.IngredientRegistry;
+import edu.ncsu.csc326.coffeemaker.Recipe;
+
+/**
+ * Append-only write-ahead log of coffee maker mutations.
+ *
+ * Each record is framed as [int length][int crc32][body], where the
+ * body starts with a type byte.  Ingredient amounts are written as
+ * (short id, int units) pairs for the non-zero entries only.  Ids are
+ * only meaningful within one file: the first time an id is used, a
+ * DEFINE record maps it to the ingredient name, so a file replays
+ * correctly even if ingredients are registered in a different order
+ * after a restart.
+ *
+ * Appends go to an in-memory buffer under a short lock and return a
+ * sequence number.  sync(seq) makes everything up to that sequence
+ * durable with group commit: the first waiting thread swaps out the
+ * buffer, writes it and forces the channel once, while every thread
+ * that appended in the meantime waits for that same force.
+ *
+ * Purchases are not framed one by one.  useStock only adds to a
+ * striped counter per ingredient, and each write drains what was
+ * used since the previous write into a single USE_STOCK record.
+ * Replay sums stock records anyway, so this loses nothing, and it
+ * keeps the purchase path free of the lock and the checksum.
+ */
+public class Journal implements Closeable {
+	static final byte DEFINE = 1;
+	static final byte ADD_STOCK = 2;
+	static final byte USE_STOCK = 3;
+	static final byte ADD_RECIPE = 4;
+	static final byte EDIT_RECIPE = 5;
+	static final byte DELETE_RECIPE = 6;
+
+	/** Bytes of framing before each record body */
+	static final int HEADER = 8;
+	/** Largest body a record may have; longer lengths mean corruption */
+	static final int MAX_BODY = 1 << 20;
+
+	private static final int INITIAL_BUFFER = 64 * 1024;
+
+	private final FileChannel channel;
+	private final Object lock = new Object();
+	private final CRC32 crc = new CRC32();
+	/** Records appended since the last write; guarded by lock */
+	private ByteBuffer pending;
+	/** Buffer handed back by the last writer, reused for the next swap */
+	private ByteBuffer spare;
+	/** Ingredient ids that already have a DEFINE record in this file */
+	private boolean [] defined = new boolean[IngredientRegistry.BUILT_IN];
+	/** Units used by purchases, one counter per ingredient; only grows */
+	private volatile LongAdder [] used = counters(new LongAdder[0], IngredientRegistry.BUILT_IN);
+	/** Units of each ingredient already written to USE_STOCK records */
+	private long [] usedWritten = new long[0];
+	private long appended;
+	private long durable;
+	/** Writes started and finished; each drains the used counters */
+	private long writesStarted;
+	private long writesDone;
+	private boolean flushing;
+	private boolean closed;
+	private IOException failure;
+	private long syncs;
+	private final ScheduledExecutorService flusher;
+
+	/**
+	 * Opens the journal for appending at the end of the file,
+	 * creating it if needed.  Records are only made durable by
+	 * sync or flush.
+	 * @param file
+	 * @throws IOException
+	 */
+	public Journal(Path file) throws IOException {
+		this(file, 0);
+	}
+
+	/**
+	 * Opens the journal for appending at the end of the file and,
+	 * if flushMillis is positive, flushes it in the background at
+	 * that interval.
+	 * @param file
+	 * @param flushMillis
+	 * @throws IOException
+	 */
+	public Journal(Path file, long flushMillis) throws IOException {
+		channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+		channel.position(channel.size());
+		pending = ByteBuffer.allocate(INITIAL_BUFFER);
+		spare = ByteBuffer.allocate(INITIAL_BUFFER);
+		if (flushMillis > 0) {
+			flusher = Executors.newSingleThreadScheduledExecutor(task -> {
+				Thread t = new Thread(task, "journal-flusher");
+				t.setDaemon(true);
+				return t;
+			});
+			flusher.scheduleWithFixedDelay(this::backgroundFlush, flushMillis, flushMillis, TimeUnit.MILLISECONDS);
+		} else {
+			flusher = null;
+		}
+	}
+
+	/**
+	 * Appends a restock of the given units by IngredientRegistry id.
+	 * @param units
+	 * @return long sequence of the record
+	 */
+	public long addStock(int [] units) {
+		return append(ADD_STOCK, null, 0, units);
+	}
+
+	/**
+	 * Counts the ingredients taken for a beverage made from the
+	 * recipe.  They reach the file with the next write; flush waits
+	 * for it.
+	 * @param r
+	 */
+	public void useStock(Recipe r) {
+		int size = IngredientRegistry.size();
+		LongAdder [] counters = used;
+		if (counters.length < size) {
+			counters = growUsed(size);
+		}
+		for (int i = 0; i < size; i++) {
+			int units = r.getAmount(i);
+			if (units != 0) {
+				counters[i].add(units);
+			}
+		}
+	}
+
+	/**
+	 * Appends a recipe added to the recipe book.
+	 * @param r
+	 * @return long sequence of the record
+	 */
+	public long addRecipe(Recipe r) {
+		return append(ADD_RECIPE, r.getName(), r.getPrice(), r.getRequirements());
+	}
+
+	/**
+	 * Appends an edit of the recipe with the given name.
+	 * @param name
+	 * @param r
+	 * @return long sequence of the record
+	 */
+	public long editRecipe(String name, Recipe r) {
+		return append(EDIT_RECIPE, name, r.getPrice(), r.getRequirements());
+	}
+
+	/**
+	 * Appends the deletion of the recipe with the given name.
+	 * @param name
+	 * @return long sequence of the record
+	 */
+	public long deleteRecipe(String name) {
+		return append(DELETE_RECIPE, name, 0, null);
+	}
+
+	/**
+	 * Returns the sequence of the last appended record.
+	 * @return long
+	 */
+	public long getAppended() {
+		synchronized (lock) {
+			return appended;
+		}
+	}
+
+	/**
+	 * Returns the sequence of the last record known to be on disk.
+	 * @return long
+	 */
+	public long getDurable() {
+		synchronized (lock) {
+			return durable;
+		}
+	}
+
+	/**
+	 * Returns the number of times the file was forced to disk.
+	 * With group commit this is usually far below the number of
+	 * synced records.
+	 * @return long
+	 */
+	public long getSyncs() {
+		synchronized (lock) {
+			return syncs;
+		}
+	}
+
+	/**
+	 * Blocks until every record up to the given sequence is on
+	 * disk.  Threads that arrive while another thread is writing
+	 * wait for it and then share the next write.
+	 * @param seq
+	 * @throws IOException if writing failed, now or earlier
+	 */
+	public void sync(long seq) throws IOException {
+		await(seq, 0);
+	}
+
+	/**
+	 * Makes every record appended and every purchase counted so
+	 * far durable.
+	 * @throws IOException
+	 */
+	public void flush() throws IOException {
+		long seq;
+		long write;
+		synchronized (lock) {
+			seq = appended;
+			// A write already in progress may have drained the used
+			// counters before the caller's purchases; wait for the next.
+			write = writesStarted + 1;
+		}
+		await(seq, write);
+	}
+
+	/**
+	 * Waits until the record sequence and the write count both
+	 * reach their targets, doing the write itself if no other
+	 * thread is.
+	 */
+	private void await(long seq, long write) throws IOException {
+		ByteBuffer batch;
+		long upTo;
+		long number;
+		synchronized (lock) {
+			for (;;) {
+				if (failure != null) {
+					throw new IOException("Journal write failed", failure);
+				}
+				if (durable >= seq && writesDone >= write) {
+					return;
+				}
+				if (!flushing) {
+					break;
+				}
+				try {
+					lock.wait();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new InterruptedIOException("Interrupted waiting for journal sync");
+				}
+			}
+			flushing = true;
+			drainUsed();
+			batch = pending;
+			pending = spare;
+			spare = null;
+			upTo = appended;
+			number = ++writesStarted;
+		}
+		IOException error = null;
+		try {
+			batch.flip();
+			if (batch.hasRemaining()) {
+				while (batch.hasRemaining()) {
+					channel.write(batch);
+				}
+				channel.force(false);
+			}
+		} catch (IOException e) {
+			error = e;
+		}
+		synchronized (lock) {
+			if (batch.limit() > 0 && error == null) {
+				syncs++;
+			}
+			batch.clear();
+			spare = batch;
+			flushing = false;
+			if (error == null) {
+				durable = upTo;
+				writesDone = number;
+			} else {
+				failure = error;
+			}
+			lock.notifyAll();
+		}
+		if (error != null) {
+			throw error;
+		}
+	}
+
+	/**
+	 * Flushes the remaining records and closes the file.  Appends
+	 * after close throw IllegalStateException.
+	 * @throws IOException
+	 */
+	public void close() throws IOException {
+		synchronized (lock) {
+			if (closed) {
+				return;
+			}
+			closed = true;
+		}
+		if (flusher != null) {
+			// Not shutdownNow: interrupting a thread inside a FileChannel
+			// write closes the channel.
+			flusher.shutdown();
+			try {
+				flusher.awaitTermination(1, TimeUnit.SECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		try {
+			flush();
+		} finally {
+			channel.close();
+		}
+	}
+
+	private void backgroundFlush() {
+		try {
+			flush();
+		} catch (IOException e) {
+			// Kept in failure; the next append or sync reports it
+		}
+	}
+
+	private long append(byte type, String name, int price, int [] units) {
+		byte [] nameBytes = name == null ? null : name.getBytes(StandardCharsets.UTF_8);
+		int pairs = 0;
+		if (units != null) {
+			for (int u : units) {
+				if (u != 0) {
+					pairs++;
+				}
+			}
+		}
+		synchronized (lock) {
+			if (closed) {
+				throw new IllegalStateException("Journal is closed");
+			}
+			if (failure != null) {
+				throw new UncheckedIOException("Journal write failed", failure);
+			}
+			return write(type, nameBytes, price, units, pairs);
+		}
+	}
+
+	/**
+	 * Frames one record into the pending buffer.  Caller holds the
+	 * lock.
+	 */
+	private long write(byte type, byte [] nameBytes, int price, int [] units, int pairs) {
+		if (units != null) {
+			define(units);
+		}
+		int body = 1;
+		if (nameBytes != null) {
+			body += 2 + nameBytes.length;
+		}
+		if (type == ADD_RECIPE || type == EDIT_RECIPE) {
+			body += 4;
+		}
+		if (units != null) {
+			body += 2 + pairs * 6;
+		}
+		int start = begin(body);
+		pending.put(type);
+		if (nameBytes != null) {
+			pending.putShort((short) nameBytes.length).put(nameBytes);
+		}
+		if (type == ADD_RECIPE || type == EDIT_RECIPE) {
+			pending.putInt(price);
+		}
+		if (units != null) {
+			pending.putShort((short) pairs);
+			for (int i = 0; i < units.length; i++) {
+				if (units[i] != 0) {
+					pending.putShort((short) i).putInt(units[i]);
+				}
+			}
+		}
+		return end(start);
+	}
+
+	/**
+	 * Writes the units used since the last drain as one USE_STOCK
+	 * record.  A purchase counted while this runs is either in this
+	 * record or the next.  Caller holds the lock.
+	 */
+	private void drainUsed() {
+		LongAdder [] counters = used;
+		if (counters.length > usedWritten.length) {
+			usedWritten = Arrays.copyOf(usedWritten, counters.length);
+		}
+		int [] units = null;
+		int pairs = 0;
+		for (int i = 0; i < counters.length; i++) {
+			long delta = counters[i].sum() - usedWritten[i];
+			if (delta != 0) {
+				if (units == null) {
+					units = new int[counters.length];
+				}
+				units[i] = (int) Math.min(delta, Integer.MAX_VALUE);
+				usedWritten[i] += units[i];
+				pairs++;
+			}
+		}
+		if (units != null) {
+			write(USE_STOCK, null, 0, units, pairs);
+		}
+	}
+
+	/**
+	 * Returns the used counters with room for size ingredients,
+	 * growing them under the lock.  Existing counters are carried
+	 * over, so nothing counted is lost.
+	 */
+	private LongAdder [] growUsed(int size) {
+		synchronized (lock) {
+			if (used.length < size) {
+				used = counters(used, size);
+			}
+			return used;
+		}
+	}
+
+	private static LongAdder [] counters(LongAdder [] current, int size) {
+		LongAdder [] grown = Arrays.copyOf(current, size);
+		for (int i = current.length; i < size; i++) {
+			grown[i] = new LongAdder();
+		}
+		return grown;
+	}
+
+	/**
+	 * Writes a DEFINE record for every ingredient of the vector that
+	 * this file has not named yet.  Caller holds the lock.
+	 */
+	private void define(int [] units) {
+		for (int i = 0; i < units.length; i++) {
+			if (units[i] == 0 || (i < defined.length && defined[i])) {
+				continue;
+			}
+			if (i >= defined.length) {
+				defined = Arrays.copyOf(defined, Math.max(i + 1, defined.length * 2));
+			}
+			byte [] nameBytes = IngredientRegistry.nameOf(i).getBytes(StandardCharsets.UTF_8);
+			int start = begin(1 + 2 + 2 + nameBytes.length);
+			pending.put(DEFINE).putShort((short) i);
+			pending.putShort((short) nameBytes.length).put(nameBytes);
+			end(start);
+			defined[i] = true;
+		}
+	}
+
+	/**
+	 * Makes room for a record and skips its header.  Caller holds
+	 * the lock.
+	 */
+	private int begin(int body) {
+		if (pending.remaining() < HEADER + body) {
+			ByteBuffer grown = ByteBuffer.allocate(Math.max(pending.capacity() * 2, pending.position() + HEADER + body));
+			pending.flip();
+			grown.put(pending);
+			pending = grown;
+		}
+		int start = pending.position();
+		pending.position(start + HEADER);
+		return start;
+	}
+
+	/**
+	 * Fills in the header of the record started at the given
+	 * position and returns its sequence.  Caller holds the lock.
+	 */
+	private long end(int start) {
+		int length = pending.position() - start - HEADER;
+		crc.reset();
+		crc.update(pending.array(), pending.arrayOffset() + start + HEADER, length);
+		pending.putInt(start, length);
+		pending.putInt(start + 4, (int) crc.getValue());
+		return ++appended;
+	}
+}
@@ -0,0 +1,239 @@
+/*
+ * Copyright (c) 2009,  Sarah Heckman, Laurie Williams, Dright Ho
+ * All Rights Reserved.
+ *
+ * Permission has been explicitly granted to the University of Minnesota
+ * Software Engineering Center to use and distribute this source for
+ * educational purposes, including delivering online education through
+ * Coursera or other entities.
+ *
+ * No warranty is given regarding this software, including warranties as
+ * to the correctness or completeness of this software, including
+ * fitness for purpose.
+ */
+package edu.ncsu.csc326.coffeemaker.journal;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+
+import edu.ncsu.csc326.coffeemaker.IngredientRegistry;
+import edu.ncsu.csc326.coffeemaker.Inventory;
+import edu.ncsu.csc326.coffeemaker.Recipe;
+import edu.ncsu.csc326.coffeemaker.RecipeBook;
+import edu.ncsu.csc326.coffeemaker.exceptions.RecipeException;
+
+/**
+ * Replays a Journal into a recipe book and inventory.
+ *
+ * Records are read in order until the end of the file or the first
+ * record that is cut short or fails its checksum, which is what a
+ * crash in the middle of a write leaves behind.  The file is then
+ * truncated after the last good record so new appends follow valid
+ * data.
+ *
+ * Recipe records are applied in order.  Stock records are summed and
+ * added to the inventory at the end: the journal may hold a purchase
+ * ahead of the restock that made it possible, but the total is the
+ * same in any order.
+ */
+public class JournalReader {
+	private final RecipeBook recipeBook;
+	private final Inventory inventory;
+	/** Registry id for each ingredient id of the file, -1 if undefined */
+	private int [] ids = new int[0];
+	private long [] stock = new long[0];
+	private long records;
+
+	private JournalReader(RecipeBook recipeBook, Inventory inventory) {
+		this.recipeBook = recipeBook;
+		this.inventory = inventory;
+	}
+
+	/**
+	 * Applies every valid record of the journal to the recipe book
+	 * and inventory, which should be in the state the journal
+	 * started from, and truncates a torn tail.  A missing file
+	 * replays as empty.  Returns the number of records applied.
+	 * @param file
+	 * @param recipeBook
+	 * @param inventory
+	 * @return long
+	 * @throws IOException
+	 */
+	public static long replay(Path file, RecipeBook recipeBook, Inventory inventory) throws IOException {
+		if (!Files.exists(file)) {
+			return 0;
+		}
+		JournalReader reader = new JournalReader(recipeBook, inventory);
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+			long valid = reader.read(channel);
+			if (valid < channel.size()) {
+				channel.truncate(valid);
+				channel.force(true);
+			}
+		}
+		reader.applyStock();
+		return reader.records;
+	}
+
+	/**
+	 * Applies records until the first bad one and returns the file
+	 * offset just past the last good record.
+	 */
+	private long read(FileChannel channel) throws IOException {
+		ByteBuffer header = ByteBuffer.allocate(Journal.HEADER);
+		ByteBuffer body = ByteBuffer.allocate(256);
+		CRC32 crc = new CRC32();
+		long offset = 0;
+		long size = channel.size();
+		while (offset + Journal.HEADER <= size) {
+			header.clear();
+			readFully(channel, header, offset);
+			int length = header.getInt(0);
+			int checksum = header.getInt(4);
+			if (length <= 0 || length > Journal.MAX_BODY || offset + Journal.HEADER + length > size) {
+				break;
+			}
+			if (body.capacity() < length) {
+				body = ByteBuffer.allocate(Math.max(length, body.capacity() * 2));
+			}
+			body.clear().limit(length);
+			readFully(channel, body, offset + Journal.HEADER);
+			crc.reset();
+			crc.update(body.array(), 0, length);
+			if ((int) crc.getValue() != checksum) {
+				break;
+			}
+			body.flip();
+			if (!apply(body)) {
+				break;
+			}
+			records++;
+			offset += Journal.HEADER + length;
+		}
+		return offset;
+	}
+
+	/**
+	 * Applies one record body; returns false if the body cannot be
+	 * decoded even though its checksum matched.
+	 */
+	private boolean apply(ByteBuffer body) {
+		try {
+			byte type = body.get();
+			switch (type) {
+			case Journal.DEFINE:
+				define(body.getShort() & 0xFFFF, readString(body));
+				return true;
+			case Journal.ADD_STOCK:
+				addStock(readAmounts(body), 1);
+				return true;
+			case Journal.USE_STOCK:
+				addStock(readAmounts(body), -1);
+				return true;
+			case Journal.ADD_RECIPE:
+				recipeBook.addRecipe(readRecipe(readString(body), body));
+				return true;
+			case Journal.EDIT_RECIPE: {
+				String name = readString(body);
+				Recipe r = readRecipe(name, body);
+				int slot = recipeBook.indexOf(name);
+				if (slot >= 0) {
+					recipeBook.editRecipe(slot, r);
+				}
+				return true;
+			}
+			case Journal.DELETE_RECIPE: {
+				int slot = recipeBook.indexOf(readString(body));
+				if (slot >= 0) {
+					recipeBook.deleteRecipe(slot);
+				}
+				return true;
+			}
+			default:
+				return false;
+			}
+		} catch (RuntimeException | RecipeException e) {
+			return false;
+		}
+	}
+
+	private void define(int fileId, String name) {
+		if (fileId >= ids.length) {
+			int old = ids.length;
+			ids = Arrays.copyOf(ids, fileId + 1);
+			Arrays.fill(ids, old, ids.length, -1);
+		}
+		ids[fileId] = IngredientRegistry.register(name);
+	}
+
+	/**
+	 * Reads (id, units) pairs and maps the ids to the registry.
+	 * Returns a flat array of registry id, units pairs.
+	 */
+	private int [] readAmounts(ByteBuffer body) {
+		int pairs = body.getShort() & 0xFFFF;
+		int [] amounts = new int[pairs * 2];
+		for (int i = 0; i < pairs; i++) {
+			int fileId = body.getShort() & 0xFFFF;
+			if (fileId >= ids.length || ids[fileId] < 0) {
+				throw new IllegalStateException("Ingredient " + fileId + " used before it was defined");
+			}
+			amounts[2 * i] = ids[fileId];
+			amounts[2 * i + 1] = body.getInt();
+		}
+		return amounts;
+	}
+
+	private Recipe readRecipe(String name, ByteBuffer body) throws RecipeException {
+		Recipe r = new Recipe();
+		r.setName(name);
+		r.setPrice(body.getInt());
+		int [] amounts = readAmounts(body);
+		for (int i = 0; i < amounts.length; i += 2) {
+			r.setAmount(amounts[i], amounts[i + 1]);
+		}
+		return r;
+	}
+
+	private void addStock(int [] amounts, int sign) {
+		for (int i = 0; i < amounts.length; i += 2) {
+			int id = amounts[i];
+			if (id >= stock.length) {
+				stock = Arrays.copyOf(stock, Math.max(id + 1, stock.length * 2));
+			}
+			stock[id] += sign * (long) amounts[i + 1];
+		}
+	}
+
+	private void applyStock() {
+		for (int id = 0; id < stock.length; id++) {
+			if (stock[id] != 0) {
+				long units = inventory.getStock(id) + stock[id];
+				inventory.setStock(id, (int) Math.max(0, Math.min(Integer.MAX_VALUE, units)));
+			}
+		}
+	}
+
+	private static String readString(ByteBuffer body) {
+		int length = body.getShort() & 0xFFFF;
+		byte [] bytes = new byte[length];
+		body.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+		while (buffer.hasRemaining()) {
+			if (channel.read(buffer, position + buffer.position()) < 0) {
+				throw new IOException("Unexpected end of journal");
+			}
+		}
+	}
+}
@@ -0,0 +1,226 @@
+/*
+ * Copyright (c) 2009,  Sarah Heckman, Laurie Williams, Dright Ho
+ * All Rights Reserved.
+ *
+ * Permission has been explicitly granted to the University of Minnesota
+ * Software Engineering Center to use and distribute this source for
+ * educational purposes, including delivering online education through
+ * Coursera or other entities.
+ *
+ * No warranty is given regarding this software, including warranties as
+ * to the correctness or completeness of this software, including
+ * fitness for purpose.
+ */
+package edu.ncsu.csc326.coffeemaker.journal;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+
+import edu.ncsu.csc326.coffeemaker.CoffeeMaker;
+import edu.ncsu.csc326.coffeemaker.IngredientRegistry;
+import edu.ncsu.csc326.coffeemaker.Inventory;
+import edu.ncsu.csc326.coffeemaker.Recipe;
+import edu.ncsu.csc326.coffeemaker.RecipeBook;
+import edu.ncsu.csc326.coffeemaker.RecipeSnapshot;
+import edu.ncsu.csc326.coffeemaker.Receipt;
+import edu.ncsu.csc326.coffeemaker.Reservation;
+import edu.ncsu.csc326.coffeemaker.Units;
+import edu.ncsu.csc326.coffeemaker.exceptions.InventoryException;
+
+/**
+ * CoffeeMaker that records every recipe change, restock and
+ * purchase in a Journal.
+ *
+ * Recipe changes and restocks return only once they are on disk.
+ * Purchases are counted by the journal without taking its lock and
+ * either wait for the group commit they share with other purchases,
+ * or, with a positive flush interval, return straight away and
+ * reach disk within that interval.  Recipe records are
+ * appended while holding the recipe book's monitor, so the journal
+ * sees recipe changes in the order the book applied them.
+ * A reservation is journaled as a purchase once it is committed;
+ * one still pending at a crash is lost along with its lease.
+ */
+public class JournaledCoffeeMaker extends CoffeeMaker implements Closeable {
+	private final Journal journal;
+	private final boolean syncPurchases;
+
+	/**
+	 * Creates a coffee maker that journals to the given journal.
+	 * If syncPurchases is true, makeCoffee waits until its purchase
+	 * is on disk.
+	 * @param recipeBook
+	 * @param inventory
+	 * @param journal
+	 * @param syncPurchases
+	 */
+	public JournaledCoffeeMaker(RecipeBook recipeBook, Inventory inventory, Journal journal, boolean syncPurchases) {
+		super(recipeBook, inventory);
+		this.journal = journal;
+		this.syncPurchases = syncPurchases;
+	}
+
+	/**
+	 * Recovers a coffee maker from the journal file, creating the
+	 * file if it does not exist.  The recipe book and inventory must
+	 * be in the state the journal started from, normally new ones.
+	 * With a flushMillis of 0 every purchase waits for its group
+	 * commit; otherwise purchases are flushed every flushMillis.
+	 * @param file
+	 * @param recipeBook
+	 * @param inventory
+	 * @param flushMillis
+	 * @return JournaledCoffeeMaker
+	 * @throws IOException
+	 */
+	public static JournaledCoffeeMaker open(Path file, RecipeBook recipeBook, Inventory inventory, long flushMillis) throws IOException {
+		JournalReader.replay(file, recipeBook, inventory);
+		return new JournaledCoffeeMaker(recipeBook, inventory, new Journal(file, flushMillis), flushMillis <= 0);
+	}
+
+	/**
+	 * Returns the journal of this coffee maker.
+	 * @return Journal
+	 */
+	public Journal getJournal() {
+		return journal;
+	}
+
+	public boolean addRecipe(Recipe r) {
+		long seq;
+		synchronized (getRecipeBook()) {
+			if (!super.addRecipe(r)) {
+				return false;
+			}
+			seq = journal.addRecipe(r);
+		}
+		commit(seq);
+		return true;
+	}
+
+	public String deleteRecipe(int recipeToDelete) {
+		String name;
+		long seq;
+		synchronized (getRecipeBook()) {
+			name = super.deleteRecipe(recipeToDelete);
+			if (name == null) {
+				return null;
+			}
+			seq = journal.deleteRecipe(name);
+		}
+		commit(seq);
+		return name;
+	}
+
+	public String editRecipe(int recipeToEdit, Recipe r) {
+		String name;
+		long seq;
+		synchronized (getRecipeBook()) {
+			name = super.editRecipe(recipeToEdit, r);
+			if (name == null) {
+				return null;
+			}
+			seq = journal.editRecipe(name, r);
+		}
+		commit(seq);
+		return name;
+	}
+
+	/**
+	 * Adds inventory like CoffeeMaker.addInventory and journals the
+	 * ingredients that were added, even if a later one was rejected.
+	 */
+	public synchronized void addInventory(String amtCoffee, String amtMilk, String amtSugar, String amtChocolate) throws InventoryException {
+		String [] amounts = {amtCoffee, amtMilk, amtSugar, amtChocolate};
+		int [] added = new int[IngredientRegistry.BUILT_IN];
+		try {
+			for (int i = 0; i < amounts.length; i++) {
+				getInventory().addStock(i, amounts[i]);
+				added[i] = Units.parse(amounts[i]);
+			}
+		} finally {
+			commit(journal.addStock(added));
+		}
+	}
+
+	/**
+	 * Adds all four amounts like CoffeeMaker.addInventory and
+	 * journals them once they have been applied.
+	 */
+	public void addInventory(int amtCoffee, int amtMilk, int amtSugar, int amtChocolate) throws InventoryException {
+		super.addInventory(amtCoffee, amtMilk, amtSugar, amtChocolate);
+		commit(journal.addStock(new int[] {amtCoffee, amtMilk, amtSugar, amtChocolate}));
+	}
+
+	public long purchase(int recipeToPurchase, int amtPaid) {
+		long receipt = super.purchase(recipeToPurchase, amtPaid);
+		if (syncPurchases && Receipt.isSold(receipt)) {
+			flush();
+		}
+		return receipt;
+	}
+
+	public int makeCoffeeBatch(int[] recipeToPurchase, int[] amtPaid, int[] change) {
+		int made = super.makeCoffeeBatch(recipeToPurchase, amtPaid, change);
+		// One sync for the whole batch, outside the inventory monitor
+		if (syncPurchases && made > 0) {
+			flush();
+		}
+		return made;
+	}
+
+	/**
+	 * Completes the purchase like CoffeeMaker.completePurchase and
+	 * journals the reserved ingredients if it was committed.
+	 */
+	public int completePurchase(Reservation reservation, int amtPaid) {
+		Recipe recipe = reservation.getRecipe();
+		int price = recipe.getPrice();
+		if (price > amtPaid) {
+			reservation.release();
+			return amtPaid;
+		}
+		if (!reservation.commit()) {
+			return amtPaid;
+		}
+		journal.useStock(recipe);
+		if (syncPurchases) {
+			flush();
+		}
+		return amtPaid - price;
+	}
+
+	protected boolean takeIngredients(RecipeSnapshot recipes, Recipe recipe) {
+		if (!super.takeIngredients(recipes, recipe)) {
+			return false;
+		}
+		journal.useStock(recipe);
+		return true;
+	}
+
+	/**
+	 * Flushes and closes the journal.
+	 * @throws IOException
+	 */
+	public void close() throws IOException {
+		journal.close();
+	}
+
+	private void flush() {
+		try {
+			journal.flush();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private void commit(long seq) {
+		try {
+			journal.sync(seq);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+}
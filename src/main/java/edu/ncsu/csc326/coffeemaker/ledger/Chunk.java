@@ -0,0 +1,275 @@
+/*
+ * Copyright (c) 2009,  Sarah Heckman, Laurie Williams, Dright Ho
+ * All Rights Reserved.
+ *
+ * Permission has been explicitly granted to the University of Minnesota
+ * Software Engineering Center to use and distribute this source for
+ * educational purposes, including delivering online education through
+ * Coursera or other entities.
+ *
+ * No warranty is given regarding this software, including warranties as
+ * to the correctness or completeness of this software, including
+ * fitness for purpose.
+ */
+package edu.ncsu.csc326.coffeemaker.ledger;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Fixed-size block of ledger rows stored column by column.
+ *
+ * Timestamps are stored as int milliseconds from the chunk's first
+ * row, so a row takes 16 bytes.  Every chunk knows the range of its
+ * timestamps, and a scan skips a chunk outside the requested range
+ * and checks no timestamps in one wholly inside it.  Each kind of
+ * chunk runs its scan loops over its own storage, so the per-row
+ * work is a few array or buffer reads.
+ */
+abstract class Chunk {
+	/** Marks a spilled chunk file */
+	static final int MAGIC = 0x4C454447;
+	/** Bytes before the columns of a spilled chunk */
+	static final int HEADER = 4 + 4 + 4 + 8 + 8 + 8;
+
+	final int rows;
+	final long base;
+	final long minTime;
+	final long maxTime;
+	final int maxRecipe;
+
+	Chunk(int rows, long base, long minTime, long maxTime, int maxRecipe) {
+		this.rows = rows;
+		this.base = base;
+		this.minTime = minTime;
+		this.maxTime = maxTime;
+		this.maxRecipe = maxRecipe;
+	}
+
+	/**
+	 * Adds the orders and revenue of the rows in [from, to) to the
+	 * totals, which hold the orders of slot r at 2r and the revenue
+	 * at 2r + 1.
+	 */
+	abstract void summarize(long from, long to, long [] totals);
+
+	/**
+	 * Adds the revenue of the rows in [from, to) to buckets of the
+	 * given width starting at from.
+	 */
+	abstract void revenueByBucket(long from, long to, long width, long [] buckets);
+
+	/**
+	 * Returns true if no row can be in [from, to).
+	 */
+	final boolean outside(long from, long to) {
+		return rows == 0 || maxTime < from || minTime >= to;
+	}
+
+	/**
+	 * Returns true if every row is in [from, to).
+	 */
+	final boolean inside(long from, long to) {
+		return minTime >= from && maxTime < to;
+	}
+
+	/**
+	 * Returns the lowest stored offset in [from, to), without
+	 * overflowing for unbounded ranges.
+	 */
+	final long low(long from) {
+		return from <= minTime ? Integer.MIN_VALUE : from - base;
+	}
+
+	/**
+	 * Returns the stored offset just past the range [from, to),
+	 * without overflowing for unbounded ranges.
+	 */
+	final long high(long to) {
+		return to > maxTime ? Integer.MAX_VALUE + 1L : to - base;
+	}
+
+	/**
+	 * Writes the chunk to a file.
+	 * @param file
+	 * @throws IOException
+	 */
+	abstract void write(Path file) throws IOException;
+
+	/**
+	 * Maps a chunk written by write.
+	 * @param file
+	 * @return Chunk
+	 * @throws IOException if the file cannot be read or is not a chunk
+	 */
+	static Chunk map(Path file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			MappedByteBuffer data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			data.order(ByteOrder.LITTLE_ENDIAN);
+			if (data.remaining() < HEADER || data.getInt(0) != MAGIC) {
+				throw new IOException(file + " is not a ledger chunk");
+			}
+			int rows = data.getInt(4);
+			int maxRecipe = data.getInt(8);
+			if (rows < 0 || data.remaining() != HEADER + 16L * rows) {
+				throw new IOException(file + " is truncated");
+			}
+			return new Mapped(data, rows, data.getLong(12), data.getLong(20), data.getLong(28), maxRecipe);
+		}
+	}
+
+	/**
+	 * Chunk held in arrays.  The ledger appends to the open chunk under
+	 * its monitor and seals it when it is full; a scan only reads the
+	 * rows that were appended before it started.
+	 */
+	static final class Open extends Chunk {
+		final int [] recipe;
+		final int [] paid;
+		final int [] change;
+		final int [] time;
+
+		Open(int capacity) {
+			super(0, 0, 0, 0, -1);
+			recipe = new int[capacity];
+			paid = new int[capacity];
+			change = new int[capacity];
+			time = new int[capacity];
+		}
+
+		private Open(Open from, int rows, long base, long minTime, long maxTime, int maxRecipe) {
+			super(rows, base, minTime, maxTime, maxRecipe);
+			this.recipe = from.recipe;
+			this.paid = from.paid;
+			this.change = from.change;
+			this.time = from.time;
+		}
+
+		/**
+		 * Returns a view of the first rows, with their time range.
+		 */
+		Open view(int rows, long base, long minTime, long maxTime, int maxRecipe) {
+			return new Open(this, rows, base, minTime, maxTime, maxRecipe);
+		}
+
+		void summarize(long from, long to, long [] totals) {
+			if (outside(from, to)) {
+				return;
+			}
+			if (inside(from, to)) {
+				for (int i = 0; i < rows; i++) {
+					int r = recipe[i] << 1;
+					totals[r]++;
+					totals[r + 1] += paid[i] - change[i];
+				}
+				return;
+			}
+			long lo = low(from);
+			long hi = high(to);
+			for (int i = 0; i < rows; i++) {
+				int t = time[i];
+				if (t >= lo && t < hi) {
+					int r = recipe[i] << 1;
+					totals[r]++;
+					totals[r + 1] += paid[i] - change[i];
+				}
+			}
+		}
+
+		void revenueByBucket(long from, long to, long width, long [] buckets) {
+			if (outside(from, to)) {
+				return;
+			}
+			long lo = from - base;
+			long hi = high(to);
+			for (int i = 0; i < rows; i++) {
+				int t = time[i];
+				if (t >= lo && t < hi) {
+					buckets[(int) ((t - lo) / width)] += paid[i] - change[i];
+				}
+			}
+		}
+
+		void write(Path file) throws IOException {
+			ByteBuffer data = ByteBuffer.allocate(HEADER + 16 * rows).order(ByteOrder.LITTLE_ENDIAN);
+			data.putInt(MAGIC).putInt(rows).putInt(maxRecipe).putLong(base).putLong(minTime).putLong(maxTime);
+			IntBuffer columns = data.asIntBuffer();
+			columns.put(recipe, 0, rows).put(paid, 0, rows).put(change, 0, rows).put(time, 0, rows);
+			data.clear();
+			try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+					StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+				while (data.hasRemaining()) {
+					channel.write(data);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Chunk read from a spilled file through a memory map.
+	 */
+	static final class Mapped extends Chunk {
+		private final IntBuffer recipe;
+		private final IntBuffer paid;
+		private final IntBuffer change;
+		private final IntBuffer time;
+
+		Mapped(ByteBuffer data, int rows, long base, long minTime, long maxTime, int maxRecipe) {
+			super(rows, base, minTime, maxTime, maxRecipe);
+			recipe = column(data, 0);
+			paid = column(data, 1);
+			change = column(data, 2);
+			time = column(data, 3);
+		}
+
+		private IntBuffer column(ByteBuffer data, int index) {
+			ByteBuffer column = data.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+			column.position(HEADER + 4 * rows * index).limit(HEADER + 4 * rows * (index + 1));
+			return column.slice().order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+		}
+
+		void summarize(long from, long to, long [] totals) {
+			if (outside(from, to)) {
+				return;
+			}
+			boolean all = inside(from, to);
+			long lo = low(from);
+			long hi = high(to);
+			for (int i = 0; i < rows; i++) {
+				if (!all) {
+					int t = time.get(i);
+					if (t < lo || t >= hi) {
+						continue;
+					}
+				}
+				int r = recipe.get(i) << 1;
+				totals[r]++;
+				totals[r + 1] += paid.get(i) - change.get(i);
+			}
+		}
+
+		void revenueByBucket(long from, long to, long width, long [] buckets) {
+			if (outside(from, to)) {
+				return;
+			}
+			long lo = from - base;
+			long hi = high(to);
+			for (int i = 0; i < rows; i++) {
+				int t = time.get(i);
+				if (t >= lo && t < hi) {
+					buckets[(int) ((t - lo) / width)] += paid.get(i) - change.get(i);
+				}
+			}
+		}
+
+		void write(Path file) throws IOException {
+			throw new IOException("Chunk is already spilled");
+		}
+	}
+}
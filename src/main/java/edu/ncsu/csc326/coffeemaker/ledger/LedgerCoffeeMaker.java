@@ -0,0 +1,66 @@
+/*
+ * Copyright (c) 2009,  Sarah Heckman, Laurie Williams, Dright Ho
+ * All Rights Reserved.
+ *
+ * Permission has been explicitly granted to the University of Minnesota
+ * Software Engineering Center to use and distribute this source for
+ * educational purposes, including delivering online education through
+ * Coursera or other entities.
+ *
+ * No warranty is given regarding this software, including warranties as
+ * to the correctness or completeness of this software, including
+ * fitness for purpose.
+ */
+package edu.ncsu.csc326.coffeemaker.ledger;
+
+import edu.ncsu.csc326.coffeemaker.CoffeeMaker;
+import edu.ncsu.csc326.coffeemaker.Inventory;
+import edu.ncsu.csc326.coffeemaker.Receipt;
+import edu.ncsu.csc326.coffeemaker.RecipeBook;
+import edu.ncsu.csc326.coffeemaker.RecipeSnapshot;
+
+/**
+ * CoffeeMaker that records every beverage it sells in a sales
+ * ledger, from single and batched purchases alike.  Refused
+ * purchases are not recorded.
+ */
+public class LedgerCoffeeMaker extends CoffeeMaker {
+	private final SalesLedger ledger;
+
+	/**
+	 * Creates a coffee maker with its own sales ledger.
+	 * @param recipeBook
+	 * @param inventory
+	 */
+	public LedgerCoffeeMaker(RecipeBook recipeBook, Inventory inventory) {
+		this(recipeBook, inventory, new SalesLedger());
+	}
+
+	/**
+	 * Creates a coffee maker that records into the given ledger,
+	 * which several machines may share.
+	 * @param recipeBook
+	 * @param inventory
+	 * @param ledger
+	 */
+	public LedgerCoffeeMaker(RecipeBook recipeBook, Inventory inventory, SalesLedger ledger) {
+		super(recipeBook, inventory);
+		this.ledger = ledger;
+	}
+
+	/**
+	 * Returns the sales ledger of this coffee maker.
+	 * @return SalesLedger
+	 */
+	public SalesLedger getLedger() {
+		return ledger;
+	}
+
+	protected long purchase(RecipeSnapshot recipes, int recipeToPurchase, int amtPaid) {
+		long receipt = super.purchase(recipes, recipeToPurchase, amtPaid);
+		if (Receipt.isSold(receipt)) {
+			ledger.record(recipeToPurchase, amtPaid, Receipt.change(receipt), System.currentTimeMillis());
+		}
+		return receipt;
+	}
+}
@@ -0,0 +1,404 @@
+/*
+ * Copyright (c) 2009,  Sarah Heckman, Laurie Williams, Dright Ho
+ * All Rights Reserved.
+ *
+ * Permission has been explicitly granted to the University of Minnesota
+ * Software Engineering Center to use and distribute this source for
+ * educational purposes, including delivering online education through
+ * Coursera or other entities.
+ *
+ * No warranty is given regarding this software, including warranties as
+ * to the correctness or completeness of this software, including
+ * fitness for purpose.
+ */
+package edu.ncsu.csc326.coffeemaker.ledger;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Columnar record of every beverage sold.
+ *
+ * Each sale is a row of recipe slot, amount paid, change and time,
+ * appended to a fixed-size chunk that stores each of those as its
+ * own int column.  A full chunk is sealed and never changes again,
+ * so sealed chunks can be written to disk and read back through a
+ * memory map, keeping a long history off the heap.  Aggregations
+ * split the chunks among the threads of a fork/join pool, scan each
+ * chunk with a primitive loop into partial totals, and add the
+ * partial totals together.  Chunks whose time range lies outside the
+ * query are skipped without being read.
+ */
+public class SalesLedger {
+	/** Rows per chunk unless another size is given */
+	public static final int CHUNK_ROWS = 1 << 16;
+	/** Milliseconds in an hour */
+	public static final long HOUR = 60 * 60 * 1000L;
+	/** Most buckets a time series may have */
+	public static final int MAX_BUCKETS = 1 << 20;
+
+	private static final String PREFIX = "chunk-";
+	private static final String SUFFIX = ".col";
+
+	private final int chunkRows;
+	private final ForkJoinPool pool;
+
+	/** Sealed chunks in the order they were filled */
+	private final List<Chunk> sealed = new ArrayList<Chunk>();
+	/** Number of leading sealed chunks that are already on disk */
+	private int spilled;
+	private final Object spillLock = new Object();
+
+	private Chunk.Open open;
+	private int openRows;
+	private long openBase;
+	private long openMin;
+	private long openMax;
+	private int openRecipe = -1;
+	private int maxRecipe = -1;
+	private long rows;
+
+	/**
+	 * Creates an empty ledger with chunks of CHUNK_ROWS rows that
+	 * aggregates in the common fork/join pool.
+	 */
+	public SalesLedger() {
+		this(CHUNK_ROWS, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Creates an empty ledger with chunks of the given size that
+	 * aggregates in the given pool.
+	 * @param chunkRows
+	 * @param pool
+	 */
+	public SalesLedger(int chunkRows, ForkJoinPool pool) {
+		if (chunkRows < 1) {
+			throw new IllegalArgumentException("Chunks must hold at least one row");
+		}
+		this.chunkRows = chunkRows;
+		this.pool = pool;
+		this.open = new Chunk.Open(chunkRows);
+	}
+
+	/**
+	 * Opens the chunks that spill wrote to the given directory as a
+	 * ledger.  New sales are appended after them.
+	 * @param directory
+	 * @param pool
+	 * @return SalesLedger
+	 * @throws IOException if a chunk file cannot be read
+	 */
+	public static SalesLedger open(Path directory, ForkJoinPool pool) throws IOException {
+		List<Path> files = new ArrayList<Path>();
+		try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, PREFIX + "*" + SUFFIX)) {
+			for (Path file : stream) {
+				files.add(file);
+			}
+		}
+		Collections.sort(files);
+		int size = CHUNK_ROWS;
+		List<Chunk> chunks = new ArrayList<Chunk>();
+		for (Path file : files) {
+			Chunk chunk = Chunk.map(file);
+			chunks.add(chunk);
+			size = Math.max(size, chunk.rows);
+		}
+		SalesLedger ledger = new SalesLedger(size, pool);
+		for (Chunk chunk : chunks) {
+			ledger.sealed.add(chunk);
+			ledger.rows += chunk.rows;
+			ledger.maxRecipe = Math.max(ledger.maxRecipe, chunk.maxRecipe);
+		}
+		ledger.spilled = chunks.size();
+		return ledger;
+	}
+
+	/**
+	 * Records a sale of the recipe in the given slot.
+	 * @param slot
+	 * @param paid
+	 * @param change
+	 * @param timeMillis
+	 */
+	public synchronized void record(int slot, int paid, int change, long timeMillis) {
+		if (slot < 0) {
+			throw new IllegalArgumentException("Recipe slot cannot be negative");
+		}
+		long offset = timeMillis - openBase;
+		if (openRows == chunkRows
+				|| (openRows > 0 && (offset < Integer.MIN_VALUE || offset > Integer.MAX_VALUE))) {
+			seal();
+		}
+		if (openRows == 0) {
+			openBase = timeMillis;
+			openMin = timeMillis;
+			openMax = timeMillis;
+			offset = 0;
+		} else {
+			openMin = Math.min(openMin, timeMillis);
+			openMax = Math.max(openMax, timeMillis);
+		}
+		open.recipe[openRows] = slot;
+		open.paid[openRows] = paid;
+		open.change[openRows] = change;
+		open.time[openRows] = (int) offset;
+		openRows++;
+		openRecipe = Math.max(openRecipe, slot);
+		maxRecipe = Math.max(maxRecipe, slot);
+		rows++;
+	}
+
+	/**
+	 * Returns the number of sales recorded.
+	 * @return long
+	 */
+	public synchronized long size() {
+		return rows;
+	}
+
+	/**
+	 * Returns the number of sealed chunks.
+	 * @return int
+	 */
+	public synchronized int getSealedChunks() {
+		return sealed.size();
+	}
+
+	/**
+	 * Returns the number of sealed chunks that are on disk.
+	 * @return int
+	 */
+	public synchronized int getSpilledChunks() {
+		return spilled;
+	}
+
+	/**
+	 * Writes every sealed chunk that is still on the heap to the
+	 * given directory and replaces it with a memory map of the file,
+	 * so the heap only holds the open chunk.  Sales can be recorded
+	 * and aggregated while the chunks are written.  Returns the
+	 * number of chunks written.
+	 * @param directory
+	 * @return int
+	 * @throws IOException if a chunk cannot be written
+	 */
+	public int spill(Path directory) throws IOException {
+		synchronized (spillLock) {
+			int first;
+			List<Chunk> pending;
+			synchronized (this) {
+				first = spilled;
+				pending = new ArrayList<Chunk>(sealed.subList(spilled, sealed.size()));
+			}
+			Files.createDirectories(directory);
+			Chunk [] mapped = new Chunk[pending.size()];
+			for (int i = 0; i < mapped.length; i++) {
+				Path file = directory.resolve(String.format("%s%08d%s", PREFIX, first + i, SUFFIX));
+				pending.get(i).write(file);
+				mapped[i] = Chunk.map(file);
+			}
+			synchronized (this) {
+				for (int i = 0; i < mapped.length; i++) {
+					sealed.set(first + i, mapped[i]);
+				}
+				spilled = first + mapped.length;
+			}
+			return mapped.length;
+		}
+	}
+
+	/**
+	 * Returns the orders and revenue by recipe of every sale.
+	 * @return SalesSummary
+	 */
+	public SalesSummary summarize() {
+		return summarize(Long.MIN_VALUE, Long.MAX_VALUE);
+	}
+
+	/**
+	 * Returns the orders and revenue by recipe of the sales made
+	 * from the first time up to, but not including, the second.
+	 * @param from
+	 * @param to
+	 * @return SalesSummary
+	 */
+	public SalesSummary summarize(final long from, final long to) {
+		Chunk [] chunks;
+		final int recipes;
+		synchronized (this) {
+			chunks = snapshot();
+			recipes = maxRecipe + 1;
+		}
+		return new SalesSummary(scan(chunks, from, to, new Kernel() {
+			public long [] totals() {
+				return new long[2 * recipes];
+			}
+
+			public void scan(Chunk chunk, long [] totals) {
+				chunk.summarize(from, to, totals);
+			}
+		}));
+	}
+
+	/**
+	 * Returns the revenue of the sales made from the first time up
+	 * to, but not including, the second.
+	 * @param from
+	 * @param to
+	 * @return long
+	 */
+	public long revenue(long from, long to) {
+		return summarize(from, to).getRevenue();
+	}
+
+	/**
+	 * Returns the revenue of each hour starting at the first time,
+	 * up to but not including the second.
+	 * @param from
+	 * @param to
+	 * @return long[]
+	 */
+	public long [] revenueByHour(long from, long to) {
+		return revenueByBucket(from, to, HOUR);
+	}
+
+	/**
+	 * Returns the revenue of each interval of the given width
+	 * starting at the first time, up to but not including the second.
+	 * The last interval may be cut short by the end of the range.
+	 * @param from
+	 * @param to
+	 * @param width
+	 * @return long[]
+	 */
+	public long [] revenueByBucket(final long from, final long to, final long width) {
+		if (width <= 0 || to < from || to - from < 0) {
+			throw new IllegalArgumentException("Invalid time series range");
+		}
+		long count = (to - from) / width + ((to - from) % width == 0 ? 0 : 1);
+		if (count > MAX_BUCKETS) {
+			throw new IllegalArgumentException("A time series cannot have more than " + MAX_BUCKETS + " buckets");
+		}
+		final int buckets = (int) count;
+		Chunk [] chunks;
+		synchronized (this) {
+			chunks = snapshot();
+		}
+		return scan(chunks, from, to, new Kernel() {
+			public long [] totals() {
+				return new long[buckets];
+			}
+
+			public void scan(Chunk chunk, long [] totals) {
+				chunk.revenueByBucket(from, to, width, totals);
+			}
+		});
+	}
+
+	/**
+	 * Seals the open chunk and starts a new one.
+	 */
+	private void seal() {
+		sealed.add(open.view(openRows, openBase, openMin, openMax, openRecipe));
+		open = new Chunk.Open(chunkRows);
+		openRows = 0;
+		openRecipe = -1;
+	}
+
+	/**
+	 * Returns the sealed chunks followed by a view of the rows of
+	 * the open chunk recorded so far.  Rows appended later are past
+	 * the end of the view, and the rows in it were written before
+	 * the monitor was released, so a scan can read them unlocked.
+	 */
+	private Chunk [] snapshot() {
+		int size = sealed.size();
+		Chunk [] chunks = sealed.toArray(new Chunk[size + (openRows > 0 ? 1 : 0)]);
+		if (openRows > 0) {
+			chunks[size] = open.view(openRows, openBase, openMin, openMax, openRecipe);
+		}
+		return chunks;
+	}
+
+	/**
+	 * Scans the chunks that may hold rows in [from, to) in the pool,
+	 * in about four leaves per worker so that every leaf allocates
+	 * one set of partial totals.
+	 */
+	private long [] scan(Chunk [] chunks, long from, long to, Kernel kernel) {
+		List<Chunk> hits = new ArrayList<Chunk>(chunks.length);
+		for (Chunk chunk : chunks) {
+			if (!chunk.outside(from, to)) {
+				hits.add(chunk);
+			}
+		}
+		if (hits.isEmpty()) {
+			return kernel.totals();
+		}
+		int leaf = Math.max(1, hits.size() / (4 * pool.getParallelism()));
+		return pool.invoke(new Scan(hits.toArray(new Chunk[hits.size()]), 0, hits.size(), leaf, kernel));
+	}
+
+	/**
+	 * Scan loop of one aggregation.
+	 */
+	private interface Kernel {
+		/**
+		 * Returns a new set of zeroed totals.
+		 */
+		long [] totals();
+
+		/**
+		 * Adds the rows of one chunk to the totals.
+		 */
+		void scan(Chunk chunk, long [] totals);
+	}
+
+	/**
+	 * Scans a range of chunks by splitting it in half until a leaf is
+	 * left, then adds the halves' totals element by element.
+	 */
+	private static final class Scan extends RecursiveTask<long []> {
+		private static final long serialVersionUID = 1L;
+		private final Chunk [] chunks;
+		private final int from;
+		private final int to;
+		private final int leaf;
+		private final Kernel kernel;
+
+		Scan(Chunk [] chunks, int from, int to, int leaf, Kernel kernel) {
+			this.chunks = chunks;
+			this.from = from;
+			this.to = to;
+			this.leaf = leaf;
+			this.kernel = kernel;
+		}
+
+		protected long [] compute() {
+			if (to - from <= leaf) {
+				long [] totals = kernel.totals();
+				for (int i = from; i < to; i++) {
+					kernel.scan(chunks[i], totals);
+				}
+				return totals;
+			}
+			int middle = (from + to) >>> 1;
+			Scan left = new Scan(chunks, from, middle, leaf, kernel);
+			left.fork();
+			long [] totals = new Scan(chunks, middle, to, leaf, kernel).compute();
+			long [] other = left.join();
+			for (int i = 0; i < totals.length; i++) {
+				totals[i] += other[i];
+			}
+			return totals;
+		}
+	}
+}
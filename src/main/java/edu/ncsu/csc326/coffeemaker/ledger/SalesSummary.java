@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2009,  Sarah Heckman, Laurie Williams, Dright Ho
+ * All Rights Reserved.
+ *
+ * Permission has been explicitly granted to the University of Minnesota
+ * Software Engineering Center to use and distribute this source for
+ * educational purposes, including delivering online education through
+ * Coursera or other entities.
+ *
+ * No warranty is given regarding this software, including warranties as
+ * to the correctness or completeness of this software, including
+ * fitness for purpose.
+ */
+package edu.ncsu.csc326.coffeemaker.ledger;
+
+/**
+ * Orders and revenue by recipe slot over a range of the sales
+ * ledger.  Revenue is what the machine kept: the amount paid less
+ * the change.
+ */
+public final class SalesSummary {
+	private final long [] totals;
+
+	/**
+	 * Wraps the totals of a scan, which hold the orders of slot r
+	 * at 2r and its revenue at 2r + 1.
+	 * @param totals
+	 */
+	SalesSummary(long [] totals) {
+		this.totals = totals;
+	}
+
+	/**
+	 * Returns one more than the highest recipe slot that was sold.
+	 * @return int
+	 */
+	public int getRecipes() {
+		return totals.length / 2;
+	}
+
+	/**
+	 * Returns the number of orders of the recipe in the given slot.
+	 * @param slot
+	 * @return long
+	 */
+	public long getOrders(int slot) {
+		return slot >= 0 && slot < getRecipes() ? totals[2 * slot] : 0;
+	}
+
+	/**
+	 * Returns the revenue of the recipe in the given slot.
+	 * @param slot
+	 * @return long
+	 */
+	public long getRevenue(int slot) {
+		return slot >= 0 && slot < getRecipes() ? totals[2 * slot + 1] : 0;
+	}
+
+	/**
+	 * Returns the number of orders of every recipe.
+	 * @return long
+	 */
+	public long getOrders() {
+		long orders = 0;
+		for (int i = 0; i < totals.length; i += 2) {
+			orders += totals[i];
+		}
+		return orders;
+	}
+
+	/**
+	 * Returns the revenue of every recipe.
+	 * @return long
+	 */
+	public long getRevenue() {
+		long revenue = 0;
+		for (int i = 1; i < totals.length; i += 2) {
+			revenue += totals[i];
+		}
+		return revenue;
+	}
+
+	/**
+	 * Returns one line per recipe slot that was sold, with its
+	 * orders and revenue.
+	 * @return String
+	 */
+	public String toString() {
+		StringBuffer buf = new StringBuffer();
+		for (int slot = 0; slot < getRecipes(); slot++) {
+			if (getOrders(slot) == 0) {
+				continue;
+			}
+			buf.append(slot);
+			buf.append(": ");
+			buf.append(getOrders(slot));
+			buf.append(" orders, ");
+			buf.append(getRevenue(slot));
+			buf.append("\n");
+		}
+		return buf.toString();
+	}
+}
@@ -0,0 +1,334 @@
+/*
+ * Copyright (c) 2009,  Sarah Heckman, Laurie Williams, Dright Ho
+ * All Rights Reserved.
+ *
+ * Permission has been explicitly granted to the University of Minnesota
+ * Software Engineering Center to use and distribute this source for
+ * educational purposes, including delivering online education through
+ * Coursera or other entities.
+ *
+ * No warranty is given regarding this software, including warranties as
+ * to the correctness or completeness of this software, including
+ * fitness for purpose.
+ */
+package edu.ncsu.csc326.coffeemaker.loadgen;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+import edu.ncsu.csc326.coffeemaker.AtomicInventory;
+import edu.ncsu.csc326.coffeemaker.CoffeeMaker;
+import edu.ncsu.csc326.coffeemaker.IngredientRegistry;
+import edu.ncsu.csc326.coffeemaker.Inventory;
+import edu.ncsu.csc326.coffeemaker.Receipt;
+import edu.ncsu.csc326.coffeemaker.Recipe;
+import edu.ncsu.csc326.coffeemaker.RecipeBook;
+import edu.ncsu.csc326.coffeemaker.exceptions.InventoryException;
+import edu.ncsu.csc326.coffeemaker.importer.ImportReport;
+import edu.ncsu.csc326.coffeemaker.importer.RecipeImporter;
+import edu.ncsu.csc326.coffeemaker.journal.Checkpoint;
+import edu.ncsu.csc326.coffeemaker.metrics.LatencyHistogram;
+
+/**
+ * Replays a Trace against coffee makers to size hardware.
+ *
+ * The events are dealt round robin to N threads, which replay them
+ * either against one shared machine or each against its own.  The
+ * replay runs flat out, or paced at the trace's own timestamps
+ * divided by a speed-up factor.  When paced, latency is measured from
+ * the time an event was due rather than from when it started, so a
+ * replay that falls behind shows it in its percentiles.
+ *
+ * Afterwards every machine's inventory is compared with a fresh
+ * machine that replayed the same events sequentially, and checked
+ * for conservation of stock.
+ */
+public class LoadGenerator {
+	/** Speed that replays without waiting for the timestamps */
+	public static final double FLAT_OUT = 0;
+
+	private final Trace trace;
+	private final Supplier<CoffeeMaker> machines;
+	private final int threads;
+	private final boolean shared;
+	private final double speed;
+
+	/**
+	 * Creates a load generator.
+	 * @param trace the events to replay
+	 * @param machines creates a stocked machine with the traced recipes
+	 * @param threads number of replay threads
+	 * @param shared true for one machine shared by all threads,
+	 *        false for one machine per thread
+	 * @param speed FLAT_OUT, or how many times faster than recorded
+	 *        to replay, 1 being the original speed
+	 */
+	public LoadGenerator(Trace trace, Supplier<CoffeeMaker> machines, int threads, boolean shared, double speed) {
+		if (threads < 1) {
+			throw new IllegalArgumentException("threads must be positive");
+		}
+		if (speed < 0) {
+			throw new IllegalArgumentException("speed must not be negative");
+		}
+		this.trace = trace;
+		this.machines = machines;
+		this.threads = threads;
+		this.shared = shared;
+		this.speed = speed;
+	}
+
+	/**
+	 * Runs the replay and returns its report.
+	 * @return ReplayReport
+	 * @throws InterruptedException
+	 */
+	public ReplayReport run() throws InterruptedException {
+		CoffeeMaker [] targets = new CoffeeMaker[shared ? 1 : threads];
+		int [][] initial = new int[targets.length][];
+		for (int m = 0; m < targets.length; m++) {
+			targets[m] = machines.get();
+			initial[m] = targets[m].getInventory().getStockLevels();
+		}
+		final LatencyHistogram makeLatency = new LatencyHistogram();
+		final LatencyHistogram restockLatency = new LatencyHistogram();
+		final CountDownLatch start = new CountDownLatch(1);
+		final Worker [] workers = new Worker[threads];
+		Thread [] running = new Thread[threads];
+		for (int t = 0; t < threads; t++) {
+			workers[t] = new Worker(targets[shared ? 0 : t], t, start, makeLatency, restockLatency);
+			running[t] = new Thread(workers[t], "replay-" + t);
+			running[t].start();
+		}
+		long begin = System.nanoTime();
+		for (Worker w : workers) {
+			w.begin = begin;
+		}
+		start.countDown();
+		for (Thread t : running) {
+			t.join();
+		}
+		long elapsed = System.nanoTime() - begin;
+
+		long sold = 0;
+		long refused = 0;
+		long restocks = 0;
+		long failedRestocks = 0;
+		for (Worker w : workers) {
+			sold += w.sold;
+			refused += w.refused;
+			restocks += w.restocks;
+			failedRestocks += w.failedRestocks;
+		}
+		int [][] actual = new int[targets.length][];
+		int [][] expected = new int[targets.length][];
+		boolean conserved = true;
+		for (int m = 0; m < targets.length; m++) {
+			actual[m] = targets[m].getInventory().getStockLevels();
+			CoffeeMaker sequential = machines.get();
+			Worker replay = new Worker(sequential, shared ? -1 : m, null, null, null);
+			replay.run();
+			expected[m] = sequential.getInventory().getStockLevels();
+			conserved &= conserved(targets[m], initial[m], actual[m], shared ? workers : new Worker[] {workers[m]});
+		}
+		return new ReplayReport(threads, shared, trace.size(), elapsed, sold, refused, restocks, failedRestocks,
+				makeLatency.snapshot(), restockLatency.snapshot(), actual, expected, conserved);
+	}
+
+	/**
+	 * Returns true if the final stock is the initial stock plus what
+	 * the workers restocked minus what their sales used.
+	 */
+	private static boolean conserved(CoffeeMaker machine, int [] initial, int [] actual, Worker [] workers) {
+		long [] balance = new long[actual.length];
+		for (int i = 0; i < initial.length && i < balance.length; i++) {
+			balance[i] = initial[i];
+		}
+		for (Worker w : workers) {
+			for (int i = 0; i < w.restocked.length && i < balance.length; i++) {
+				balance[i] += w.restocked[i];
+			}
+			for (int slot = 0; slot < w.soldBySlot.length; slot++) {
+				if (w.soldBySlot[slot] == 0) {
+					continue;
+				}
+				Recipe r = machine.getRecipeBook().getRecipe(slot);
+				for (int i = 0; i < balance.length; i++) {
+					balance[i] -= w.soldBySlot[slot] * r.getAmount(i);
+				}
+			}
+		}
+		for (int i = 0; i < balance.length; i++) {
+			if (balance[i] != actual[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/** Replays every threads-th event from its own index, or all events */
+	private final class Worker implements Runnable {
+		private final CoffeeMaker machine;
+		private final int first;
+		private final int step;
+		private final CountDownLatch start;
+		private final LatencyHistogram makeLatency;
+		private final LatencyHistogram restockLatency;
+		volatile long begin;
+		long sold;
+		long refused;
+		long restocks;
+		long failedRestocks;
+		long [] soldBySlot;
+		final long [] restocked = new long[IngredientRegistry.BUILT_IN];
+
+		/**
+		 * Creates a worker for the events of the given thread index,
+		 * or for all events if index is -1.  Without a latch the
+		 * worker replays flat out and records no latencies.
+		 */
+		Worker(CoffeeMaker machine, int index, CountDownLatch start,
+				LatencyHistogram makeLatency, LatencyHistogram restockLatency) {
+			this.machine = machine;
+			this.first = Math.max(index, 0);
+			this.step = index < 0 ? 1 : threads;
+			this.start = start;
+			this.makeLatency = makeLatency;
+			this.restockLatency = restockLatency;
+			this.soldBySlot = new long[machine.getRecipes().length];
+		}
+
+		public void run() {
+			boolean timed = start != null;
+			if (timed) {
+				try {
+					start.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					return;
+				}
+			}
+			boolean paced = timed && speed != FLAT_OUT && trace.size() > 0;
+			long origin = trace.size() > 0 ? trace.time(0) : 0;
+			for (int e = first; e < trace.size(); e += step) {
+				long due = 0;
+				if (paced) {
+					due = begin + (long) ((trace.time(e) - origin) * 1e6 / speed);
+					long wait;
+					while ((wait = due - System.nanoTime()) > 0) {
+						LockSupport.parkNanos(wait);
+					}
+				}
+				long t0 = timed ? System.nanoTime() : 0;
+				if (trace.kind(e) == Trace.MAKE) {
+					int slot = trace.arg(e, 0);
+					long receipt = machine.purchase(slot, trace.arg(e, 1));
+					if (Receipt.isSold(receipt)) {
+						sold++;
+						if (slot >= soldBySlot.length) {
+							soldBySlot = Arrays.copyOf(soldBySlot, slot + 1);
+						}
+						soldBySlot[slot]++;
+					} else {
+						refused++;
+					}
+					if (timed) {
+						makeLatency.record(System.nanoTime() - (paced ? due : t0));
+					}
+				} else {
+					restocks++;
+					try {
+						machine.addInventory(trace.arg(e, IngredientRegistry.COFFEE), trace.arg(e, IngredientRegistry.MILK),
+								trace.arg(e, IngredientRegistry.SUGAR), trace.arg(e, IngredientRegistry.CHOCOLATE));
+						for (int i = 0; i < restocked.length; i++) {
+							restocked[i] += trace.arg(e, i);
+						}
+					} catch (InventoryException ex) {
+						failedRestocks++;
+					}
+					if (timed) {
+						restockLatency.record(System.nanoTime() - (paced ? due : t0));
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Replays a trace file from the command line and prints the
+	 * report:
+	 * <pre>
+	 * LoadGenerator trace [--threads N] [--speed X|max] [--per-thread]
+	 *               [--atomic] [--recipes recipes.csv | --checkpoint file]
+	 * </pre>
+	 * Machines start from the checkpoint, or from the default stock
+	 * with the recipes imported from the CSV file.
+	 * @param args
+	 * @throws IOException
+	 * @throws InterruptedException
+	 */
+	public static void main(String[] args) throws IOException, InterruptedException {
+		if (args.length == 0) {
+			System.out.println("Usage: LoadGenerator trace [--threads N] [--speed X|max] [--per-thread]"
+					+ " [--atomic] [--recipes recipes.csv | --checkpoint file]");
+			return;
+		}
+		int threads = 1;
+		double speed = FLAT_OUT;
+		boolean shared = true;
+		boolean atomic = false;
+		Path recipes = null;
+		Path checkpoint = null;
+		for (int i = 1; i < args.length; i++) {
+			String arg = args[i];
+			if ("--threads".equals(arg)) {
+				threads = Integer.parseInt(args[++i]);
+			} else if ("--speed".equals(arg)) {
+				String value = args[++i];
+				speed = "max".equals(value) ? FLAT_OUT : Double.parseDouble(value);
+			} else if ("--per-thread".equals(arg)) {
+				shared = false;
+			} else if ("--atomic".equals(arg)) {
+				atomic = true;
+			} else if ("--recipes".equals(arg)) {
+				recipes = Paths.get(args[++i]);
+			} else if ("--checkpoint".equals(arg)) {
+				checkpoint = Paths.get(args[++i]);
+			} else {
+				throw new IllegalArgumentException("Unknown option " + arg);
+			}
+		}
+		Trace trace = Trace.read(Paths.get(args[0]));
+		LoadGenerator generator = new LoadGenerator(trace, machineFactory(atomic, recipes, checkpoint),
+				threads, shared, speed);
+		System.out.println(generator.run());
+	}
+
+	private static Supplier<CoffeeMaker> machineFactory(final boolean atomic, final Path recipes, final Path checkpoint) {
+		return () -> {
+			try {
+				Inventory inventory = atomic ? new AtomicInventory() : new Inventory();
+				if (checkpoint != null) {
+					Checkpoint saved = Checkpoint.open(checkpoint);
+					saved.restore(inventory);
+					return new CoffeeMaker(saved.newRecipeBook(), inventory);
+				}
+				CoffeeMaker machine = new CoffeeMaker(new RecipeBook(), inventory);
+				if (recipes != null) {
+					ImportReport report = new RecipeImporter().importFile(recipes, machine.getRecipeBook());
+					if (report.getRejected() > 0) {
+						System.err.println(report);
+					}
+				}
+				return machine;
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		};
+	}
+}
@@ -0,0 +1,183 @@
+/*
+ * Copyright (c) 2009,  Sarah Heckman, Laurie Williams, Dright Ho
+ * All Rights Reserved.
+ *
+ * Permission has been explicitly granted to the University of Minnesota
+ * Software Engineering Center to use and distribute this source for
+ * educational purposes, including delivering online education through
+ * Coursera or other entities.
+ *
+ * No warranty is given regarding this software, including warranties as
+ * to the correctness or completeness of this software, including
+ * fitness for purpose.
+ */
+package edu.ncsu.csc326.coffeemaker.loadgen;
+
+import java.util.Arrays;
+
+import edu.ncsu.csc326.coffeemaker.metrics.LatencyHistogram;
+
+/**
+ * Outcome of a LoadGenerator run: throughput, latency percentiles
+ * of purchases and restocks, and whether the final inventories are
+ * what a sequential replay of the same events produces.
+ */
+public final class ReplayReport {
+	private final int threads;
+	private final boolean shared;
+	private final long events;
+	private final long elapsedNanos;
+	private final long sold;
+	private final long refused;
+	private final long restocks;
+	private final long failedRestocks;
+	private final LatencyHistogram.Snapshot makeLatency;
+	private final LatencyHistogram.Snapshot restockLatency;
+	private final int [][] actual;
+	private final int [][] expected;
+	private final boolean conserved;
+
+	ReplayReport(int threads, boolean shared, long events, long elapsedNanos, long sold, long refused,
+			long restocks, long failedRestocks, LatencyHistogram.Snapshot makeLatency,
+			LatencyHistogram.Snapshot restockLatency, int [][] actual, int [][] expected, boolean conserved) {
+		this.threads = threads;
+		this.shared = shared;
+		this.events = events;
+		this.elapsedNanos = elapsedNanos;
+		this.sold = sold;
+		this.refused = refused;
+		this.restocks = restocks;
+		this.failedRestocks = failedRestocks;
+		this.makeLatency = makeLatency;
+		this.restockLatency = restockLatency;
+		this.actual = actual;
+		this.expected = expected;
+		this.conserved = conserved;
+	}
+
+	/**
+	 * Returns the number of events replayed.
+	 * @return long
+	 */
+	public long getEvents() {
+		return events;
+	}
+
+	/**
+	 * Returns the wall-clock nanoseconds of the replay.
+	 * @return long
+	 */
+	public long getElapsedNanos() {
+		return elapsedNanos;
+	}
+
+	/**
+	 * Returns the events replayed per second.
+	 * @return double
+	 */
+	public double getThroughput() {
+		return elapsedNanos > 0 ? events * 1e9 / elapsedNanos : 0;
+	}
+
+	/**
+	 * Returns the number of purchases that made a beverage.
+	 * @return long
+	 */
+	public long getSold() {
+		return sold;
+	}
+
+	/**
+	 * Returns the number of purchases that were refunded.
+	 * @return long
+	 */
+	public long getRefused() {
+		return refused;
+	}
+
+	/**
+	 * Returns the number of restocks replayed.
+	 * @return long
+	 */
+	public long getRestocks() {
+		return restocks;
+	}
+
+	/**
+	 * Returns the number of restocks the inventory rejected.
+	 * @return long
+	 */
+	public long getFailedRestocks() {
+		return failedRestocks;
+	}
+
+	/**
+	 * Returns the latency distribution of purchases.
+	 * @return LatencyHistogram.Snapshot
+	 */
+	public LatencyHistogram.Snapshot getMakeLatency() {
+		return makeLatency;
+	}
+
+	/**
+	 * Returns the latency distribution of restocks.
+	 * @return LatencyHistogram.Snapshot
+	 */
+	public LatencyHistogram.Snapshot getRestockLatency() {
+		return restockLatency;
+	}
+
+	/**
+	 * Returns the final stock levels of each machine.
+	 * @return int[][]
+	 */
+	public int [][] getActual() {
+		return actual;
+	}
+
+	/**
+	 * Returns the stock levels a sequential replay of each machine's
+	 * events ends with.
+	 * @return int[][]
+	 */
+	public int [][] getExpected() {
+		return expected;
+	}
+
+	/**
+	 * Returns true if every machine ends with the stock levels of a
+	 * sequential replay.  With per-thread machines this must always
+	 * hold.  With a shared machine it holds unless the interleaving
+	 * changed which purchases ran out of stock.
+	 * @return boolean
+	 */
+	public boolean matchesSequential() {
+		return Arrays.deepEquals(actual, expected);
+	}
+
+	/**
+	 * Returns true if, on every machine, the final stock equals the
+	 * initial stock plus the restocks minus the ingredients of the
+	 * purchases that were sold.  This holds for any correct
+	 * interleaving.
+	 * @return boolean
+	 */
+	public boolean isConserved() {
+		return conserved;
+	}
+
+	/**
+	 * Returns a multi-line report.
+	 * @return String
+	 */
+	public String toString() {
+		StringBuilder buf = new StringBuilder();
+		buf.append(String.format("%d events on %d threads (%s machine%s) in %.3f s: %.0f events/s%n",
+				events, threads, shared ? "shared" : "per-thread", shared ? "" : "s", elapsedNanos / 1e9, getThroughput()));
+		buf.append(String.format("makeCoffee:   %d sold, %d refused; ns %s%n", sold, refused, makeLatency));
+		buf.append(String.format("addInventory: %d, %d rejected; ns %s%n", restocks, failedRestocks, restockLatency));
+		buf.append("Inventory ").append(matchesSequential() ? "matches" : "differs from")
+				.append(" the sequential replay, stock is ").append(conserved ? "conserved" : "NOT conserved");
+		return buf.toString();
+	}
+}
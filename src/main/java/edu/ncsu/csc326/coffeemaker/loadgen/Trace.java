@@ -0,0 +1,221 @@
+/*
+ * Copyright (c) 2009,  Sarah Heckman, Laurie Williams, Dright Ho
+ * All Rights Reserved.
+ *
+ * Permission has been explicitly granted to the University of Minnesota
+ * Software Engineering Center to use and distribute this source for
+ * educational purposes, including delivering online education through
+ * Coursera or other entities.
+ *
+ * No warranty is given regarding this software, including warranties as
+ * to the correctness or completeness of this software, including
+ * fitness for purpose.
+ */
+package edu.ncsu.csc326.coffeemaker.loadgen;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import edu.ncsu.csc326.coffeemaker.IngredientRegistry;
+import edu.ncsu.csc326.coffeemaker.Units;
+
+/**
+ * Recorded order log to replay against a CoffeeMaker.
+ *
+ * A trace file has one event per line: a timestamp in milliseconds
+ * followed by a MAKE or RESTOCK request in the format of the network
+ * protocol.  Blank lines and lines starting with '#' are skipped.
+ * <pre>
+ * 1000 MAKE 0 75
+ * 1250 RESTOCK 10 5 5 0
+ * </pre>
+ * Events are kept in parallel primitive arrays, so a trace of
+ * millions of orders costs a few dozen bytes per event.
+ */
+public class Trace {
+	/** A purchase: slot and amount paid */
+	public static final byte MAKE = 0;
+	/** A restock: units of coffee, milk, sugar and chocolate */
+	public static final byte RESTOCK = 1;
+
+	private static final int ARGS = IngredientRegistry.BUILT_IN;
+
+	private int size;
+	private long [] times = new long[1024];
+	private byte [] kinds = new byte[1024];
+	private int [] args = new int[1024 * ARGS];
+
+	/**
+	 * Reads a trace file.
+	 * @param file
+	 * @return Trace
+	 * @throws IOException if the file cannot be read or a line is malformed
+	 */
+	public static Trace read(Path file) throws IOException {
+		try (BufferedReader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+			return read(in);
+		}
+	}
+
+	/**
+	 * Reads a trace from the reader.
+	 * @param in
+	 * @return Trace
+	 * @throws IOException if the trace cannot be read or a line is malformed
+	 */
+	public static Trace read(BufferedReader in) throws IOException {
+		Trace trace = new Trace();
+		String line;
+		long number = 0;
+		int [] fields = new int[2 * (2 + ARGS)];
+		int [] values = new int[ARGS];
+		while ((line = in.readLine()) != null) {
+			number++;
+			int count = split(line, fields);
+			if (count == 0 || line.charAt(fields[0]) == '#') {
+				continue;
+			}
+			long time = count > 1 ? parseTime(line, fields[0], fields[1]) : -1;
+			if (time < 0) {
+				throw new IOException("Line " + number + ": expected a timestamp and a request");
+			}
+			String command = line.substring(fields[2], fields[3]);
+			int expected = "MAKE".equalsIgnoreCase(command) ? 2 : "RESTOCK".equalsIgnoreCase(command) ? ARGS : -1;
+			if (expected < 0 || count != 2 + expected) {
+				throw new IOException("Line " + number + ": expected MAKE slot paid or RESTOCK coffee milk sugar chocolate");
+			}
+			for (int i = 0; i < expected; i++) {
+				values[i] = Units.parse(line, fields[2 * (2 + i)], fields[2 * (2 + i) + 1]);
+				if (values[i] == Units.INVALID) {
+					throw new IOException("Line " + number + ": field " + (i + 3) + " must be a positive integer");
+				}
+			}
+			if (expected == 2) {
+				trace.addMake(time, values[0], values[1]);
+			} else {
+				trace.addRestock(time, values[0], values[1], values[2], values[3]);
+			}
+		}
+		return trace;
+	}
+
+	/**
+	 * Appends a purchase.
+	 * @param millis
+	 * @param slot
+	 * @param paid
+	 */
+	public void addMake(long millis, int slot, int paid) {
+		int i = append(millis, MAKE);
+		args[i * ARGS] = slot;
+		args[i * ARGS + 1] = paid;
+	}
+
+	/**
+	 * Appends a restock of the four built-in ingredients.
+	 * @param millis
+	 * @param coffee
+	 * @param milk
+	 * @param sugar
+	 * @param chocolate
+	 */
+	public void addRestock(long millis, int coffee, int milk, int sugar, int chocolate) {
+		int i = append(millis, RESTOCK);
+		args[i * ARGS + IngredientRegistry.COFFEE] = coffee;
+		args[i * ARGS + IngredientRegistry.MILK] = milk;
+		args[i * ARGS + IngredientRegistry.SUGAR] = sugar;
+		args[i * ARGS + IngredientRegistry.CHOCOLATE] = chocolate;
+	}
+
+	/**
+	 * Returns the number of events.
+	 * @return int
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Returns the timestamp of the event in milliseconds.
+	 * @param event
+	 * @return long
+	 */
+	public long time(int event) {
+		return times[event];
+	}
+
+	/**
+	 * Returns MAKE or RESTOCK.
+	 * @param event
+	 * @return byte
+	 */
+	public byte kind(int event) {
+		return kinds[event];
+	}
+
+	/**
+	 * Returns an argument of the event: slot and amount paid for a
+	 * purchase, units by ingredient id for a restock.
+	 * @param event
+	 * @param index
+	 * @return int
+	 */
+	public int arg(int event, int index) {
+		return args[event * ARGS + index];
+	}
+
+	private int append(long millis, byte kind) {
+		if (size == times.length) {
+			times = Arrays.copyOf(times, size * 2);
+			kinds = Arrays.copyOf(kinds, size * 2);
+			args = Arrays.copyOf(args, size * 2 * ARGS);
+		}
+		times[size] = millis;
+		kinds[size] = kind;
+		return size++;
+	}
+
+	private static long parseTime(String line, int from, int to) {
+		if (to - from > 18) {
+			return -1;
+		}
+		long value = 0;
+		for (int i = from; i < to; i++) {
+			int digit = line.charAt(i) - '0';
+			if (digit < 0 || digit > 9) {
+				return -1;
+			}
+			value = value * 10 + digit;
+		}
+		return value;
+	}
+
+	/** Records field bounds in pairs and returns the field count */
+	private static int split(String line, int [] fields) {
+		int count = 0;
+		int i = 0;
+		int length = line.length();
+		while (i < length) {
+			while (i < length && Character.isWhitespace(line.charAt(i))) {
+				i++;
+			}
+			if (i == length) {
+				break;
+			}
+			int start = i;
+			while (i < length && !Character.isWhitespace(line.charAt(i))) {
+				i++;
+			}
+			if (2 * count < fields.length) {
+				fields[2 * count] = start;
+				fields[2 * count + 1] = i;
+			}
+			count++;
+		}
+		return count;
+	}
+}
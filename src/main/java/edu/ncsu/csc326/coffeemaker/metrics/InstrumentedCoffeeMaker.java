@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) 2009,  Sarah Heckman, Laurie Williams, Dright Ho
+ * All Rights Reserved.
+ *
+ * Permission has been explicitly granted to the University of Minnesota
+ * Software Engineering Center to use and distribute this source for
+ * educational purposes, including delivering online education through
+ * Coursera or other entities.
+ *
+ * No warranty is given regarding this software, including warranties as
+ * to the correctness or completeness of this software, including
+ * fitness for purpose.
+ */
+package edu.ncsu.csc326.coffeemaker.metrics;
+
+import edu.ncsu.csc326.coffeemaker.CoffeeMaker;
+import edu.ncsu.csc326.coffeemaker.Inventory;
+import edu.ncsu.csc326.coffeemaker.Receipt;
+import edu.ncsu.csc326.coffeemaker.Recipe;
+import edu.ncsu.csc326.coffeemaker.RecipeBook;
+import edu.ncsu.csc326.coffeemaker.RecipeSnapshot;
+
+/**
+ * CoffeeMaker that counts every purchase by recipe and outcome and
+ * samples the latency of makeCoffee and useIngredients.  Single and
+ * batched purchases are both counted.
+ */
+public class InstrumentedCoffeeMaker extends CoffeeMaker {
+	private final PurchaseMetrics metrics;
+
+	/**
+	 * Creates an instrumented coffee maker with its own metrics.
+	 * @param recipeBook
+	 * @param inventory
+	 */
+	public InstrumentedCoffeeMaker(RecipeBook recipeBook, Inventory inventory) {
+		this(recipeBook, inventory, new PurchaseMetrics());
+	}
+
+	/**
+	 * Creates an instrumented coffee maker that reports into the
+	 * given metrics, which several machines may share.
+	 * @param recipeBook
+	 * @param inventory
+	 * @param metrics
+	 */
+	public InstrumentedCoffeeMaker(RecipeBook recipeBook, Inventory inventory, PurchaseMetrics metrics) {
+		super(recipeBook, inventory);
+		this.metrics = metrics;
+	}
+
+	/**
+	 * Returns the metrics of this coffee maker.
+	 * @return PurchaseMetrics
+	 */
+	public PurchaseMetrics getMetrics() {
+		return metrics;
+	}
+
+	protected long purchase(RecipeSnapshot recipes, int recipeToPurchase, int amtPaid) {
+		long receipt;
+		if (metrics.sample()) {
+			long start = System.nanoTime();
+			receipt = super.purchase(recipes, recipeToPurchase, amtPaid);
+			metrics.recordMakeCoffee(System.nanoTime() - start);
+		} else {
+			receipt = super.purchase(recipes, recipeToPurchase, amtPaid);
+		}
+		// A missing recipe past the end of the book is only counted in
+		// total, so a stray index cannot grow the per-recipe counters.
+		if (recipeToPurchase >= recipes.length() && Receipt.outcome(receipt) == Receipt.NO_SUCH_RECIPE) {
+			metrics.record(-1, amtPaid, receipt);
+		} else {
+			metrics.record(recipeToPurchase, amtPaid, receipt);
+		}
+		return receipt;
+	}
+
+	protected boolean takeIngredients(RecipeSnapshot recipes, Recipe recipe) {
+		if (!metrics.sample()) {
+			return super.takeIngredients(recipes, recipe);
+		}
+		long start = System.nanoTime();
+		boolean taken = super.takeIngredients(recipes, recipe);
+		metrics.recordUseIngredients(System.nanoTime() - start);
+		return taken;
+	}
+}
@@ -0,0 +1,168 @@
+/*
+ * Copyright (c) 2009,  Sarah Heckman, Laurie Williams, Dright Ho
+ * All Rights Reserved.
+ *
+ * Permission has been explicitly granted to the University of Minnesota
+ * Software Engineering Center to use and distribute this source for
+ * educational purposes, including delivering online education through
+ * Coursera or other entities.
+ *
+ * No warranty is given regarding this software, including warranties as
+ * to the correctness or completeness of this software, including
+ * fitness for purpose.
+ */
+package edu.ncsu.csc326.coffeemaker.metrics;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Concurrent latency histogram with HDR-style log-linear buckets.
+ *
+ * Each power of two is split into 16 linear sub-buckets, so any
+ * recorded value is reported within about 6% of its true value, from
+ * one nanosecond up to about 18 minutes, in 592 fixed buckets.  Every
+ * bucket is a striped LongAdder, so recording from many threads does
+ * not contend and reading never blocks a writer.
+ */
+public class LatencyHistogram {
+	/** log2 of the number of sub-buckets per power of two */
+	private static final int SUB_BITS = 4;
+	private static final int SUB_BUCKETS = 1 << SUB_BITS;
+	/** Largest value that gets its own bucket, about 18 minutes in ns */
+	public static final long MAX_VALUE = (1L << 40) - 1;
+	private static final int BUCKETS = index(MAX_VALUE) + 1;
+
+	private final LongAdder[] buckets;
+	private final LongAdder sum;
+	private final LongAccumulator max;
+
+	/**
+	 * Creates an empty histogram.
+	 */
+	public LatencyHistogram() {
+		buckets = new LongAdder[BUCKETS];
+		for (int i = 0; i < BUCKETS; i++) {
+			buckets[i] = new LongAdder();
+		}
+		sum = new LongAdder();
+		max = new LongAccumulator(Math::max, 0);
+	}
+
+	/**
+	 * Records one value in nanoseconds.  Negative values count as
+	 * zero and values above MAX_VALUE as MAX_VALUE.
+	 * @param nanos
+	 */
+	public void record(long nanos) {
+		long value = nanos < 0 ? 0 : Math.min(nanos, MAX_VALUE);
+		buckets[index(value)].increment();
+		sum.add(value);
+		max.accumulate(value);
+	}
+
+	/**
+	 * Returns a copy of the current counts.  Values recorded while
+	 * the copy is taken may or may not be included.
+	 * @return Snapshot
+	 */
+	public Snapshot snapshot() {
+		long[] counts = new long[BUCKETS];
+		long total = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			counts[i] = buckets[i].sum();
+			total += counts[i];
+		}
+		return new Snapshot(counts, total, sum.sum(), max.get());
+	}
+
+	static int index(long value) {
+		if (value < SUB_BUCKETS) {
+			return (int) value;
+		}
+		int exponent = 63 - Long.numberOfLeadingZeros(value);
+		int sub = (int) (value >>> (exponent - SUB_BITS)) & (SUB_BUCKETS - 1);
+		return (exponent - SUB_BITS + 1) * SUB_BUCKETS + sub;
+	}
+
+	static long lowerBound(int index) {
+		if (index < SUB_BUCKETS) {
+			return index;
+		}
+		int exponent = index / SUB_BUCKETS + SUB_BITS - 1;
+		long sub = index % SUB_BUCKETS;
+		return (SUB_BUCKETS + sub) << (exponent - SUB_BITS);
+	}
+
+	/**
+	 * Point-in-time copy of a LatencyHistogram.
+	 */
+	public static final class Snapshot {
+		private final long[] counts;
+		private final long count;
+		private final long sum;
+		private final long max;
+
+		Snapshot(long[] counts, long count, long sum, long max) {
+			this.counts = counts;
+			this.count = count;
+			this.sum = sum;
+			this.max = max;
+		}
+
+		/**
+		 * Returns the number of recorded values.
+		 * @return long
+		 */
+		public long getCount() {
+			return count;
+		}
+
+		/**
+		 * Returns the largest recorded value.
+		 * @return long
+		 */
+		public long getMax() {
+			return max;
+		}
+
+		/**
+		 * Returns the mean of the recorded values, or 0 if empty.
+		 * @return double
+		 */
+		public double getMean() {
+			return count == 0 ? 0 : (double) sum / count;
+		}
+
+		/**
+		 * Returns the value at the given percentile, from 0 to 100,
+		 * as the upper end of the bucket it falls in.  Returns 0 if
+		 * nothing was recorded.
+		 * @param percentile
+		 * @return long
+		 */
+		public long valueAt(double percentile) {
+			if (count == 0) {
+				return 0;
+			}
+			long rank = Math.max(1, (long) Math.ceil(count * Math.min(100, percentile) / 100));
+			long seen = 0;
+			for (int i = 0; i < counts.length; i++) {
+				seen += counts[i];
+				if (seen >= rank) {
+					return Math.min(max, lowerBound(i + 1) - 1);
+				}
+			}
+			return max;
+		}
+
+		/**
+		 * Returns count, mean and the usual percentiles in ns.
+		 * @return String
+		 */
+		public String toString() {
+			return String.format("count=%d mean=%.0f p50=%d p90=%d p99=%d p99.9=%d max=%d",
+					count, getMean(), valueAt(50), valueAt(90), valueAt(99), valueAt(99.9), max);
+		}
+	}
+}
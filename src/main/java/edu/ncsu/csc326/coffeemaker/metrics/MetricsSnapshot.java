@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2009,  Sarah Heckman, Laurie Williams, Dright Ho
+ * All Rights Reserved.
+ *
+ * Permission has been explicitly granted to the University of Minnesota
+ * Software Engineering Center to use and distribute this source for
+ * educational purposes, including delivering online education through
+ * Coursera or other entities.
+ *
+ * No warranty is given regarding this software, including warranties as
+ * to the correctness or completeness of this software, including
+ * fitness for purpose.
+ */
+package edu.ncsu.csc326.coffeemaker.metrics;
+
+import edu.ncsu.csc326.coffeemaker.Receipt;
+
+/**
+ * Point-in-time copy of PurchaseMetrics.
+ */
+public final class MetricsSnapshot {
+	private final long[] totals;
+	private final long[][] perRecipe;
+	private final long revenue;
+	private final LatencyHistogram.Snapshot makeCoffee;
+	private final LatencyHistogram.Snapshot useIngredients;
+
+	MetricsSnapshot(long[] totals, long[][] perRecipe, long revenue,
+			LatencyHistogram.Snapshot makeCoffee, LatencyHistogram.Snapshot useIngredients) {
+		this.totals = totals;
+		this.perRecipe = perRecipe;
+		this.revenue = revenue;
+		this.makeCoffee = makeCoffee;
+		this.useIngredients = useIngredients;
+	}
+
+	/**
+	 * Returns the number of orders with the given Receipt outcome.
+	 * @param outcome
+	 * @return long
+	 */
+	public long getCount(int outcome) {
+		return totals[outcome];
+	}
+
+	/**
+	 * Returns the number of orders for the recipe slot with the
+	 * given Receipt outcome.
+	 * @param recipe
+	 * @param outcome
+	 * @return long
+	 */
+	public long getCount(int recipe, int outcome) {
+		return recipe >= 0 && recipe < perRecipe.length ? perRecipe[recipe][outcome] : 0;
+	}
+
+	/**
+	 * Returns the number of orders of every outcome.
+	 * @return long
+	 */
+	public long getOrders() {
+		long orders = 0;
+		for (long total : totals) {
+			orders += total;
+		}
+		return orders;
+	}
+
+	/**
+	 * Returns the number of recipe slots that have counters.
+	 * @return int
+	 */
+	public int getRecipeSlots() {
+		return perRecipe.length;
+	}
+
+	/**
+	 * Returns the money taken for beverages that were made.
+	 * @return long
+	 */
+	public long getRevenue() {
+		return revenue;
+	}
+
+	/**
+	 * Returns the sampled latencies of makeCoffee.
+	 * @return LatencyHistogram.Snapshot
+	 */
+	public LatencyHistogram.Snapshot getMakeCoffeeLatency() {
+		return makeCoffee;
+	}
+
+	/**
+	 * Returns the sampled latencies of useIngredients.
+	 * @return LatencyHistogram.Snapshot
+	 */
+	public LatencyHistogram.Snapshot getUseIngredientsLatency() {
+		return useIngredients;
+	}
+
+	/**
+	 * Returns a readable summary of the counters and latencies.
+	 * @return String
+	 */
+	public String toString() {
+		StringBuilder buf = new StringBuilder();
+		for (int i = 0; i < totals.length; i++) {
+			buf.append(Receipt.describe(i)).append(": ").append(totals[i]).append("\n");
+		}
+		buf.append("revenue: ").append(revenue).append("\n");
+		buf.append("makeCoffee ns: ").append(makeCoffee).append("\n");
+		buf.append("useIngredients ns: ").append(useIngredients).append("\n");
+		return buf.toString();
+	}
+}
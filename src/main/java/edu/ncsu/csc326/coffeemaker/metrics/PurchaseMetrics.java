@@ -0,0 +1,159 @@
+/*
+ * Copyright (c) 2009,  Sarah Heckman, Laurie Williams, Dright Ho
+ * All Rights Reserved.
+ *
+ * Permission has been explicitly granted to the University of Minnesota
+ * Software Engineering Center to use and distribute this source for
+ * educational purposes, including delivering online education through
+ * Coursera or other entities.
+ *
+ * No warranty is given regarding this software, including warranties as
+ * to the correctness or completeness of this software, including
+ * fitness for purpose.
+ */
+package edu.ncsu.csc326.coffeemaker.metrics;
+
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+import edu.ncsu.csc326.coffeemaker.Receipt;
+
+/**
+ * Counters and latency histograms for the purchase path.
+ *
+ * Outcomes are counted per recipe slot and in total on striped
+ * LongAdders.  Latencies are sampled: one order in every 2^sampleShift
+ * is timed, which keeps the two System.nanoTime calls off most orders.
+ * snapshot() reads everything without pausing purchases.
+ */
+public class PurchaseMetrics {
+	/** Default latency sampling: one order in 2^8 */
+	public static final int DEFAULT_SAMPLE_SHIFT = 8;
+
+	private final LongAdder[] outcomes;
+	private final LongAdder revenue;
+	/** Outcome counters by recipe slot; grown under this object's lock */
+	private volatile LongAdder[][] byRecipe;
+	private final LatencyHistogram makeCoffeeLatency;
+	private final LatencyHistogram useIngredientsLatency;
+	private final int sampleMask;
+
+	/**
+	 * Creates metrics that time one order in 256.
+	 */
+	public PurchaseMetrics() {
+		this(DEFAULT_SAMPLE_SHIFT);
+	}
+
+	/**
+	 * Creates metrics that time one order in 2^sampleShift; zero
+	 * times every order.
+	 * @param sampleShift
+	 */
+	public PurchaseMetrics(int sampleShift) {
+		if (sampleShift < 0 || sampleShift > 30) {
+			throw new IllegalArgumentException("Sample shift must be between 0 and 30");
+		}
+		outcomes = new LongAdder[Receipt.OUTCOMES];
+		for (int i = 0; i < outcomes.length; i++) {
+			outcomes[i] = new LongAdder();
+		}
+		revenue = new LongAdder();
+		byRecipe = new LongAdder[0][];
+		makeCoffeeLatency = new LatencyHistogram();
+		useIngredientsLatency = new LatencyHistogram();
+		sampleMask = (1 << sampleShift) - 1;
+	}
+
+	/**
+	 * Returns true if the caller should time the current order.
+	 * @return boolean
+	 */
+	public boolean sample() {
+		return (ThreadLocalRandom.current().nextInt() & sampleMask) == 0;
+	}
+
+	/**
+	 * Counts a finished purchase of the recipe in the given slot.
+	 * A negative slot is only counted in total.
+	 * @param recipeToPurchase
+	 * @param amtPaid
+	 * @param receipt
+	 */
+	public void record(int recipeToPurchase, int amtPaid, long receipt) {
+		int outcome = Receipt.outcome(receipt);
+		outcomes[outcome].increment();
+		if (outcome == Receipt.SOLD) {
+			revenue.add(amtPaid - Receipt.change(receipt));
+		}
+		if (recipeToPurchase >= 0) {
+			counters(recipeToPurchase)[outcome].increment();
+		}
+	}
+
+	/**
+	 * Records the latency of a whole makeCoffee call.
+	 * @param nanos
+	 */
+	public void recordMakeCoffee(long nanos) {
+		makeCoffeeLatency.record(nanos);
+	}
+
+	/**
+	 * Records the latency of a useIngredients call.
+	 * @param nanos
+	 */
+	public void recordUseIngredients(long nanos) {
+		useIngredientsLatency.record(nanos);
+	}
+
+	/**
+	 * Returns a copy of every counter and histogram.
+	 * @return MetricsSnapshot
+	 */
+	public MetricsSnapshot snapshot() {
+		long[] totals = new long[outcomes.length];
+		for (int i = 0; i < totals.length; i++) {
+			totals[i] = outcomes[i].sum();
+		}
+		LongAdder[][] recipes = byRecipe;
+		long[][] perRecipe = new long[recipes.length][];
+		for (int slot = 0; slot < recipes.length; slot++) {
+			perRecipe[slot] = new long[Receipt.OUTCOMES];
+			if (recipes[slot] != null) {
+				for (int i = 0; i < Receipt.OUTCOMES; i++) {
+					perRecipe[slot][i] = recipes[slot][i].sum();
+				}
+			}
+		}
+		return new MetricsSnapshot(totals, perRecipe, revenue.sum(),
+				makeCoffeeLatency.snapshot(), useIngredientsLatency.snapshot());
+	}
+
+	private LongAdder[] counters(int slot) {
+		LongAdder[][] recipes = byRecipe;
+		if (slot < recipes.length && recipes[slot] != null) {
+			return recipes[slot];
+		}
+		return createCounters(slot);
+	}
+
+	private synchronized LongAdder[] createCounters(int slot) {
+		LongAdder[][] recipes = byRecipe;
+		if (slot >= recipes.length) {
+			recipes = Arrays.copyOf(recipes, Math.max(slot + 1, recipes.length * 2));
+		} else if (recipes[slot] != null) {
+			return recipes[slot];
+		} else {
+			recipes = recipes.clone();
+		}
+		LongAdder[] counters = new LongAdder[Receipt.OUTCOMES];
+		for (int i = 0; i < counters.length; i++) {
+			counters[i] = new LongAdder();
+		}
+		recipes[slot] = counters;
+		byRecipe = recipes;
+		return counters;
+	}
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright (c) 2009,  Sarah Heckman, Laurie Williams, Dright Ho
+ * All Rights Reserved.
+ *
+ * Permission has been explicitly granted to the University of Minnesota
+ * Software Engineering Center to use and distribute this source for
+ * educational purposes, including delivering online education through
+ * Coursera or other entities.
+ *
+ * No warranty is given regarding this software, including warranties as
+ * to the correctness or completeness of this software, including
+ * fitness for purpose.
+ */
+package edu.ncsu.csc326.coffeemaker.net;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+
+/**
+ * Pool of equally sized direct buffers owned by one event loop.
+ *
+ * A connection only holds a buffer while it has unhandled request
+ * bytes or unwritten response bytes, so idle connections cost no
+ * buffer memory.  Not thread-safe: only the owning loop uses it.
+ */
+final class BufferPool {
+	private final int bufferSize;
+	private final int maxIdle;
+	private final ArrayDeque<ByteBuffer> idle = new ArrayDeque<ByteBuffer>();
+
+	/**
+	 * Creates a pool that keeps at most maxIdle free buffers.
+	 * @param bufferSize
+	 * @param maxIdle
+	 */
+	BufferPool(int bufferSize, int maxIdle) {
+		this.bufferSize = bufferSize;
+		this.maxIdle = maxIdle;
+	}
+
+	/**
+	 * Returns a cleared buffer, allocating one if the pool is empty.
+	 * @return ByteBuffer
+	 */
+	ByteBuffer take() {
+		ByteBuffer buffer = idle.pollFirst();
+		return buffer != null ? buffer : ByteBuffer.allocateDirect(bufferSize);
+	}
+
+	/**
+	 * Returns a buffer to the pool.  Buffers beyond maxIdle are left
+	 * to the garbage collector.
+	 * @param buffer
+	 */
+	void give(ByteBuffer buffer) {
+		if (idle.size() < maxIdle) {
+			buffer.clear();
+			idle.addFirst(buffer);
+		}
+	}
+
+	/**
+	 * Returns the number of free buffers in the pool.
+	 * @return int
+	 */
+	int idle() {
+		return idle.size();
+	}
+}
@@ -0,0 +1,177 @@
+/*
+ * Copyright (c) 2009,  Sarah Heckman, Laurie Williams, Dright Ho
+ * All Rights Reserved.
+ *
+ * Permission has been explicitly granted to the University of Minnesota
+ * Software Engineering Center to use and distribute this source for
+ * educational purposes, including delivering online education through
+ * Coursera or other entities.
+ *
+ * No warranty is given regarding this software, including warranties as
+ * to the correctness or completeness of this software, including
+ * fitness for purpose.
+ */
+package edu.ncsu.csc326.coffeemaker.net;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import edu.ncsu.csc326.coffeemaker.CoffeeMaker;
+import edu.ncsu.csc326.coffeemaker.journal.Checkpoint;
+
+/**
+ * Non-blocking network front end for a CoffeeMaker.
+ *
+ * The server runs one selector-based event loop per thread, by
+ * default one per processor.  The first loop also accepts new
+ * connections and hands them out round robin, so each connection
+ * stays on one loop thread for its whole life.  Clients speak the
+ * line protocol described in Protocol and may pipeline any number
+ * of requests; responses come back in request order.
+ *
+ * Requests run on the loop thread, so the coffee maker should not
+ * block: a JournaledCoffeeMaker that waits for every sync would
+ * stall all the connections of its loop.
+ */
+public class CoffeeServer implements Closeable {
+	/** Port used by main when none is given */
+	public static final int DEFAULT_PORT = 8326;
+
+	private final ServerSocketChannel channel;
+	private final EventLoop [] loops;
+	private final Thread [] threads;
+	private final AtomicInteger next = new AtomicInteger();
+
+	/**
+	 * Starts a server for the coffee maker on the given port of
+	 * every interface, with one event loop per processor.  Port 0
+	 * picks a free port.
+	 * @param coffeeMaker
+	 * @param port
+	 * @throws IOException
+	 */
+	public CoffeeServer(CoffeeMaker coffeeMaker, int port) throws IOException {
+		this(coffeeMaker, new InetSocketAddress(port), Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * Starts a server for the coffee maker on the given address with
+	 * the given number of event loops.
+	 * @param coffeeMaker
+	 * @param address
+	 * @param loopCount
+	 * @throws IOException
+	 */
+	public CoffeeServer(CoffeeMaker coffeeMaker, InetSocketAddress address, int loopCount) throws IOException {
+		if (loopCount < 1) {
+			throw new IllegalArgumentException("loopCount must be positive");
+		}
+		channel = ServerSocketChannel.open();
+		loops = new EventLoop[loopCount];
+		threads = new Thread[loopCount];
+		try {
+			channel.bind(address, 1024);
+			for (int i = 0; i < loopCount; i++) {
+				loops[i] = new EventLoop(this, coffeeMaker);
+			}
+			loops[0].listen(channel);
+		} catch (IOException e) {
+			channel.close();
+			throw e;
+		}
+		for (int i = 0; i < loopCount; i++) {
+			threads[i] = new Thread(loops[i], "coffee-loop-" + i);
+			threads[i].start();
+		}
+	}
+
+	/**
+	 * Returns the loop the next accepted connection goes to.
+	 * @return EventLoop
+	 */
+	EventLoop nextLoop() {
+		return loops[(next.getAndIncrement() & Integer.MAX_VALUE) % loops.length];
+	}
+
+	/**
+	 * Returns the address the server listens on.
+	 * @return InetSocketAddress
+	 * @throws IOException
+	 */
+	public InetSocketAddress getAddress() throws IOException {
+		return (InetSocketAddress) channel.getLocalAddress();
+	}
+
+	/**
+	 * Returns the number of open client connections.
+	 * @return int
+	 */
+	public int getConnections() {
+		int total = 0;
+		for (EventLoop loop : loops) {
+			total += loop.connections();
+		}
+		return total;
+	}
+
+	/**
+	 * Returns the number of event loops.
+	 * @return int
+	 */
+	public int getLoops() {
+		return loops.length;
+	}
+
+	/**
+	 * Stops accepting, closes every connection and waits for the
+	 * loop threads to finish.
+	 * @throws IOException
+	 */
+	public void close() throws IOException {
+		for (EventLoop loop : loops) {
+			loop.stop();
+		}
+		try {
+			for (Thread t : threads) {
+				t.join();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} finally {
+			channel.close();
+		}
+	}
+
+	/**
+	 * Serves a coffee maker on the port in args[0], or DEFAULT_PORT.
+	 * If a checkpoint file is given in args[1] the coffee maker is
+	 * loaded from it, if it exists, and saved to it on shutdown.
+	 * @param args
+	 * @throws IOException
+	 */
+	public static void main(String[] args) throws IOException {
+		int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+		final Path checkpoint = args.length > 1 ? Paths.get(args[1]) : null;
+		final CoffeeMaker coffeeMaker = checkpoint != null && Files.exists(checkpoint)
+				? Checkpoint.load(checkpoint) : new CoffeeMaker();
+		final CoffeeServer server = new CoffeeServer(coffeeMaker, port);
+		Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+			try {
+				server.close();
+				if (checkpoint != null) {
+					Checkpoint.write(checkpoint, coffeeMaker);
+				}
+			} catch (IOException e) {
+				System.err.println("Error saving checkpoint: " + e.getMessage());
+			}
+		}));
+		System.out.println("Coffee maker listening on " + server.getAddress()
+				+ " with " + server.getLoops() + " event loops");
+	}
+}
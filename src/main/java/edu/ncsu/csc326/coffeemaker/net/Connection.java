@@ -0,0 +1,36 @@
+/*
+ * Copyright (c) 2009,  Sarah Heckman, Laurie Williams, Dright Ho
+ * All Rights Reserved.
+ *
+ * Permission has been explicitly granted to the University of Minnesota
+ * Software Engineering Center to use and distribute this source for
+ * educational purposes, including delivering online education through
+ * Coursera or other entities.
+ *
+ * No warranty is given regarding this software, including warranties as
+ * to the correctness or completeness of this software, including
+ * fitness for purpose.
+ */
+package edu.ncsu.csc326.coffeemaker.net;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+
+/**
+ * State of one client connection, only touched by its event loop.
+ */
+final class Connection {
+	final SocketChannel channel;
+	SelectionKey key;
+	/** Request bytes not handled yet, in write mode, or null */
+	ByteBuffer in;
+	/** Response bytes not written yet, in read mode, or null */
+	ByteBuffer out;
+	/** Set once the connection should close after out is written */
+	boolean closing;
+
+	Connection(SocketChannel channel) {
+		this.channel = channel;
+	}
+}
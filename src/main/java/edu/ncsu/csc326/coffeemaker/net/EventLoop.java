@@ -0,0 +1,298 @@
+/*
+ * Copyright (c) 2009,  Sarah Heckman, Laurie Williams, Dright Ho
+ * All Rights Reserved.
+ *
+ * Permission has been explicitly granted to the University of Minnesota
+ * Software Engineering Center to use and distribute this source for
+ * educational purposes, including delivering online education through
+ * Coursera or other entities.
+ *
+ * No warranty is given regarding this software, including warranties as
+ * to the correctness or completeness of this software, including
+ * fitness for purpose.
+ */
+package edu.ncsu.csc326.coffeemaker.net;
+
+import java.io.IOException;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import edu.ncsu.csc326.coffeemaker.CoffeeMaker;
+
+/**
+ * One selector thread serving a share of the server's connections.
+ *
+ * Requests are handled on the loop thread in the order they arrive.
+ * All complete lines in a read are handled before anything is
+ * written, so pipelined requests are answered with as few writes as
+ * possible.  When a client does not read its responses, the loop
+ * stops reading its requests until the backlog is written.
+ */
+final class EventLoop implements Runnable {
+	/** Size of every pooled buffer */
+	static final int BUFFER = 16 * 1024;
+
+	private final CoffeeServer server;
+	private final Selector selector;
+	private final Protocol protocol;
+	private final BufferPool pool = new BufferPool(BUFFER, 64);
+	/** Responses are built here and copied to a connection only if a write is short */
+	private final ByteBuffer scratch = ByteBuffer.allocateDirect(BUFFER);
+	private final Queue<SocketChannel> accepted = new ConcurrentLinkedQueue<SocketChannel>();
+	private final AtomicInteger connections = new AtomicInteger();
+	private volatile boolean running = true;
+
+	EventLoop(CoffeeServer server, CoffeeMaker coffeeMaker) throws IOException {
+		this.server = server;
+		this.selector = Selector.open();
+		this.protocol = new Protocol(coffeeMaker);
+	}
+
+	/**
+	 * Makes this loop accept connections on the server channel.
+	 * @param channel
+	 * @throws IOException
+	 */
+	void listen(ServerSocketChannel channel) throws IOException {
+		channel.configureBlocking(false);
+		channel.register(selector, SelectionKey.OP_ACCEPT);
+	}
+
+	/**
+	 * Hands an accepted connection to this loop.  Safe to call from
+	 * any thread.
+	 * @param channel
+	 */
+	void add(SocketChannel channel) {
+		accepted.add(channel);
+		selector.wakeup();
+	}
+
+	/**
+	 * Returns the number of open connections on this loop.
+	 * @return int
+	 */
+	int connections() {
+		return connections.get();
+	}
+
+	/**
+	 * Stops the loop; it closes its connections on the way out.
+	 */
+	void stop() {
+		running = false;
+		selector.wakeup();
+	}
+
+	public void run() {
+		try {
+			while (running) {
+				selector.select();
+				register();
+				Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+				while (keys.hasNext()) {
+					SelectionKey key = keys.next();
+					keys.remove();
+					if (key.isValid()) {
+						dispatch(key);
+					}
+				}
+			}
+		} catch (IOException e) {
+			// The selector itself failed; fall through and close everything
+		} finally {
+			for (SelectionKey key : selector.keys()) {
+				if (key.attachment() instanceof Connection) {
+					close((Connection) key.attachment());
+				}
+			}
+			SocketChannel channel;
+			while ((channel = accepted.poll()) != null) {
+				closeQuietly(channel);
+			}
+			try {
+				selector.close();
+			} catch (IOException e) {
+				// Nothing left to release
+			}
+		}
+	}
+
+	private void dispatch(SelectionKey key) {
+		if (key.isAcceptable()) {
+			accept((ServerSocketChannel) key.channel());
+			return;
+		}
+		Connection c = (Connection) key.attachment();
+		try {
+			if (key.isWritable()) {
+				write(c);
+			}
+			if (key.isValid() && key.isReadable()) {
+				read(c);
+			}
+		} catch (IOException e) {
+			close(c);
+		}
+	}
+
+	private void accept(ServerSocketChannel channel) {
+		SocketChannel client;
+		try {
+			while ((client = channel.accept()) != null) {
+				server.nextLoop().add(client);
+			}
+		} catch (IOException e) {
+			// Out of file descriptors or similar; the next select retries
+		}
+	}
+
+	private void register() {
+		SocketChannel channel;
+		while ((channel = accepted.poll()) != null) {
+			try {
+				channel.configureBlocking(false);
+				channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+				Connection c = new Connection(channel);
+				c.key = channel.register(selector, SelectionKey.OP_READ, c);
+				connections.incrementAndGet();
+			} catch (IOException e) {
+				closeQuietly(channel);
+			}
+		}
+	}
+
+	private void read(Connection c) throws IOException {
+		if (c.in == null) {
+			c.in = pool.take();
+		}
+		if (c.channel.read(c.in) < 0) {
+			close(c);
+			return;
+		}
+		serve(c);
+	}
+
+	/**
+	 * Handles every complete request line in c.in, unless the
+	 * responses back up, and writes the responses.
+	 */
+	private void serve(Connection c) throws IOException {
+		ByteBuffer in = c.in;
+		int limit = in.position();
+		int from = 0;
+		boolean stalled = false;
+		scratch.clear();
+		while (!c.closing) {
+			int eol = indexOf(in, from, limit, (byte) '\n');
+			if (eol < 0) {
+				break;
+			}
+			if (scratch.remaining() < Protocol.MAX_RESPONSE && !flush(c)) {
+				stalled = true;
+				break;
+			}
+			if (eol - from > Protocol.MAX_LINE) {
+				Protocol.error(scratch, "Line too long");
+				c.closing = true;
+			} else if (!protocol.handle(in, from, eol, scratch)) {
+				c.closing = true;
+			}
+			from = eol + 1;
+		}
+		in.limit(limit).position(from);
+		in.compact();
+		if (!stalled && !c.closing && in.position() > Protocol.MAX_LINE) {
+			Protocol.error(scratch, "Line too long");
+			c.closing = true;
+		}
+		if (in.position() == 0 || c.closing) {
+			pool.give(in);
+			c.in = null;
+		}
+		if (!stalled) {
+			flush(c);
+		}
+		if (c.closing && c.out == null) {
+			close(c);
+		}
+	}
+
+	/**
+	 * Writes the responses in scratch.  Returns true if all of them
+	 * were written; otherwise keeps the rest in c.out and waits for
+	 * the channel to become writable.
+	 */
+	private boolean flush(Connection c) throws IOException {
+		scratch.flip();
+		if (scratch.hasRemaining()) {
+			c.channel.write(scratch);
+		}
+		if (scratch.hasRemaining()) {
+			c.out = pool.take();
+			c.out.put(scratch).flip();
+			c.key.interestOps(SelectionKey.OP_WRITE);
+		}
+		scratch.clear();
+		return c.out == null;
+	}
+
+	private void write(Connection c) throws IOException {
+		c.channel.write(c.out);
+		if (c.out.hasRemaining()) {
+			return;
+		}
+		pool.give(c.out);
+		c.out = null;
+		if (c.closing) {
+			close(c);
+			return;
+		}
+		c.key.interestOps(SelectionKey.OP_READ);
+		if (c.in != null) {
+			serve(c);
+		}
+	}
+
+	private void close(Connection c) {
+		if (!c.channel.isOpen()) {
+			return;
+		}
+		c.key.cancel();
+		closeQuietly(c.channel);
+		if (c.in != null) {
+			pool.give(c.in);
+			c.in = null;
+		}
+		if (c.out != null) {
+			pool.give(c.out);
+			c.out = null;
+		}
+		connections.decrementAndGet();
+	}
+
+	private static int indexOf(ByteBuffer buffer, int from, int to, byte b) {
+		for (int i = from; i < to; i++) {
+			if (buffer.get(i) == b) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	private static void closeQuietly(SocketChannel channel) {
+		try {
+			channel.close();
+		} catch (IOException e) {
+			// Already closed by the peer
+		}
+	}
+}
@@ -0,0 +1,367 @@
+/*
+ * Copyright (c) 2009,  Sarah Heckman, Laurie Williams, Dright Ho
+ * All Rights Reserved.
+ *
+ * Permission has been explicitly granted to the University of Minnesota
+ * Software Engineering Center to use and distribute this source for
+ * educational purposes, including delivering online education through
+ * Coursera or other entities.
+ *
+ * No warranty is given regarding this software, including warranties as
+ * to the correctness or completeness of this software, including
+ * fitness for purpose.
+ */
+package edu.ncsu.csc326.coffeemaker.net;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import edu.ncsu.csc326.coffeemaker.CoffeeMaker;
+import edu.ncsu.csc326.coffeemaker.IngredientRegistry;
+import edu.ncsu.csc326.coffeemaker.Receipt;
+import edu.ncsu.csc326.coffeemaker.Recipe;
+import edu.ncsu.csc326.coffeemaker.Status;
+import edu.ncsu.csc326.coffeemaker.Units;
+import edu.ncsu.csc326.coffeemaker.exceptions.InventoryException;
+import edu.ncsu.csc326.coffeemaker.exceptions.RecipeException;
+
+/**
+ * Line protocol of the CoffeeServer.
+ *
+ * Every request is one line of space-separated ASCII fields and is
+ * answered by one line that starts with OK, NO or ERR.  Slots count
+ * from 0 like the CoffeeMaker methods.
+ * <pre>
+ * MAKE slot paid                          OK change | NO change reason
+ * RESTOCK coffee milk sugar chocolate     OK | ERR message
+ * STOCK                                   OK units... (by ingredient id)
+ * GET slot                                OK price coffee milk sugar chocolate name
+ * ADD price coffee milk sugar chocolate name   OK slot
+ * EDIT slot price coffee milk sugar chocolate  OK name
+ * DELETE slot                             OK name
+ * QUIT                                    closes the connection
+ * </pre>
+ * A make-coffee request is parsed and answered without allocating.
+ * Each event loop has its own Protocol, so the scratch state is
+ * never shared between threads.
+ */
+final class Protocol {
+	/** Longest request line, and the longest recipe name */
+	static final int MAX_LINE = 4096;
+	/** Room an output buffer needs before the next request is handled */
+	static final int MAX_RESPONSE = MAX_LINE + 128;
+
+	private static final int MAX_FIELDS = 8;
+	private static final byte [] OK = ascii("OK");
+	private static final byte [] NO = ascii("NO ");
+	private static final byte [] ERR = ascii("ERR ");
+	private static final byte [][] REASONS = new byte[Receipt.OUTCOMES][];
+
+	static {
+		for (int i = 0; i < REASONS.length; i++) {
+			REASONS[i] = ascii(Receipt.describe(i));
+		}
+	}
+
+	private final CoffeeMaker coffeeMaker;
+	private final int [] start = new int[MAX_FIELDS];
+	private final int [] end = new int[MAX_FIELDS];
+	private final int [] amounts = new int[IngredientRegistry.BUILT_IN];
+
+	Protocol(CoffeeMaker coffeeMaker) {
+		this.coffeeMaker = coffeeMaker;
+	}
+
+	/**
+	 * Handles the request line in[from, to), without its line
+	 * terminator, and appends the response line to out.  Returns
+	 * false if the client asked to close the connection.
+	 * @param in
+	 * @param from
+	 * @param to
+	 * @param out
+	 * @return boolean
+	 */
+	boolean handle(ByteBuffer in, int from, int to, ByteBuffer out) {
+		if (to > from && in.get(to - 1) == '\r') {
+			to--;
+		}
+		int fields = split(in, from, to);
+		if (fields == 0) {
+			error(out, "Empty request");
+		} else if (is(in, "MAKE")) {
+			make(in, fields, out);
+		} else if (is(in, "RESTOCK")) {
+			restock(in, fields, out);
+		} else if (is(in, "STOCK")) {
+			stock(out);
+		} else if (is(in, "GET")) {
+			get(in, fields, out);
+		} else if (is(in, "ADD")) {
+			add(in, fields, to, out);
+		} else if (is(in, "EDIT")) {
+			edit(in, fields, out);
+		} else if (is(in, "DELETE")) {
+			delete(in, fields, out);
+		} else if (is(in, "QUIT")) {
+			return false;
+		} else {
+			error(out, "Unknown command");
+		}
+		return true;
+	}
+
+	/**
+	 * Writes an error line, for requests that never reach handle.
+	 * @param out
+	 * @param message
+	 */
+	static void error(ByteBuffer out, String message) {
+		out.put(ERR);
+		putText(out, message);
+		out.put((byte) '\n');
+	}
+
+	private void make(ByteBuffer in, int fields, ByteBuffer out) {
+		int slot = fields == 3 ? Units.parse(in, start[1], end[1]) : Units.INVALID;
+		int paid = fields == 3 ? Units.parse(in, start[2], end[2]) : Units.INVALID;
+		if (slot == Units.INVALID || paid == Units.INVALID) {
+			error(out, "Usage: MAKE slot paid");
+			return;
+		}
+		long receipt = coffeeMaker.purchase(slot, paid);
+		if (Receipt.isSold(receipt)) {
+			out.put(OK).put((byte) ' ');
+			putInt(out, Receipt.change(receipt));
+		} else {
+			out.put(NO);
+			putInt(out, Receipt.change(receipt));
+			out.put((byte) ' ');
+			out.put(REASONS[Receipt.outcome(receipt)]);
+		}
+		out.put((byte) '\n');
+	}
+
+	private void restock(ByteBuffer in, int fields, ByteBuffer out) {
+		if (fields != 1 + amounts.length) {
+			error(out, "Usage: RESTOCK coffee milk sugar chocolate");
+			return;
+		}
+		int status = parseAmounts(in, 1);
+		if (status != Status.OK) {
+			error(out, Status.describe(status));
+			return;
+		}
+		try {
+			coffeeMaker.addInventory(amounts[IngredientRegistry.COFFEE], amounts[IngredientRegistry.MILK],
+					amounts[IngredientRegistry.SUGAR], amounts[IngredientRegistry.CHOCOLATE]);
+		} catch (InventoryException e) {
+			error(out, e.getMessage());
+			return;
+		}
+		ok(out);
+	}
+
+	private void stock(ByteBuffer out) {
+		out.put(OK);
+		for (int units : coffeeMaker.getInventory().getStockLevels()) {
+			out.put((byte) ' ');
+			putInt(out, units);
+		}
+		out.put((byte) '\n');
+	}
+
+	private void get(ByteBuffer in, int fields, ByteBuffer out) {
+		int slot = fields == 2 ? Units.parse(in, start[1], end[1]) : Units.INVALID;
+		if (slot == Units.INVALID) {
+			error(out, "Usage: GET slot");
+			return;
+		}
+		Recipe r = coffeeMaker.getRecipeBook().getRecipe(slot);
+		if (r == null) {
+			error(out, "No recipe in slot " + slot);
+			return;
+		}
+		out.put(OK).put((byte) ' ');
+		putInt(out, r.getPrice());
+		for (int i = 0; i < amounts.length; i++) {
+			out.put((byte) ' ');
+			putInt(out, r.getAmount(i));
+		}
+		out.put((byte) ' ');
+		putText(out, r.getName());
+		out.put((byte) '\n');
+	}
+
+	private void add(ByteBuffer in, int fields, int to, ByteBuffer out) {
+		// The name is everything after the amounts, spaces included
+		if (fields < 3 + amounts.length) {
+			error(out, "Usage: ADD price coffee milk sugar chocolate name");
+			return;
+		}
+		int status = parseRecipe(in, 1);
+		if (status != Status.OK) {
+			error(out, Status.describe(status));
+			return;
+		}
+		String name = decode(in, start[2 + amounts.length], to);
+		Recipe r;
+		try {
+			r = new Recipe(name, Units.parse(in, start[1], end[1]), amounts);
+		} catch (RecipeException e) {
+			error(out, e.getMessage());
+			return;
+		}
+		if (!coffeeMaker.addRecipe(r)) {
+			error(out, name + " could not be added");
+			return;
+		}
+		out.put(OK).put((byte) ' ');
+		putInt(out, coffeeMaker.getRecipeBook().indexOf(name));
+		out.put((byte) '\n');
+	}
+
+	private void edit(ByteBuffer in, int fields, ByteBuffer out) {
+		int slot = fields == 3 + amounts.length ? Units.parse(in, start[1], end[1]) : Units.INVALID;
+		if (slot == Units.INVALID) {
+			error(out, "Usage: EDIT slot price coffee milk sugar chocolate");
+			return;
+		}
+		int status = parseRecipe(in, 2);
+		if (status != Status.OK) {
+			error(out, Status.describe(status));
+			return;
+		}
+		Recipe r;
+		try {
+			r = new Recipe("", Units.parse(in, start[2], end[2]), amounts);
+		} catch (RecipeException e) {
+			error(out, e.getMessage());
+			return;
+		}
+		named(coffeeMaker.editRecipe(slot, r), slot, out);
+	}
+
+	private void delete(ByteBuffer in, int fields, ByteBuffer out) {
+		int slot = fields == 2 ? Units.parse(in, start[1], end[1]) : Units.INVALID;
+		if (slot == Units.INVALID) {
+			error(out, "Usage: DELETE slot");
+			return;
+		}
+		named(coffeeMaker.deleteRecipe(slot), slot, out);
+	}
+
+	private static void named(String name, int slot, ByteBuffer out) {
+		if (name == null) {
+			error(out, "No recipe in slot " + slot);
+			return;
+		}
+		out.put(OK).put((byte) ' ');
+		putText(out, name);
+		out.put((byte) '\n');
+	}
+
+	/** Parses the price at field first and the amounts after it */
+	private int parseRecipe(ByteBuffer in, int first) {
+		if (Units.parse(in, start[first], end[first]) == Units.INVALID) {
+			return Status.of(Status.INVALID_PRICE, 0);
+		}
+		return parseAmounts(in, first + 1);
+	}
+
+	/** Parses one amount per built-in ingredient from field first on */
+	private int parseAmounts(ByteBuffer in, int first) {
+		for (int i = 0; i < amounts.length; i++) {
+			amounts[i] = Units.parse(in, start[first + i], end[first + i]);
+			if (amounts[i] == Units.INVALID) {
+				return Status.of(Status.INVALID_AMOUNT, i);
+			}
+		}
+		return Status.OK;
+	}
+
+	/**
+	 * Records where each space-separated field starts and ends, up
+	 * to MAX_FIELDS; the last one recorded may hold further fields.
+	 * Returns the number of fields found, which may exceed MAX_FIELDS.
+	 */
+	private int split(ByteBuffer in, int from, int to) {
+		int fields = 0;
+		int i = from;
+		while (i < to) {
+			while (i < to && in.get(i) == ' ') {
+				i++;
+			}
+			if (i == to) {
+				break;
+			}
+			int s = i;
+			while (i < to && in.get(i) != ' ') {
+				i++;
+			}
+			if (fields < MAX_FIELDS) {
+				start[fields] = s;
+				end[fields] = i;
+			}
+			fields++;
+		}
+		return fields;
+	}
+
+	private boolean is(ByteBuffer in, String command) {
+		if (end[0] - start[0] != command.length()) {
+			return false;
+		}
+		for (int i = 0; i < command.length(); i++) {
+			if ((in.get(start[0] + i) & ~0x20) != command.charAt(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static String decode(ByteBuffer in, int from, int to) {
+		byte [] bytes = new byte[to - from];
+		for (int i = 0; i < bytes.length; i++) {
+			bytes[i] = in.get(from + i);
+		}
+		return new String(bytes, StandardCharsets.UTF_8).trim();
+	}
+
+	private static void ok(ByteBuffer out) {
+		out.put(OK).put((byte) '\n');
+	}
+
+	/** Writes the decimal digits of value without allocating */
+	static void putInt(ByteBuffer out, int number) {
+		long value = number;
+		if (value < 0) {
+			out.put((byte) '-');
+			value = -value;
+		}
+		int digits = 1;
+		for (long v = value; v >= 10; v /= 10) {
+			digits++;
+		}
+		int at = out.position() + digits;
+		for (int i = 1; i <= digits; i++) {
+			out.put(at - i, (byte) ('0' + value % 10));
+			value /= 10;
+		}
+		out.position(at);
+	}
+
+	/** Writes the text as UTF-8 with line breaks replaced by spaces */
+	private static void putText(ByteBuffer out, String text) {
+		byte [] bytes = text.getBytes(StandardCharsets.UTF_8);
+		int length = Math.min(bytes.length, MAX_LINE);
+		for (int i = 0; i < length; i++) {
+			byte b = bytes[i];
+			out.put(b == '\n' || b == '\r' ? (byte) ' ' : b);
+		}
+	}
+
+	private static byte [] ascii(String text) {
+		return text.getBytes(StandardCharsets.US_ASCII);
+	}
+}
@@ -0,0 +1,207 @@
+/*
+ * Copyright (c) 2009,  Sarah Heckman, Laurie Williams, Dright Ho
+ * All Rights Reserved.
+ *
+ * Permission has been explicitly granted to the University of Minnesota
+ * Software Engineering Center to use and distribute this source for
+ * educational purposes, including delivering online education through
+ * Coursera or other entities.
+ *
+ * No warranty is given regarding this software, including warranties as
+ * to the correctness or completeness of this software, including
+ * fitness for purpose.
+ */
+package edu.ncsu.csc326.coffeemaker.net;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+
+import edu.ncsu.csc326.coffeemaker.CoffeeMaker;
+
+/**
+ * Runs a script of protocol requests against a CoffeeMaker without
+ * a network connection, for replaying a recorded day of operations.
+ *
+ * The script is read through one buffer in a single loop, so piped
+ * input is never lost and a script of any length runs in constant
+ * stack and memory.  Lines starting with '#' and blank lines are
+ * skipped.  Unlike the server, a line that is too long is reported
+ * and skipped instead of ending the run; QUIT ends it.
+ */
+public class ScriptRunner {
+	/** Size of the read and write buffers */
+	public static final int BUFFER = 64 * 1024;
+
+	private final Protocol protocol;
+	private final ByteBuffer in = ByteBuffer.allocateDirect(BUFFER);
+	private final ByteBuffer out = ByteBuffer.allocateDirect(BUFFER);
+	private long commands;
+	private long ok;
+	private long refused;
+	private long errors;
+	private long elapsedNanos;
+
+	/**
+	 * Creates a runner for the coffee maker.
+	 * @param coffeeMaker
+	 */
+	public ScriptRunner(CoffeeMaker coffeeMaker) {
+		this.protocol = new Protocol(coffeeMaker);
+	}
+
+	/**
+	 * Runs every request in the script and writes one response line
+	 * per request to output, or discards the responses if output is
+	 * null.  Returns the number of requests run by this call.
+	 * @param script
+	 * @param output
+	 * @return long
+	 * @throws IOException
+	 */
+	public long run(ReadableByteChannel script, WritableByteChannel output) throws IOException {
+		long start = System.nanoTime();
+		long before = commands;
+		in.clear();
+		out.clear();
+		boolean open = true;
+		boolean skipping = false;
+		while (open) {
+			boolean eof = script.read(in) < 0;
+			int limit = in.position();
+			int from = 0;
+			for (int i = 0; i < limit && open; i++) {
+				if (in.get(i) != '\n') {
+					continue;
+				}
+				if (skipping) {
+					skipping = false;
+				} else {
+					open = line(from, i, output);
+				}
+				from = i + 1;
+			}
+			if (eof && open && from < limit && !skipping) {
+				// Last line without a terminator
+				open = line(from, limit, output);
+				from = limit;
+			}
+			in.limit(limit).position(from);
+			in.compact();
+			if (open && in.position() > Protocol.MAX_LINE) {
+				if (!skipping) {
+					Protocol.error(reserve(output), "Line too long");
+					count();
+					skipping = true;
+				}
+				in.clear();
+			}
+			if (eof) {
+				break;
+			}
+		}
+		flush(output);
+		elapsedNanos += System.nanoTime() - start;
+		return commands - before;
+	}
+
+	private boolean line(int from, int to, WritableByteChannel output) throws IOException {
+		int first = from;
+		while (first < to && (in.get(first) == ' ' || in.get(first) == '\r')) {
+			first++;
+		}
+		if (first == to || in.get(first) == '#') {
+			return true;
+		}
+		boolean open = protocol.handle(in, from, to, reserve(output));
+		if (open) {
+			count();
+		}
+		return open;
+	}
+
+	/** Counts the response just written by its first byte */
+	private void count() {
+		commands++;
+		int last = out.position() - 1;
+		int begin = last;
+		while (begin > 0 && out.get(begin - 1) != '\n') {
+			begin--;
+		}
+		byte kind = out.get(begin);
+		if (kind == 'O') {
+			ok++;
+		} else if (kind == 'N') {
+			refused++;
+		} else {
+			errors++;
+		}
+	}
+
+	/** Makes room for one response and returns the output buffer */
+	private ByteBuffer reserve(WritableByteChannel output) throws IOException {
+		if (out.remaining() < Protocol.MAX_RESPONSE) {
+			flush(output);
+		}
+		return out;
+	}
+
+	private void flush(WritableByteChannel output) throws IOException {
+		out.flip();
+		while (output != null && out.hasRemaining()) {
+			output.write(out);
+		}
+		out.clear();
+	}
+
+	/**
+	 * Returns the number of requests run so far.
+	 * @return long
+	 */
+	public long getCommands() {
+		return commands;
+	}
+
+	/**
+	 * Returns the number of requests answered with OK.
+	 * @return long
+	 */
+	public long getOk() {
+		return ok;
+	}
+
+	/**
+	 * Returns the number of purchases that were refunded.
+	 * @return long
+	 */
+	public long getRefused() {
+		return refused;
+	}
+
+	/**
+	 * Returns the number of requests answered with an error.
+	 * @return long
+	 */
+	public long getErrors() {
+		return errors;
+	}
+
+	/**
+	 * Returns the nanoseconds spent running scripts so far.
+	 * @return long
+	 */
+	public long getElapsedNanos() {
+		return elapsedNanos;
+	}
+
+	/**
+	 * Returns a one-line summary of the requests and throughput.
+	 * @return String
+	 */
+	public String summary() {
+		double seconds = elapsedNanos / 1e9;
+		return String.format("%d commands (%d ok, %d refused, %d errors) in %.3f s, %.0f commands/s",
+				commands, ok, refused, errors, seconds, seconds > 0 ? commands / seconds : 0.0);
+	}
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) 2009,  Sarah Heckman, Laurie Williams, Dright Ho
+ * All Rights Reserved.
+ *
+ * Permission has been explicitly granted to the University of Minnesota
+ * Software Engineering Center to use and distribute this source for
+ * educational purposes, including delivering online education through
+ * Coursera or other entities.
+ *
+ * No warranty is given regarding this software, including warranties as
+ * to the correctness or completeness of this software, including
+ * fitness for purpose.
+ */
+package edu.ncsu.csc326.coffeemaker.service;
+
+import edu.ncsu.csc326.coffeemaker.Receipt;
+
+/**
+ * Outcome of an order placed through the OrderService: the Receipt
+ * of the purchase together with the order it answers and how long
+ * the order took from submission to completion.
+ */
+public final class OrderResult {
+	private final int recipe;
+	private final int amountPaid;
+	private final long receipt;
+	private final long latencyNanos;
+
+	/**
+	 * Creates the result of an order.
+	 * @param recipe
+	 * @param amountPaid
+	 * @param receipt
+	 * @param latencyNanos
+	 */
+	public OrderResult(int recipe, int amountPaid, long receipt, long latencyNanos) {
+		this.recipe = recipe;
+		this.amountPaid = amountPaid;
+		this.receipt = receipt;
+		this.latencyNanos = latencyNanos;
+	}
+
+	/**
+	 * Returns the recipe slot that was ordered.
+	 * @return int
+	 */
+	public int getRecipe() {
+		return recipe;
+	}
+
+	/**
+	 * Returns the amount paid with the order.
+	 * @return int
+	 */
+	public int getAmountPaid() {
+		return amountPaid;
+	}
+
+	/**
+	 * Returns the Receipt of the purchase.
+	 * @return long
+	 */
+	public long getReceipt() {
+		return receipt;
+	}
+
+	/**
+	 * Returns the Receipt outcome of the purchase.
+	 * @return int
+	 */
+	public int getOutcome() {
+		return Receipt.outcome(receipt);
+	}
+
+	/**
+	 * Returns the change, or the whole payment if the beverage
+	 * was not made.
+	 * @return int
+	 */
+	public int getChange() {
+		return Receipt.change(receipt);
+	}
+
+	/**
+	 * Returns true if the beverage was made.
+	 * @return boolean
+	 */
+	public boolean isSold() {
+		return Receipt.isSold(receipt);
+	}
+
+	/**
+	 * Returns why the order ended the way it did.
+	 * @return String
+	 */
+	public String getReason() {
+		return Receipt.describe(getOutcome());
+	}
+
+	/**
+	 * Returns the nanoseconds from submission to completion,
+	 * including the time spent queued.
+	 * @return long
+	 */
+	public long getLatencyNanos() {
+		return latencyNanos;
+	}
+
+	/**
+	 * Returns a string describing the result.
+	 * @return String
+	 */
+	public String toString() {
+		return "Order of recipe " + recipe + ": " + getReason() + ", change " + getChange();
+	}
+}
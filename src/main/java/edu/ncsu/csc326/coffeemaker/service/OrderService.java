@@ -0,0 +1,235 @@
+/*
+ * Copyright (c) 2009,  Sarah Heckman, Laurie Williams, Dright Ho
+ * All Rights Reserved.
+ *
+ * Permission has been explicitly granted to the University of Minnesota
+ * Software Engineering Center to use and distribute this source for
+ * educational purposes, including delivering online education through
+ * Coursera or other entities.
+ *
+ * No warranty is given regarding this software, including warranties as
+ * to the correctness or completeness of this software, including
+ * fitness for purpose.
+ */
+package edu.ncsu.csc326.coffeemaker.service;
+
+import java.io.Closeable;
+import java.lang.reflect.Method;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import edu.ncsu.csc326.coffeemaker.CoffeeMaker;
+import edu.ncsu.csc326.coffeemaker.metrics.LatencyHistogram;
+
+/**
+ * Asynchronous front end for a CoffeeMaker.
+ *
+ * order() returns straight away with a CompletableFuture that is
+ * completed with the OrderResult once an executor thread has made
+ * the purchase, so a gateway thread never waits on the inventory.
+ * The number of pending orders is bounded by a semaphore rather than
+ * by the executor, so backpressure works the same on an unbounded
+ * virtual-thread executor as on a bounded pool: when the bound is
+ * reached the returned future fails with a RejectedExecutionException
+ * and the caller keeps its money.
+ */
+public class OrderService implements Closeable {
+	/** Default bound on pending orders */
+	public static final int DEFAULT_MAX_PENDING = 1 << 17;
+
+	private final CoffeeMaker coffeeMaker;
+	private final Executor executor;
+	/** The executor if this service created it and must shut it down */
+	private final ExecutorService owned;
+	private final int maxPending;
+	private final Semaphore pending;
+	private final LatencyHistogram latency = new LatencyHistogram();
+	private final LongAdder rejected = new LongAdder();
+	private volatile boolean closed;
+
+	/**
+	 * Creates a service on newExecutor with the default bound on
+	 * pending orders.
+	 * @param coffeeMaker
+	 */
+	public OrderService(CoffeeMaker coffeeMaker) {
+		this(coffeeMaker, DEFAULT_MAX_PENDING);
+	}
+
+	/**
+	 * Creates a service on newExecutor that accepts at most
+	 * maxPending orders that have not completed yet.
+	 * @param coffeeMaker
+	 * @param maxPending
+	 */
+	public OrderService(CoffeeMaker coffeeMaker, int maxPending) {
+		this(coffeeMaker, newExecutor(maxPending), maxPending, true);
+	}
+
+	/**
+	 * Creates a service that runs orders on the given executor,
+	 * which the caller keeps and shuts down.
+	 * @param coffeeMaker
+	 * @param executor
+	 * @param maxPending
+	 */
+	public OrderService(CoffeeMaker coffeeMaker, Executor executor, int maxPending) {
+		this(coffeeMaker, executor, maxPending, false);
+	}
+
+	private OrderService(CoffeeMaker coffeeMaker, Executor executor, int maxPending, boolean owned) {
+		if (maxPending < 1) {
+			throw new IllegalArgumentException("maxPending must be positive");
+		}
+		this.coffeeMaker = coffeeMaker;
+		this.executor = executor;
+		this.owned = owned ? (ExecutorService) executor : null;
+		this.maxPending = maxPending;
+		this.pending = new Semaphore(maxPending);
+	}
+
+	/**
+	 * Returns an executor that starts a virtual thread per order if
+	 * the JDK has them, or else a pool with a thread per processor
+	 * and a queue that holds maxPending orders.
+	 * @param maxPending
+	 * @return ExecutorService
+	 */
+	public static ExecutorService newExecutor(int maxPending) {
+		ExecutorService virtual = newVirtualThreadExecutor();
+		if (virtual != null) {
+			return virtual;
+		}
+		int threads = Runtime.getRuntime().availableProcessors();
+		final AtomicInteger count = new AtomicInteger();
+		return new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<Runnable>(maxPending), task -> {
+					Thread t = new Thread(task, "order-" + count.incrementAndGet());
+					t.setDaemon(true);
+					return t;
+				});
+	}
+
+	/**
+	 * Returns an executor that starts a virtual thread per task, or
+	 * null if the running JDK has no virtual threads.  It is looked
+	 * up reflectively so the code still builds for Java 8.
+	 * @return ExecutorService
+	 */
+	public static ExecutorService newVirtualThreadExecutor() {
+		try {
+			Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+			return (ExecutorService) factory.invoke(null);
+		} catch (ReflectiveOperationException | RuntimeException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Places an order for the recipe in the given slot.  The future
+	 * completes with the result of the purchase, or fails with a
+	 * RejectedExecutionException if the service is full or closed.
+	 * @param recipeToPurchase
+	 * @param amtPaid
+	 * @return CompletableFuture
+	 */
+	public CompletableFuture<OrderResult> order(final int recipeToPurchase, final int amtPaid) {
+		final CompletableFuture<OrderResult> result = new CompletableFuture<OrderResult>();
+		if (closed || !pending.tryAcquire()) {
+			rejected.increment();
+			result.completeExceptionally(new RejectedExecutionException(
+					closed ? "Order service is closed" : maxPending + " orders are already pending"));
+			return result;
+		}
+		final long start = System.nanoTime();
+		try {
+			executor.execute(() -> {
+				long receipt;
+				try {
+					receipt = coffeeMaker.purchase(recipeToPurchase, amtPaid);
+				} catch (RuntimeException e) {
+					pending.release();
+					result.completeExceptionally(e);
+					return;
+				}
+				long nanos = System.nanoTime() - start;
+				latency.record(nanos);
+				// Release first so callbacks chained on the future can order again
+				pending.release();
+				result.complete(new OrderResult(recipeToPurchase, amtPaid, receipt, nanos));
+			});
+		} catch (RejectedExecutionException e) {
+			pending.release();
+			rejected.increment();
+			result.completeExceptionally(e);
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the number of orders accepted but not yet completed.
+	 * @return int
+	 */
+	public int getPending() {
+		return maxPending - pending.availablePermits();
+	}
+
+	/**
+	 * Returns the bound on pending orders.
+	 * @return int
+	 */
+	public int getMaxPending() {
+		return maxPending;
+	}
+
+	/**
+	 * Returns the number of orders turned away because the service
+	 * was full or closed.
+	 * @return long
+	 */
+	public long getRejected() {
+		return rejected.sum();
+	}
+
+	/**
+	 * Returns the distribution of order latencies, from submission
+	 * to completion, of the orders completed so far.
+	 * @return LatencyHistogram.Snapshot
+	 */
+	public LatencyHistogram.Snapshot getLatency() {
+		return latency.snapshot();
+	}
+
+	/**
+	 * Returns the coffee maker the orders are placed on.
+	 * @return CoffeeMaker
+	 */
+	public CoffeeMaker getCoffeeMaker() {
+		return coffeeMaker;
+	}
+
+	/**
+	 * Stops accepting orders.  If the service created its executor,
+	 * waits for the pending orders to complete and shuts it down.
+	 */
+	public void close() {
+		closed = true;
+		if (owned != null) {
+			owned.shutdown();
+			try {
+				owned.awaitTermination(10, TimeUnit.SECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+}
@@ -0,0 +1,224 @@
+package edu.ncsu.csc326.coffeemaker;
+
+import edu.ncsu.csc326.coffeemaker.exceptions.InventoryException;
+import edu.ncsu.csc326.coffeemaker.exceptions.RecipeException;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for AtomicInventory class.
+ */
+public class AtomicInventoryTest {
+    /**
+     * The object under test
+     */
+    private AtomicInventory inventory;
+
+    // Sample recipes
+    private Recipe coffee;
+    private Recipe mocha;
+
+    /**
+     * Initializes some recipes to test with the {@link AtomicInventory}
+     * object we wish to test
+     *
+     * @throws RecipeException if there was an error parsing the ingredient
+     *                         amount when setting up the recipe.
+     */
+    @Before
+    public void setUp() throws RecipeException {
+        inventory = new AtomicInventory();
+        coffee = CoffeeMakerTest.createRecipe("Coffee", "0", "3", "1", "1", "50");
+        mocha = CoffeeMakerTest.createRecipe("Mocha", "20", "3", "1", "1", "75");
+    }
+
+    /**
+     * Given a new atomic inventory
+     * When we read it
+     * Then every ingredient holds 15 units like the default inventory
+     */
+    @Test
+    public void testDefaultInventory() {
+        assertEquals("Coffee: 15\nMilk: 15\nSugar: 15\nChocolate: 15\n", inventory.toString());
+    }
+
+    /**
+     * Given the default inventory
+     * When we use the ingredients of a recipe that is in stock
+     * Then every ingredient of the recipe is deducted
+     */
+    @Test
+    public void testUseIngredients() {
+        assertTrue(inventory.useIngredients(coffee));
+        assertEquals("Coffee: 12\nMilk: 14\nSugar: 14\nChocolate: 15\n", inventory.toString());
+    }
+
+    /**
+     * Given the default inventory
+     * When we use the ingredients of a recipe that needs too much chocolate
+     * Then nothing is deducted
+     */
+    @Test
+    public void testUseIngredientsAllOrNothing() {
+        assertFalse(inventory.enoughIngredients(mocha));
+        assertFalse(inventory.useIngredients(mocha));
+        assertEquals("Coffee: 15\nMilk: 15\nSugar: 15\nChocolate: 15\n", inventory.toString());
+    }
+
+    /**
+     * Given an inventory with 60000 units of chocolate
+     * When we use a recipe that needs 40000, which sets the top bit of the packed demand
+     * Then the chocolate is deducted like any other amount that is in stock
+     *
+     * @throws RecipeException if there was an error parsing the ingredient
+     *                         amount when setting up the recipe.
+     */
+    @Test
+    public void testUseIngredientsTopLane() throws RecipeException {
+        Recipe chocolate = CoffeeMakerTest.createRecipe("Chocolate", "40000", "0", "0", "0", "50");
+        inventory.setChocolate(60000);
+        assertTrue(inventory.enoughIngredients(chocolate));
+        assertTrue(inventory.useIngredients(chocolate));
+        assertEquals(20000, inventory.getChocolate());
+    }
+
+    /**
+     * Given the default inventory
+     * When we add valid amounts of each ingredient
+     * Then the amounts are added to the inventory
+     *
+     * @throws InventoryException if there was an error parsing the quantity
+     *                            to a positive integer.
+     */
+    @Test
+    public void testAddInventory() throws InventoryException {
+        inventory.addCoffee("1");
+        inventory.addMilk("2");
+        inventory.addSugar("3");
+        inventory.addChocolate("4");
+        assertEquals("Coffee: 16\nMilk: 17\nSugar: 18\nChocolate: 19\n", inventory.toString());
+    }
+
+    /**
+     * Given we want to add sugar with the string of negative number
+     * When we add inventory with that string
+     * Then we get an exception thrown up
+     *
+     * @throws InventoryException if there was an error parsing the quantity
+     *                            to a positive integer.
+     */
+    @Test(expected = InventoryException.class)
+    public void testAddNegativeSugarAmount() throws InventoryException {
+        inventory.addSugar("-5");
+    }
+
+    /**
+     * Given an inventory close to the capacity of an ingredient
+     * When we add more of that ingredient than fits
+     * Then we get an exception and the amount is unchanged
+     */
+    @Test
+    public void testAddBeyondCapacity() {
+        inventory.setMilk(AtomicInventory.MAX_UNITS);
+        try {
+            inventory.addMilk("1");
+            fail("Adding past the capacity should throw");
+        } catch (InventoryException e) {
+            assertEquals(AtomicInventory.MAX_UNITS, inventory.getMilk());
+        }
+    }
+
+    /**
+     * Given an inventory with one ingredient at capacity
+     * When we restock all four ingredients at once
+     * Then we get an exception and no ingredient is changed
+     */
+    @Test
+    public void testRestockBeyondCapacity() {
+        inventory.setChocolate(AtomicInventory.MAX_UNITS);
+        try {
+            inventory.restock(1, 2, 3, 4);
+            fail("Restocking past the capacity should throw");
+        } catch (InventoryException e) {
+            assertEquals("Coffee: 15\nMilk: 15\nSugar: 15\nChocolate: " + AtomicInventory.MAX_UNITS + "\n",
+                    inventory.toString());
+        }
+    }
+
+    /**
+     * Given an inventory with milk at capacity
+     * When we restock through the status method
+     * Then we get an over-capacity status for milk and nothing is added
+     */
+    @Test
+    public void testTryRestockStatus() {
+        inventory.setMilk(AtomicInventory.MAX_UNITS);
+        int status = inventory.tryRestock(1, 1, 1, 1);
+        assertEquals(Status.of(Status.OVER_CAPACITY, IngredientRegistry.MILK), status);
+        assertEquals("Units of milk cannot exceed " + AtomicInventory.MAX_UNITS, Status.describe(status));
+        assertEquals(15, inventory.getCoffee());
+        assertEquals(Status.NOT_STOCKED, Status.code(inventory.tryAddStock(IngredientRegistry.BUILT_IN, 1)));
+    }
+
+    /**
+     * Given the default inventory
+     * When we add more units than an int can hold on top of the stock
+     * Then we get an over-capacity status and no ingredient changes
+     */
+    @Test
+    public void testAddStockDoesNotOverflow() {
+        assertEquals(Status.of(Status.OVER_CAPACITY, IngredientRegistry.MILK),
+                inventory.tryAddStock(IngredientRegistry.MILK, Integer.MAX_VALUE));
+        try {
+            inventory.addMilk("2147483647");
+            fail("Milk past capacity was added");
+        } catch (InventoryException e) {
+            assertEquals("Units of milk cannot exceed " + AtomicInventory.MAX_UNITS, e.getMessage());
+        }
+        assertEquals("Coffee: 15\nMilk: 15\nSugar: 15\nChocolate: 15\n", inventory.toString());
+    }
+
+    /**
+     * Given an inventory with stock for a fixed number of drinks
+     * When many threads purchase at once
+     * Then exactly that many purchases succeed and no ingredient goes negative
+     *
+     * @throws InterruptedException if the test is interrupted
+     */
+    @Test
+    public void testConcurrentPurchasesNeverOversell() throws InterruptedException {
+        inventory.setCoffee(3 * 1000);
+        inventory.setMilk(1000);
+        inventory.setSugar(1000);
+        inventory.setChocolate(0);
+        final AtomicInteger sold = new AtomicInteger();
+        final CountDownLatch start = new CountDownLatch(1);
+        Thread[] threads = new Thread[8];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int j = 0; j < 500; j++) {
+                    if (inventory.useIngredients(coffee)) {
+                        sold.incrementAndGet();
+                    }
+                }
+            });
+            threads[i].start();
+        }
+        start.countDown();
+        for (Thread t : threads) {
+            t.join();
+        }
+        assertEquals(1000, sold.get());
+        assertEquals("Coffee: 0\nMilk: 0\nSugar: 0\nChocolate: 0\n", inventory.toString());
+    }
+}
@@ -0,0 +1,132 @@
+package edu.ncsu.csc326.coffeemaker;
+
+import edu.ncsu.csc326.coffeemaker.exceptions.InventoryException;
+import edu.ncsu.csc326.coffeemaker.exceptions.RecipeException;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.BitSet;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for AvailabilityIndex class.
+ */
+public class AvailabilityIndexTest {
+    private CoffeeMaker coffeeMaker;
+    private AvailabilityIndex index;
+    /** Number of times the inventory was asked for ingredients */
+    private int uses;
+
+    /**
+     * Sets up a coffee maker with coffee in slot 0 and mocha in slot 1
+     * over the default inventory, and starts indexing it.
+     *
+     * @throws RecipeException if there was an error parsing the ingredient
+     *                         amount when setting up the recipe.
+     */
+    @Before
+    public void setUp() throws RecipeException {
+        Inventory inventory = new Inventory() {
+            public synchronized boolean useIngredients(Recipe r) {
+                uses++;
+                return super.useIngredients(r);
+            }
+        };
+        coffeeMaker = new CoffeeMaker(new RecipeBook(), inventory);
+        coffeeMaker.addRecipe(CoffeeMakerTest.createRecipe("Coffee", "0", "3", "1", "1", "50"));
+        coffeeMaker.addRecipe(CoffeeMakerTest.createRecipe("Mocha", "20", "3", "1", "1", "75"));
+        index = coffeeMaker.trackAvailability();
+    }
+
+    /**
+     * Given the default inventory of 15 units of everything
+     * When we query the index
+     * Then coffee has 5 servings, mocha none and empty slots none
+     */
+    @Test
+    public void testInitialServings() {
+        assertEquals(5, index.getServings(0));
+        assertEquals(0, index.getServings(1));
+        assertEquals(0, index.getServings(2));
+        assertTrue(index.isMakeable(0));
+        assertFalse(index.isMakeable(1));
+        assertFalse(index.isMakeable(-1));
+        BitSet expected = new BitSet();
+        expected.set(0);
+        assertEquals(expected, index.getMakeable());
+    }
+
+    /**
+     * Given an indexed coffee maker
+     * When we make coffee and then restock chocolate
+     * Then the servings follow the stock
+     *
+     * @throws InventoryException if the restock is rejected
+     */
+    @Test
+    public void testFollowsPurchasesAndRestocks() throws InventoryException {
+        assertEquals(0, coffeeMaker.makeCoffee(0, 50));
+        assertEquals(4, index.getServings(0));
+        coffeeMaker.addInventory(0, 0, 0, 5);
+        assertEquals(1, index.getServings(1));
+        assertTrue(index.isMakeable(1));
+        coffeeMaker.getInventory().setCoffee(2);
+        assertEquals(0, index.getServings(0));
+        assertTrue(index.getMakeable().isEmpty());
+    }
+
+    /**
+     * Given an indexed coffee maker
+     * When we edit and delete recipes
+     * Then the index describes the new recipes
+     *
+     * @throws RecipeException if there was an error parsing the ingredient
+     *                         amount when setting up the recipe.
+     */
+    @Test
+    public void testFollowsRecipeEdits() throws RecipeException {
+        coffeeMaker.editRecipe(1, CoffeeMakerTest.createRecipe("Mocha", "5", "0", "0", "0", "75"));
+        assertEquals(3, index.getServings(1));
+        coffeeMaker.deleteRecipe(0);
+        assertFalse(index.isMakeable(0));
+        assertEquals(0, index.getServings(0));
+    }
+
+    /**
+     * Given an indexed coffee maker with mocha sold out
+     * When we order mocha
+     * Then the money is refunded without asking the inventory
+     */
+    @Test
+    public void testSoldOutSkipsInventory() {
+        index.getServings(1);
+        long receipt = coffeeMaker.purchase(1, 75);
+        assertEquals(Receipt.OUT_OF_STOCK, Receipt.outcome(receipt));
+        assertEquals(75, Receipt.change(receipt));
+        assertEquals(0, uses);
+        assertEquals(25, coffeeMaker.makeCoffee(0, 75));
+        assertEquals(1, uses);
+    }
+
+    /**
+     * Given an indexed lock-free inventory
+     * When we make coffee until it runs out
+     * Then the index agrees with the inventory at every step
+     *
+     * @throws RecipeException if there was an error parsing the ingredient
+     *                         amount when setting up the recipe.
+     */
+    @Test
+    public void testAtomicInventory() throws RecipeException {
+        CoffeeMaker atomic = new CoffeeMaker(new RecipeBook(), new AtomicInventory());
+        atomic.addRecipe(CoffeeMakerTest.createRecipe("Coffee", "0", "3", "1", "1", "50"));
+        AvailabilityIndex atomicIndex = atomic.trackAvailability();
+        for (int servings = 5; servings > 0; servings--) {
+            assertEquals(servings, atomicIndex.getServings(0));
+            assertEquals(0, atomic.makeCoffee(0, 50));
+        }
+        assertFalse(atomicIndex.isMakeable(0));
+        assertEquals(50, atomic.makeCoffee(0, 50));
+    }
+}
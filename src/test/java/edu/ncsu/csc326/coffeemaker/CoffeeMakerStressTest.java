@@ -0,0 +1,199 @@
+package edu.ncsu.csc326.coffeemaker;
+
+import edu.ncsu.csc326.coffeemaker.exceptions.RecipeException;
+import org.junit.Test;
+
+import java.util.function.BiFunction;
+import java.util.function.Supplier;
+
+import static org.junit.Assert.*;
+
+/**
+ * Concurrency stress tests for CoffeeMaker and Inventory, checked for
+ * linearizability by the {@link StressHarness}.
+ */
+public class CoffeeMakerStressTest {
+    private static final int ROUNDS = 400;
+
+    /**
+     * Returns machines with coffee and mocha recipes over the given
+     * inventory, stocked with a few units of everything so purchases
+     * regularly run out.
+     */
+    private static Supplier<CoffeeMaker> machines(final Supplier<Inventory> inventories) {
+        return machines(inventories, false);
+    }
+
+    private static Supplier<CoffeeMaker> machines(final Supplier<Inventory> inventories, final boolean indexed) {
+        return machines(inventories, CoffeeMaker::new, indexed);
+    }
+
+    private static Supplier<CoffeeMaker> machines(final Supplier<Inventory> inventories,
+            final BiFunction<RecipeBook, Inventory, CoffeeMaker> makers, final boolean indexed) {
+        return () -> {
+            Inventory inventory = inventories.get();
+            for (int i = 0; i < IngredientRegistry.BUILT_IN; i++) {
+                inventory.setStock(i, 4);
+            }
+            CoffeeMaker machine = makers.apply(new RecipeBook(), inventory);
+            try {
+                machine.addRecipe(CoffeeMakerTest.createRecipe("Coffee", "0", "3", "1", "1", "50"));
+                machine.addRecipe(CoffeeMakerTest.createRecipe("Mocha", "2", "1", "1", "0", "75"));
+            } catch (RecipeException e) {
+                throw new IllegalStateException(e);
+            }
+            if (indexed) {
+                machine.trackAvailability();
+            }
+            return machine;
+        };
+    }
+
+    /**
+     * Given coffee makers with the default synchronized inventory
+     * When many threads purchase, restock, edit recipes and read the stock at once
+     * Then every recorded history is linearizable
+     *
+     * @throws InterruptedException if the test is interrupted
+     */
+    @Test
+    public void testInventoryIsLinearizable() throws InterruptedException {
+        StressHarness harness = new StressHarness(machines(Inventory::new), Integer.MAX_VALUE, 4, 8);
+        assertNull(harness.run(ROUNDS, 1));
+    }
+
+    /**
+     * Given coffee makers with the lock-free inventory
+     * When many threads purchase, restock, edit recipes and read the stock at once
+     * Then every recorded history is linearizable
+     *
+     * @throws InterruptedException if the test is interrupted
+     */
+    @Test
+    public void testAtomicInventoryIsLinearizable() throws InterruptedException {
+        StressHarness harness = new StressHarness(machines(AtomicInventory::new), AtomicInventory.MAX_UNITS, 4, 8);
+        assertNull(harness.run(ROUNDS, 2));
+    }
+
+    /**
+     * Given coffee makers of both inventories that keep an availability index
+     * When many threads purchase, restock, edit recipes and read the stock at once
+     * Then refunds taken from the index keep every history linearizable
+     *
+     * @throws InterruptedException if the test is interrupted
+     */
+    @Test
+    public void testAvailabilityIndexIsLinearizable() throws InterruptedException {
+        assertNull(new StressHarness(machines(Inventory::new, true), Integer.MAX_VALUE, 4, 8).run(ROUNDS, 6));
+        assertNull(new StressHarness(machines(AtomicInventory::new, true), AtomicInventory.MAX_UNITS, 4, 8)
+                .run(ROUNDS, 7));
+    }
+
+    /**
+     * Given an inventory that adds the coffee of a purchase instead of using it
+     * When the harness runs
+     * Then it reports a history that is not linearizable
+     *
+     * @throws InterruptedException if the test is interrupted
+     */
+    @Test
+    public void testDetectsWrongDeduction() throws InterruptedException {
+        StressHarness harness = new StressHarness(machines(() -> new Inventory() {
+            public synchronized boolean useIngredients(Recipe r) {
+                if (!enoughIngredients(r)) {
+                    return false;
+                }
+                setCoffee(getCoffee() + r.getAmtCoffee());
+                setMilk(getMilk() - r.getAmtMilk());
+                setSugar(getSugar() - r.getAmtSugar());
+                setChocolate(getChocolate() - r.getAmtChocolate());
+                return true;
+            }
+        }), Integer.MAX_VALUE, 2, 8);
+        assertNotNull(harness.run(ROUNDS, 3));
+    }
+
+    /**
+     * Given coffee makers that buy from a copy of the snapshot the book never replaces
+     * When threads edit recipes while others purchase them
+     * Then the harness reports the sale charged at a price that was already replaced
+     *
+     * @throws InterruptedException if the test is interrupted
+     */
+    @Test
+    public void testDetectsStalePrice() throws InterruptedException {
+        StressHarness harness = new StressHarness(machines(() -> new Inventory() {
+            public boolean useIngredients(Recipe r) {
+                Thread.yield();
+                return super.useIngredients(r);
+            }
+        }, (book, inventory) -> new CoffeeMaker(book, inventory) {
+            protected long purchase(RecipeSnapshot recipes, int recipeToPurchase, int amtPaid) {
+                RecipeSnapshot copy = new RecipeSnapshot(recipes.toArray(), recipes.getVersion());
+                return super.purchase(copy, recipeToPurchase, amtPaid);
+            }
+        }, false), Integer.MAX_VALUE, 4, 8);
+        assertNotNull(harness.run(ROUNDS * 5, 8));
+    }
+
+    /**
+     * Given an inventory that checks the stock and deducts it in separate steps
+     * When many threads purchase at once
+     * Then the harness reports the oversold or lost update
+     *
+     * @throws InterruptedException if the test is interrupted
+     */
+    @Test
+    public void testDetectsOverselling() throws InterruptedException {
+        StressHarness harness = new StressHarness(machines(() -> new Inventory() {
+            public boolean useIngredients(Recipe r) {
+                if (!enoughIngredients(r)) {
+                    return false;
+                }
+                Thread.yield();
+                for (int i = 0; i < IngredientRegistry.BUILT_IN; i++) {
+                    int units = getStock(i);
+                    Thread.yield();
+                    setStock(i, Math.max(0, units - r.getAmount(i)));
+                }
+                return true;
+            }
+
+            protected boolean usesMonitor() {
+                return false;
+            }
+        }), Integer.MAX_VALUE, 4, 8);
+        assertNotNull(harness.run(ROUNDS * 5, 4));
+    }
+
+    /**
+     * Given an inventory whose description reads each ingredient without the lock
+     * When threads restock while others check the inventory
+     * Then the harness reports the torn read
+     *
+     * @throws InterruptedException if the test is interrupted
+     */
+    @Test
+    public void testDetectsTornReads() throws InterruptedException {
+        StressHarness harness = new StressHarness(machines(() -> new Inventory() {
+            public synchronized int tryRestock(int coffee, int milk, int sugar, int chocolate) {
+                setCoffee(getCoffee() + coffee);
+                setMilk(getMilk() + milk);
+                Thread.yield();
+                setSugar(getSugar() + sugar);
+                setChocolate(getChocolate() + chocolate);
+                return Status.OK;
+            }
+
+            public String toString() {
+                StringBuilder buf = new StringBuilder();
+                for (int i = 0; i < IngredientRegistry.BUILT_IN; i++) {
+                    buf.append(IngredientRegistry.nameOf(i)).append(": ").append(getStock(i)).append("\n");
+                    Thread.yield();
+                }
+                return buf.toString();
+            }
+        }), Integer.MAX_VALUE, 4, 8);
+        assertNotNull(harness.run(ROUNDS * 5, 5));
+    }
+}
@@ -124,15 +124,15 @@ public class CoffeeMakerTest {
     /**
      * Given a recipe book of coffee maker already have 3 recipes
      * When we add a recipe
-     * Then the recipe should not be added
+     * Then the recipe should be added since the recipe book grows
      */
     @Test
     public void testAddRecipeMoreThanThree() {
         assertTrue(coffeeMaker1.addRecipe(recipe1));
         assertTrue(coffeeMaker1.addRecipe(recipe2));
         assertTrue(coffeeMaker1.addRecipe(recipe3));
-        // This should return false
-        assertFalse(coffeeMaker1.addRecipe(recipe4));
+        assertTrue(coffeeMaker1.addRecipe(recipe4));
+        assertEquals(recipe4, coffeeMaker1.getRecipes()[3]);
     }
 
     /**
@@ -270,6 +270,21 @@ public class CoffeeMakerTest {
         assertEquals(inventoryString, coffeeMaker1.checkInventory()); // amount should be the same
     }
 
+    /**
+     * Given a coffee maker with default inventory
+     * When we add typed inventory quantities with one of them negative
+     * Then we get an exception and none of the quantities is added
+     */
+    @Test
+    public void testAddTypedInventoryAllOrNothing() {
+        try {
+            coffeeMaker1.addInventory(2, 3, 1, -4);
+            fail("A negative quantity should throw");
+        } catch (InventoryException e) {
+            assertEquals("Coffee: 15\nMilk: 15\nSugar: 15\nChocolate: 15\n", coffeeMaker1.checkInventory());
+        }
+    }
+
     /**
      * Given a coffee maker with one valid recipe
      * When we make coffee, selecting the valid recipe and paying more than
@@ -324,27 +339,20 @@ public class CoffeeMakerTest {
     public void testMakeCoffeeWithMock() {
         mockRecipes[0] = mock(Recipe.class);
         mockRecipes[1] = mock(Recipe.class);
-        when(mockRecipes[0].getAmtChocolate()).thenReturn(0);
-        when(mockRecipes[0].getAmtCoffee()).thenReturn(3);
-        when(mockRecipes[0].getAmtMilk()).thenReturn(1);
-        when(mockRecipes[0].getAmtSugar()).thenReturn(1);
+        // Requirement vector: coffee 3, milk 1, sugar 1, chocolate 0
+        when(mockRecipes[0].requirements()).thenReturn(new int[]{3, 1, 1, 0});
         when(mockRecipes[0].getPrice()).thenReturn(50);
 
-        when(mockRecipeBook.getRecipes()).thenReturn(mockRecipes);
+        when(mockRecipeBook.snapshot()).thenReturn(new RecipeSnapshot(mockRecipes, 1));
         assertEquals(25, coffeeMaker2.makeCoffee(0, 75));
 
-        verify(mockRecipeBook, times(4)).getRecipes();
+        // The recipe book is read once per order, from one snapshot
+        verify(mockRecipeBook, times(1)).snapshot();
 
-        // Verify the selected recipe called each of get inventory method once
-        verify(mockRecipes[0], atLeastOnce()).getAmtChocolate();
-        verify(mockRecipes[0], atLeastOnce()).getAmtCoffee();
-        verify(mockRecipes[0], atLeastOnce()).getAmtMilk();
-        verify(mockRecipes[0], atLeastOnce()).getAmtSugar();
+        // Verify the selected recipe's requirement vector was read
+        verify(mockRecipes[0], atLeastOnce()).requirements();
         // Other recipe will not be called
-        verify(mockRecipes[1], never()).getAmtChocolate();
-        verify(mockRecipes[1], never()).getAmtCoffee();
-        verify(mockRecipes[1], never()).getAmtMilk();
-        verify(mockRecipes[1], never()).getAmtSugar();
+        verify(mockRecipes[1], never()).requirements();
     }
 
     /**
@@ -354,10 +362,10 @@ public class CoffeeMakerTest {
     @Test
     public void testMakeCoffeeNotEnoughMoneyWithMock() {
         // Recipe at index 3 has price more than paid amount
-        when(mockRecipeBook.getRecipes()).thenReturn(mockRecipes);
+        when(mockRecipeBook.snapshot()).thenReturn(new RecipeSnapshot(mockRecipes, 1));
         assertEquals(50, coffeeMaker2.makeCoffee(3, 50));
 
-        verify(mockRecipeBook, times(2)).getRecipes();
+        verify(mockRecipeBook, times(1)).snapshot();
     }
 
     /**
@@ -367,10 +375,10 @@ public class CoffeeMakerTest {
     @Test
     public void testMakeCoffeeNotEnoughInventoryWithMock() {
         // Recipe at index 1 use higher inventory amount
-        when(mockRecipeBook.getRecipes()).thenReturn(mockRecipes);
+        when(mockRecipeBook.snapshot()).thenReturn(new RecipeSnapshot(mockRecipes, 1));
         assertEquals(100, coffeeMaker2.makeCoffee(1, 100));
 
-        verify(mockRecipeBook, times(3)).getRecipes();
+        verify(mockRecipeBook, times(1)).snapshot();
     }
 
     /**
@@ -383,9 +391,71 @@ public class CoffeeMakerTest {
         Recipe[] newRecipesClone = mockRecipes.clone();
         newRecipesClone[1] = null;
 
-        when(mockRecipeBook.getRecipes()).thenReturn(newRecipesClone);
+        when(mockRecipeBook.snapshot()).thenReturn(new RecipeSnapshot(newRecipesClone, 1));
         assertEquals(100, coffeeMaker2.makeCoffee(1, 100));
 
-        verify(mockRecipeBook, times(1)).getRecipes();
+        verify(mockRecipeBook, times(1)).snapshot();
+    }
+
+    /**
+     * Given two coffee makers with the same recipes and little milk
+     * When one makes a batch of orders and the other makes the same
+     * orders one at a time
+     * Then each order gets the same change from both, including the
+     * orders refused once the milk runs out
+     */
+    @Test
+    public void testMakeCoffeeBatch() {
+        Inventory batchInventory = new Inventory();
+        batchInventory.setMilk(4);
+        Inventory singleInventory = new Inventory();
+        singleInventory.setMilk(4);
+        CoffeeMaker batchMaker = new CoffeeMaker(new RecipeBook(), batchInventory);
+        CoffeeMaker singleMaker = new CoffeeMaker(new RecipeBook(), singleInventory);
+        for (Recipe r : new Recipe[]{recipe1, recipe2, recipe3}) {
+            batchMaker.addRecipe(r);
+            singleMaker.addRecipe(r);
+        }
+        int[] recipes = {0, 1, 2, 0, 3, 2, 0, 0};
+        int[] paid = {75, 100, 100, 40, 50, 100, 60, 50};
+        int[] change = new int[recipes.length];
+
+        int made = batchMaker.makeCoffeeBatch(recipes, paid, change);
+        int singleMade = 0;
+        for (int i = 0; i < recipes.length; i++) {
+            int expected = singleMaker.makeCoffee(recipes[i], paid[i]);
+            assertEquals(expected, change[i]);
+            if (expected != paid[i]) {
+                singleMade++;
+            }
+        }
+        assertEquals(singleMade, made);
+        assertEquals(singleMaker.checkInventory(), batchMaker.checkInventory());
+        // The second latte no longer has enough milk
+        assertEquals(100, change[5]);
+    }
+
+    /**
+     * Given a coffee maker with one recipe
+     * When we make a batch containing a recipe index outside the book
+     * Then that order is refunded and the others are made
+     */
+    @Test
+    public void testMakeCoffeeBatchUnknownIndex() {
+        coffeeMaker1.addRecipe(recipe1);
+        int[] change = new int[3];
+        assertEquals(2, coffeeMaker1.makeCoffeeBatch(new int[]{0, -1, 0}, new int[]{50, 50, 60}, change));
+        assertArrayEquals(new int[]{0, 50, 10}, change);
+    }
+
+    /**
+     * Given a coffee maker with one recipe
+     * When we make a batch with mismatched array lengths
+     * Then the batch is rejected
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testMakeCoffeeBatchMismatchedLengths() {
+        coffeeMaker1.addRecipe(recipe1);
+        coffeeMaker1.makeCoffeeBatch(new int[]{0, 0}, new int[]{50}, new int[2]);
     }
-}
\ No newline at end of file
+}
@@ -103,6 +103,21 @@ public class InventoryTest {
         inventory.addMilk("-4");
     }
 
+    /**
+     * Given we want to add a positive amount of sugar
+     * When we add inventory with that string
+     * Then the sugar is added without an exception
+     *
+     * @throws InventoryException if there was an error parsing the quantity
+     *                            to a positive integer.
+     */
+    @Test
+    public void testAddPositiveSugarAmount() throws InventoryException {
+        inventory.addSugar("5");
+        inventory.addSugar("0");
+        assertEquals(20, inventory.getSugar());
+    }
+
     /**
      * Given we want to add sugar to the inventory with the string
      * that cannot be parsed to integer
@@ -195,6 +210,71 @@ public class InventoryTest {
         assertEquals(inventoryString, inventory.toString());
     }
 
+    /**
+     * Given the default inventory
+     * When we add amounts through the typed overloads and signed text
+     * Then the amounts are added like the text versions
+     *
+     * @throws InventoryException if an amount is negative.
+     */
+    @Test
+    public void testAddTypedAmounts() throws InventoryException {
+        inventory.addCoffee(1);
+        inventory.addMilk(2);
+        inventory.addSugar(3);
+        inventory.addChocolate(4);
+        inventory.addCoffee("+2");
+        inventory.addStock(IngredientRegistry.MILK, new StringBuilder("-0"));
+        assertEquals("Coffee: 18\nMilk: 17\nSugar: 18\nChocolate: 19\n", inventory.toString());
+    }
+
+    /**
+     * Given we want to add an amount that does not fit in an int
+     * When we add inventory with that string
+     * Then we get an exception thrown up
+     *
+     * @throws InventoryException if there was an error parsing the quantity
+     *                            to a positive integer.
+     */
+    @Test(expected = InventoryException.class)
+    public void testAddOverflowingAmount() throws InventoryException {
+        inventory.addSugar("2147483648");
+    }
+
+    /**
+     * Given the default inventory
+     * When we restock with one negative amount
+     * Then nothing is added and the error names that ingredient
+     */
+    @Test
+    public void testRestockAllOrNothing() {
+        try {
+            inventory.restock(1, 1, -1, 1);
+            fail("A negative amount should throw");
+        } catch (InventoryException e) {
+            assertEquals("Units of sugar must be a positive integer", e.getMessage());
+        }
+        assertEquals("Coffee: 15\nMilk: 15\nSugar: 15\nChocolate: 15\n", inventory.toString());
+    }
+
+    /**
+     * Given the default inventory
+     * When we add invalid amounts through the status methods
+     * Then we get the matching status, its message, and nothing is added
+     */
+    @Test
+    public void testTryAddStockStatus() {
+        int status = inventory.tryAddStock(IngredientRegistry.MILK, "four");
+        assertEquals(Status.INVALID_AMOUNT, Status.code(status));
+        assertEquals(IngredientRegistry.MILK, Status.ingredient(status));
+        assertEquals("Units of milk must be a positive integer", Status.describe(status));
+        assertEquals(Status.UNKNOWN_INGREDIENT, Status.code(inventory.tryAddStock(-1, 2)));
+        assertEquals("Unknown ingredient -1", Status.describe(inventory.tryAddStock(-1, 2)));
+        assertEquals(Status.of(Status.INVALID_AMOUNT, IngredientRegistry.CHOCOLATE), inventory.tryRestock(1, 1, 1, -1));
+        assertEquals(Status.OK, inventory.tryAddStock(IngredientRegistry.COFFEE, "2"));
+        assertEquals("Coffee: 17\nMilk: 15\nSugar: 15\nChocolate: 15\n", inventory.toString());
+    }
+
     /**
      * Given the inventory with default inventory amount
      * When we want to check if the selected recipe was enough to the inventory
@@ -207,4 +287,58 @@ public class InventoryTest {
         assertFalse(inventory.enoughIngredients(recipe2));
         assertFalse(inventory.enoughIngredients(recipe4));
     }
+
+    /**
+     * Given two inventories created one after the other
+     * When we change the stock of the first one
+     * Then the second one keeps its own stock
+     */
+    @Test
+    public void testInventoriesAreIndependent() {
+        inventory.setCoffee(2);
+        assertFalse(inventory.useIngredients(recipe3));
+        Inventory other = new Inventory();
+        assertEquals(2, inventory.getCoffee());
+        assertEquals(15, other.getCoffee());
+        assertTrue(other.useIngredients(recipe3));
+        assertEquals(15, inventory.getMilk());
+    }
+
+    /**
+     * Given a recipe that needs an ingredient beyond the built-in four
+     * When the inventory has not stocked it yet, and then once it has
+     * Then the recipe can only be made after the ingredient is added
+     *
+     * @throws RecipeException    if there was an error parsing the ingredient
+     *                            amount when setting up the recipe.
+     * @throws InventoryException if there was an error parsing the quantity
+     *                            to a positive integer.
+     */
+    @Test
+    public void testRegisteredIngredient() throws RecipeException, InventoryException {
+        int oatMilk = IngredientRegistry.register("Oat Milk");
+        assertEquals(oatMilk, IngredientRegistry.register("oat milk"));
+        Recipe oatLatte = CoffeeMakerTest.createRecipe("Oat Latte", "0", "3", "0", "1", "100");
+        oatLatte.setAmount("Oat Milk", "2");
+        assertEquals(2, oatLatte.getAmount(oatMilk));
+
+        assertFalse(inventory.useIngredients(oatLatte));
+        inventory.addStock(oatMilk, "3");
+        assertTrue(inventory.useIngredients(oatLatte));
+        assertEquals(1, inventory.getStock(oatMilk));
+        assertEquals("Coffee: 12\nMilk: 15\nSugar: 14\nChocolate: 15\nOat Milk: 1\n", inventory.toString());
+        assertFalse(inventory.useIngredients(oatLatte));
+    }
+
+    /**
+     * Given an ingredient id that was never registered
+     * When we add stock for it
+     * Then we get an exception thrown up
+     *
+     * @throws InventoryException if the ingredient is unknown
+     */
+    @Test(expected = InventoryException.class)
+    public void testAddUnknownIngredient() throws InventoryException {
+        inventory.addStock(IngredientRegistry.size(), "1");
+    }
 }
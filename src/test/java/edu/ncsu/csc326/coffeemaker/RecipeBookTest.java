@@ -0,0 +1,168 @@
+package edu.ncsu.csc326.coffeemaker;
+
+import edu.ncsu.csc326.coffeemaker.exceptions.RecipeException;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for RecipeBook class.
+ */
+public class RecipeBookTest {
+    /**
+     * The object under test
+     */
+    private RecipeBook recipeBook;
+
+    /**
+     * Creates an empty recipe book.
+     */
+    @Before
+    public void setUp() {
+        recipeBook = new RecipeBook();
+    }
+
+    private static Recipe recipe(String name) throws RecipeException {
+        return CoffeeMakerTest.createRecipe(name, "0", "1", "1", "1", "50");
+    }
+
+    /**
+     * Given an empty recipe book
+     * When we add far more recipes than the initial capacity
+     * Then every recipe gets its own stable slot and can be found by name
+     *
+     * @throws RecipeException if there was an error parsing the ingredient
+     *                         amount when setting up the recipe.
+     */
+    @Test
+    public void testGrowsPastInitialCapacity() throws RecipeException {
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(recipeBook.addRecipe(recipe("Drink " + i)));
+        }
+        assertEquals(1000, recipeBook.size());
+        assertEquals(0, recipeBook.indexOf("Drink 0"));
+        assertEquals(999, recipeBook.indexOf("Drink 999"));
+        assertEquals("Drink 500", recipeBook.getRecipes()[500].getName());
+        assertEquals(-1, recipeBook.indexOf("Drink 1000"));
+    }
+
+    /**
+     * Given a recipe book with a recipe
+     * When we add another recipe with the same name
+     * Then it is rejected as a duplicate
+     *
+     * @throws RecipeException if there was an error parsing the ingredient
+     *                         amount when setting up the recipe.
+     */
+    @Test
+    public void testRejectsDuplicateName() throws RecipeException {
+        assertTrue(recipeBook.addRecipe(recipe("Mocha")));
+        assertFalse(recipeBook.addRecipe(recipe("Mocha")));
+        assertEquals(1, recipeBook.size());
+    }
+
+    /**
+     * Given a recipe book with three recipes
+     * When we delete the middle one and add a new recipe
+     * Then the deleted slot is empty, its name is free again,
+     * and the new recipe reuses the slot
+     *
+     * @throws RecipeException if there was an error parsing the ingredient
+     *                         amount when setting up the recipe.
+     */
+    @Test
+    public void testDeleteFreesSlot() throws RecipeException {
+        recipeBook.addRecipe(recipe("Coffee"));
+        recipeBook.addRecipe(recipe("Mocha"));
+        recipeBook.addRecipe(recipe("Latte"));
+        assertEquals("Mocha", recipeBook.deleteRecipe(1));
+        assertNull(recipeBook.getRecipes()[1]);
+        assertNull(recipeBook.deleteRecipe(1));
+        assertEquals(-1, recipeBook.indexOf("Mocha"));
+
+        assertTrue(recipeBook.addRecipe(recipe("Americano")));
+        assertEquals(1, recipeBook.indexOf("Americano"));
+        assertEquals(2, recipeBook.indexOf("Latte"));
+        assertTrue(recipeBook.addRecipe(recipe("Mocha")));
+        assertEquals(3, recipeBook.indexOf("Mocha"));
+    }
+
+    /**
+     * Given a recipe book with a recipe
+     * When we edit it
+     * Then the new recipe keeps the old name and slot
+     *
+     * @throws RecipeException if there was an error parsing the ingredient
+     *                         amount when setting up the recipe.
+     */
+    @Test
+    public void testEditKeepsNameAndSlot() throws RecipeException {
+        recipeBook.addRecipe(recipe("Latte"));
+        Recipe edited = recipe("Something else");
+        assertEquals("Latte", recipeBook.editRecipe(0, edited));
+        assertSame(edited, recipeBook.getRecipe(0));
+        assertEquals("Latte", edited.getName());
+        assertEquals(0, recipeBook.indexOf("Latte"));
+        assertNull(recipeBook.editRecipe(5, recipe("Missing")));
+    }
+
+    /**
+     * Given a snapshot taken from a recipe book
+     * When the book is edited afterwards
+     * Then the old snapshot is unchanged and a newer version is published
+     *
+     * @throws RecipeException if there was an error parsing the ingredient
+     *                         amount when setting up the recipe.
+     */
+    @Test
+    public void testSnapshotsAreImmutable() throws RecipeException {
+        recipeBook.addRecipe(recipe("Coffee"));
+        RecipeSnapshot before = recipeBook.snapshot();
+        Recipe original = before.get(0);
+
+        recipeBook.editRecipe(0, recipe("Coffee"));
+        recipeBook.addRecipe(recipe("Mocha"));
+        recipeBook.deleteRecipe(0);
+
+        assertSame(original, before.get(0));
+        assertNull(before.get(1));
+        RecipeSnapshot after = recipeBook.snapshot();
+        assertNull(after.get(0));
+        assertEquals("Mocha", after.get(1).getName());
+        assertEquals(before.getVersion() + 3, after.getVersion());
+
+        // Arrays handed out are copies, so writing to them changes nothing
+        recipeBook.getRecipes()[1] = null;
+        assertNotNull(recipeBook.getRecipe(1));
+    }
+
+    /**
+     * Given a book with a freed slot
+     * When we add a batch that repeats a name
+     * Then the batch reuses the freed slot, skips the repeated name
+     * and publishes one new version
+     *
+     * @throws RecipeException if there was an error parsing the ingredient
+     *                         amount when setting up the recipe.
+     */
+    @Test
+    public void testAddRecipesBatch() throws RecipeException {
+        recipeBook.addRecipe(recipe("Coffee"));
+        recipeBook.addRecipe(recipe("Mocha"));
+        recipeBook.deleteRecipe(0);
+        long version = recipeBook.snapshot().getVersion();
+
+        boolean[] added = recipeBook.addRecipes(Arrays.asList(
+                recipe("Latte"), recipe("Mocha"), recipe("Tea"), recipe("Latte"), recipe("Chai")));
+
+        assertArrayEquals(new boolean[] {true, false, true, false, true}, added);
+        assertEquals("Latte", recipeBook.getRecipe(0).getName());
+        assertEquals("Tea", recipeBook.getRecipe(2).getName());
+        assertEquals("Chai", recipeBook.getRecipe(3).getName());
+        assertEquals(4, recipeBook.size());
+        assertEquals(version + 1, recipeBook.snapshot().getVersion());
+    }
+}
@@ -0,0 +1,68 @@
+package edu.ncsu.csc326.coffeemaker;
+
+import edu.ncsu.csc326.coffeemaker.exceptions.RecipeException;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for the validation of Recipe.
+ */
+public class RecipeTest {
+    /**
+     * The object under test
+     */
+    private Recipe recipe;
+
+    @Before
+    public void setUp() {
+        recipe = new Recipe();
+    }
+
+    /**
+     * Given a new recipe
+     * When we set invalid amounts and prices through the status methods
+     * Then we get the matching status and the recipe is unchanged
+     */
+    @Test
+    public void testTrySetStatus() {
+        assertEquals(Status.OK, recipe.trySetPrice("75"));
+        assertEquals(Status.OK, recipe.trySetAmount(IngredientRegistry.SUGAR, 2));
+        assertEquals(Status.of(Status.INVALID_PRICE, 0), recipe.trySetPrice("-1"));
+        assertEquals(Status.of(Status.INVALID_AMOUNT, IngredientRegistry.SUGAR),
+                recipe.trySetAmount(IngredientRegistry.SUGAR, "lots"));
+        assertEquals(Status.UNKNOWN_INGREDIENT, Status.code(recipe.trySetAmount(-1, 1)));
+        assertEquals(75, recipe.getPrice());
+        assertEquals(2, recipe.getAmtSugar());
+    }
+
+    /**
+     * Given a recipe
+     * When we set a negative amount through the throwing setter
+     * Then the exception carries the message of the status
+     */
+    @Test
+    public void testSetterWrapsStatus() {
+        try {
+            recipe.setAmtChocolate("-2");
+            fail("A negative amount should throw");
+        } catch (RecipeException e) {
+            assertEquals(Status.describe(Status.of(Status.INVALID_AMOUNT, IngredientRegistry.CHOCOLATE)),
+                    e.getMessage());
+        }
+    }
+
+    /**
+     * Given amounts for a bulk-built recipe
+     * When we validate them
+     * Then the first problem is reported without building the recipe
+     */
+    @Test
+    public void testValidate() {
+        assertEquals(Status.OK, Recipe.validate(50, new int[] {3, 1, 1, 0}));
+        assertEquals(Status.of(Status.INVALID_AMOUNT, IngredientRegistry.MILK),
+                Recipe.validate(50, new int[] {3, -1, 1, 0}));
+        assertEquals(Status.of(Status.INVALID_PRICE, 0), Recipe.validate(-5, new int[0]));
+    }
+}
@@ -0,0 +1,154 @@
+package edu.ncsu.csc326.coffeemaker;
+
+import edu.ncsu.csc326.coffeemaker.exceptions.RecipeException;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for Reservation and LeaseWheel classes.
+ */
+public class ReservationTest {
+    /**
+     * The objects under test; the wheel is ticked by hand
+     */
+    private LeaseWheel wheel;
+    private Inventory inventory;
+
+    private Recipe latte;
+
+    /**
+     * Creates a stopped wheel with 10ms ticks and 8 slots, so leases
+     * longer than 80ms have to wait for more than one revolution.
+     *
+     * @throws RecipeException if there was an error parsing the ingredient
+     *                         amount when setting up the recipe.
+     */
+    @Before
+    public void setUp() throws RecipeException {
+        wheel = new LeaseWheel(10, 8);
+        inventory = new Inventory();
+        latte = CoffeeMakerTest.createRecipe("Latte", "0", "3", "3", "1", "100");
+    }
+
+    /**
+     * Given the default inventory
+     * When we reserve a latte
+     * Then its ingredients are no longer available
+     */
+    @Test
+    public void testReserveExcludesStock() {
+        Reservation r = inventory.reserve(latte, 50, wheel);
+        assertNotNull(r);
+        assertEquals(Reservation.PENDING, r.getState());
+        assertEquals("Coffee: 12\nMilk: 12\nSugar: 14\nChocolate: 15\n", inventory.toString());
+        assertEquals(1, wheel.pending());
+    }
+
+    /**
+     * Given an inventory with milk for exactly five lattes
+     * When we reserve six lattes
+     * Then the sixth reservation is refused
+     */
+    @Test
+    public void testReserveCannotOversell() {
+        for (int i = 0; i < 5; i++) {
+            assertNotNull(inventory.reserve(latte, 50, wheel));
+        }
+        assertNull(inventory.reserve(latte, 50, wheel));
+        assertFalse(inventory.enoughIngredients(latte));
+    }
+
+    /**
+     * Given a pending reservation
+     * When we commit it and then try to release it
+     * Then the ingredients stay spent and the lease is cancelled
+     */
+    @Test
+    public void testCommit() {
+        Reservation r = inventory.reserve(latte, 50, wheel);
+        assertTrue(r.commit());
+        assertFalse(r.commit());
+        assertFalse(r.release());
+        assertEquals(Reservation.COMMITTED, r.getState());
+        assertEquals(0, wheel.pending());
+        assertEquals(12, inventory.getMilk());
+    }
+
+    /**
+     * Given a pending reservation
+     * When we release it
+     * Then the ingredients go back into the inventory
+     */
+    @Test
+    public void testRelease() {
+        Reservation r = inventory.reserve(latte, 50, wheel);
+        assertTrue(r.release());
+        assertFalse(r.commit());
+        assertEquals(Reservation.RELEASED, r.getState());
+        assertEquals("Coffee: 15\nMilk: 15\nSugar: 15\nChocolate: 15\n", inventory.toString());
+    }
+
+    /**
+     * Given a reservation whose lease is longer than one wheel revolution
+     * When the wheel ticks up to and past the lease
+     * Then the reservation expires only after the lease and its stock returns
+     */
+    @Test
+    public void testExpiry() {
+        Reservation r = inventory.reserve(latte, 200, wheel);
+        for (int i = 0; i < 19; i++) {
+            wheel.tick();
+        }
+        assertEquals(Reservation.PENDING, r.getState());
+        wheel.tick();
+        assertEquals(Reservation.EXPIRED, r.getState());
+        assertFalse(r.commit());
+        assertEquals(0, wheel.pending());
+        assertEquals(15, inventory.getMilk());
+    }
+
+    /**
+     * Given a coffee maker with a latte recipe
+     * When we reserve a latte and complete the purchase
+     * Then we get the same change makeCoffee would give
+     */
+    @Test
+    public void testCompletePurchase() {
+        CoffeeMaker coffeeMaker = new CoffeeMaker(new RecipeBook(), inventory);
+        coffeeMaker.addRecipe(latte);
+        assertNull(coffeeMaker.reserveCoffee(1, 50));
+        Reservation r = coffeeMaker.reserveCoffee(0, 50);
+        assertEquals(20, coffeeMaker.completePurchase(r, 120));
+        assertEquals(120, coffeeMaker.completePurchase(r, 120));
+
+        Reservation shortPaid = coffeeMaker.reserveCoffee(0, 50);
+        assertEquals(80, coffeeMaker.completePurchase(shortPaid, 80));
+        assertEquals(Reservation.RELEASED, shortPaid.getState());
+        assertEquals(12, inventory.getMilk());
+    }
+
+    /**
+     * Given tens of thousands of open reservations on an atomic inventory
+     * When the wheel expires them all
+     * Then every ingredient returns to the inventory
+     */
+    @Test
+    public void testManyReservationsExpire() {
+        AtomicInventory atomic = new AtomicInventory();
+        atomic.setCoffee(AtomicInventory.MAX_UNITS);
+        atomic.setMilk(AtomicInventory.MAX_UNITS);
+        atomic.setSugar(AtomicInventory.MAX_UNITS);
+        for (int i = 0; i < 20000; i++) {
+            assertNotNull(atomic.reserve(latte, 10 + (i % 100) * 10, wheel));
+        }
+        assertEquals(20000, wheel.pending());
+        assertEquals(AtomicInventory.MAX_UNITS - 60000, atomic.getMilk());
+        for (int i = 0; i < 100; i++) {
+            wheel.tick();
+        }
+        assertEquals(0, wheel.pending());
+        assertEquals(AtomicInventory.MAX_UNITS, atomic.getMilk());
+    }
+}
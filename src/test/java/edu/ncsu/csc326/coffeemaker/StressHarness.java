@@ -0,0 +1,375 @@
+package edu.ncsu.csc326.coffeemaker;
+
+import edu.ncsu.csc326.coffeemaker.exceptions.InventoryException;
+import edu.ncsu.csc326.coffeemaker.exceptions.RecipeException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Concurrency stress harness for CoffeeMaker and its Inventory.
+ *
+ * Each round creates a fresh machine and lets several threads run
+ * a short random mix of makeCoffee, addInventory, editRecipe,
+ * checkInventory and single ingredient getters against it at the same
+ * time.  Every call is recorded with the logical time it was invoked
+ * and the time it returned.  The round's history is then checked for
+ * linearizability: there must be a single sequential order of the
+ * calls, consistent with their real-time order, in which a simple
+ * sequential model of the coffee maker returns exactly what the
+ * machine returned.  Lost updates, overselling, torn reads and sales
+ * charged at a price an edit had already replaced all show up as
+ * histories with no such order.
+ *
+ * The search is the Wing and Gong algorithm with Lowe's memoization of
+ * visited (linearized calls, model state) pairs, so histories are kept
+ * to at most 64 calls and the harness runs many short rounds instead
+ * of one long one.
+ */
+public class StressHarness {
+    static final int MAKE = 0;
+    static final int RESTOCK = 1;
+    static final int EDIT = 2;
+    static final int CHECK = 3;
+    static final int GET = 4;
+
+    private static final String[] NAMES = {"makeCoffee", "addInventory", "editRecipe", "checkInventory", "get"};
+    private static final int INGREDIENTS = IngredientRegistry.BUILT_IN;
+    /** Model slot layout: price (or -1 if empty) followed by the amounts */
+    private static final int SLOT = 1 + INGREDIENTS;
+
+    private final Supplier<CoffeeMaker> machines;
+    private final long capacity;
+    private final int threads;
+    private final int operations;
+
+    /**
+     * Creates a harness.
+     *
+     * @param machines   creates the machine for each round, with its recipes
+     *                   and starting stock
+     * @param capacity   most units an ingredient can hold before a restock is
+     *                   rejected
+     * @param threads    number of threads calling the machine at once
+     * @param operations calls per thread and round
+     */
+    public StressHarness(Supplier<CoffeeMaker> machines, long capacity, int threads, int operations) {
+        if (threads * operations > 64) {
+            throw new IllegalArgumentException("at most 64 calls per round");
+        }
+        this.machines = machines;
+        this.capacity = capacity;
+        this.threads = threads;
+        this.operations = operations;
+    }
+
+    /**
+     * Runs rounds until one of them records a history that is not
+     * linearizable.
+     *
+     * @param rounds number of rounds to run
+     * @param seed   seed of the random calls
+     * @return the first history that is not linearizable, or null
+     * @throws InterruptedException if the harness is interrupted
+     */
+    public String run(int rounds, long seed) throws InterruptedException {
+        Random random = new Random(seed);
+        for (int round = 0; round < rounds; round++) {
+            CoffeeMaker machine = machines.get();
+            Model model = new Model(machine, capacity);
+            Operation[] history = record(machine, model, random);
+            if (!new Checker(history, model).linearizable()) {
+                return "Round " + round + " is not linearizable from " + model + ":\n" + describe(history);
+            }
+        }
+        return null;
+    }
+
+    private Operation[] record(final CoffeeMaker machine, Model model, Random random) throws InterruptedException {
+        final Operation[][] calls = new Operation[threads][operations];
+        for (int t = 0; t < threads; t++) {
+            for (int i = 0; i < operations; i++) {
+                calls[t][i] = model.randomOperation(t, random);
+            }
+        }
+        final AtomicLong clock = new AtomicLong();
+        final CyclicBarrier start = new CyclicBarrier(threads);
+        Thread[] running = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            final Operation[] mine = calls[t];
+            running[t] = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (Exception e) {
+                    return;
+                }
+                for (Operation op : mine) {
+                    op.invoke = clock.getAndIncrement();
+                    op.result = op.apply(machine);
+                    op.response = clock.getAndIncrement();
+                }
+            });
+            running[t].start();
+        }
+        for (Thread t : running) {
+            t.join();
+        }
+        List<Operation> history = new ArrayList<>();
+        for (Operation[] mine : calls) {
+            history.addAll(Arrays.asList(mine));
+        }
+        history.sort((a, b) -> Long.compare(a.invoke, b.invoke));
+        return history.toArray(new Operation[0]);
+    }
+
+    private static String describe(Operation[] history) {
+        StringBuilder buf = new StringBuilder();
+        for (Operation op : history) {
+            buf.append("  ").append(op).append('\n');
+        }
+        return buf.toString();
+    }
+
+    /**
+     * One recorded call.
+     */
+    static final class Operation {
+        final int thread;
+        final int kind;
+        final int[] args;
+        long invoke;
+        long response;
+        Object result;
+
+        Operation(int thread, int kind, int... args) {
+            this.thread = thread;
+            this.kind = kind;
+            this.args = args;
+        }
+
+        Object apply(CoffeeMaker machine) {
+            try {
+                switch (kind) {
+                    case MAKE:
+                        return machine.makeCoffee(args[0], args[1]);
+                    case RESTOCK:
+                        try {
+                            machine.addInventory(args[0], args[1], args[2], args[3]);
+                            return "added";
+                        } catch (InventoryException e) {
+                            return "rejected";
+                        }
+                    case EDIT:
+                        return machine.editRecipe(args[0],
+                                new Recipe("edit", args[1], Arrays.copyOfRange(args, 2, 2 + INGREDIENTS)));
+                    case CHECK:
+                        return machine.checkInventory();
+                    default:
+                        Inventory inventory = machine.getInventory();
+                        switch (args[0]) {
+                            case IngredientRegistry.COFFEE:
+                                return inventory.getCoffee();
+                            case IngredientRegistry.MILK:
+                                return inventory.getMilk();
+                            case IngredientRegistry.SUGAR:
+                                return inventory.getSugar();
+                            default:
+                                return inventory.getChocolate();
+                        }
+                }
+            } catch (RecipeException | RuntimeException e) {
+                // Never matches the model, so a crash fails the round
+                return e.toString();
+            }
+        }
+
+        public String toString() {
+            String result = this.result instanceof String ? ((String) this.result).replace("\n", " ") : "" + this.result;
+            return "[" + invoke + ", " + response + "] thread " + thread + ": " + NAMES[kind]
+                    + Arrays.toString(args) + " = " + result;
+        }
+    }
+
+    /**
+     * Sequential model of a coffee maker: the stock of the built-in
+     * ingredients followed by the price and amounts of every slot.
+     */
+    static final class Model {
+        final long capacity;
+        final String[] names;
+        final int[] initial;
+        final int slots;
+
+        Model(CoffeeMaker machine, long capacity) {
+            this.capacity = capacity;
+            Recipe[] recipes = machine.getRecipes();
+            int[] stock = machine.getInventory().getStockLevels();
+            slots = recipes.length;
+            names = new String[slots];
+            initial = new int[INGREDIENTS + slots * SLOT];
+            System.arraycopy(stock, 0, initial, 0, INGREDIENTS);
+            for (int s = 0; s < slots; s++) {
+                int base = INGREDIENTS + s * SLOT;
+                if (recipes[s] == null) {
+                    initial[base] = -1;
+                    continue;
+                }
+                names[s] = recipes[s].getName();
+                initial[base] = recipes[s].getPrice();
+                for (int i = 0; i < INGREDIENTS; i++) {
+                    initial[base + 1 + i] = recipes[s].getAmount(i);
+                }
+            }
+        }
+
+        Operation randomOperation(int thread, Random random) {
+            int pick = random.nextInt(10);
+            if (pick < 5) {
+                return new Operation(thread, MAKE, random.nextInt(slots + 1), 25 * random.nextInt(4));
+            } else if (pick < 7) {
+                return new Operation(thread, RESTOCK, random.nextInt(4), random.nextInt(3), random.nextInt(3),
+                        random.nextInt(3));
+            } else if (pick < 8) {
+                return new Operation(thread, EDIT, random.nextInt(slots + 1), 25 * random.nextInt(3),
+                        random.nextInt(4), random.nextInt(3), random.nextInt(3), random.nextInt(2));
+            } else if (pick < 9) {
+                return new Operation(thread, CHECK);
+            } else {
+                return new Operation(thread, GET, random.nextInt(INGREDIENTS));
+            }
+        }
+
+        /**
+         * Applies the call to the state and returns what a sequential
+         * coffee maker would have returned.
+         */
+        Object apply(int[] state, Operation op) {
+            int[] a = op.args;
+            switch (op.kind) {
+                case MAKE: {
+                    int base = INGREDIENTS + a[0] * SLOT;
+                    if (a[0] >= slots || state[base] < 0 || state[base] > a[1]) {
+                        return a[1];
+                    }
+                    for (int i = 0; i < INGREDIENTS; i++) {
+                        if (state[i] < state[base + 1 + i]) {
+                            return a[1];
+                        }
+                    }
+                    for (int i = 0; i < INGREDIENTS; i++) {
+                        state[i] -= state[base + 1 + i];
+                    }
+                    return a[1] - state[base];
+                }
+                case RESTOCK:
+                    for (int i = 0; i < INGREDIENTS; i++) {
+                        if ((long) state[i] + a[i] > capacity) {
+                            return "rejected";
+                        }
+                    }
+                    for (int i = 0; i < INGREDIENTS; i++) {
+                        state[i] += a[i];
+                    }
+                    return "added";
+                case EDIT: {
+                    int base = INGREDIENTS + a[0] * SLOT;
+                    if (a[0] >= slots || state[base] < 0) {
+                        return null;
+                    }
+                    System.arraycopy(a, 1, state, base, SLOT);
+                    return names[a[0]];
+                }
+                case CHECK: {
+                    StringBuilder buf = new StringBuilder();
+                    for (int i = 0; i < INGREDIENTS; i++) {
+                        buf.append(IngredientRegistry.nameOf(i)).append(": ").append(state[i]).append('\n');
+                    }
+                    return buf.toString();
+                }
+                default:
+                    return state[a[0]];
+            }
+        }
+
+        public String toString() {
+            return "stock " + Arrays.toString(Arrays.copyOf(initial, INGREDIENTS));
+        }
+    }
+
+    /**
+     * Searches for a linearization of one history.
+     */
+    static final class Checker {
+        private final Operation[] history;
+        private final Model model;
+        private final long all;
+        private final Set<Visited> visited = new HashSet<>();
+
+        Checker(Operation[] history, Model model) {
+            this.history = history;
+            this.model = model;
+            this.all = history.length == 64 ? -1L : (1L << history.length) - 1;
+        }
+
+        boolean linearizable() {
+            return search(0L, model.initial.clone());
+        }
+
+        private boolean search(long done, int[] state) {
+            if (done == all) {
+                return true;
+            }
+            if (!visited.add(new Visited(done, state))) {
+                return false;
+            }
+            // Only calls invoked before the earliest pending return can go next
+            long earliest = Long.MAX_VALUE;
+            for (int i = 0; i < history.length; i++) {
+                if ((done & (1L << i)) == 0) {
+                    earliest = Math.min(earliest, history[i].response);
+                }
+            }
+            for (int i = 0; i < history.length && history[i].invoke < earliest; i++) {
+                if ((done & (1L << i)) != 0) {
+                    continue;
+                }
+                int[] next = state.clone();
+                if (Objects.equals(model.apply(next, history[i]), history[i].result)
+                        && search(done | (1L << i), next)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    private static final class Visited {
+        final long done;
+        final int[] state;
+
+        Visited(long done, int[] state) {
+            this.done = done;
+            this.state = state;
+        }
+
+        public int hashCode() {
+            return Long.hashCode(done) * 31 + Arrays.hashCode(state);
+        }
+
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Visited)) {
+                return false;
+            }
+            Visited other = (Visited) obj;
+            return done == other.done && Arrays.equals(state, other.state);
+        }
+    }
+}
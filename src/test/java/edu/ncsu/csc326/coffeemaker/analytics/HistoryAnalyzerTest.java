@@ -0,0 +1,213 @@
+package edu.ncsu.csc326.coffeemaker.analytics;
+
+import edu.ncsu.csc326.coffeemaker.CoffeeMaker;
+import edu.ncsu.csc326.coffeemaker.IngredientRegistry;
+import edu.ncsu.csc326.coffeemaker.Inventory;
+import edu.ncsu.csc326.coffeemaker.Receipt;
+import edu.ncsu.csc326.coffeemaker.Recipe;
+import edu.ncsu.csc326.coffeemaker.RecipeBook;
+import edu.ncsu.csc326.coffeemaker.exceptions.InventoryException;
+import edu.ncsu.csc326.coffeemaker.exceptions.RecipeException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for HistoryAnalyzer.
+ */
+public class HistoryAnalyzerTest {
+    private Path file;
+    private ForkJoinPool pool;
+    private CoffeeMaker coffeeMaker;
+
+    /**
+     * Creates a coffee maker with coffee at 50 and latte at 100, an
+     * empty slot, and the default 15 units of everything
+     *
+     * @throws IOException if the temporary file cannot be created
+     * @throws RecipeException if a recipe is invalid
+     */
+    @Before
+    public void setUp() throws IOException, RecipeException {
+        file = Files.createTempFile("history", ".trace");
+        pool = new ForkJoinPool(4);
+        coffeeMaker = new CoffeeMaker(new RecipeBook(), new Inventory());
+        coffeeMaker.addRecipe(new Recipe("Coffee", 50, new int[] {3, 1, 1, 0}));
+        coffeeMaker.addRecipe(new Recipe("Latte", 100, new int[] {3, 3, 1, 0}));
+    }
+
+    /**
+     * Removes the history file and stops the pool
+     *
+     * @throws IOException if the file cannot be removed
+     */
+    @After
+    public void tearDown() throws IOException {
+        pool.shutdown();
+        Files.delete(file);
+    }
+
+    /**
+     * Given a coffee maker with 12 units of coffee and a short history
+     * that runs out of coffee and restocks it
+     * When we analyze it
+     * Then sales, refusals, usage, the stockout and the stock left
+     * are reported like the coffee maker would have seen them
+     *
+     * @throws IOException if the history cannot be read
+     */
+    @Test
+    public void testShortHistory() throws IOException {
+        write("# opening\n"
+                + "1000 MAKE 0 50\n"
+                + "1100 MAKE 1 75\n"
+                + "1200 MAKE 1 100\n"
+                + "1300 MAKE 0 60\n"
+                + "1400 MAKE 0 50\n"
+                + "1500 MAKE 0 50\n"
+                + "1600 MAKE 1 100\n"
+                + "1700 RESTOCK 1 0 0 0\n"
+                + "1800 RESTOCK 5 0 0 0\n"
+                + "1900 make 2 50\n"
+                + "2000 MAKE 7 50\n");
+        coffeeMaker.getInventory().setCoffee(12);
+        HistoryReport report = new HistoryAnalyzer(coffeeMaker, pool).analyze(file);
+        assertEquals(4, report.getSold(0) + report.getSold(1));
+        assertEquals(3, report.getSold(0));
+        assertEquals(1, report.getOrders(0, Receipt.OUT_OF_STOCK));
+        assertEquals(1, report.getOrders(1, Receipt.INSUFFICIENT_PAYMENT));
+        assertEquals(1, report.getOrders(1, Receipt.OUT_OF_STOCK));
+        assertEquals(1, report.getOrders(2, Receipt.NO_SUCH_RECIPE));
+        assertEquals(1, report.getUnknownOrders());
+        assertEquals(250, report.getRevenue(0) + report.getRevenue(1));
+        assertEquals(9, report.getUsage(0, IngredientRegistry.COFFEE));
+        assertEquals(12, report.getUsage(IngredientRegistry.COFFEE));
+        assertEquals(6, report.getStock(IngredientRegistry.COFFEE));
+        assertEquals(9, report.getStock(IngredientRegistry.MILK));
+        assertEquals(2000, report.getLastTime());
+
+        assertEquals(2, report.getStockouts());
+        assertEquals(0, report.getStockoutSlot(0));
+        assertEquals(1500, report.getStockoutStart(0));
+        assertEquals(1800, report.getStockoutEnd(0));
+        assertEquals(1, report.getStockoutSlot(1));
+        assertEquals(1600, report.getStockoutStart(1));
+        assertEquals(1800, report.getStockoutEnd(1));
+    }
+
+    /**
+     * Given a long random history, split into many ranges, that is
+     * restocked too little at first and generously later on
+     * When we analyze it on one worker and on four
+     * Then both reports match replaying the history on a coffee maker
+     *
+     * @throws IOException if the history cannot be read
+     * @throws InventoryException if a restock is rejected
+     */
+    @Test
+    public void testMatchesSequentialReplay() throws IOException, InventoryException {
+        Random random = new Random(3);
+        StringBuilder history = new StringBuilder();
+        long time = 0;
+        for (int i = 0; i < 20000; i++) {
+            time += random.nextInt(100);
+            boolean starved = i < 10000;
+            int scale = starved ? 1 : 4;
+            if (random.nextInt(starved ? 400 : 40) == 0) {
+                history.append(time).append(" RESTOCK ").append(random.nextInt(90 * scale)).append(' ')
+                        .append(random.nextInt(60 * scale)).append(' ').append(random.nextInt(30 * scale))
+                        .append(" 0\n");
+            } else {
+                history.append(time).append(" MAKE ").append(random.nextInt(4)).append(' ')
+                        .append(40 + random.nextInt(80)).append('\n');
+            }
+        }
+        write(history.toString());
+
+        long[] outcomes = new long[3 * Receipt.OUTCOMES];
+        CoffeeMaker replay = new CoffeeMaker(new RecipeBook(), new Inventory());
+        for (Recipe recipe : coffeeMaker.getRecipes()) {
+            if (recipe != null) {
+                replay.addRecipe(recipe);
+            }
+        }
+        for (String line : history.toString().split("\n")) {
+            String[] fields = line.split(" ");
+            if ("RESTOCK".equals(fields[1])) {
+                replay.addInventory(Integer.parseInt(fields[2]), Integer.parseInt(fields[3]),
+                        Integer.parseInt(fields[4]), Integer.parseInt(fields[5]));
+            } else if (Integer.parseInt(fields[2]) < 3) {
+                int slot = Integer.parseInt(fields[2]);
+                long receipt = replay.purchase(slot, Integer.parseInt(fields[3]));
+                outcomes[slot * Receipt.OUTCOMES + Receipt.outcome(receipt)]++;
+            }
+        }
+
+        for (int workers : new int[] {1, 4}) {
+            ForkJoinPool workerPool = new ForkJoinPool(workers);
+            HistoryAnalyzer analyzer = new HistoryAnalyzer(coffeeMaker, workerPool);
+            analyzer.setMinRange(4096);
+            HistoryReport report = analyzer.analyze(file);
+            workerPool.shutdown();
+            for (int slot = 0; slot < 3; slot++) {
+                for (int outcome = 0; outcome < Receipt.OUTCOMES; outcome++) {
+                    assertEquals(outcomes[slot * Receipt.OUTCOMES + outcome], report.getOrders(slot, outcome));
+                }
+            }
+            for (int i = 0; i < IngredientRegistry.BUILT_IN; i++) {
+                assertEquals(replay.getInventory().getStock(i), report.getStock(i));
+            }
+            assertTrue(report.getStockouts() > 0);
+        }
+    }
+
+    /**
+     * Given orders for coffee paying 40, 50, 60 and 70
+     * When we ask for demand and elasticity around its price of 50
+     * Then demand counts orders that paid at least the price and
+     * raising the price to 60 loses a third of the buyers
+     *
+     * @throws IOException if the history cannot be read
+     */
+    @Test
+    public void testDemandAndElasticity() throws IOException {
+        write("1 MAKE 0 40\n2 MAKE 0 50\n3 MAKE 0 60\n4 MAKE 0 70\n");
+        HistoryReport report = new HistoryAnalyzer(coffeeMaker, pool).analyze(file);
+        assertEquals(4, report.getDemand(0, 0));
+        assertEquals(3, report.getDemand(0, 50));
+        assertEquals(2, report.getDemand(0, 60));
+        assertEquals(0, report.getDemand(0, 71));
+        // (2 - 3) / 2.5 over (60 - 50) / 55
+        assertEquals(-2.2, report.getElasticity(0, 60), 1e-9);
+        assertTrue(Double.isNaN(report.getElasticity(1, 120)));
+    }
+
+    /**
+     * Given a history with a malformed line
+     * When we analyze it
+     * Then we get an exception that points at the line
+     */
+    @Test
+    public void testMalformedLine() throws IOException {
+        write("1 MAKE 0 50\n2 BREW 0 50\n");
+        try {
+            new HistoryAnalyzer(coffeeMaker, pool).analyze(file);
+            fail("A malformed line should throw");
+        } catch (IOException e) {
+            assertTrue(e.getMessage(), e.getMessage().startsWith("Byte 12: "));
+        }
+    }
+
+    private void write(String history) throws IOException {
+        Files.write(file, history.getBytes(StandardCharsets.US_ASCII));
+    }
+}
@@ -0,0 +1,115 @@
+package edu.ncsu.csc326.coffeemaker.change;
+
+import edu.ncsu.csc326.coffeemaker.CoffeeMakerTest;
+import edu.ncsu.csc326.coffeemaker.Inventory;
+import edu.ncsu.csc326.coffeemaker.Receipt;
+import edu.ncsu.csc326.coffeemaker.RecipeBook;
+import edu.ncsu.csc326.coffeemaker.Reservation;
+import edu.ncsu.csc326.coffeemaker.exceptions.RecipeException;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for ChangeDispensingCoffeeMaker class.
+ */
+public class ChangeDispensingCoffeeMakerTest {
+    private static final String FULL = "Coffee: 15\nMilk: 15\nSugar: 15\nChocolate: 15\n";
+
+    private ChangeDispensingCoffeeMaker coffeeMaker;
+    private CoinHopper hopper;
+
+    /**
+     * Sets up a coffee maker with a coffee recipe that costs 50 and a
+     * hopper holding one quarter and two dimes.
+     *
+     * @throws RecipeException if there was an error parsing the ingredient
+     *                         amount when setting up the recipe.
+     */
+    @Before
+    public void setUp() throws RecipeException {
+        hopper = new CoinHopper(100, 5, 10, 25);
+        hopper.refill(25, 1);
+        hopper.refill(10, 2);
+        coffeeMaker = new ChangeDispensingCoffeeMaker(new RecipeBook(), new Inventory(), hopper);
+        coffeeMaker.addRecipe(CoffeeMakerTest.createRecipe("Coffee", "0", "3", "1", "1", "50"));
+    }
+
+    /**
+     * Given a stocked hopper
+     * When we buy coffee paying 75
+     * Then the quarter is paid out as change
+     */
+    @Test
+    public void testPaysChangeInCoins() {
+        int[] coins = new int[3];
+        long receipt = coffeeMaker.purchase(0, 75, coins);
+        assertTrue(Receipt.isSold(receipt));
+        assertEquals(25, Receipt.change(receipt));
+        assertArrayEquals(new int[] {0, 0, 1}, coins);
+        assertEquals(0, hopper.getCount(25));
+    }
+
+    /**
+     * Given a hopper that cannot pay 5
+     * When we buy coffee paying 55
+     * Then the sale is refused and neither ingredients nor coins are taken
+     */
+    @Test
+    public void testRefusesWithoutExactChange() {
+        long receipt = coffeeMaker.purchase(0, 55);
+        assertEquals(Receipt.NO_CHANGE, Receipt.outcome(receipt));
+        assertEquals(55, Receipt.change(receipt));
+        assertEquals("no change", Receipt.describe(Receipt.NO_CHANGE));
+        assertEquals(FULL, coffeeMaker.checkInventory());
+        assertEquals(45, hopper.getValue());
+    }
+
+    /**
+     * Given coffee reserved twice against a hopper that cannot pay 5
+     * When we complete the first paying 55 and the second paying 75
+     * Then the first is released and refunded, and the second pays its quarter
+     */
+    @Test
+    public void testCompletePurchasePaysChange() {
+        Reservation refused = coffeeMaker.reserveCoffee(0, 60000);
+        assertEquals(55, coffeeMaker.completePurchase(refused, 55));
+        assertEquals(Reservation.RELEASED, refused.getState());
+        assertEquals(FULL, coffeeMaker.checkInventory());
+        assertEquals(45, hopper.getValue());
+
+        Reservation sold = coffeeMaker.reserveCoffee(0, 60000);
+        assertEquals(25, coffeeMaker.completePurchase(sold, 75));
+        assertEquals(Reservation.COMMITTED, sold.getState());
+        assertEquals(0, hopper.getCount(25));
+    }
+
+    /**
+     * Given an empty hopper
+     * When we pay the exact price, too little, or for a missing recipe
+     * Then the exact payment sells and the others are refunded from escrow
+     */
+    @Test
+    public void testExactPaymentAndRefundsNeedNoCoins() {
+        hopper.pay(45, null);
+        assertEquals(0, coffeeMaker.makeCoffee(0, 50));
+        assertEquals(Receipt.INSUFFICIENT_PAYMENT, Receipt.outcome(coffeeMaker.purchase(0, 40)));
+        assertEquals(Receipt.NO_SUCH_RECIPE, Receipt.outcome(coffeeMaker.purchase(3, 60)));
+        assertEquals(Receipt.NO_CHANGE, Receipt.outcome(coffeeMaker.purchase(0, 60)));
+    }
+
+    /**
+     * Given a hopper with change for only some orders
+     * When we make a batch
+     * Then the orders without change are refunded in full
+     */
+    @Test
+    public void testBatch() {
+        int[] change = new int[4];
+        int made = coffeeMaker.makeCoffeeBatch(new int[] {0, 0, 0, 0}, new int[] {60, 60, 60, 75}, change);
+        assertEquals(3, made);
+        assertArrayEquals(new int[] {10, 10, 60, 25}, change);
+        assertEquals(0, hopper.getValue());
+    }
+}
@@ -0,0 +1,152 @@
+package edu.ncsu.csc326.coffeemaker.change;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for CoinHopper and ChangeTable classes.
+ */
+public class CoinHopperTest {
+
+    /**
+     * Given coins of 1, 3 and 4
+     * When we pay 6
+     * Then we get two 3s rather than the greedy 4, 1 and 1
+     */
+    @Test
+    public void testFewestCoins() {
+        CoinHopper hopper = new CoinHopper(100, 1, 3, 4);
+        hopper.refill(1, 10);
+        hopper.refill(3, 10);
+        hopper.refill(4, 10);
+        int[] coins = new int[3];
+        assertTrue(hopper.pay(6, coins));
+        assertArrayEquals(new int[] {0, 2, 0}, coins);
+        assertEquals(8, hopper.getCount(3));
+    }
+
+    /**
+     * Given one quarter and a few dimes
+     * When we pay 30 twice
+     * Then the first payout uses three dimes and the second cannot be paid
+     */
+    @Test
+    public void testLimitedCoins() {
+        CoinHopper hopper = new CoinHopper(100, 5, 10, 25);
+        hopper.refill(25, 1);
+        hopper.refill(10, 4);
+        int[] coins = new int[3];
+        assertTrue(hopper.pay(30, coins));
+        assertArrayEquals(new int[] {0, 3, 0}, coins);
+        assertFalse(hopper.canPay(30));
+        assertFalse(hopper.pay(30, coins));
+        assertEquals(35, hopper.getValue());
+        assertTrue(hopper.pay(35, coins));
+        assertArrayEquals(new int[] {0, 1, 1}, coins);
+        assertEquals(0, hopper.getValue());
+    }
+
+    /**
+     * Given a hopper
+     * When we ask for nothing, a negative amount or more than its maximum
+     * Then nothing is always paid and the others never are
+     */
+    @Test
+    public void testAmountRange() {
+        CoinHopper hopper = new CoinHopper(50, 1);
+        hopper.refill(1, 1000);
+        assertTrue(hopper.canPay(0));
+        assertFalse(hopper.canPay(-1));
+        assertTrue(hopper.canPay(50));
+        assertFalse(hopper.canPay(51));
+    }
+
+    /**
+     * Given a hopper with far more coins than one payout can use
+     * When we pay change many times
+     * Then the table is built once and never again
+     */
+    @Test
+    public void testLargeHopperNeverRebuilds() {
+        CoinHopper hopper = new CoinHopper(1000, 5, 10, 25, 100);
+        for (int d : hopper.getDenominations()) {
+            hopper.refill(d, 1000000000L);
+        }
+        int[] coins = new int[4];
+        for (int i = 0; i < 10000; i++) {
+            assertTrue(hopper.pay(5 * (i % 200), coins));
+        }
+        assertEquals(1, hopper.getTableBuilds());
+    }
+
+    /**
+     * Given unknown or repeated denominations or a negative refill
+     * When we use them
+     * Then we get an exception
+     */
+    @Test
+    public void testInvalidDenominations() {
+        try {
+            new CoinHopper(100, 5, 5);
+            fail("Repeated denominations should throw");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+        CoinHopper hopper = new CoinHopper(100, 5);
+        try {
+            hopper.refill(7, 1);
+            fail("An unknown denomination should throw");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+        try {
+            hopper.refill(5, -1);
+            fail("A negative refill should throw");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    /**
+     * Given random denominations and coin limits
+     * When we build the change table
+     * Then every amount takes as few coins as an exhaustive search finds
+     */
+    @Test
+    public void testTableMatchesExhaustiveSearch() {
+        Random random = new Random(21);
+        for (int round = 0; round < 200; round++) {
+            int[] denominations = {1 + random.nextInt(3), 4 + random.nextInt(4), 9 + random.nextInt(8)};
+            long[] limits = {random.nextInt(5), random.nextInt(5), random.nextInt(5)};
+            int max = 60;
+            ChangeTable table = new ChangeTable(denominations, limits, max);
+            int[] coins = new int[3];
+            for (int amount = 0; amount <= max; amount++) {
+                int expected = -1;
+                for (int a = 0; a <= limits[0]; a++) {
+                    for (int b = 0; b <= limits[1]; b++) {
+                        for (int c = 0; c <= limits[2]; c++) {
+                            if (a * denominations[0] + b * denominations[1] + c * denominations[2] == amount
+                                    && (expected < 0 || a + b + c < expected)) {
+                                expected = a + b + c;
+                            }
+                        }
+                    }
+                }
+                assertEquals(expected, table.coins(amount));
+                assertEquals(expected >= 0, table.breakdown(amount, coins));
+                if (expected >= 0) {
+                    assertEquals(amount, coins[0] * denominations[0] + coins[1] * denominations[1]
+                            + coins[2] * denominations[2]);
+                    assertEquals(expected, coins[0] + coins[1] + coins[2]);
+                    for (int j = 0; j < 3; j++) {
+                        assertTrue(coins[j] <= limits[j]);
+                    }
+                }
+            }
+        }
+    }
+}
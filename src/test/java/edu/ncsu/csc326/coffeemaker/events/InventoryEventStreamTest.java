@@ -0,0 +1,175 @@
+package edu.ncsu.csc326.coffeemaker.events;
+
+import edu.ncsu.csc326.coffeemaker.AtomicInventory;
+import edu.ncsu.csc326.coffeemaker.CoffeeMaker;
+import edu.ncsu.csc326.coffeemaker.CoffeeMakerTest;
+import edu.ncsu.csc326.coffeemaker.IngredientRegistry;
+import edu.ncsu.csc326.coffeemaker.Inventory;
+import edu.ncsu.csc326.coffeemaker.RecipeBook;
+import edu.ncsu.csc326.coffeemaker.StockListener;
+import edu.ncsu.csc326.coffeemaker.exceptions.InventoryException;
+import edu.ncsu.csc326.coffeemaker.exceptions.RecipeException;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for InventoryEventStream class.
+ */
+public class InventoryEventStreamTest {
+    private CoffeeMaker coffeeMaker;
+    private InventoryEventStream stream;
+    private InventoryEvent event;
+
+    /**
+     * Sets up a coffee maker with a coffee recipe over the default
+     * inventory, publishing into a stream of 16 events.
+     *
+     * @throws RecipeException if there was an error parsing the ingredient
+     *                         amount when setting up the recipe.
+     */
+    @Before
+    public void setUp() throws RecipeException {
+        coffeeMaker = new CoffeeMaker();
+        coffeeMaker.addRecipe(CoffeeMakerTest.createRecipe("Coffee", "0", "3", "1", "1", "50"));
+        stream = new InventoryEventStream(16);
+        stream.attach(coffeeMaker.getInventory());
+        event = new InventoryEvent();
+    }
+
+    /**
+     * Given a stream attached to an inventory
+     * When we make coffee, add inventory and set an ingredient
+     * Then a consumer reads the starting stock and one event per change
+     *
+     * @throws InventoryException if the inventory cannot be added
+     */
+    @Test
+    public void testPublishesChanges() throws InventoryException {
+        InventoryEventStream.Consumer consumer = stream.newConsumer(WaitStrategy.busySpin());
+        assertTrue(consumer.poll(event));
+        assertEquals(1, event.getSequence());
+        assertEquals(StockListener.SET, event.getCause());
+        assertEquals(15, event.getStock(IngredientRegistry.COFFEE));
+
+        coffeeMaker.makeCoffee(0, 50);
+        coffeeMaker.addInventory(0, 0, 0, 5);
+        coffeeMaker.getInventory().setMilk(2);
+        assertEquals(3, consumer.getLag());
+
+        assertTrue(consumer.poll(event));
+        assertEquals(StockListener.USE, event.getCause());
+        assertTrue(event.changed(IngredientRegistry.COFFEE));
+        assertFalse(event.changed(IngredientRegistry.CHOCOLATE));
+        assertEquals("#2 use Coffee: 12 Milk: 14 Sugar: 14 Chocolate: 15", event.toString());
+        assertTrue(consumer.poll(event));
+        assertEquals(StockListener.ADD, event.getCause());
+        assertEquals(20, event.getStock(IngredientRegistry.CHOCOLATE));
+        assertTrue(consumer.poll(event));
+        assertEquals(StockListener.SET, event.getCause());
+        assertEquals(2, event.getStock(IngredientRegistry.MILK));
+        assertFalse(consumer.poll(event));
+        assertEquals(0, consumer.getLag());
+    }
+
+    /**
+     * Given a consumer that does not read
+     * When more changes are published than the ring holds
+     * Then the consumer skips to the oldest event left and counts what it missed
+     */
+    @Test
+    public void testSlowConsumerMissesEvents() {
+        InventoryEventStream.Consumer slow = stream.newConsumer(WaitStrategy.busySpin());
+        InventoryEventStream.Consumer fast = stream.newConsumer(WaitStrategy.busySpin());
+        Inventory inventory = coffeeMaker.getInventory();
+        assertTrue(fast.poll(event));
+        for (int units = 1; units <= 40; units++) {
+            inventory.setSugar(units);
+            while (fast.poll(event)) {
+                assertEquals(units, event.getStock(IngredientRegistry.SUGAR));
+            }
+        }
+        assertEquals(41, stream.getCursor());
+        assertArrayEquals(new InventoryEventStream.Consumer[] {slow}, stream.getSlowConsumers(8));
+        assertTrue(slow.poll(event));
+        assertEquals(26, event.getSequence());
+        assertEquals(25, slow.getMissed());
+        assertEquals(0, fast.getMissed());
+        slow.close();
+        assertEquals(0, stream.getSlowConsumers(8).length);
+    }
+
+    /**
+     * Given a stream detached from its inventory
+     * When the inventory changes
+     * Then nothing more is published
+     */
+    @Test
+    public void testDetach() {
+        stream.detach(coffeeMaker.getInventory());
+        coffeeMaker.getInventory().setCoffee(1);
+        assertEquals(1, stream.getCursor());
+    }
+
+    /**
+     * Given a lock-free inventory changed by several threads at once
+     * When two consumers with different wait strategies read the stream
+     * Then both see every event in order and end at the final stock
+     *
+     * @throws Exception if a thread fails
+     */
+    @Test
+    public void testConcurrentProducersAndConsumers() throws Exception {
+        final CoffeeMaker atomic = new CoffeeMaker(new RecipeBook(), new AtomicInventory());
+        atomic.addRecipe(CoffeeMakerTest.createRecipe("Coffee", "0", "3", "1", "1", "50"));
+        final InventoryEventStream big = new InventoryEventStream(1 << 16);
+        big.attach(atomic.getInventory());
+        final int producers = 4;
+        final int rounds = 2000;
+        final long events = 1 + producers * rounds * 2L;
+        final int[][] last = new int[2][];
+        Thread[] readers = new Thread[2];
+        WaitStrategy[] strategies = {WaitStrategy.yielding(), WaitStrategy.parking(10000)};
+        for (int r = 0; r < readers.length; r++) {
+            final int reader = r;
+            final InventoryEventStream.Consumer consumer = big.newConsumer(strategies[r]);
+            readers[r] = new Thread(() -> {
+                InventoryEvent e = new InventoryEvent();
+                try {
+                    for (long expected = 1; expected <= events; expected++) {
+                        consumer.take(e);
+                        assertEquals(expected, e.getSequence());
+                    }
+                } catch (InterruptedException ex) {
+                    return;
+                }
+                last[reader] = new int[] {e.getStock(0), e.getStock(1), e.getStock(2), e.getStock(3)};
+            });
+            readers[r].start();
+        }
+        Thread[] writers = new Thread[producers];
+        for (int p = 0; p < producers; p++) {
+            writers[p] = new Thread(() -> {
+                for (int i = 0; i < rounds; i++) {
+                    try {
+                        atomic.addInventory(3, 1, 1, 0);
+                    } catch (InventoryException e) {
+                        throw new IllegalStateException(e);
+                    }
+                    atomic.makeCoffee(0, 50);
+                }
+            });
+            writers[p].start();
+        }
+        for (Thread t : writers) {
+            t.join();
+        }
+        for (Thread t : readers) {
+            t.join(10000);
+        }
+        int[] stock = atomic.getInventory().getStockLevels();
+        assertArrayEquals(stock, last[0]);
+        assertArrayEquals(stock, last[1]);
+    }
+}
@@ -0,0 +1,94 @@
+package edu.ncsu.csc326.coffeemaker.fleet;
+
+import edu.ncsu.csc326.coffeemaker.AtomicInventory;
+import edu.ncsu.csc326.coffeemaker.CoffeeMaker;
+import edu.ncsu.csc326.coffeemaker.CoffeeMakerTest;
+import edu.ncsu.csc326.coffeemaker.Recipe;
+import edu.ncsu.csc326.coffeemaker.exceptions.RecipeException;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for CoffeeMakerFleet class.
+ */
+public class CoffeeMakerFleetTest {
+    /**
+     * The object under test
+     */
+    private CoffeeMakerFleet fleet;
+
+    private Recipe recipe;
+
+    /**
+     * Creates an empty fleet and a sample recipe.
+     *
+     * @throws RecipeException if there was an error parsing the ingredient
+     *                         amount when setting up the recipe.
+     */
+    @Before
+    public void setUp() throws RecipeException {
+        fleet = new CoffeeMakerFleet(AtomicInventory::new);
+        recipe = CoffeeMakerTest.createRecipe("Coffee", "0", "3", "1", "1", "50");
+    }
+
+    /**
+     * Given an empty fleet
+     * When we create machines with new and existing ids
+     * Then only the new ids create machines and they can be looked up
+     */
+    @Test
+    public void testCreateAndLookup() {
+        CoffeeMaker first = fleet.create("lobby");
+        assertNotNull(first);
+        assertNull(fleet.create("lobby"));
+        assertSame(first, fleet.get("lobby"));
+        assertNull(fleet.get("kitchen"));
+        assertEquals(1, fleet.size());
+        assertSame(first, fleet.remove("lobby"));
+        assertEquals(0, fleet.size());
+    }
+
+    /**
+     * Given two machines in the fleet
+     * When one machine sells until it runs out of coffee
+     * Then the other machine still has its full stock
+     */
+    @Test
+    public void testMachinesHaveIndependentStock() {
+        fleet.create("lobby").addRecipe(recipe);
+        fleet.create("kitchen").addRecipe(recipe);
+        for (int i = 0; i < 5; i++) {
+            assertEquals(0, fleet.makeCoffee("lobby", 0, 50));
+        }
+        assertEquals(50, fleet.makeCoffee("lobby", 0, 50));
+        assertEquals(0, fleet.makeCoffee("kitchen", 0, 50));
+        assertEquals("Coffee: 12\nMilk: 14\nSugar: 14\nChocolate: 15\n",
+                fleet.get("kitchen").checkInventory());
+    }
+
+    /**
+     * Given many machines in the fleet
+     * When we drive all of them in parallel
+     * Then every machine serves its own orders
+     */
+    @Test
+    public void testParallelForEach() {
+        for (int i = 0; i < 1000; i++) {
+            fleet.create("machine-" + i).addRecipe(recipe);
+        }
+        final AtomicInteger sold = new AtomicInteger();
+        fleet.parallelForEach((id, machine) -> {
+            for (int i = 0; i < 5; i++) {
+                if (machine.makeCoffee(0, 50) == 0) {
+                    sold.incrementAndGet();
+                }
+            }
+        });
+        assertEquals(5000, sold.get());
+        assertEquals(50, fleet.makeCoffee("missing", 0, 50));
+    }
+}
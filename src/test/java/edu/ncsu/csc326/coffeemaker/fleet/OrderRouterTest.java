@@ -0,0 +1,174 @@
+package edu.ncsu.csc326.coffeemaker.fleet;
+
+import edu.ncsu.csc326.coffeemaker.AtomicInventory;
+import edu.ncsu.csc326.coffeemaker.CoffeeMaker;
+import edu.ncsu.csc326.coffeemaker.Inventory;
+import edu.ncsu.csc326.coffeemaker.Receipt;
+import edu.ncsu.csc326.coffeemaker.Recipe;
+import edu.ncsu.csc326.coffeemaker.RecipeBook;
+import edu.ncsu.csc326.coffeemaker.RecipeSnapshot;
+import edu.ncsu.csc326.coffeemaker.exceptions.RecipeException;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for OrderRouter class.
+ */
+public class OrderRouterTest {
+    private static final String FULL = "Coffee: 15\nMilk: 15\nSugar: 15\nChocolate: 15\n";
+
+    private Recipe coffee;
+    private Recipe latte;
+
+    /**
+     * Creates a coffee recipe at 50 and a latte recipe at 100.
+     *
+     * @throws RecipeException if a recipe is invalid
+     */
+    @Before
+    public void setUp() throws RecipeException {
+        coffee = new Recipe("Coffee", 50, new int[] {3, 1, 1, 0});
+        latte = new Recipe("Latte", 100, new int[] {3, 3, 1, 0});
+    }
+
+    /**
+     * Given three machines, the first of them out of milk
+     * When we route the ten lattes the other two can make, with
+     * either policy
+     * Then no latte goes to the first machine and it keeps its coffee
+     */
+    @Test
+    public void testRoutesAroundMissingMilk() {
+        for (int policy : new int[] {OrderRouter.LEAST_LOADED, OrderRouter.TWO_CHOICES}) {
+            CoffeeMaker[] machines = machines(3, new Inventory());
+            machines[0].getInventory().setMilk(0);
+            OrderRouter router = new OrderRouter(policy, OrderRouter.ATTEMPTS, machines);
+            int[] machine = new int[1];
+            for (int i = 0; i < 10; i++) {
+                long receipt = router.purchase(1, 100, machine);
+                assertTrue(Receipt.isSold(receipt));
+                assertNotEquals(0, machine[0]);
+            }
+            assertEquals(15, machines[0].getInventory().getCoffee());
+            assertEquals(0, router.getServings(1, 1) + router.getServings(2, 1));
+            assertEquals(-1, router.route(1));
+            assertEquals(Receipt.of(Receipt.OUT_OF_STOCK, 100), router.purchase(1, 100, machine));
+            assertEquals(-1, machine[0]);
+            assertEquals(0, router.getRetries());
+        }
+    }
+
+    /**
+     * Given a machine whose view says it has coffee but whose
+     * dispenser refuses every order, and a working machine
+     * When we buy coffee until the jammed machine has been picked
+     * Then every order is sold by the working machine after a retry,
+     * and the jammed machine's stock is never touched
+     */
+    @Test
+    public void testRetriesWithoutDoubleDeduction() {
+        CoffeeMaker jammed = new CoffeeMaker(new RecipeBook(), new Inventory()) {
+            protected boolean takeIngredients(RecipeSnapshot recipes, Recipe recipe) {
+                return false;
+            }
+        };
+        jammed.addRecipe(coffee);
+        CoffeeMaker working = machines(1, new Inventory())[0];
+        OrderRouter router = new OrderRouter(OrderRouter.TWO_CHOICES, 2, jammed, working);
+        int[] machine = new int[1];
+        int sold = 0;
+        while (router.getRetries() == 0) {
+            long receipt = router.purchase(0, 50, machine);
+            assertTrue(Receipt.isSold(receipt));
+            assertEquals(1, machine[0]);
+            sold++;
+        }
+        assertEquals(FULL, jammed.getInventory().toString());
+        assertEquals(15 - 3 * sold, working.getInventory().getCoffee());
+        assertEquals(0, router.getInFlight(0) + router.getInFlight(1));
+    }
+
+    /**
+     * Given a fleet whose machines all have the recipes
+     * When we underpay or buy from an empty slot
+     * Then the order is refused with a full refund and never retried
+     */
+    @Test
+    public void testRefusals() {
+        CoffeeMakerFleet fleet = new CoffeeMakerFleet();
+        for (String id : new String[] {"a", "b"}) {
+            fleet.create(id).addRecipe(coffee);
+        }
+        OrderRouter router = OrderRouter.of(fleet, OrderRouter.LEAST_LOADED);
+        assertEquals(2, router.size());
+        assertEquals(Receipt.of(Receipt.INSUFFICIENT_PAYMENT, 40), router.purchase(0, 40));
+        assertEquals(Receipt.of(Receipt.NO_SUCH_RECIPE, 100), router.purchase(2, 100));
+        assertEquals(0, router.getRetries());
+        assertEquals(FULL, fleet.get("a").getInventory().toString());
+    }
+
+    /**
+     * Given ten lock-free machines with five coffees each
+     * When eight threads order 100 coffees each through the router
+     * Then exactly the 50 coffees in stock are sold, with either policy
+     *
+     * @throws InterruptedException if the test is interrupted
+     */
+    @Test
+    public void testConcurrentOrdersSellEveryServingOnce() throws InterruptedException {
+        for (int policy : new int[] {OrderRouter.LEAST_LOADED, OrderRouter.TWO_CHOICES}) {
+            final CoffeeMaker[] machines = machines(10, null);
+            for (CoffeeMaker machine : machines) {
+                machine.getInventory().setCoffee(15);
+            }
+            final OrderRouter router = new OrderRouter(policy, OrderRouter.ATTEMPTS, machines);
+            final AtomicInteger sold = new AtomicInteger();
+            final CountDownLatch start = new CountDownLatch(1);
+            Thread[] threads = new Thread[8];
+            for (int t = 0; t < threads.length; t++) {
+                threads[t] = new Thread(() -> {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    for (int i = 0; i < 100; i++) {
+                        if (Receipt.isSold(router.purchase(0, 50))) {
+                            sold.incrementAndGet();
+                        }
+                    }
+                });
+                threads[t].start();
+            }
+            start.countDown();
+            for (Thread t : threads) {
+                t.join();
+            }
+            assertEquals(50, sold.get());
+            for (CoffeeMaker machine : machines) {
+                assertEquals(0, machine.getInventory().getCoffee());
+                assertEquals(10, machine.getInventory().getMilk());
+            }
+        }
+    }
+
+    /**
+     * Returns machines with the coffee and latte recipes, each with a
+     * fresh inventory of the same type as the given one, or an
+     * AtomicInventory if it is null.
+     */
+    private CoffeeMaker[] machines(int count, Inventory type) {
+        CoffeeMaker[] machines = new CoffeeMaker[count];
+        for (int i = 0; i < count; i++) {
+            machines[i] = new CoffeeMaker(new RecipeBook(), type == null ? new AtomicInventory() : new Inventory());
+            machines[i].addRecipe(coffee);
+            machines[i].addRecipe(latte);
+        }
+        return machines;
+    }
+}
@@ -0,0 +1,207 @@
+package edu.ncsu.csc326.coffeemaker.importer;
+
+import edu.ncsu.csc326.coffeemaker.CoffeeMakerTest;
+import edu.ncsu.csc326.coffeemaker.IngredientRegistry;
+import edu.ncsu.csc326.coffeemaker.Recipe;
+import edu.ncsu.csc326.coffeemaker.RecipeBook;
+import edu.ncsu.csc326.coffeemaker.exceptions.RecipeException;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for RecipeImporter.
+ */
+public class RecipeImporterTest {
+    /**
+     * The object under test
+     */
+    private RecipeImporter importer;
+
+    private RecipeBook recipeBook;
+
+    /**
+     * Creates an importer with a small buffer so lines cross buffer
+     * boundaries, and an empty recipe book
+     */
+    @Before
+    public void setUp() {
+        importer = new RecipeImporter(64, 2, 10);
+        recipeBook = new RecipeBook();
+    }
+
+    /**
+     * Given a menu with the default columns, a comment and a blank line
+     * When we import it
+     * Then every recipe is added with its price and amounts
+     *
+     * @throws IOException if the menu cannot be read
+     */
+    @Test
+    public void testImportDefaultColumns() throws IOException {
+        ImportReport report = importText("# name,price,coffee,milk,sugar,chocolate\n"
+                + "Coffee,50,3,1,1,0\n"
+                + "\n"
+                + "Mocha, 75 , 3,1,1,2\r\n"
+                + "Latte,100,3,3,1,0");
+
+        assertEquals(3, report.getLines());
+        assertEquals(3, report.getImported());
+        assertEquals(0, report.getRejected());
+        Recipe mocha = recipeBook.getRecipe(recipeBook.indexOf("Mocha"));
+        assertEquals(75, mocha.getPrice());
+        assertEquals(3, mocha.getAmtCoffee());
+        assertEquals(2, mocha.getAmtChocolate());
+        assertEquals("Latte", recipeBook.getRecipe(2).getName());
+    }
+
+    /**
+     * Given a menu with bad lines between good ones
+     * When we import it
+     * Then the good lines are added and each bad line is reported
+     * with its line number
+     *
+     * @throws IOException if the menu cannot be read
+     */
+    @Test
+    public void testBadLinesReported() throws IOException {
+        ImportReport report = importText("Coffee,50,3,1,1,0\n"
+                + "Mocha,abc,3,1,1,2\n"
+                + "Latte,100,3,-3,1,0\n"
+                + ",10,1,1,1,1\n"
+                + "Tea,10,1\n"
+                + "Coffee,60,1,1,1,1\n"
+                + "Espresso,40,2,0,0,0\n");
+
+        assertEquals(7, report.getLines());
+        assertEquals(2, report.getImported());
+        assertEquals(5, report.getRejected());
+        assertEquals("Line 2: Price must be a positive integer", report.getErrors().get(0).toString());
+        assertEquals("Line 3: Units of milk must be a positive integer", report.getErrors().get(1).toString());
+        assertEquals("Line 4: Recipe name is empty", report.getErrors().get(2).toString());
+        assertEquals("Line 5: Expected 6 fields but found 3", report.getErrors().get(3).toString());
+        assertEquals("Line 6: Recipe Coffee already exists", report.getErrors().get(4).toString());
+        assertEquals(2, recipeBook.size());
+    }
+
+    /**
+     * Given a menu with a header naming a new ingredient
+     * When we import it
+     * Then the ingredient is registered and used by the recipes
+     *
+     * @throws IOException if the menu cannot be read
+     */
+    @Test
+    public void testHeaderColumns() throws IOException {
+        ImportReport report = importText("Name,Price,Coffee,Hazelnut Syrup\n"
+                + "Hazelnut Latte,90,2,1\n");
+
+        assertEquals(1, report.getImported());
+        Recipe r = recipeBook.getRecipe(0);
+        assertEquals(2, r.getAmtCoffee());
+        assertEquals(0, r.getAmtMilk());
+        assertEquals(1, r.getAmount(IngredientRegistry.idOf("hazelnut syrup")));
+    }
+
+    /**
+     * Given a quoted name holding a comma and a quote
+     * When we import it
+     * Then the name is unquoted
+     *
+     * @throws IOException if the menu cannot be read
+     */
+    @Test
+    public void testQuotedName() throws IOException {
+        importText("\"Cafe \"\"Special\"\", large\",80,2,1,1,1\n");
+        assertEquals("Cafe \"Special\", large", recipeBook.getRecipe(0).getName());
+    }
+
+    /**
+     * Given a line longer than the read buffer
+     * When we import it
+     * Then that line is rejected and the lines after it are added
+     *
+     * @throws IOException if the menu cannot be read
+     */
+    @Test
+    public void testLineLongerThanBuffer() throws IOException {
+        ImportReport report = importText("Coffee,50,3,1,1,0\n"
+                + "A very long recipe name that does not fit in the small read buffer,50,3,1,1,0\n"
+                + "Tea,10,0,0,1,0\n");
+
+        assertEquals(2, report.getImported());
+        assertEquals("Line 2: Line is longer than 64 bytes", report.getErrors().get(0).toString());
+        assertEquals(1, recipeBook.indexOf("Tea"));
+    }
+
+    /**
+     * Given a book that already has a recipe
+     * When we import a menu with the same recipe name
+     * Then the existing recipe is kept and the line is rejected
+     *
+     * @throws IOException if the menu cannot be read
+     * @throws RecipeException if there was an error parsing the ingredient
+     *                         amount when setting up the recipe.
+     */
+    @Test
+    public void testExistingRecipeKept() throws IOException, RecipeException {
+        recipeBook.addRecipe(CoffeeMakerTest.createRecipe("Coffee", "0", "3", "1", "1", "50"));
+        ImportReport report = importText("Coffee,99,1,1,1,1\n");
+
+        assertEquals(1, report.getRejected());
+        assertEquals(50, recipeBook.getRecipe(0).getPrice());
+    }
+
+    /**
+     * Given a menu with more bad lines than the report keeps
+     * When we import it
+     * Then every bad line is counted but only the first are kept
+     *
+     * @throws IOException if the menu cannot be read
+     */
+    @Test
+    public void testErrorsCapped() throws IOException {
+        StringBuilder menu = new StringBuilder();
+        for (int i = 0; i < 25; i++) {
+            menu.append("x\n");
+        }
+        ImportReport report = importText(menu.toString());
+        assertEquals(25, report.getRejected());
+        assertEquals(10, report.getErrors().size());
+    }
+
+    /**
+     * Given a large generated menu
+     * When we import it with different buffer and batch sizes
+     * Then every recipe is added in file order
+     *
+     * @throws IOException if the menu cannot be read
+     */
+    @Test
+    public void testChunkingDoesNotChangeResult() throws IOException {
+        StringBuilder menu = new StringBuilder();
+        for (int i = 0; i < 5000; i++) {
+            menu.append("Drink ").append(i).append(',').append(i % 200).append(",1,").append(i % 3).append(",1,0\n");
+        }
+        for (int buffer : new int[] {24, 100, 64 * 1024}) {
+            recipeBook = new RecipeBook();
+            importer = new RecipeImporter(buffer, 1000, 10);
+            ImportReport report = importText(menu.toString());
+            assertEquals(5000, report.getImported());
+            assertEquals("Drink 4321", recipeBook.getRecipe(4321).getName());
+            assertEquals(4321 % 200, recipeBook.getRecipe(4321).getPrice());
+            assertEquals(4321 % 3, recipeBook.getRecipe(4321).getAmtMilk());
+        }
+    }
+
+    private ImportReport importText(String text) throws IOException {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        return importer.importFrom(Channels.newChannel(new ByteArrayInputStream(bytes)), recipeBook);
+    }
+}
@@ -0,0 +1,200 @@
+package edu.ncsu.csc326.coffeemaker.journal;
+
+import edu.ncsu.csc326.coffeemaker.AtomicInventory;
+import edu.ncsu.csc326.coffeemaker.CoffeeMaker;
+import edu.ncsu.csc326.coffeemaker.CoffeeMakerTest;
+import edu.ncsu.csc326.coffeemaker.IngredientRegistry;
+import edu.ncsu.csc326.coffeemaker.Inventory;
+import edu.ncsu.csc326.coffeemaker.Recipe;
+import edu.ncsu.csc326.coffeemaker.RecipeBook;
+import edu.ncsu.csc326.coffeemaker.exceptions.RecipeException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for Checkpoint.
+ */
+public class CheckpointTest {
+    private Path dir;
+    private Path file;
+    private CoffeeMaker coffeeMaker;
+
+    /**
+     * Creates a coffee maker with three recipes, one of them
+     * deleted, and some stock used
+     *
+     * @throws IOException if the temporary directory cannot be created
+     * @throws RecipeException if there was an error parsing the ingredient
+     *                         amount when setting up the recipe.
+     */
+    @Before
+    public void setUp() throws IOException, RecipeException {
+        dir = Files.createTempDirectory("checkpoint");
+        file = dir.resolve("coffeemaker.ckpt");
+        coffeeMaker = new CoffeeMaker();
+        coffeeMaker.addRecipe(CoffeeMakerTest.createRecipe("Coffee", "0", "3", "1", "1", "50"));
+        coffeeMaker.addRecipe(CoffeeMakerTest.createRecipe("Mocha", "2", "3", "1", "1", "75"));
+        coffeeMaker.addRecipe(CoffeeMakerTest.createRecipe("Latte", "0", "3", "3", "1", "100"));
+        coffeeMaker.deleteRecipe(1);
+        coffeeMaker.makeCoffee(0, 50);
+    }
+
+    /**
+     * Removes the temporary directory
+     *
+     * @throws IOException if the files cannot be removed
+     */
+    @After
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            for (Path p : (Iterable<Path>) files::iterator) {
+                Files.delete(p);
+            }
+        }
+        Files.delete(dir);
+    }
+
+    /**
+     * Given a coffee maker with recipes, an empty slot and used stock
+     * When it is checkpointed and loaded
+     * Then the loaded coffee maker has the same recipes in the same
+     * slots and the same inventory, and no temporary file is left
+     *
+     * @throws IOException if the checkpoint cannot be written or read
+     */
+    @Test
+    public void testRoundTrip() throws IOException {
+        Checkpoint.write(file, coffeeMaker);
+        assertFalse(Files.exists(dir.resolve("coffeemaker.ckpt.tmp")));
+
+        CoffeeMaker loaded = Checkpoint.load(file);
+        assertEquals(coffeeMaker.checkInventory(), loaded.checkInventory());
+        // The checkpoint keeps the used slots, not the spare capacity
+        assertEquals(Arrays.asList(Arrays.copyOf(coffeeMaker.getRecipes(), 3)), Arrays.asList(loaded.getRecipes()));
+        assertEquals(100, loaded.getRecipes()[2].getPrice());
+        assertEquals(3, loaded.getRecipes()[2].getAmtMilk());
+        assertEquals(2, loaded.getRecipeBook().indexOf("Latte"));
+    }
+
+    /**
+     * Given a loaded checkpoint with a freed slot
+     * When we add a recipe and make coffee
+     * Then the freed slot is reused and purchases work as before
+     *
+     * @throws Exception if the checkpoint cannot be written or read
+     */
+    @Test
+    public void testLoadedBookKeepsFreeSlots() throws Exception {
+        Checkpoint.write(file, coffeeMaker);
+        CoffeeMaker loaded = Checkpoint.load(file);
+
+        assertFalse(loaded.addRecipe(CoffeeMakerTest.createRecipe("Coffee", "0", "1", "1", "1", "10")));
+        assertTrue(loaded.addRecipe(CoffeeMakerTest.createRecipe("Tea", "0", "0", "0", "1", "25")));
+        assertEquals("Tea", loaded.getRecipes()[1].getName());
+        assertEquals(0, loaded.makeCoffee(0, 50));
+        assertEquals("Coffee: 9\nMilk: 13\nSugar: 13\nChocolate: 15\n", loaded.checkInventory());
+    }
+
+    /**
+     * Given a checkpoint opened on a recipe book
+     * When the same slot is read twice
+     * Then it is built once and the same recipe is returned
+     *
+     * @throws IOException if the checkpoint cannot be written or read
+     */
+    @Test
+    public void testRecipesBuiltOnce() throws IOException {
+        Checkpoint.write(file, coffeeMaker);
+        Checkpoint checkpoint = Checkpoint.open(file);
+        assertEquals(2, checkpoint.getRecipeCount());
+        assertEquals(3, checkpoint.slots());
+        assertEquals("Latte", checkpoint.name(2));
+        assertNull(checkpoint.name(1));
+        assertNull(checkpoint.load(1));
+
+        RecipeBook book = checkpoint.newRecipeBook();
+        Recipe latte = book.getRecipe(2);
+        assertSame(latte, book.getRecipe(2));
+        assertNull(book.getRecipe(1));
+        assertEquals(2, book.size());
+    }
+
+    /**
+     * Given a recipe with a registered ingredient and an atomic inventory
+     * When they are checkpointed and loaded
+     * Then the ingredient is restored by name
+     *
+     * @throws Exception if the checkpoint cannot be written or read
+     */
+    @Test
+    public void testRegisteredIngredient() throws Exception {
+        Recipe oat = CoffeeMakerTest.createRecipe("Oat Latte", "0", "2", "0", "1", "80");
+        oat.setAmount("Oat Milk", "4");
+        RecipeBook book = new RecipeBook();
+        book.addRecipe(oat);
+        Inventory inventory = new AtomicInventory();
+        inventory.setMilk(7);
+        Checkpoint.write(file, book, inventory);
+
+        Checkpoint checkpoint = Checkpoint.open(file);
+        Inventory restored = new Inventory();
+        checkpoint.restore(restored);
+        assertEquals(7, restored.getMilk());
+        assertEquals(4, checkpoint.newRecipeBook().getRecipe(0).getAmount(IngredientRegistry.idOf("oat milk")));
+    }
+
+    /**
+     * Given a checkpoint whose contents were damaged
+     * When it is opened
+     * Then we get an exception
+     *
+     * @throws IOException if the checkpoint cannot be written
+     */
+    @Test(expected = IOException.class)
+    public void testCorruptCheckpoint() throws IOException {
+        Checkpoint.write(file, coffeeMaker);
+        try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw")) {
+            raf.seek(raf.length() - 1);
+            raf.write('X');
+        }
+        Checkpoint.open(file);
+    }
+
+    /**
+     * Given a file that is not a checkpoint
+     * When it is opened
+     * Then we get an exception
+     *
+     * @throws IOException if the file cannot be written
+     */
+    @Test(expected = IOException.class)
+    public void testNotACheckpoint() throws IOException {
+        Files.write(file, "Coffee,50".getBytes("UTF-8"));
+        Checkpoint.open(file);
+    }
+
+    /**
+     * Given an existing checkpoint
+     * When a new checkpoint is written over it
+     * Then the new state replaces the old one
+     *
+     * @throws IOException if the checkpoint cannot be written or read
+     */
+    @Test
+    public void testOverwrite() throws IOException {
+        Checkpoint.write(file, coffeeMaker);
+        coffeeMaker.deleteRecipe(0);
+        Checkpoint.write(file, coffeeMaker);
+        assertEquals(1, Checkpoint.open(file).getRecipeCount());
+    }
+}
@@ -0,0 +1,342 @@
+package edu.ncsu.csc326.coffeemaker.journal;
+
+import edu.ncsu.csc326.coffeemaker.CoffeeMaker;
+import edu.ncsu.csc326.coffeemaker.CoffeeMakerTest;
+import edu.ncsu.csc326.coffeemaker.IngredientRegistry;
+import edu.ncsu.csc326.coffeemaker.Inventory;
+import edu.ncsu.csc326.coffeemaker.Recipe;
+import edu.ncsu.csc326.coffeemaker.RecipeBook;
+import edu.ncsu.csc326.coffeemaker.Reservation;
+import edu.ncsu.csc326.coffeemaker.exceptions.InventoryException;
+import edu.ncsu.csc326.coffeemaker.exceptions.RecipeException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+
+/**
+ * Crash-recovery tests for Journal, JournalReader and
+ * JournaledCoffeeMaker.  A crash is simulated by copying the journal
+ * file while the coffee maker still has it open and recovering from
+ * the copy.
+ */
+public class JournalTest {
+    private Path dir;
+    private Path file;
+    private JournaledCoffeeMaker coffeeMaker;
+
+    // Sample recipes
+    private Recipe coffee;
+    private Recipe mocha;
+
+    /**
+     * Opens a journaled coffee maker on an empty journal in a
+     * temporary directory
+     *
+     * @throws IOException if the journal cannot be created
+     * @throws RecipeException if there was an error parsing the ingredient
+     *                         amount when setting up the recipe.
+     */
+    @Before
+    public void setUp() throws IOException, RecipeException {
+        dir = Files.createTempDirectory("journal");
+        file = dir.resolve("coffeemaker.wal");
+        coffeeMaker = JournaledCoffeeMaker.open(file, new RecipeBook(), new Inventory(), 0);
+        coffee = CoffeeMakerTest.createRecipe("Coffee", "0", "3", "1", "1", "50");
+        mocha = CoffeeMakerTest.createRecipe("Mocha", "2", "3", "1", "1", "75");
+    }
+
+    /**
+     * Closes the coffee maker and removes the temporary directory
+     *
+     * @throws IOException if the files cannot be removed
+     */
+    @After
+    public void tearDown() throws IOException {
+        coffeeMaker.close();
+        try (Stream<Path> files = Files.list(dir)) {
+            for (Path p : (Iterable<Path>) files::iterator) {
+                Files.delete(p);
+            }
+        }
+        Files.delete(dir);
+    }
+
+    /**
+     * Given a coffee maker whose recipes and stock were changed
+     * When it is closed and recovered from its journal
+     * Then the recovered coffee maker has the same recipes in the same
+     * slots and the same inventory
+     *
+     * @throws Exception if the journal cannot be written or read
+     */
+    @Test
+    public void testRecoverAfterClose() throws Exception {
+        coffeeMaker.addRecipe(coffee);
+        coffeeMaker.addRecipe(mocha);
+        coffeeMaker.addRecipe(CoffeeMakerTest.createRecipe("Latte", "0", "3", "3", "1", "100"));
+        coffeeMaker.addInventory("5", "0", "3", "7");
+        assertEquals(25, coffeeMaker.makeCoffee(0, 75));
+        assertEquals(0, coffeeMaker.makeCoffee(1, 75));
+        coffeeMaker.editRecipe(1, CoffeeMakerTest.createRecipe("Ignored", "1", "1", "1", "1", "60"));
+        assertEquals("Coffee", coffeeMaker.deleteRecipe(0));
+        coffeeMaker.close();
+
+        CoffeeMaker recovered = recover(file);
+        assertEquals(coffeeMaker.checkInventory(), recovered.checkInventory());
+        assertEquals(Arrays.asList(coffeeMaker.getRecipes()), Arrays.asList(recovered.getRecipes()));
+        assertEquals(60, recovered.getRecipes()[1].getPrice());
+        assertNull(recovered.getRecipes()[0]);
+    }
+
+    /**
+     * Given a coffee maker that waits for group commit
+     * When the process crashes right after purchases return
+     * Then every returned purchase is recovered
+     *
+     * @throws Exception if the journal cannot be written or read
+     */
+    @Test
+    public void testPurchasesDurableWhenReturned() throws Exception {
+        coffeeMaker.addRecipe(coffee);
+        for (int i = 0; i < 4; i++) {
+            assertEquals(0, coffeeMaker.makeCoffee(0, 50));
+        }
+        CoffeeMaker recovered = recover(crashImage());
+        assertEquals("Coffee: 3\nMilk: 11\nSugar: 11\nChocolate: 15\n", recovered.checkInventory());
+    }
+
+    /**
+     * Given a coffee maker with one committed, one released and one
+     * pending reservation
+     * When the process crashes right after the commit returns
+     * Then only the committed reservation's ingredients are used after recovery
+     *
+     * @throws Exception if the journal cannot be written or read
+     */
+    @Test
+    public void testCommittedReservationsDurable() throws Exception {
+        coffeeMaker.addRecipe(coffee);
+        Reservation committed = coffeeMaker.reserveCoffee(0, 60000);
+        Reservation released = coffeeMaker.reserveCoffee(0, 60000);
+        assertNotNull(coffeeMaker.reserveCoffee(0, 60000));
+        assertEquals(0, coffeeMaker.completePurchase(committed, 50));
+        assertEquals(50, coffeeMaker.completePurchase(committed, 50));
+        assertEquals(10, coffeeMaker.completePurchase(released, 10));
+        CoffeeMaker recovered = recover(crashImage());
+        assertEquals("Coffee: 12\nMilk: 14\nSugar: 14\nChocolate: 15\n", recovered.checkInventory());
+    }
+
+    /**
+     * Given a coffee maker that flushes purchases in the background
+     * When it crashes after an explicit flush
+     * Then everything up to the flush is recovered
+     *
+     * @throws Exception if the journal cannot be written or read
+     */
+    @Test
+    public void testDeferredPurchasesDurableAfterFlush() throws Exception {
+        coffeeMaker.close();
+        Files.delete(file);
+        coffeeMaker = JournaledCoffeeMaker.open(file, new RecipeBook(), new Inventory(), 60000);
+        coffeeMaker.addRecipe(coffee);
+        coffeeMaker.makeCoffee(0, 50);
+        coffeeMaker.makeCoffee(0, 50);
+        coffeeMaker.getJournal().flush();
+        CoffeeMaker recovered = recover(crashImage());
+        assertEquals("Coffee: 9\nMilk: 13\nSugar: 13\nChocolate: 15\n", recovered.checkInventory());
+    }
+
+    /**
+     * Given a journal whose last record was only partly written
+     * When it is recovered
+     * Then every complete record is applied, the torn tail is cut off
+     * and new records appended after recovery replay too
+     *
+     * @throws Exception if the journal cannot be written or read
+     */
+    @Test
+    public void testTornTail() throws Exception {
+        coffeeMaker.addRecipe(coffee);
+        coffeeMaker.makeCoffee(0, 50);
+        long good = Files.size(file);
+        coffeeMaker.makeCoffee(0, 50);
+        coffeeMaker.close();
+        try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw")) {
+            raf.setLength(Files.size(file) - 3);
+        }
+
+        coffeeMaker = JournaledCoffeeMaker.open(file, new RecipeBook(), new Inventory(), 0);
+        assertEquals(good, Files.size(file));
+        assertEquals("Coffee: 12\nMilk: 14\nSugar: 14\nChocolate: 15\n", coffeeMaker.checkInventory());
+        coffeeMaker.addInventory("1", "0", "0", "0");
+        coffeeMaker.close();
+        assertEquals("Coffee: 13\nMilk: 14\nSugar: 14\nChocolate: 15\n", recover(file).checkInventory());
+    }
+
+    /**
+     * Given a journal with a record whose bytes were damaged
+     * When it is recovered
+     * Then replay stops before the damaged record
+     *
+     * @throws Exception if the journal cannot be written or read
+     */
+    @Test
+    public void testChecksumMismatch() throws Exception {
+        coffeeMaker.addRecipe(coffee);
+        long good = Files.size(file);
+        coffeeMaker.addRecipe(mocha);
+        coffeeMaker.close();
+        try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw")) {
+            raf.seek(good + Journal.HEADER + 3);
+            raf.write('X');
+        }
+
+        CoffeeMaker recovered = recover(file);
+        assertEquals("Coffee", recovered.getRecipes()[0].getName());
+        assertNull(recovered.getRecipes()[1]);
+        assertEquals(good, Files.size(file));
+    }
+
+    /**
+     * Given a journal with a length field that runs past the file
+     * When it is recovered
+     * Then the garbage is cut off and nothing is applied from it
+     *
+     * @throws Exception if the journal cannot be written or read
+     */
+    @Test
+    public void testGarbageTail() throws Exception {
+        coffeeMaker.addRecipe(coffee);
+        coffeeMaker.close();
+        long good = Files.size(file);
+        Files.write(file, new byte[] {0x7f, 0, 0, 0, 1, 2, 3, 4, 5}, StandardOpenOption.APPEND);
+
+        // Three DEFINE records for the ingredients and the recipe itself
+        assertEquals(4, JournalReader.replay(file, new RecipeBook(), new Inventory()));
+        assertEquals(good, Files.size(file));
+    }
+
+    /**
+     * Given a recipe that uses a registered ingredient
+     * When it is journaled and recovered
+     * Then the ingredient is found by name
+     *
+     * @throws Exception if the journal cannot be written or read
+     */
+    @Test
+    public void testRegisteredIngredient() throws Exception {
+        Recipe oat = CoffeeMakerTest.createRecipe("Oat Latte", "0", "2", "0", "1", "80");
+        oat.setAmount("Oat Milk", "4");
+        coffeeMaker.addRecipe(oat);
+        coffeeMaker.close();
+
+        assertEquals(4, recover(file).getRecipes()[0].getAmount(IngredientRegistry.idOf("oat milk")));
+    }
+
+    /**
+     * Given a restock where a later ingredient is invalid
+     * When it is journaled and recovered
+     * Then only the ingredients that were added are recovered
+     *
+     * @throws Exception if the journal cannot be written or read
+     */
+    @Test
+    public void testPartialRestock() throws Exception {
+        try {
+            coffeeMaker.addInventory("4", "-1", "2", "2");
+            fail("A negative amount should throw");
+        } catch (InventoryException e) {
+            // expected
+        }
+        coffeeMaker.close();
+        assertEquals("Coffee: 19\nMilk: 15\nSugar: 15\nChocolate: 15\n", recover(file).checkInventory());
+    }
+
+    /**
+     * Given many threads purchasing with group commit
+     * When the process crashes after they finish
+     * Then every purchase is recovered and the purchases shared syncs
+     *
+     * @throws Exception if the journal cannot be written or read
+     */
+    @Test
+    public void testConcurrentGroupCommit() throws Exception {
+        coffeeMaker.addRecipe(CoffeeMakerTest.createRecipe("Espresso", "0", "1", "0", "0", "10"));
+        coffeeMaker.addInventory("2000", "0", "0", "0");
+        final CountDownLatch start = new CountDownLatch(1);
+        Thread[] threads = new Thread[8];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int j = 0; j < 100; j++) {
+                    coffeeMaker.makeCoffee(0, 10);
+                }
+            });
+            threads[i].start();
+        }
+        long before = coffeeMaker.getJournal().getSyncs();
+        start.countDown();
+        for (Thread t : threads) {
+            t.join();
+        }
+        long syncs = coffeeMaker.getJournal().getSyncs() - before;
+        assertTrue(syncs > 0 && syncs <= 800);
+
+        CoffeeMaker recovered = recover(crashImage());
+        assertEquals(15 + 2000 - 800, recovered.getInventory().getCoffee());
+    }
+
+    /**
+     * Given a journal file that does not exist
+     * When it is replayed
+     * Then nothing is applied
+     *
+     * @throws IOException if the journal cannot be read
+     */
+    @Test
+    public void testReplayMissingFile() throws IOException {
+        assertEquals(0, JournalReader.replay(dir.resolve("missing.wal"), new RecipeBook(), new Inventory()));
+    }
+
+    /**
+     * Given a closed journal
+     * When we append to it
+     * Then we get an exception
+     *
+     * @throws IOException if the journal cannot be closed
+     */
+    @Test(expected = IllegalStateException.class)
+    public void testAppendAfterClose() throws IOException {
+        coffeeMaker.close();
+        coffeeMaker.getJournal().deleteRecipe("Coffee");
+    }
+
+    private Path crashImage() throws IOException {
+        Path image = dir.resolve("crash.wal");
+        Files.copy(file, image, StandardCopyOption.REPLACE_EXISTING);
+        return image;
+    }
+
+    private static CoffeeMaker recover(Path journal) throws IOException {
+        RecipeBook recipeBook = new RecipeBook();
+        Inventory inventory = new Inventory();
+        JournalReader.replay(journal, recipeBook, inventory);
+        return new CoffeeMaker(recipeBook, inventory);
+    }
+}
@@ -0,0 +1,218 @@
+package edu.ncsu.csc326.coffeemaker.ledger;
+
+import edu.ncsu.csc326.coffeemaker.CoffeeMakerTest;
+import edu.ncsu.csc326.coffeemaker.Inventory;
+import edu.ncsu.csc326.coffeemaker.RecipeBook;
+import edu.ncsu.csc326.coffeemaker.exceptions.RecipeException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for SalesLedger.
+ */
+public class SalesLedgerTest {
+    private static final long START = 1700000000000L;
+
+    private Path dir;
+    private ForkJoinPool pool;
+    private SalesLedger ledger;
+
+    // The rows recorded by record(), kept for brute-force checks
+    private int[] slots;
+    private int[] paid;
+    private int[] change;
+    private long[] times;
+
+    /**
+     * Creates a ledger with small chunks that aggregates on four threads
+     *
+     * @throws IOException if the temporary directory cannot be created
+     */
+    @Before
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("ledger");
+        pool = new ForkJoinPool(4);
+        ledger = new SalesLedger(100, pool);
+    }
+
+    /**
+     * Removes the temporary directory and stops the pool
+     *
+     * @throws IOException if the files cannot be removed
+     */
+    @After
+    public void tearDown() throws IOException {
+        pool.shutdown();
+        try (Stream<Path> files = Files.list(dir)) {
+            for (Path p : (Iterable<Path>) files::iterator) {
+                Files.delete(p);
+            }
+        }
+        Files.delete(dir);
+    }
+
+    /**
+     * Given a coffee maker that records into a ledger
+     * When we buy coffee, underpay for it and buy a missing recipe
+     * Then only the sale is recorded, with what the machine kept
+     *
+     * @throws RecipeException if there was an error parsing the ingredient
+     *                         amount when setting up the recipe.
+     */
+    @Test
+    public void testRecordsSalesOnly() throws RecipeException {
+        LedgerCoffeeMaker coffeeMaker = new LedgerCoffeeMaker(new RecipeBook(), new Inventory(), ledger);
+        coffeeMaker.addRecipe(CoffeeMakerTest.createRecipe("Coffee", "0", "3", "1", "1", "50"));
+        assertEquals(25, coffeeMaker.makeCoffee(0, 75));
+        assertEquals(40, coffeeMaker.makeCoffee(0, 40));
+        assertEquals(60, coffeeMaker.makeCoffee(2, 60));
+        SalesSummary summary = ledger.summarize();
+        assertEquals(1, ledger.size());
+        assertEquals(1, summary.getOrders(0));
+        assertEquals(50, summary.getRevenue(0));
+        assertEquals("0: 1 orders, 50\n", summary.toString());
+    }
+
+    /**
+     * Given many sales spread over several days in many chunks
+     * When we summarize the whole ledger and random time ranges
+     * Then every total matches adding up the rows one by one
+     */
+    @Test
+    public void testSummariesMatchRows() {
+        recordRandom(2500, 7);
+        assertEquals(24, ledger.getSealedChunks());
+        checkRandomRanges(new Random(11));
+        assertEquals(0, ledger.summarize(START + 10, START + 10).getOrders());
+    }
+
+    /**
+     * Given sales in the first and third hour of a day
+     * When we ask for revenue by hour and over the day
+     * Then the second hour is empty and the hours add up to the day
+     */
+    @Test
+    public void testRevenueByHour() {
+        ledger.record(0, 50, 0, START);
+        ledger.record(1, 100, 25, START + SalesLedger.HOUR - 1);
+        ledger.record(0, 60, 10, START + 2 * SalesLedger.HOUR + 5);
+        ledger.record(0, 50, 0, START + 3 * SalesLedger.HOUR);
+        assertArrayEquals(new long[] {125, 0, 50}, ledger.revenueByHour(START, START + 3 * SalesLedger.HOUR));
+        assertEquals(175, ledger.revenue(START, START + 3 * SalesLedger.HOUR));
+        assertArrayEquals(new long[] {125, 0, 50, 50}, ledger.revenueByBucket(START, START + 3 * SalesLedger.HOUR + 1,
+                SalesLedger.HOUR));
+    }
+
+    /**
+     * Given a ledger whose sealed chunks were spilled to disk
+     * When we keep recording, then reopen the files as a new ledger
+     * Then the spilled ledger and the reopened one both aggregate
+     * exactly like the rows that went into them
+     *
+     * @throws IOException if the chunks cannot be written or read
+     */
+    @Test
+    public void testSpillAndReopen() throws IOException {
+        recordRandom(1050, 3);
+        assertEquals(10, ledger.spill(dir));
+        assertEquals(10, ledger.getSpilledChunks());
+        assertEquals(0, ledger.spill(dir));
+        checkRandomRanges(new Random(5));
+
+        SalesLedger reopened = SalesLedger.open(dir, pool);
+        assertEquals(1000, reopened.size());
+        assertEquals(10, reopened.getSpilledChunks());
+        // The open chunk was never spilled, so only the sealed rows remain
+        ledger = reopened;
+        slots = Arrays.copyOf(slots, 1000);
+        checkRandomRanges(new Random(6));
+    }
+
+    /**
+     * Given sales more than 24 days apart
+     * When we record them in the same chunk size
+     * Then the gap starts a new chunk and no time is lost
+     */
+    @Test
+    public void testLongGapStartsChunk() {
+        long later = START + 30L * 24 * SalesLedger.HOUR;
+        ledger.record(0, 50, 0, START);
+        ledger.record(0, 75, 0, later);
+        assertEquals(1, ledger.getSealedChunks());
+        assertEquals(75, ledger.revenue(later, later + 1));
+        assertEquals(50, ledger.revenue(START, later));
+    }
+
+    /**
+     * Records random sales over about two days, a few out of order.
+     */
+    private void recordRandom(int rows, long seed) {
+        Random random = new Random(seed);
+        slots = new int[rows];
+        paid = new int[rows];
+        change = new int[rows];
+        times = new long[rows];
+        long time = START;
+        for (int i = 0; i < rows; i++) {
+            time += random.nextInt(120000);
+            slots[i] = random.nextInt(5);
+            paid[i] = 50 + random.nextInt(100);
+            change[i] = random.nextInt(50);
+            times[i] = random.nextInt(20) == 0 ? time - random.nextInt(600000) : time;
+            ledger.record(slots[i], paid[i], change[i], times[i]);
+        }
+    }
+
+    /**
+     * Checks the whole ledger and random ranges of it against the
+     * first slots.length rows.
+     */
+    private void checkRandomRanges(Random random) {
+        check(Long.MIN_VALUE, Long.MAX_VALUE);
+        long span = times[slots.length - 1] - START;
+        for (int i = 0; i < 50; i++) {
+            long from = START - 1000 + (long) (random.nextDouble() * span);
+            long to = from + (long) (random.nextDouble() * span / 2);
+            check(from, to);
+            long[] hours = ledger.revenueByHour(from, to);
+            for (int h = 0; h < hours.length; h++) {
+                long start = from + h * SalesLedger.HOUR;
+                assertEquals(expected(start, Math.min(to, start + SalesLedger.HOUR), -1)[1], hours[h]);
+            }
+        }
+    }
+
+    private void check(long from, long to) {
+        SalesSummary summary = ledger.summarize(from, to);
+        long[] total = expected(from, to, -1);
+        assertEquals(total[0], summary.getOrders());
+        assertEquals(total[1], summary.getRevenue());
+        for (int slot = 0; slot < 5; slot++) {
+            long[] one = expected(from, to, slot);
+            assertEquals(one[0], summary.getOrders(slot));
+            assertEquals(one[1], summary.getRevenue(slot));
+        }
+    }
+
+    private long[] expected(long from, long to, int slot) {
+        long[] total = new long[2];
+        for (int i = 0; i < slots.length; i++) {
+            if (times[i] >= from && times[i] < to && (slot < 0 || slots[i] == slot)) {
+                total[0]++;
+                total[1] += paid[i] - change[i];
+            }
+        }
+        return total;
+    }
+}
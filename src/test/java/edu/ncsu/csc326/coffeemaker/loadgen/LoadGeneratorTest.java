@@ -0,0 +1,119 @@
+package edu.ncsu.csc326.coffeemaker.loadgen;
+
+import edu.ncsu.csc326.coffeemaker.AtomicInventory;
+import edu.ncsu.csc326.coffeemaker.CoffeeMaker;
+import edu.ncsu.csc326.coffeemaker.CoffeeMakerTest;
+import edu.ncsu.csc326.coffeemaker.Inventory;
+import edu.ncsu.csc326.coffeemaker.RecipeBook;
+import edu.ncsu.csc326.coffeemaker.exceptions.RecipeException;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.function.Supplier;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for LoadGenerator and Trace classes.
+ */
+public class LoadGeneratorTest {
+
+    /**
+     * Returns machines with a coffee recipe in slot 0 that costs 50,
+     * stocked with 15 units of everything.
+     */
+    private static Supplier<CoffeeMaker> machines(final boolean atomic) {
+        return () -> {
+            CoffeeMaker cm = new CoffeeMaker(new RecipeBook(), atomic ? new AtomicInventory() : new Inventory());
+            try {
+                cm.addRecipe(CoffeeMakerTest.createRecipe("Coffee", "0", "3", "1", "1", "50"));
+            } catch (RecipeException e) {
+                throw new IllegalStateException(e);
+            }
+            return cm;
+        };
+    }
+
+    private static Trace trace(int orders) {
+        Trace trace = new Trace();
+        for (int i = 0; i < orders; i++) {
+            trace.addMake(i, 0, 60);
+            if (i % 4 == 3) {
+                trace.addRestock(i, 12, 4, 4, 0);
+            }
+        }
+        return trace;
+    }
+
+    /**
+     * Given a trace file with comments, both kinds of event and a malformed line
+     * When we read it
+     * Then the events before the bad line are parsed and the bad line is reported
+     */
+    @Test
+    public void testReadTrace() throws IOException {
+        Trace trace = Trace.read(new BufferedReader(new StringReader(
+                "# rush hour\n1000 MAKE 0 75\n\n1250 RESTOCK 10 5 5 0\n")));
+        assertEquals(2, trace.size());
+        assertEquals(Trace.MAKE, trace.kind(0));
+        assertEquals(1000, trace.time(0));
+        assertEquals(75, trace.arg(0, 1));
+        assertEquals(Trace.RESTOCK, trace.kind(1));
+        assertEquals(10, trace.arg(1, 0));
+        try {
+            Trace.read(new BufferedReader(new StringReader("1000 MAKE 0 75\n1001 MAKE 0 -5\n")));
+            fail("A negative payment should be rejected");
+        } catch (IOException e) {
+            assertTrue(e.getMessage(), e.getMessage().startsWith("Line 2:"));
+        }
+    }
+
+    /**
+     * Given a trace of orders and restocks
+     * When we replay it flat out with one machine per thread
+     * Then every machine ends where a sequential replay of its events ends
+     */
+    @Test
+    public void testPerThreadReplayMatchesSequential() throws InterruptedException {
+        ReplayReport report = new LoadGenerator(trace(4000), machines(false), 4, false, LoadGenerator.FLAT_OUT).run();
+        assertEquals(5000, report.getEvents());
+        assertEquals(4000, report.getSold() + report.getRefused());
+        assertEquals(1000, report.getRestocks());
+        assertEquals(4, report.getActual().length);
+        assertTrue(report.matchesSequential());
+        assertTrue(report.isConserved());
+        assertEquals(4000, report.getMakeLatency().getCount());
+    }
+
+    /**
+     * Given a trace of orders and restocks
+     * When we replay it flat out against one shared lock-free machine
+     * Then no stock is created or lost
+     */
+    @Test
+    public void testSharedReplayIsConserved() throws InterruptedException {
+        ReplayReport report = new LoadGenerator(trace(20000), machines(true), 8, true, LoadGenerator.FLAT_OUT).run();
+        assertEquals(1, report.getActual().length);
+        assertTrue(report.isConserved());
+        assertEquals(5000, report.getRestocks());
+        assertTrue(report.toString().contains("p99"));
+    }
+
+    /**
+     * Given a trace spanning 400 ms
+     * When we replay it at four times the recorded speed
+     * Then the replay takes about 100 ms
+     */
+    @Test
+    public void testPacedReplay() throws InterruptedException {
+        Trace trace = new Trace();
+        for (int i = 0; i <= 400; i += 20) {
+            trace.addMake(i, 0, 50);
+        }
+        ReplayReport report = new LoadGenerator(trace, machines(false), 2, true, 4).run();
+        assertTrue(report.getElapsedNanos() >= 100000000L);
+        assertEquals(5, report.getSold());
+    }
+}
@@ -0,0 +1,163 @@
+package edu.ncsu.csc326.coffeemaker.metrics;
+
+import edu.ncsu.csc326.coffeemaker.CoffeeMakerTest;
+import edu.ncsu.csc326.coffeemaker.Inventory;
+import edu.ncsu.csc326.coffeemaker.Receipt;
+import edu.ncsu.csc326.coffeemaker.RecipeBook;
+import edu.ncsu.csc326.coffeemaker.exceptions.RecipeException;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for PurchaseMetrics, LatencyHistogram and
+ * InstrumentedCoffeeMaker.
+ */
+public class PurchaseMetricsTest {
+    /**
+     * The object under test, timing every order
+     */
+    private InstrumentedCoffeeMaker coffeeMaker;
+
+    /**
+     * Adds a coffee (50) and a mocha (75, 20 chocolate) to an
+     * instrumented coffee maker with the default inventory
+     *
+     * @throws RecipeException if there was an error parsing the ingredient
+     *                         amount when setting up the recipe.
+     */
+    @Before
+    public void setUp() throws RecipeException {
+        coffeeMaker = new InstrumentedCoffeeMaker(new RecipeBook(), new Inventory(), new PurchaseMetrics(0));
+        coffeeMaker.addRecipe(CoffeeMakerTest.createRecipe("Coffee", "0", "3", "1", "1", "50"));
+        coffeeMaker.addRecipe(CoffeeMakerTest.createRecipe("Mocha", "20", "3", "1", "1", "75"));
+    }
+
+    /**
+     * Given an instrumented coffee maker
+     * When we place orders ending in each outcome
+     * Then every outcome is counted in total and per recipe, and
+     * only sold orders add revenue
+     */
+    @Test
+    public void testOutcomeCounters() {
+        assertEquals(25, coffeeMaker.makeCoffee(0, 75));
+        assertEquals(0, coffeeMaker.makeCoffee(0, 50));
+        assertEquals(10, coffeeMaker.makeCoffee(0, 10));
+        assertEquals(100, coffeeMaker.makeCoffee(1, 100));
+        assertEquals(50, coffeeMaker.makeCoffee(3, 50));
+
+        MetricsSnapshot snapshot = coffeeMaker.getMetrics().snapshot();
+        assertEquals(2, snapshot.getCount(Receipt.SOLD));
+        assertEquals(1, snapshot.getCount(Receipt.INSUFFICIENT_PAYMENT));
+        assertEquals(1, snapshot.getCount(Receipt.OUT_OF_STOCK));
+        assertEquals(1, snapshot.getCount(Receipt.NO_SUCH_RECIPE));
+        assertEquals(5, snapshot.getOrders());
+        assertEquals(100, snapshot.getRevenue());
+        assertEquals(2, snapshot.getCount(0, Receipt.SOLD));
+        assertEquals(1, snapshot.getCount(0, Receipt.INSUFFICIENT_PAYMENT));
+        assertEquals(1, snapshot.getCount(1, Receipt.OUT_OF_STOCK));
+        assertEquals(1, snapshot.getCount(3, Receipt.NO_SUCH_RECIPE));
+        assertEquals(0, snapshot.getCount(7, Receipt.SOLD));
+    }
+
+    /**
+     * Given an instrumented coffee maker
+     * When we order recipes far past the end of the recipe book
+     * Then the refunds are counted in total without per-recipe counters
+     */
+    @Test
+    public void testStrayRecipeIsCountedInTotal() {
+        assertEquals(50, coffeeMaker.makeCoffee(2_000_000_000, 50));
+        assertEquals(50, coffeeMaker.makeCoffee(Integer.MAX_VALUE, 50));
+        int[] change = new int[1];
+        assertEquals(0, coffeeMaker.makeCoffeeBatch(new int[] {1_000_000_000}, new int[] {50}, change));
+
+        MetricsSnapshot snapshot = coffeeMaker.getMetrics().snapshot();
+        assertEquals(3, snapshot.getCount(Receipt.NO_SUCH_RECIPE));
+        assertEquals(0, snapshot.getCount(2_000_000_000, Receipt.NO_SUCH_RECIPE));
+        assertEquals(0, snapshot.getRecipeSlots());
+    }
+
+    /**
+     * Given an instrumented coffee maker that times every order
+     * When we make a batch of coffee
+     * Then each order of the batch is counted and timed
+     */
+    @Test
+    public void testBatchIsCounted() {
+        int[] change = new int[3];
+        assertEquals(2, coffeeMaker.makeCoffeeBatch(new int[] {0, 0, 1}, new int[] {50, 60, 75}, change));
+
+        MetricsSnapshot snapshot = coffeeMaker.getMetrics().snapshot();
+        assertEquals(2, snapshot.getCount(Receipt.SOLD));
+        assertEquals(1, snapshot.getCount(Receipt.OUT_OF_STOCK));
+        assertEquals(3, snapshot.getMakeCoffeeLatency().getCount());
+        assertEquals(3, snapshot.getUseIngredientsLatency().getCount());
+    }
+
+    /**
+     * Given a new histogram
+     * When we record known values
+     * Then counts, max, mean and percentiles are within the bucket precision
+     */
+    @Test
+    public void testHistogramPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i * 1000L);
+        }
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(1000, snapshot.getCount());
+        assertEquals(1000000, snapshot.getMax());
+        assertEquals(500500.0, snapshot.getMean(), 0.001);
+        assertEquals(500000, snapshot.valueAt(50), 500000 / 16);
+        assertEquals(990000, snapshot.valueAt(99), 990000 / 16);
+        assertEquals(1000000, snapshot.valueAt(100), 1000000 / 16);
+    }
+
+    /**
+     * Given the bucket layout of the histogram
+     * When we map values to buckets and back
+     * Then each value lies within its bucket and small values are exact
+     */
+    @Test
+    public void testHistogramBuckets() {
+        for (long v = 0; v < 16; v++) {
+            assertEquals(v, LatencyHistogram.lowerBound(LatencyHistogram.index(v)));
+        }
+        long[] values = {16, 17, 31, 32, 1000, 123456789L, LatencyHistogram.MAX_VALUE};
+        for (long v : values) {
+            int index = LatencyHistogram.index(v);
+            assertTrue(LatencyHistogram.lowerBound(index) <= v);
+            assertTrue(v < LatencyHistogram.lowerBound(index + 1));
+        }
+    }
+
+    /**
+     * Given a histogram
+     * When we record negative or oversized latencies
+     * Then they are clamped into the first and last bucket
+     */
+    @Test
+    public void testHistogramClamps() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(-5);
+        histogram.record(Long.MAX_VALUE);
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(2, snapshot.getCount());
+        assertEquals(0, snapshot.valueAt(50));
+        assertEquals(LatencyHistogram.MAX_VALUE, snapshot.getMax());
+    }
+
+    /**
+     * Given we want to sample more rarely than one order in 2^30
+     * When we create the metrics
+     * Then we get an exception
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidSampleShift() {
+        new PurchaseMetrics(31);
+    }
+}
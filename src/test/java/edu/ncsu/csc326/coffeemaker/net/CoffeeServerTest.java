@@ -0,0 +1,174 @@
+package edu.ncsu.csc326.coffeemaker.net;
+
+import edu.ncsu.csc326.coffeemaker.CoffeeMaker;
+import edu.ncsu.csc326.coffeemaker.CoffeeMakerTest;
+import edu.ncsu.csc326.coffeemaker.exceptions.RecipeException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Loopback tests for CoffeeServer and its line protocol.
+ */
+public class CoffeeServerTest {
+    private CoffeeMaker coffeeMaker;
+    private CoffeeServer server;
+    private final List<Socket> sockets = new ArrayList<>();
+
+    /**
+     * Starts a two-loop server for a coffee maker with one recipe.
+     *
+     * @throws Exception if the server cannot start
+     */
+    @Before
+    public void setUp() throws Exception {
+        coffeeMaker = new CoffeeMaker();
+        coffeeMaker.addRecipe(CoffeeMakerTest.createRecipe("Coffee", "0", "3", "1", "1", "50"));
+        server = new CoffeeServer(coffeeMaker, new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 2);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        for (Socket s : sockets) {
+            s.close();
+        }
+        server.close();
+    }
+
+    private Socket connect() throws IOException {
+        Socket s = new Socket(InetAddress.getLoopbackAddress(), server.getAddress().getPort());
+        s.setSoTimeout(10000);
+        sockets.add(s);
+        return s;
+    }
+
+    private static List<String> exchange(Socket s, String requests, int responses) throws IOException {
+        OutputStream out = s.getOutputStream();
+        out.write(requests.getBytes(StandardCharsets.UTF_8));
+        out.flush();
+        BufferedReader in = new BufferedReader(new InputStreamReader(s.getInputStream(), StandardCharsets.UTF_8));
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < responses; i++) {
+            lines.add(in.readLine());
+        }
+        return lines;
+    }
+
+    /**
+     * Given a connected client
+     * When it pipelines make-coffee, inventory and recipe requests in one write
+     * Then every request is answered in order
+     *
+     * @throws IOException if the connection fails
+     */
+    @Test
+    public void testPipelinedRequests() throws IOException {
+        List<String> responses = exchange(connect(),
+                "MAKE 0 75\nMAKE 0 20\nMAKE 5 10\r\nSTOCK\nRESTOCK 1 2 3 -4\nRESTOCK 1 2 3 4\n"
+                        + "ADD 60 1 1 0 2 Hot Chocolate\nGET 1\nEDIT 1 65 0 1 0 3\nGET 1\nDELETE 1\nGET 1\nFLY\n",
+                13);
+        assertEquals(Arrays.asList(
+                "OK 25",
+                "NO 20 insufficient payment",
+                "NO 10 no such recipe",
+                "OK 12 14 14 15",
+                "ERR Units of chocolate must be a positive integer",
+                "OK",
+                "OK 1",
+                "OK 60 1 1 0 2 Hot Chocolate",
+                "OK Hot Chocolate",
+                "OK 65 0 1 0 3 Hot Chocolate",
+                "OK Hot Chocolate",
+                "ERR No recipe in slot 1",
+                "ERR Unknown command"), responses);
+        assertEquals(13, coffeeMaker.getInventory().getCoffee());
+    }
+
+    /**
+     * Given a connected client
+     * When it sends a line longer than the protocol allows
+     * Then it gets an error and the connection is closed
+     *
+     * @throws IOException if the connection fails
+     */
+    @Test
+    public void testLineTooLong() throws IOException {
+        char[] line = new char[Protocol.MAX_LINE + 10];
+        Arrays.fill(line, 'A');
+        Socket s = connect();
+        assertEquals(Arrays.asList("ERR Line too long", null), exchange(s, new String(line), 2));
+    }
+
+    /**
+     * Given many clients on a server with two event loops
+     * When each pipelines a burst of purchases and then quits
+     * Then every purchase is answered and the inventory adds up
+     *
+     * @throws Exception if a client fails
+     */
+    @Test
+    public void testManyConnections() throws Exception {
+        coffeeMaker.getInventory().setCoffee(100000);
+        coffeeMaker.getInventory().setMilk(100000);
+        coffeeMaker.getInventory().setSugar(100000);
+        StringBuilder burst = new StringBuilder();
+        for (int i = 0; i < 500; i++) {
+            burst.append("MAKE 0 50\n");
+        }
+        List<Thread> clients = new ArrayList<>();
+        final List<Throwable> failures = new ArrayList<>();
+        for (int c = 0; c < 20; c++) {
+            final Socket s = connect();
+            Thread t = new Thread(() -> {
+                try {
+                    for (String response : exchange(s, burst.toString(), 500)) {
+                        assertEquals("OK 0", response);
+                    }
+                } catch (Throwable e) {
+                    synchronized (failures) {
+                        failures.add(e);
+                    }
+                }
+            });
+            clients.add(t);
+            t.start();
+        }
+        for (Thread t : clients) {
+            t.join();
+        }
+        assertEquals(new ArrayList<Throwable>(), failures);
+        assertEquals(100000 - 20 * 500 * 3, coffeeMaker.getInventory().getCoffee());
+        assertEquals(20, server.getConnections());
+    }
+
+    /**
+     * Given a connected client
+     * When it sends QUIT
+     * Then the server closes the connection
+     *
+     * @throws Exception if the connection fails
+     */
+    @Test
+    public void testQuit() throws Exception {
+        Socket s = connect();
+        assertEquals(Arrays.asList("OK 15 15 15 15", null), exchange(s, "STOCK\nQUIT\nSTOCK\n", 2));
+        for (int i = 0; i < 100 && server.getConnections() > 0; i++) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, server.getConnections());
+    }
+}
@@ -0,0 +1,99 @@
+package edu.ncsu.csc326.coffeemaker.net;
+
+import edu.ncsu.csc326.coffeemaker.CoffeeMaker;
+import edu.ncsu.csc326.coffeemaker.CoffeeMakerTest;
+import edu.ncsu.csc326.coffeemaker.exceptions.RecipeException;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for ScriptRunner class.
+ */
+public class ScriptRunnerTest {
+    private CoffeeMaker coffeeMaker;
+    private ScriptRunner runner;
+
+    /**
+     * Sets up a coffee maker with one coffee recipe that costs 50.
+     *
+     * @throws RecipeException if there was an error parsing the ingredient
+     *                         amount when setting up the recipe.
+     */
+    @Before
+    public void setUp() throws RecipeException {
+        coffeeMaker = new CoffeeMaker();
+        coffeeMaker.addRecipe(CoffeeMakerTest.createRecipe("Coffee", "0", "3", "1", "1", "50"));
+        runner = new ScriptRunner(coffeeMaker);
+    }
+
+    private String run(String script) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        runner.run(Channels.newChannel(new ByteArrayInputStream(script.getBytes(StandardCharsets.UTF_8))),
+                Channels.newChannel(out));
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Given a script with comments, blank lines and no final line break
+     * When we run it
+     * Then every command is answered in order and counted by outcome
+     *
+     * @throws IOException if the script cannot be read
+     */
+    @Test
+    public void testRunScript() throws IOException {
+        String output = run("# morning rush\nMAKE 0 60\n\nMAKE 0 10\r\nRESTOCK 1 1 x 1\nSTOCK");
+        assertEquals("OK 10\nNO 10 insufficient payment\nERR Units of sugar must be a positive integer\n"
+                + "OK 12 14 14 15\n", output);
+        assertEquals(4, runner.getCommands());
+        assertEquals(2, runner.getOk());
+        assertEquals(1, runner.getRefused());
+        assertEquals(1, runner.getErrors());
+        assertTrue(runner.summary().startsWith("4 commands (2 ok, 1 refused, 1 errors)"));
+    }
+
+    /**
+     * Given a script with a line longer than the protocol allows
+     * When we run it
+     * Then that line is reported and the commands after it still run
+     *
+     * @throws IOException if the script cannot be read
+     */
+    @Test
+    public void testLongLineIsSkipped() throws IOException {
+        char[] line = new char[ScriptRunner.BUFFER + 100];
+        Arrays.fill(line, 'A');
+        String output = run("STOCK\n" + new String(line) + "\nMAKE 0 50\nQUIT\nMAKE 0 50\n");
+        assertEquals("OK 15 15 15 15\nERR Line too long\nOK 0\n", output);
+        assertEquals(12, coffeeMaker.getInventory().getCoffee());
+    }
+
+    /**
+     * Given a script of a million purchases piped in without output
+     * When we run it
+     * Then it completes in one pass and the inventory runs out as expected
+     *
+     * @throws IOException if the script cannot be read
+     */
+    @Test
+    public void testLongScript() throws IOException {
+        coffeeMaker.getInventory().setCoffee(3000);
+        byte[] request = "MAKE 0 50\n".getBytes(StandardCharsets.US_ASCII);
+        byte[] script = new byte[request.length * 1000000];
+        for (int i = 0; i < 1000000; i++) {
+            System.arraycopy(request, 0, script, i * request.length, request.length);
+        }
+        assertEquals(1000000, runner.run(Channels.newChannel(new ByteArrayInputStream(script)), null));
+        assertEquals(15, runner.getOk());
+        assertEquals(1000000 - 15, runner.getRefused());
+    }
+}
@@ -0,0 +1,142 @@
+package edu.ncsu.csc326.coffeemaker.service;
+
+import edu.ncsu.csc326.coffeemaker.AtomicInventory;
+import edu.ncsu.csc326.coffeemaker.CoffeeMaker;
+import edu.ncsu.csc326.coffeemaker.CoffeeMakerTest;
+import edu.ncsu.csc326.coffeemaker.Receipt;
+import edu.ncsu.csc326.coffeemaker.RecipeBook;
+import edu.ncsu.csc326.coffeemaker.exceptions.RecipeException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for OrderService class.
+ */
+public class OrderServiceTest {
+    private AtomicInventory inventory;
+    private CoffeeMaker coffeeMaker;
+    private OrderService service;
+
+    /**
+     * Sets up a coffee maker with one coffee recipe that costs 50.
+     *
+     * @throws RecipeException if there was an error parsing the ingredient
+     *                         amount when setting up the recipe.
+     */
+    @Before
+    public void setUp() throws RecipeException {
+        inventory = new AtomicInventory();
+        coffeeMaker = new CoffeeMaker(new RecipeBook(), inventory);
+        coffeeMaker.addRecipe(CoffeeMakerTest.createRecipe("Coffee", "0", "3", "1", "1", "50"));
+    }
+
+    @After
+    public void tearDown() {
+        if (service != null) {
+            service.close();
+        }
+    }
+
+    /**
+     * Given an order service on its default executor
+     * When we order a coffee we can pay for, one we cannot, and an empty slot
+     * Then each future completes with the change and the reason
+     *
+     * @throws Exception if an order fails
+     */
+    @Test
+    public void testOrderResults() throws Exception {
+        service = new OrderService(coffeeMaker, 16);
+        OrderResult sold = service.order(0, 75).get();
+        OrderResult poor = service.order(0, 20).get();
+        OrderResult empty = service.order(2, 40).get();
+        assertTrue(sold.isSold());
+        assertEquals(25, sold.getChange());
+        assertEquals(Receipt.INSUFFICIENT_PAYMENT, poor.getOutcome());
+        assertEquals(20, poor.getChange());
+        assertEquals("no such recipe", empty.getReason());
+        assertEquals(40, empty.getChange());
+        assertEquals(3, service.getLatency().getCount());
+        assertEquals(0, service.getPending());
+    }
+
+    /**
+     * Given an order service whose executor has not run anything yet
+     * When we place more orders than the service may hold pending
+     * Then the extra order fails straight away and is accepted once
+     * the pending orders have run
+     *
+     * @throws Exception if an order fails
+     */
+    @Test
+    public void testBackpressure() throws Exception {
+        final List<Runnable> queued = new ArrayList<>();
+        service = new OrderService(coffeeMaker, queued::add, 2);
+        CompletableFuture<OrderResult> first = service.order(0, 50);
+        CompletableFuture<OrderResult> second = service.order(0, 50);
+        CompletableFuture<OrderResult> third = service.order(0, 50);
+        assertEquals(2, service.getPending());
+        assertTrue(third.isCompletedExceptionally());
+        try {
+            third.get();
+            fail("The third order should be rejected");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof RejectedExecutionException);
+        }
+        assertEquals(1, service.getRejected());
+        for (Runnable r : queued) {
+            r.run();
+        }
+        assertTrue(first.get().isSold());
+        assertTrue(second.get().isSold());
+        assertEquals(0, service.getPending());
+        assertFalse(service.order(0, 50).isCompletedExceptionally());
+    }
+
+    /**
+     * Given an order service with room for more than 100k pending orders
+     * When we place 100k orders at once against stock for 1000 coffees
+     * Then every order completes and exactly 1000 are sold
+     */
+    @Test
+    public void testManyPendingOrders() {
+        inventory.setCoffee(3000);
+        inventory.setMilk(1000);
+        inventory.setSugar(1000);
+        service = new OrderService(coffeeMaker, 1 << 17);
+        List<CompletableFuture<OrderResult>> orders = new ArrayList<>();
+        for (int i = 0; i < 100000; i++) {
+            orders.add(service.order(0, 50));
+        }
+        int sold = 0;
+        for (CompletableFuture<OrderResult> order : orders) {
+            if (order.join().isSold()) {
+                sold++;
+            }
+        }
+        assertEquals(1000, sold);
+        assertEquals(0, service.getRejected());
+        assertEquals(100000, service.getLatency().getCount());
+    }
+
+    /**
+     * Given a closed order service
+     * When we place an order
+     * Then the order is rejected
+     */
+    @Test
+    public void testClosedServiceRejects() {
+        service = new OrderService(coffeeMaker, 4);
+        service.close();
+        assertTrue(service.order(0, 50).isCompletedExceptionally());
+    }
+}